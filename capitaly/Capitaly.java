@@ -1,8 +1,22 @@
 package capitaly;
 
+import capitaly.dice.RollSource;
+import capitaly.event.ConsoleSink;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.event.GameSink;
+import capitaly.player.LookaheadPlayer;
 import capitaly.player.Player;
+import capitaly.io.FileRollSource;
 import capitaly.io.InputDataParser;
 import capitaly.io.InvalidInputException;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.GameSnapshot;
+import capitaly.kernel.Zobrist;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
+import capitaly.tile.RealEstateTile;
+import capitaly.tile.Tile;
 
 import java.util.*;
 
@@ -21,11 +35,31 @@ public final class Capitaly {
      */
     private final List<Player> players;
 
+    /**
+     * The players who started the game, in seat order.
+     */
+    private final List<Player> seats;
+
+    /**
+     * The seats of the players, by identity.
+     */
+    private final Map<Player, Integer> seatOf;
+
+    /**
+     * The sink receiving the output of the game.
+     */
+    private GameSink sink;
+
     /**
      * The index of the current player.
      */
     private int currentPlayerIndex;
 
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
     /**
      * Constructs a new Capitaly game with the given track and players.
      *
@@ -35,87 +69,140 @@ public final class Capitaly {
     public Capitaly(Track track, List<Player> players) {
         this.track = track;
         this.players = new ArrayList<>(players);
+        this.seats = List.copyOf(players);
+        this.seatOf = new IdentityHashMap<>();
+        for (int seat = 0; seat < this.seats.size(); seat++) this.seatOf.put(this.seats.get(seat), seat);
+        this.sink = GameSink.NONE;
         this.currentPlayerIndex = 0;
+        this.turns = 0;
+        for (Player player : players) if (player instanceof LookaheadPlayer lookahead) lookahead.join(this);
     }
 
     /**
      * The entry point of the program.
-     * Starts the game with the given arguments.
+     * Starts the game with the given arguments. The rolls of the input file are streamed from it as the game goes, so
+     * a roll is only validated once it is played.
      *
      * @param args The arguments of the program (the path of the input file).
      * @throws InvalidInputException If the input is invalid.
      */
     public static void main(String[] args) throws InvalidInputException {
         System.out.println("Please provide the path of the input file!");
-        String path = (new Scanner(System.in)).nextLine();
-        InputDataParser parser = new InputDataParser(path);
+        Scanner scanner = new Scanner(System.in);
+        String path = scanner.nextLine();
+        InputDataParser parser = new InputDataParser(path, false);
         Capitaly game = new Capitaly(parser.getTrack(), parser.getPlayers());
+        game.setSink(new ConsoleSink(System.out, game.getSeats()));
 
-        int[] rolls = parser.getDiceRolls();
-        if (rolls == null) game.manualGame();
-        else game.simulateGame(rolls);
+        try (FileRollSource rolls = new FileRollSource(path)) {
+            if (!rolls.hasRolls()) game.manualGame(scanner);
+            else game.simulateGame(rolls);
+        }
     }
 
     /**
      * Starts the game in manual mode.
      * The user can roll the die manually.
-     * The game ends when there is only one player left.
+     * The game ends when there is only one player left, or when the input ends.
+     *
+     * @param scanner The scanner reading the rolls from the user.
+     * @return The result of the game.
      */
-    private void manualGame() {
+    private GameResult manualGame(Scanner scanner) {
         System.out.println("Manual mode");
-        Scanner scanner = new Scanner(System.in);
 
-        while (true) {
+        boolean over = false;
+        while (!over) {
             System.out.println("-------------------------------------------------------------");
             System.out.print(players.get(currentPlayerIndex % players.size()).getName() + ": ");
-            if (scanner.hasNextLine()) {
-                try {
-                    int value = InputDataParser.parseDiceRoll(scanner.nextLine());
-                    this.progress(value);
-                    this.info();
-                } catch (InvalidInputException exception) {
-                    System.out.println("\nPlease provide an integer between 1 and 6 for the dice roll!");
-                }
+            if (!scanner.hasNextLine()) break;
+            try {
+                int value = InputDataParser.parseDiceRoll(scanner.nextLine());
+                over = this.progress(value);
+                this.info();
+            } catch (InvalidInputException exception) {
+                System.out.println("\nPlease provide an integer between 1 and 6 for the dice roll!");
             }
         }
+        this.sink.close();
+        return this.getResult();
     }
 
     /**
      * Starts the game in simulation mode.
      *
      * @param rolls The rolls of the die.
+     * @return The result of the game.
      */
-    private void simulateGame(int[] rolls) {
+    private GameResult simulateGame(RollSource rolls) {
         System.out.println("Simulation mode");
-        this.progress(rolls);
+        GameResult result = this.play(rolls);
         this.info();
+        this.sink.close();
+        return result;
+    }
+
+    /**
+     * Plays the game with the given rolls until it is over or the source is exhausted.
+     * The end of the game is reported to the sink, the sink is left open.
+     *
+     * @param rolls The rolls of the die.
+     * @return The result of the game.
+     */
+    public GameResult play(RollSource rolls) {
+        for (int roll = rolls.nextRoll(); roll != RollSource.END; roll = rolls.nextRoll())
+            if (this.progress(roll)) break;
+        if (GameMetrics.ENABLED && !this.seats.isEmpty()) this.seats.get(0).getContext().getMetrics().flush();
+        return this.getResult();
     }
 
     /**
      * Progresses the game with the given roll, rolled by the current player.
+     * Reports the end of the game to the sink once the game is won.
      *
      * @param roll The roll of the die.
+     * @return Whether the game is over after the turn.
      */
-    private void progress(int roll) {
-        if (this.currentPlayerIndex >= this.players.size()) this.currentPlayerIndex = 0;
-        Player player = this.players.get(this.currentPlayerIndex++);
-        track.progress(player, roll);
-        if (player.isBankrupt()) this.eliminate(player);
+    private boolean progress(int roll) {
+        this.advance(roll);
+        if (!this.isOver()) return false;
 
-        if (players.size() == 1) {
-            System.out.println(players.get(0).getName() + " won the game!");
-            this.info();
-            System.exit(0);
-        }
+        this.sink.onGameOver(this.seatOf.get(players.get(0)));
+        return true;
     }
 
     /**
-     * Progresses the game with the given rolls.
+     * Progresses the game with the given roll, rolled by the current player.
+     * Unlike {@link #play}, it does not report the end of the game to the sink.
      *
-     * @param rolls The rolls of the die.
+     * @param roll The roll of the die.
+     * @return Whether the game is over after the turn.
+     */
+    public boolean step(int roll) {
+        this.advance(roll);
+        return this.isOver();
+    }
+
+    /**
+     * Moves the current player with the given roll and eliminates them if they went bankrupt.
+     *
+     * @param roll The roll of the die.
      */
-    private void progress(int[] rolls) {
-        for (Integer roll : rolls) this.progress(roll);
+    private void advance(int roll) {
+        if (this.currentPlayerIndex >= this.players.size()) this.currentPlayerIndex = 0;
+        Player player = this.players.get(this.currentPlayerIndex++);
+        this.turns++;
+        int seat = this.seatOf.get(player);
+        track.progress(player, roll, seat, this.sink);
+        if (!player.isBankrupt()) return;
+
+        this.sink.onEvent(EventType.ELIMINATION, seat, this.track.getPosition(player), 0);
+        this.eliminate(player);
+        if (GameMetrics.ENABLED && this.isOver()) {
+            MetricsRecorder metrics = player.getContext().getMetrics();
+            metrics.gameOver();
+            metrics.flush();
+        }
     }
 
     /**
@@ -124,18 +211,220 @@ public final class Capitaly {
      * @param player The player to eliminate.
      */
     private void eliminate(Player player) {
+        if (GameMetrics.ENABLED) player.getContext().getMetrics().elimination();
         player.lose();
         this.track.remove(player);
         this.players.remove(player);
-        System.out.println(player.getName() + " got eliminated.");
     }
 
     /**
-     * Prints the information about the players still in the game.
+     * Returns whether the game is over, i.e. there is only one player left.
+     *
+     * @return Whether the game is over.
      */
-    private void info() {
-        for (Player player : this.players) {
-            System.out.println(player);
+    public boolean isOver() {
+        return this.players.size() <= 1;
+    }
+
+    /**
+     * Returns the winner of the game.
+     *
+     * @return The last player standing, or null if the game is not over yet.
+     */
+    public Player getWinner() {
+        return this.players.size() == 1 ? this.players.get(0) : null;
+    }
+
+    /**
+     * Returns the result of the game so far.
+     *
+     * @return The result, without a winner if the game is not over yet.
+     */
+    public GameResult getResult() {
+        return new GameResult(this.getWinner(), this.turns, this.players);
+    }
+
+    /**
+     * Returns the players still in the game.
+     *
+     * @return The unmodifiable list of the players still in the game.
+     */
+    public List<Player> getPlayers() {
+        return Collections.unmodifiableList(this.players);
+    }
+
+    /**
+     * Sets the listener receiving the events of the game, with players identified by their seat (the index in the list
+     * the game was constructed with) and tiles by their index on the track.
+     *
+     * @param listener The listener, {@link GameEventListener#NONE} to stop reporting events.
+     */
+    public void setListener(GameEventListener listener) {
+        this.setSink(GameSink.of(listener));
+    }
+
+    /**
+     * Sets the sink receiving the output of the game: its events, with players identified by their seat and tiles by
+     * their index on the track, its end and its standings. Nothing is printed by the game itself.
+     *
+     * @param sink The sink, {@link GameSink#NONE} to discard the output.
+     */
+    public void setSink(GameSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Returns the players who started the game, including the eliminated ones.
+     *
+     * @return The unmodifiable list of the players, in seat order.
+     */
+    public List<Player> getSeats() {
+        return this.seats;
+    }
+
+    /**
+     * Returns the track of the game.
+     *
+     * @return The track of the game.
+     */
+    public Track getTrack() {
+        return this.track;
+    }
+
+    /**
+     * Returns the number of turns played.
+     *
+     * @return The number of turns played.
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * Returns the {@link Zobrist} hash of the state the rest of the game depends on, as
+     * {@link GameKernel#getStateHash()} does, with players and tiles identified by their IDs: the turn order and the
+     * player taking the next turn, the positions, capitals and strategy states of the players still in the game, the
+     * bankruptcies, and the owners and houses of the tiles. The games built from specs, whose IDs are the seats and the
+     * indexes of the tiles on the track, hash the same as a kernel in the same state.
+     * <p>
+     * The tiles are hashed incrementally by the {@link capitaly.tile.PropertyIndex property index} as they change
+     * hands, the players when asked, since their positions and capitals change every turn.
+     *
+     * @return The hash of the state.
+     */
+    public long getStateHash() {
+        int current = this.currentPlayerIndex >= this.players.size() ? 0 : this.currentPlayerIndex;
+        long hash = Zobrist.current(current);
+        for (int index = 0; index < this.players.size(); index++) hash ^= Zobrist.order(index, this.players.get(index).UID);
+        for (Player player : this.seats) {
+            if (player.isBankrupt()) {
+                hash ^= Zobrist.bankrupt(player.UID);
+                continue;
+            }
+            hash ^= Zobrist.position(player.UID, this.track.getPosition(player)) ^ Zobrist.capital(player.UID, player.getCapital());
+            if (player.getStrategyState() != 0) hash ^= Zobrist.skip(player.UID);
+        }
+        if (!this.seats.isEmpty()) hash ^= this.seats.get(0).getContext().getPropertyIndex().getTileHash();
+        return hash;
+    }
+
+    /**
+     * Takes a snapshot of the current state of the game.
+     * Players are identified by the order they were given in and tiles by their index on the track,
+     * so the snapshot can also be restored into a {@link GameKernel} of the same scenario.
+     *
+     * @return The snapshot.
+     */
+    public GameSnapshot snapshot() {
+        List<Tile> tiles = this.track.getTiles();
+        int length = tiles.size();
+        int count = this.seats.size();
+
+        Map<Tile, Integer> indexOf = new IdentityHashMap<>();
+        for (int index = 0; index < length; index++) indexOf.put(tiles.get(index), index);
+
+        int[] tileOwner = new int[length];
+        boolean[] tileHouse = new boolean[length];
+        int[] nextOwned = new int[length];
+        Arrays.fill(nextOwned, GameKernel.NONE);
+        for (int index = 0; index < length; index++) {
+            tileOwner[index] = GameKernel.NONE;
+            if (tiles.get(index) instanceof RealEstateTile tile && tile.getOwner() != null) {
+                tileOwner[index] = this.seatOf.get(tile.getOwner());
+                tileHouse[index] = tile.hasHouse();
+            }
         }
+
+        int[] position = new int[count];
+        int[] capital = new int[count];
+        boolean[] bankrupt = new boolean[count];
+        boolean[] skip = new boolean[count];
+        int[] ownedHead = new int[count];
+        for (int seat = 0; seat < count; seat++) {
+            Player player = this.seats.get(seat);
+            position[seat] = this.track.getPosition(player);
+            capital[seat] = player.getCapital();
+            bankrupt[seat] = player.isBankrupt();
+            skip[seat] = player.getStrategyState() != 0;
+            ownedHead[seat] = GameKernel.NONE;
+            for (RealEstateTile property : player.getProperties()) {
+                if (property.getOwner() != player) continue;
+                int index = indexOf.get(property);
+                nextOwned[index] = ownedHead[seat];
+                ownedHead[seat] = index;
+            }
+        }
+
+        int[] order = new int[this.players.size()];
+        for (int index = 0; index < order.length; index++) order[index] = this.seatOf.get(this.players.get(index));
+
+        return new GameSnapshot(tileOwner, tileHouse, nextOwned, position, capital, bankrupt, skip, ownedHead,
+            order, this.currentPlayerIndex, this.turns);
+    }
+
+    /**
+     * Puts the game back into the state of the given snapshot.
+     * The players and tiles of the game are reused, so references to them stay valid.
+     *
+     * @param snapshot The snapshot of a game of the same scenario.
+     * @throws IllegalArgumentException If the snapshot has a different number of tiles or seats.
+     */
+    public void restore(GameSnapshot snapshot) {
+        List<Tile> tiles = this.track.getTiles();
+        if (snapshot.getLength() != tiles.size() || snapshot.getSeats() != this.seats.size())
+            throw new IllegalArgumentException("Cannot restore a snapshot of " + snapshot.getLength() + " tiles and " + snapshot.getSeats() + " seats into a game of " + tiles.size() + " tiles and " + this.seats.size() + " seats.");
+
+        for (int index = 0; index < tiles.size(); index++) {
+            if (!(tiles.get(index) instanceof RealEstateTile tile)) continue;
+            tile.reset();
+            int owner = snapshot.getOwner(index);
+            if (owner == GameKernel.NONE) continue;
+            tile.assign(this.seats.get(owner));
+            if (snapshot.hasHouse(index)) tile.upgrade();
+        }
+
+        for (int seat = 0; seat < this.seats.size(); seat++) {
+            Player player = this.seats.get(seat);
+            List<RealEstateTile> properties = new ArrayList<>();
+            for (int index = snapshot.getOwnedHead(seat); index != GameKernel.NONE; index = snapshot.getNextOwned(index))
+                properties.add((RealEstateTile) tiles.get(index));
+            Collections.reverse(properties);
+
+            player.restore(snapshot.getCapital(seat), snapshot.isBankrupt(seat), properties);
+            player.setStrategyState(snapshot.isSkipping(seat) ? 1 : 0);
+            this.track.setPosition(player, snapshot.getPosition(seat));
+        }
+
+        this.players.clear();
+        for (int index = 0; index < snapshot.getAlive(); index++) this.players.add(this.seats.get(snapshot.getSeatInOrder(index)));
+        this.currentPlayerIndex = snapshot.getCurrent();
+        this.turns = snapshot.getTurns();
+    }
+
+    /**
+     * Reports the information about the players still in the game to the sink.
+     */
+    private void info() {
+        this.sink.onStandings(this.getPlayers());
     }
 }
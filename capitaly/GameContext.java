@@ -0,0 +1,104 @@
+package capitaly;
+
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
+import capitaly.tile.PropertyIndex;
+
+/**
+ * The scope of a single game: holds its rules, issues the IDs of its players and tiles and indexes who owns which real
+ * estate.
+ * Every game gets a context of its own, so games do not share any mutable state and can run on different threads.
+ * A context itself is not thread-safe, the objects of a game are created by one thread.
+ */
+public final class GameContext {
+
+    /**
+     * The rules of the game.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The index of the real estate of the game.
+     */
+    private final PropertyIndex properties;
+
+    /**
+     * The recorder of the metrics of the game, null if the metrics are off.
+     */
+    private final MetricsRecorder metrics;
+
+    /**
+     * The number of players created in the context.
+     */
+    private int players;
+
+    /**
+     * The number of tiles created in the context.
+     */
+    private int tiles;
+
+    /**
+     * Constructs a new GameContext with no players and tiles yet, playing by the standard rules.
+     */
+    public GameContext() {
+        this(RuleSet.STANDARD);
+    }
+
+    /**
+     * Constructs a new GameContext with no players and tiles yet, playing by the given rules.
+     *
+     * @param rules The rules of the game.
+     */
+    public GameContext(RuleSet rules) {
+        this.rules = rules;
+        this.players = 0;
+        this.tiles = 0;
+        this.properties = new PropertyIndex(rules);
+        this.metrics = GameMetrics.ENABLED ? new MetricsRecorder() : null;
+    }
+
+    /**
+     * Returns the rules of the game.
+     *
+     * @return The rules.
+     */
+    public RuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * Issues the ID of a new player.
+     *
+     * @return The ID, unique among the players of the context.
+     */
+    public int nextPlayerId() {
+        return players++;
+    }
+
+    /**
+     * Issues the ID of a new tile.
+     *
+     * @return The ID, unique among the tiles of the context.
+     */
+    public int nextTileId() {
+        return tiles++;
+    }
+
+    /**
+     * Returns the index of the real estate of the game, kept up to date by its tiles.
+     *
+     * @return The property index.
+     */
+    public PropertyIndex getPropertyIndex() {
+        return properties;
+    }
+
+    /**
+     * Returns the recorder of the metrics of the game.
+     *
+     * @return The recorder, null unless {@link GameMetrics#ENABLED}.
+     */
+    public MetricsRecorder getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,35 @@
+package capitaly;
+
+import capitaly.player.Player;
+
+import java.util.List;
+
+/**
+ * The outcome of a game, returned instead of ending the program so that the caller decides what happens next.
+ *
+ * @param winner    The last player standing, or null if the rolls ran out before the game was over.
+ * @param turns     The number of turns played.
+ * @param standings The players still in the game, in turn order.
+ */
+public record GameResult(Player winner, int turns, List<Player> standings) {
+
+    /**
+     * Constructs a new GameResult, keeping a copy of the standings.
+     *
+     * @param winner    The last player standing, or null if the rolls ran out before the game was over.
+     * @param turns     The number of turns played.
+     * @param standings The players still in the game, in turn order.
+     */
+    public GameResult {
+        standings = List.copyOf(standings);
+    }
+
+    /**
+     * Returns whether the game was played to the end, i.e. whether it has a winner.
+     *
+     * @return Whether the game is over.
+     */
+    public boolean isFinished() {
+        return winner != null;
+    }
+}
@@ -0,0 +1,163 @@
+package capitaly;
+
+import capitaly.player.Player;
+import capitaly.tile.RealEstateTile;
+
+/**
+ * The money rules of a game: what the players start with and what real estate costs.
+ * Every game plays by the rule set of its {@link GameContext} or kernel, so variants of the rules are played side by
+ * side without touching the code; {@link #STANDARD} are the rules of the original game.
+ *
+ * @param startingCapital The capital of every player at the start of the game.
+ * @param purchaseCost    The price of an unowned real estate tile.
+ * @param upgradeCost     The price of a house on an owned real estate tile.
+ * @param feeNoHouse      The fee for landing on real estate owned by someone else, without a house.
+ * @param feeWithHouse    The fee for landing on real estate owned by someone else, with a house.
+ */
+public record RuleSet(int startingCapital, int purchaseCost, int upgradeCost, int feeNoHouse, int feeWithHouse) {
+
+    /**
+     * The rules of the original game.
+     */
+    public static final RuleSet STANDARD = new RuleSet(
+        Player.STARTING_CAPITAL,
+        RealEstateTile.INITIAL_PURCHASE_COST,
+        RealEstateTile.HOUSE_UPGRADE_COST,
+        RealEstateTile.LANDING_FEE_NO_HOUSE,
+        RealEstateTile.LANDING_FEE_WITH_HOUSE
+    );
+
+    /**
+     * Constructs a new RuleSet.
+     *
+     * @throws IllegalArgumentException If an amount is negative.
+     */
+    public RuleSet {
+        for (Rule rule : Rule.values())
+            if (rule.of(startingCapital, purchaseCost, upgradeCost, feeNoHouse, feeWithHouse) < 0)
+                throw new IllegalArgumentException("Expected a non-negative " + rule.getKeyword() + ", got " + rule.of(startingCapital, purchaseCost, upgradeCost, feeNoHouse, feeWithHouse) + '.');
+    }
+
+    /**
+     * Returns the value of a rule.
+     *
+     * @param rule The rule.
+     * @return The amount of money of the rule.
+     */
+    public int get(Rule rule) {
+        return rule.of(startingCapital, purchaseCost, upgradeCost, feeNoHouse, feeWithHouse);
+    }
+
+    /**
+     * Returns these rules with a single rule changed.
+     *
+     * @param rule  The rule to change.
+     * @param value The new amount of money of the rule.
+     * @return The changed rules.
+     * @throws IllegalArgumentException If the value is negative.
+     */
+    public RuleSet with(Rule rule, int value) {
+        return new RuleSet(
+            rule == Rule.STARTING_CAPITAL ? value : startingCapital,
+            rule == Rule.PURCHASE_COST ? value : purchaseCost,
+            rule == Rule.UPGRADE_COST ? value : upgradeCost,
+            rule == Rule.FEE_NO_HOUSE ? value : feeNoHouse,
+            rule == Rule.FEE_WITH_HOUSE ? value : feeWithHouse
+        );
+    }
+
+    /**
+     * Returns the fee for landing on real estate owned by someone else.
+     *
+     * @param house Whether the tile has a house.
+     * @return The fee.
+     */
+    public int landingFee(boolean house) {
+        return house ? feeWithHouse : feeNoHouse;
+    }
+
+    /**
+     * The rules of a rule set, by name.
+     */
+    public enum Rule {
+        /**
+         * See {@link RuleSet#startingCapital()}.
+         */
+        STARTING_CAPITAL("starting-capital"),
+
+        /**
+         * See {@link RuleSet#purchaseCost()}.
+         */
+        PURCHASE_COST("purchase-cost"),
+
+        /**
+         * See {@link RuleSet#upgradeCost()}.
+         */
+        UPGRADE_COST("upgrade-cost"),
+
+        /**
+         * See {@link RuleSet#feeNoHouse()}.
+         */
+        FEE_NO_HOUSE("fee-no-house"),
+
+        /**
+         * See {@link RuleSet#feeWithHouse()}.
+         */
+        FEE_WITH_HOUSE("fee-with-house");
+
+        /**
+         * The keyword of the rule.
+         */
+        private final String keyword;
+
+        /**
+         * Constructs a new Rule with the given keyword.
+         *
+         * @param keyword The keyword of the rule.
+         */
+        Rule(String keyword) {
+            this.keyword = keyword;
+        }
+
+        /**
+         * Picks the value of this rule among the values of every rule.
+         *
+         * @param startingCapital The starting capital.
+         * @param purchaseCost    The purchase cost.
+         * @param upgradeCost     The upgrade cost.
+         * @param feeNoHouse      The landing fee without a house.
+         * @param feeWithHouse    The landing fee with a house.
+         * @return The value of this rule.
+         */
+        private int of(int startingCapital, int purchaseCost, int upgradeCost, int feeNoHouse, int feeWithHouse) {
+            return switch (this) {
+                case STARTING_CAPITAL -> startingCapital;
+                case PURCHASE_COST -> purchaseCost;
+                case UPGRADE_COST -> upgradeCost;
+                case FEE_NO_HOUSE -> feeNoHouse;
+                case FEE_WITH_HOUSE -> feeWithHouse;
+            };
+        }
+
+        /**
+         * Returns the keyword of the rule, as used on the command line.
+         *
+         * @return The keyword of the rule.
+         */
+        public String getKeyword() {
+            return keyword;
+        }
+
+        /**
+         * Returns the rule with the given keyword.
+         *
+         * @param keyword The keyword of the rule.
+         * @return The rule.
+         * @throws IllegalArgumentException If no rule has the keyword.
+         */
+        public static Rule of(String keyword) {
+            for (Rule rule : values()) if (rule.keyword.equals(keyword)) return rule;
+            throw new IllegalArgumentException("Unknown rule \"" + keyword + "\".");
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package capitaly;
 
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
 import capitaly.player.Player;
+import capitaly.tile.LuckTile;
+import capitaly.tile.RealEstateTile;
+import capitaly.tile.ServiceTile;
 import capitaly.tile.Tile;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -11,8 +19,44 @@ import java.util.stream.Collectors;
 
 /**
  * Represents the track of the game.
+ * <p>
+ * The tiles are the authoring model of the track, each entered through its own {@link Tile#enter}. On a track mixing
+ * the kinds of tiles, that call site sees every tile class and the JIT cannot inline it. A compiled track, see
+ * {@link #Track(List, boolean)}, lowers the tiles into a table of their kinds and amounts once, and enters them with a
+ * switch on the kind: service and luck tiles are settled from the table without touching the tiles, and real estate is
+ * entered through the final {@link RealEstateTile} class, so every call is monomorphic. Both modes play the same game.
  */
 public class Track {
+    /**
+     * The dispatch code of a {@link RealEstateTile} on a compiled track.
+     */
+    private static final byte REAL_ESTATE = 0;
+
+    /**
+     * The dispatch code of a {@link ServiceTile} on a compiled track.
+     */
+    private static final byte SERVICE = 1;
+
+    /**
+     * The dispatch code of a {@link LuckTile} on a compiled track.
+     */
+    private static final byte LUCK = 2;
+
+    /**
+     * The dispatch code of any other tile on a compiled track, entered through its own {@link Tile#enter}.
+     */
+    private static final byte OTHER = 3;
+
+    /**
+     * The number of low bits of an entry of the table of a compiled track holding the dispatch code.
+     */
+    private static final int CODE_BITS = 2;
+
+    /**
+     * The mask of the dispatch code of an entry of the table of a compiled track.
+     */
+    private static final int CODE_MASK = (1 << CODE_BITS) - 1;
+
     /**
      * The length of the track (the number of tiles).
      */
@@ -23,22 +67,66 @@ public class Track {
      */
     private final List<Tile> tiles;
 
+    /**
+     * The ordinals of the kinds of the tiles, so that counting a move does not ask the tile.
+     */
+    private final byte[] kinds;
+
+    /**
+     * The dispatch code of every tile in the low {@link #CODE_BITS} bits and its fee or reward in the others, so that
+     * entering a service or luck tile reads a single int; null unless the track is compiled.
+     */
+    private final int[] table;
+
     /**
      * The positions of the players on the track.
      */
     private final Map<Player, Integer> positions;
 
     /**
-     * Constructs a new Track with the given tiles.
+     * Constructs a new Track with the given tiles, entering each tile through its own {@link Tile#enter}.
      *
      * @param tiles The tiles on the track.
      */
     public Track(List<Tile> tiles) {
+        this(tiles, false);
+    }
+
+    /**
+     * Constructs a new Track with the given tiles, compiled or not.
+     * The amounts of the tiles are read once, when the track is compiled.
+     *
+     * @param tiles    The tiles on the track.
+     * @param compiled Whether the tiles are entered with a switch on their kind rather than through their own
+     *                 {@link Tile#enter}.
+     */
+    public Track(List<Tile> tiles, boolean compiled) {
         this.length = tiles.size();
         this.tiles = new ArrayList<>(tiles);
+        this.kinds = new byte[length];
+        for (int i = 0; i < length; i++) this.kinds[i] = (byte) tiles.get(i).getKind().ordinal();
+        this.table = compiled ? new int[length] : null;
+        if (compiled) for (int i = 0; i < length; i++) this.table[i] = entry(this.tiles.get(i));
         this.positions = new HashMap<>();
     }
 
+    /**
+     * Lowers a tile into an entry of the table of a compiled track.
+     * A service or luck tile whose amount does not fit next to its code is entered through the tile, like any tile of
+     * another class.
+     *
+     * @param tile The tile to lower.
+     * @return The entry of the tile.
+     */
+    private static int entry(Tile tile) {
+        if (tile instanceof RealEstateTile) return REAL_ESTATE;
+        if (!(tile instanceof ServiceTile) && !(tile instanceof LuckTile)) return OTHER;
+
+        int amount = tile.getAmount();
+        if (amount << CODE_BITS >> CODE_BITS != amount) return OTHER;
+        return amount << CODE_BITS | (tile instanceof ServiceTile ? SERVICE : LUCK);
+    }
+
     /**
      * progress
      * Moves the player on the track.
@@ -47,11 +135,104 @@ public class Track {
      * @param steps  The number of steps to move.
      */
     public void progress(Player player, int steps) {
+        this.progress(player, steps, -1, GameEventListener.NONE);
+    }
+
+    /**
+     * Moves the player on the track and reports the move and what happens on the tile as {@link EventType events}.
+     * The move is counted in the {@link GameMetrics metrics} of the game of the player, if they are on.
+     *
+     * @param player   The player to move.
+     * @param steps    The number of steps to move.
+     * @param seat     The seat of the player, reported with the events.
+     * @param listener The listener receiving the events.
+     */
+    public void progress(Player player, int steps, int seat, GameEventListener listener) {
         positions.putIfAbsent(player, -1);
         int target = (positions.get(player) + steps) % this.length;
+        if (GameMetrics.ENABLED) {
+            this.measure(player, steps, seat, target, listener);
+            return;
+        }
+
+        positions.replace(player, target);
+        listener.onEvent(EventType.MOVE, seat, target, steps);
+        this.enter(player, seat, target, listener);
+    }
+
+    /**
+     * Makes the player enter the given tile, through the tile itself or, on a compiled track, with a switch on its
+     * kind, settling service and luck tiles as {@link ServiceTile#enter} and {@link LuckTile#enter} do.
+     *
+     * @param player   The player entering the tile.
+     * @param seat     The seat of the player, reported with the events.
+     * @param target   The index of the tile.
+     * @param listener The listener receiving the events.
+     */
+    private void enter(Player player, int seat, int target, GameEventListener listener) {
+        if (table == null) {
+            tiles.get(target).enter(player, seat, target, listener);
+            return;
+        }
+
+        int entry = table[target];
+        switch (entry & CODE_MASK) {
+            case REAL_ESTATE -> ((RealEstateTile) tiles.get(target)).enter(player, seat, target, listener);
+            case SERVICE -> {
+                int fee = entry >> CODE_BITS;
+                player.pay(fee);
+                listener.onEvent(EventType.SERVICE_FEE, seat, target, fee);
+            }
+            case LUCK -> {
+                int reward = entry >> CODE_BITS;
+                player.receive(reward);
+                listener.onEvent(EventType.LUCK_REWARD, seat, target, reward);
+            }
+            default -> tiles.get(target).enter(player, seat, target, listener);
+        }
+    }
+
+    /**
+     * Moves the player to the given tile like {@link #progress}, counting the move by the kind of the tile and timing a
+     * sample of the moves. Kept apart so that the common path stays small when the metrics are off.
+     *
+     * @param player   The player to move.
+     * @param steps    The number of steps to move.
+     * @param seat     The seat of the player, reported with the events.
+     * @param target   The index of the tile the player moves to.
+     * @param listener The listener receiving the events.
+     */
+    private void measure(Player player, int steps, int seat, int target, GameEventListener listener) {
+        MetricsRecorder metrics = player.getContext().getMetrics();
+        int kind = kinds[target];
+        boolean timed = metrics.startMove(kind);
 
         positions.replace(player, target);
-        tiles.get(target).enter(player);
+        listener.onEvent(EventType.MOVE, seat, target, steps);
+        if (timed) metrics.entering();
+        this.enter(player, seat, target, listener);
+        if (timed) metrics.endMove();
+    }
+
+    /**
+     * Returns the position of the player on the track.
+     *
+     * @param player The player to look up.
+     * @return The index of the tile the player stands on, -1 if they have not moved yet or left the track.
+     */
+    public int getPosition(Player player) {
+        return positions.getOrDefault(player, -1);
+    }
+
+    /**
+     * Puts the player on the given tile, e.g. when a game is restored from a snapshot.
+     *
+     * @param player   The player to place.
+     * @param position The index of the tile, -1 to take the player off the track.
+     */
+    public void setPosition(Player player, int position) {
+        if (position < 0) positions.remove(player);
+        else positions.put(player, position);
     }
 
     /**
@@ -63,6 +244,24 @@ public class Track {
         positions.remove(player);
     }
 
+    /**
+     * Returns whether the track is compiled, entering the tiles with a switch on their kind.
+     *
+     * @return Whether the track is compiled.
+     */
+    public boolean isCompiled() {
+        return table != null;
+    }
+
+    /**
+     * Returns the tiles on the track.
+     *
+     * @return The unmodifiable list of the tiles on the track.
+     */
+    public List<Tile> getTiles() {
+        return Collections.unmodifiableList(tiles);
+    }
+
     /**
      * Returns the string representation of the track.
      *
@@ -0,0 +1,490 @@
+package capitaly.cluster;
+
+import capitaly.RuleSet;
+import capitaly.io.MappedInputParser;
+import capitaly.player.Strategy;
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays a Monte Carlo batch of games on worker processes, possibly on other machines: the batch is split into shards of
+ * consecutive seeds, the shards are handed to the {@link Worker}s connected to the coordinator, and their results are
+ * merged. The i-th game rolls from the seed {@code firstSeed + i} like in {@link BatchSimulator#run}, so the result is
+ * the same as that of a single simulator, whatever the workers and however the shards were spread.
+ * <p>
+ * Every worker plays a shard at a time. A worker that disconnects, or that does not return its shard within the lease,
+ * is dropped and its shard goes back to the front of the queue for the other workers, so a dying worker delays the
+ * batch by at most a shard. Workers may connect or leave at any time, and stay connected from batch to batch; workers
+ * on the same machine are started with {@link #launch()}. See {@link Protocol} for the messages.
+ */
+public final class Coordinator implements Closeable {
+
+    /**
+     * The default number of games of a shard.
+     */
+    public static final long DEFAULT_SHARD_GAMES = 1 << 16;
+
+    /**
+     * The default time a worker has to return a shard before it is given to another worker.
+     */
+    public static final Duration DEFAULT_LEASE = Duration.ofMinutes(10);
+
+    /**
+     * The default number of games of a batch played from the command line.
+     */
+    public static final long DEFAULT_GAMES = 1_000_000;
+
+    /**
+     * The default number of turns after which a game is abandoned without a winner.
+     */
+    public static final int DEFAULT_MAX_TURNS = 100_000;
+
+    /**
+     * The milliseconds between two checks of an idle connection for a shard, and of a batch for its workers.
+     */
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * The usage of the command line.
+     */
+    private static final String USAGE = """
+        Usage: java capitaly.cluster.Coordinator <scenario> [options]
+          --games <count>    the games of the batch (default 1000000)
+          --seed <seed>      the seed of the first game (default 0)
+          --turns <count>    the turn limit of a game (default 100000)
+          --shard <count>    the games of a shard (default 65536)
+          --port <port>      the port the workers connect to (default any free port)
+          --local <count>    the worker processes started on this machine (default 0)
+          --lease <seconds>  the time a worker has to return a shard (default 600)""";
+
+    /**
+     * The scenario sent to every worker, as written by {@link Protocol.Scenario#write}.
+     */
+    private final byte[] scenario;
+
+    /**
+     * The strategies of the seats, in seating order.
+     */
+    private final List<Strategy> seats;
+
+    /**
+     * The number of games of a shard.
+     */
+    private final long shardGames;
+
+    /**
+     * The milliseconds a worker has to return a shard.
+     */
+    private final int leaseMillis;
+
+    /**
+     * The socket the workers connect to.
+     */
+    private final ServerSocket server;
+
+    /**
+     * The shards waiting for a worker, of the batch being played.
+     */
+    private final BlockingDeque<Shard> queue;
+
+    /**
+     * The connections of the workers.
+     */
+    private final Set<Socket> connections;
+
+    /**
+     * The worker processes started by {@link #launch()}.
+     */
+    private final List<Process> processes;
+
+    /**
+     * The number of connections accepted so far, naming their threads.
+     */
+    private final AtomicInteger accepted;
+
+    /**
+     * Whether the coordinator is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Constructs a new Coordinator listening on the given address, with the default shards and lease.
+     *
+     * @param address     The address the workers connect to.
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param rules       The rules of the games.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @throws IOException              If the address cannot be bound.
+     * @throws IllegalArgumentException If there are no players or the turn limit is not positive.
+     */
+    public Coordinator(InetSocketAddress address, TrackSpec track, List<PlayerSpec> players, RuleSet rules, int maxTurns,
+                       boolean rotateSeats) throws IOException {
+        this(address, track, players, rules, maxTurns, rotateSeats, DEFAULT_SHARD_GAMES, DEFAULT_LEASE);
+    }
+
+    /**
+     * Constructs a new Coordinator listening on the given address.
+     *
+     * @param address     The address the workers connect to.
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param rules       The rules of the games.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param shardGames  The number of games of a shard.
+     * @param lease       The time a worker has to return a shard before it is given to another worker, and a batch
+     *                    waits without any worker before it fails.
+     * @throws IOException              If the address cannot be bound.
+     * @throws IllegalArgumentException If there are no players, or the turn limit, the shard size or the lease is not
+     *                                  positive.
+     */
+    public Coordinator(InetSocketAddress address, TrackSpec track, List<PlayerSpec> players, RuleSet rules, int maxTurns,
+                       boolean rotateSeats, long shardGames, Duration lease) throws IOException {
+        if (players.isEmpty()) throw new IllegalArgumentException("A game needs at least one player.");
+        if (maxTurns < 1) throw new IllegalArgumentException("Expected a positive turn limit, got " + maxTurns + '.');
+        if (shardGames < 1) throw new IllegalArgumentException("Expected a positive shard size, got " + shardGames + '.');
+        if (lease.toMillis() < 1) throw new IllegalArgumentException("Expected a positive lease, got " + lease + '.');
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Protocol.Scenario(track, List.copyOf(players), rules, maxTurns, rotateSeats).write(out);
+        }
+        this.scenario = bytes.toByteArray();
+        this.seats = players.stream().map(PlayerSpec::strategy).toList();
+        this.shardGames = shardGames;
+        this.leaseMillis = (int) Math.min(lease.toMillis(), Integer.MAX_VALUE);
+        this.queue = new LinkedBlockingDeque<>();
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.processes = new CopyOnWriteArrayList<>();
+        this.accepted = new AtomicInteger();
+        this.server = new ServerSocket();
+        this.server.bind(address);
+
+        Thread acceptor = new Thread(this::accept, "capitaly-coordinator");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Plays a batch of the scenario given as the first argument on workers and prints its result.
+     * Usage: {@code java capitaly.cluster.Coordinator <scenario> [options]}, see {@link #USAGE}.
+     *
+     * @param args The arguments of the program.
+     * @throws IOException          If the port cannot be bound or a local worker cannot be started.
+     * @throws InterruptedException If interrupted while waiting for the workers.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        long games = DEFAULT_GAMES, seed = 0, shardGames = DEFAULT_SHARD_GAMES, leaseSeconds = DEFAULT_LEASE.toSeconds();
+        int maxTurns = DEFAULT_MAX_TURNS, port = 0, local = 0;
+        try {
+            for (int i = 1; i < args.length; i += 2) {
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + args[i] + '.');
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--games" -> games = Long.parseLong(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--turns" -> maxTurns = Integer.parseInt(value);
+                    case "--shard" -> shardGames = Long.parseLong(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--local" -> local = Integer.parseInt(value);
+                    case "--lease" -> leaseSeconds = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i] + '.');
+                }
+            }
+            if (games < 1) throw new IllegalArgumentException("Expected a positive game count, got " + games + '.');
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+
+        TrackSpec track;
+        List<PlayerSpec> players;
+        try (MappedInputParser parser = new MappedInputParser(args[0])) {
+            track = TrackSpec.of(parser.getTrack());
+            players = PlayerSpec.of(parser.getPlayers());
+        }
+        try (Coordinator coordinator = new Coordinator(new InetSocketAddress(port), track, players, RuleSet.STANDARD,
+            maxTurns, true, shardGames, Duration.ofSeconds(leaseSeconds))) {
+            System.out.println("Coordinator listening on port " + coordinator.getPort());
+            for (int i = 0; i < local; i++) coordinator.launch();
+            System.out.println(coordinator.run(seed, games));
+        }
+    }
+
+    /**
+     * Returns the port the workers connect to.
+     *
+     * @return The local port of the coordinator.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Returns the number of workers connected.
+     *
+     * @return The number of connections.
+     */
+    public int getWorkers() {
+        return connections.size();
+    }
+
+    /**
+     * Starts a worker process on this machine, running the same Java and class path as this process.
+     * The worker connects to the coordinator and plays its shards until the coordinator is closed, its output being
+     * discarded and its errors going to those of this process.
+     *
+     * @return The worker process, destroyed when the coordinator is closed.
+     * @throws IOException           If the process cannot be started.
+     * @throws IllegalStateException If the coordinator is closed.
+     */
+    public Process launch() throws IOException {
+        if (closed) throw new IllegalStateException("The coordinator is closed.");
+        InetAddress address = server.getInetAddress().isAnyLocalAddress() ? InetAddress.getLoopbackAddress() : server.getInetAddress();
+        Process process = new ProcessBuilder(
+            Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", System.getProperty("java.class.path"),
+            Worker.class.getName(), address.getHostAddress(), Integer.toString(this.getPort())
+        ).redirectOutput(ProcessBuilder.Redirect.DISCARD).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        processes.add(process);
+        return process;
+    }
+
+    /**
+     * Plays the given number of games on the workers, the i-th game rolling from the seed {@code firstSeed + i}.
+     * Batches are played one at a time, in the order of the calls.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games to play.
+     * @return The aggregated results of the games.
+     * @throws IllegalArgumentException If the game count is not positive or needs too many shards.
+     * @throws IllegalStateException    If no worker was connected for a whole lease, or the coordinator is closed.
+     * @throws InterruptedException     If interrupted while waiting for the workers.
+     */
+    public synchronized BatchResult run(long firstSeed, long games) throws InterruptedException {
+        if (games < 1) throw new IllegalArgumentException("Expected a positive game count, got " + games + '.');
+        long shards = (games + shardGames - 1) / shardGames;
+        if (shards > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many shards: " + shards + '.');
+
+        Batch batch = new Batch((int) shards);
+        for (int i = 0; i < shards; i++) {
+            long first = i * shardGames;
+            queue.add(new Shard(batch, i, firstSeed + first, Math.min(shardGames, games - first)));
+        }
+        try {
+            batch.await();
+        } finally {
+            batch.end();
+            queue.removeIf(shard -> shard.batch() == batch);
+        }
+
+        BatchResult result = batch.results[0];
+        for (int i = 1; i < shards; i++) result.merge(batch.results[i]);
+        return result;
+    }
+
+    /**
+     * Accepts the connections of the workers, serving each on its own thread, until the coordinator is closed.
+     */
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> this.serve(socket), "capitaly-coordinator-" + accepted.incrementAndGet());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException exception) {
+                // Closed, or a connection failed before it was accepted.
+            }
+        }
+    }
+
+    /**
+     * Hands shards to a worker and records their results, until the worker fails or the coordinator is closed.
+     * The shard of a worker that fails goes back to the front of the queue.
+     *
+     * @param socket The connection of the worker.
+     */
+    private void serve(Socket socket) {
+        connections.add(socket);
+        Shard shard = null;
+        try (socket) {
+            if (closed) return;
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(leaseMillis);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Protocol.readGreeting(in);
+            out.write(scenario);
+            out.flush();
+
+            while (!closed) {
+                shard = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (shard == null) continue;
+                if (shard.batch().isOver()) {
+                    shard = null;
+                    continue;
+                }
+
+                out.writeInt(shard.index());
+                out.writeLong(shard.firstSeed());
+                out.writeLong(shard.games());
+                out.flush();
+                int index = in.readInt();
+                if (index != shard.index()) throw new IOException("Expected the result of shard " + shard.index() + ", got " + index + '.');
+                shard.batch().complete(index, BatchResult.read(in, seats));
+                shard = null;
+            }
+        } catch (IOException | InterruptedException exception) {
+            // The worker died, overran its lease or spoke another protocol: its shard is played by another worker.
+        } finally {
+            if (shard != null && !shard.batch().isOver()) queue.addFirst(shard);
+            connections.remove(socket);
+        }
+    }
+
+    /**
+     * Stops accepting workers, closes their connections and destroys the worker processes started by
+     * {@link #launch()}. A batch being played fails.
+     *
+     * @throws UncheckedIOException If the listening socket cannot be closed.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException exception) {
+                    // The connection is being dropped anyway.
+                }
+            }
+            for (Process process : processes) process.destroy();
+        }
+    }
+
+    /**
+     * A range of consecutive games of a batch, played by a single worker.
+     *
+     * @param batch     The batch of the shard.
+     * @param index     The index of the shard in its batch.
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games.
+     */
+    private record Shard(Batch batch, int index, long firstSeed, long games) {
+    }
+
+    /**
+     * The results of the shards of a batch being played.
+     */
+    private final class Batch {
+
+        /**
+         * The results of the shards, null until the shard is played.
+         */
+        private final BatchResult[] results;
+
+        /**
+         * The number of shards not played yet.
+         */
+        private int remaining;
+
+        /**
+         * Whether the batch is over, played or failed, its shards being no longer needed.
+         */
+        private volatile boolean over;
+
+        /**
+         * Constructs a new Batch of the given number of shards.
+         *
+         * @param shards The number of shards.
+         */
+        private Batch(int shards) {
+            this.results = new BatchResult[shards];
+            this.remaining = shards;
+        }
+
+        /**
+         * Records the result of a shard, unless it was already played by another worker.
+         *
+         * @param index  The index of the shard.
+         * @param result The result of the shard.
+         */
+        private synchronized void complete(int index, BatchResult result) {
+            if (results[index] != null) return;
+            results[index] = result;
+            if (--remaining == 0) this.notifyAll();
+        }
+
+        /**
+         * Waits until every shard is played.
+         *
+         * @throws IllegalStateException If no worker was connected for a whole lease, or the coordinator is closed.
+         * @throws InterruptedException  If interrupted while waiting.
+         */
+        private synchronized void await() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+            while (remaining > 0) {
+                if (closed) throw new IllegalStateException("The coordinator is closed.");
+                if (!connections.isEmpty()) deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                else if (System.nanoTime() - deadline > 0)
+                    throw new IllegalStateException("No worker connected for " + leaseMillis + " ms, " + remaining + " shards left.");
+                this.wait(POLL_MILLIS);
+            }
+        }
+
+        /**
+         * Marks the batch as over.
+         */
+        private void end() {
+            over = true;
+        }
+
+        /**
+         * Returns whether the batch is over.
+         *
+         * @return Whether the shards of the batch are no longer needed.
+         */
+        private boolean isOver() {
+            return over;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package capitaly.cluster;
+
+import capitaly.RuleSet;
+import capitaly.player.Strategy;
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The messages exchanged between a {@link Coordinator} and its {@link Worker}s over a TCP connection.
+ * All numbers are big-endian, as written by {@link DataOutput}. A conversation consists of:
+ * <ul>
+ *     <li>the greeting of the worker: the magic bytes {@code "CPCL"} and the version (u16);</li>
+ *     <li>the scenario of the coordinator: the tile count (i32), for every tile its kind (the ordinal of
+ *     {@link TileKind}, u8) and amount (i32), the player count (i32), for every player their strategy (the ordinal of
+ *     {@link Strategy}, u8) and name (modified UTF-8), the values of the rules (i32 each, in the order of
+ *     {@link RuleSet.Rule}), the turn limit (i32) and whether the seats rotate (u8);</li>
+ *     <li>any number of shards: the coordinator sends the index of the shard (i32), its first seed (i64) and its game
+ *     count (i64), and the worker answers with the index of the shard and its {@link BatchResult}.</li>
+ * </ul>
+ * The coordinator ends the conversation by closing the connection between shards.
+ */
+final class Protocol {
+
+    /**
+     * The magic bytes greeting the coordinator.
+     */
+    static final int MAGIC = 0x4350434C;
+
+    /**
+     * The version of the protocol spoken by this code.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Protocol() {
+    }
+
+    /**
+     * Reads the greeting of a worker.
+     *
+     * @param in The input to read from.
+     * @throws IOException If the input cannot be read or is not the greeting of a worker of this version.
+     */
+    static void readGreeting(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("The peer is not a Capitaly worker.");
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Expected protocol version " + VERSION + ", got " + version + '.');
+    }
+
+    /**
+     * Writes the greeting of a worker.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    static void writeGreeting(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    /**
+     * The batch every shard of a coordinator is a part of.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param rules       The rules of the games.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     */
+    record Scenario(TrackSpec track, List<PlayerSpec> players, RuleSet rules, int maxTurns, boolean rotateSeats) {
+
+        /**
+         * Reads a scenario written by {@link #write(DataOutput)}.
+         *
+         * @param in The input to read from.
+         * @return The scenario.
+         * @throws IOException If the input cannot be read or holds no valid scenario.
+         */
+        static Scenario read(DataInput in) throws IOException {
+            int tileCount = in.readInt();
+            if (tileCount < 1) throw new IOException("Expected a positive tile count, got " + tileCount + '.');
+            TileKind[] kinds = new TileKind[tileCount], tileKinds = TileKind.values();
+            int[] amounts = new int[tileCount];
+            for (int i = 0; i < tileCount; i++) {
+                int kind = in.readUnsignedByte();
+                if (kind >= tileKinds.length) throw new IOException("Unknown kind " + kind + " of tile " + i + '.');
+                kinds[i] = tileKinds[kind];
+                amounts[i] = in.readInt();
+            }
+
+            int playerCount = in.readInt();
+            if (playerCount < 1) throw new IOException("Expected a positive player count, got " + playerCount + '.');
+            List<PlayerSpec> players = new ArrayList<>(playerCount);
+            Strategy[] strategies = Strategy.values();
+            for (int i = 0; i < playerCount; i++) {
+                int strategy = in.readUnsignedByte();
+                if (strategy >= strategies.length) throw new IOException("Unknown strategy " + strategy + " of player " + i + '.');
+                players.add(new PlayerSpec(in.readUTF(), strategies[strategy]));
+            }
+
+            try {
+                RuleSet rules = new RuleSet(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt());
+                return new Scenario(new TrackSpec(kinds, amounts), List.copyOf(players), rules, in.readInt(), in.readBoolean());
+            } catch (IllegalArgumentException exception) {
+                throw new IOException(exception.getMessage(), exception);
+            }
+        }
+
+        /**
+         * Writes the scenario for {@link #read(DataInput)} to read it back.
+         *
+         * @param out The output to write to.
+         * @throws IOException If the output cannot be written.
+         */
+        void write(DataOutput out) throws IOException {
+            out.writeInt(track.length());
+            for (int i = 0; i < track.length(); i++) {
+                out.writeByte(track.kind(i).ordinal());
+                out.writeInt(track.amount(i));
+            }
+            out.writeInt(players.size());
+            for (PlayerSpec player : players) {
+                out.writeByte(player.strategy().ordinal());
+                out.writeUTF(player.name());
+            }
+            for (RuleSet.Rule rule : RuleSet.Rule.values()) out.writeInt(rules.get(rule));
+            out.writeInt(maxTurns);
+            out.writeBoolean(rotateSeats);
+        }
+
+        /**
+         * Returns the strategies of the seats, in seating order.
+         *
+         * @return The strategies of the seats.
+         */
+        List<Strategy> seats() {
+            return players.stream().map(PlayerSpec::strategy).toList();
+        }
+
+        /**
+         * Creates the simulator playing the shards of the scenario.
+         *
+         * @param pool The pool the games are played on.
+         * @return The simulator.
+         * @throws IllegalArgumentException If the turn limit is not positive.
+         */
+        BatchSimulator simulator(ForkJoinPool pool) {
+            return new BatchSimulator(track, players, rules, maxTurns, rotateSeats, pool, 1);
+        }
+    }
+}
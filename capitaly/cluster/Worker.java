@@ -0,0 +1,88 @@
+package capitaly.cluster;
+
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A worker process of a {@link Coordinator}: connects to the coordinator, receives its scenario and plays the shards
+ * it is handed, each on every processor of the machine, until the coordinator closes the connection.
+ * The worker keeps no state between shards, so a worker that dies only costs the shard it was playing, which the
+ * coordinator hands to another worker.
+ */
+public final class Worker {
+
+    /**
+     * The usage of the command line.
+     */
+    private static final String USAGE = "Usage: java capitaly.cluster.Worker <host> <port>";
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Worker() {
+    }
+
+    /**
+     * Plays the shards of the coordinator at the given host and port.
+     * Usage: {@code java capitaly.cluster.Worker <host> <port>}.
+     *
+     * @param args The arguments of the program.
+     * @throws IOException If the connection fails before the coordinator ends it.
+     */
+    public static void main(String[] args) throws IOException {
+        int port;
+        try {
+            if (args.length != 2) throw new IllegalArgumentException("Expected a host and a port.");
+            port = Integer.parseInt(args[1]);
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+
+        serve(args[0], port, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays the shards of the coordinator at the given host and port until the coordinator closes the connection.
+     *
+     * @param host The host of the coordinator.
+     * @param port The port of the coordinator.
+     * @param pool The pool the games are played on.
+     * @return The number of shards played.
+     * @throws IOException If the connection fails before the coordinator ends it, or the coordinator sends no valid
+     *                     scenario.
+     */
+    public static long serve(String host, int port, ForkJoinPool pool) throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            Protocol.writeGreeting(out);
+            out.flush();
+
+            BatchSimulator simulator = Protocol.Scenario.read(in).simulator(pool);
+            for (long shards = 0; ; shards++) {
+                int index;
+                try {
+                    index = in.readInt();
+                } catch (EOFException exception) {
+                    return shards;
+                }
+                long firstSeed = in.readLong(), games = in.readLong();
+                BatchResult result = simulator.run(firstSeed, games);
+                out.writeInt(index);
+                result.write(out);
+                out.flush();
+            }
+        }
+    }
+}
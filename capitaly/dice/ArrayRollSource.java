@@ -0,0 +1,53 @@
+package capitaly.dice;
+
+/**
+ * A roll source replaying the rolls of an array.
+ */
+public final class ArrayRollSource implements RollSource {
+
+    /**
+     * The rolls to replay.
+     */
+    private final int[] rolls;
+
+    /**
+     * The index of the next roll.
+     */
+    private int next;
+
+    /**
+     * Constructs a new ArrayRollSource replaying the given rolls.
+     *
+     * @param rolls The rolls to replay, not copied.
+     */
+    public ArrayRollSource(int[] rolls) {
+        this.rolls = rolls;
+        this.next = 0;
+    }
+
+    /**
+     * Returns the next roll of the array.
+     *
+     * @return The next roll, or {@link #END} after the last one.
+     */
+    @Override
+    public int nextRoll() {
+        return next < rolls.length ? rolls[next++] : END;
+    }
+
+    /**
+     * Copies the next rolls of the array into the given buffer.
+     *
+     * @param buffer The buffer to fill.
+     * @param offset The index of the first roll in the buffer.
+     * @param length The maximum number of rolls to read.
+     * @return The number of rolls read.
+     */
+    @Override
+    public int fill(int[] buffer, int offset, int length) {
+        int count = Math.min(length, rolls.length - next);
+        System.arraycopy(rolls, next, buffer, offset, count);
+        next += count;
+        return count;
+    }
+}
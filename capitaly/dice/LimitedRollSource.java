@@ -0,0 +1,57 @@
+package capitaly.dice;
+
+/**
+ * A roll source ending after a given number of rolls of another one.
+ */
+public final class LimitedRollSource implements RollSource {
+
+    /**
+     * The source of the rolls.
+     */
+    private final RollSource source;
+
+    /**
+     * The number of rolls left.
+     */
+    private long remaining;
+
+    /**
+     * Constructs a new LimitedRollSource.
+     *
+     * @param source The source of the rolls.
+     * @param count  The number of rolls to take from it.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public LimitedRollSource(RollSource source, long count) {
+        if (count < 0) throw new IllegalArgumentException("Expected a non-negative roll count, got " + count + '.');
+        this.source = source;
+        this.remaining = count;
+    }
+
+    /**
+     * Returns the next roll of the source, unless the count is reached.
+     *
+     * @return The next roll, or {@link #END} if there are no more rolls.
+     */
+    @Override
+    public int nextRoll() {
+        if (remaining == 0) return END;
+        remaining--;
+        return source.nextRoll();
+    }
+
+    /**
+     * Fills the given buffer with the next rolls of the source, up to the count.
+     *
+     * @param buffer The buffer to fill.
+     * @param offset The index of the first roll in the buffer.
+     * @param length The maximum number of rolls to read.
+     * @return The number of rolls read.
+     */
+    @Override
+    public int fill(int[] buffer, int offset, int length) {
+        int read = source.fill(buffer, offset, (int) Math.min(length, remaining));
+        remaining -= read;
+        return read;
+    }
+}
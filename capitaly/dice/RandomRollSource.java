@@ -0,0 +1,124 @@
+package capitaly.dice;
+
+/**
+ * An endless, seeded roll source.
+ * Uses the SplitMix64 generator (the one behind {@link java.util.SplittableRandom}) and cuts every 64-bit draw into
+ * 3-bit chunks, rejecting the values 6 and 7, so a single draw yields about 16 rolls. The same seed always gives the
+ * same rolls, and {@link #split()} derives an independent, equally reproducible stream for another worker.
+ */
+public final class RandomRollSource implements RollSource {
+
+    /**
+     * The increment of the generator state, the odd integer closest to 2^64 divided by the golden ratio.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The number of 3-bit chunks in a 64-bit draw.
+     */
+    private static final int CHUNKS = Long.SIZE / 3;
+
+    /**
+     * The state of the generator.
+     */
+    private long state;
+
+    /**
+     * The unused chunks of the last draw.
+     */
+    private long bits;
+
+    /**
+     * The number of unused chunks in {@link #bits}.
+     */
+    private int remaining;
+
+    /**
+     * Constructs a new RandomRollSource with the given seed.
+     *
+     * @param seed The seed of the rolls.
+     */
+    public RandomRollSource(long seed) {
+        this.reseed(seed);
+    }
+
+    /**
+     * Restarts the source with the given seed, as if it was newly constructed with it.
+     *
+     * @param seed The seed of the rolls.
+     */
+    public void reseed(long seed) {
+        this.state = seed;
+        this.bits = 0;
+        this.remaining = 0;
+    }
+
+    /**
+     * Creates a new source whose rolls are independent of the rolls of this one.
+     * Advances this source by one draw.
+     *
+     * @return The new source.
+     */
+    public RandomRollSource split() {
+        return new RandomRollSource(this.nextLong());
+    }
+
+    /**
+     * Returns the next roll of the die.
+     *
+     * @return The next roll between 1 and 6, never {@link #END}.
+     */
+    @Override
+    public int nextRoll() {
+        while (true) {
+            if (remaining == 0) {
+                bits = nextLong();
+                remaining = CHUNKS;
+            }
+            int value = (int) (bits & 7);
+            bits >>>= 3;
+            remaining--;
+            if (value < 6) return value + 1;
+        }
+    }
+
+    /**
+     * Fills the given buffer with the next rolls of the die.
+     *
+     * @param buffer The buffer to fill.
+     * @param offset The index of the first roll in the buffer.
+     * @param length The number of rolls to generate.
+     * @return Always the length, the source never gets exhausted.
+     */
+    @Override
+    public int fill(int[] buffer, int offset, int length) {
+        long bits = this.bits;
+        int remaining = this.remaining;
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            if (remaining == 0) {
+                bits = nextLong();
+                remaining = CHUNKS;
+            }
+            int value = (int) (bits & 7);
+            bits >>>= 3;
+            remaining--;
+            if (value < 6) buffer[i++] = value + 1;
+        }
+        this.bits = bits;
+        this.remaining = remaining;
+        return length;
+    }
+
+    /**
+     * Draws the next 64 bits from the generator.
+     *
+     * @return The next 64 random bits.
+     */
+    private long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,37 @@
+package capitaly.dice;
+
+/**
+ * A stream of die rolls.
+ * Rolls are handed out one at a time as primitive ints, so a game of any length never has to hold all of them.
+ */
+public interface RollSource {
+
+    /**
+     * Returned by {@link #nextRoll()} once the source is exhausted.
+     */
+    int END = -1;
+
+    /**
+     * Returns the next roll of the die.
+     *
+     * @return The next roll between 1 and 6, or {@link #END} if there are no more rolls.
+     */
+    int nextRoll();
+
+    /**
+     * Fills the given buffer with the next rolls of the die.
+     *
+     * @param buffer The buffer to fill.
+     * @param offset The index of the first roll in the buffer.
+     * @param length The maximum number of rolls to read.
+     * @return The number of rolls read, less than the length only if the source got exhausted.
+     */
+    default int fill(int[] buffer, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            int roll = nextRoll();
+            if (roll == END) return i;
+            buffer[offset + i] = roll;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,292 @@
+package capitaly.event;
+
+import capitaly.player.Player;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A sink describing everything that happens in a game as text, written by a background thread.
+ * The game only copies the events into preallocated batches, the text is formatted and written by the background
+ * thread once a batch is full, so the game does not wait for formatting or for the output. When every batch is waiting
+ * to be written, the game waits for the first one to be free again.
+ */
+public final class AsyncTextSink implements GameSink {
+
+    /**
+     * The default number of records in a batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+
+    /**
+     * The number of batches, one being filled while the others are written.
+     */
+    private static final int BATCHES = 4;
+
+    /**
+     * The number of ints of a record: the code, the seat, the tile and the amount.
+     */
+    private static final int RECORD_INTS = 4;
+
+    /**
+     * The code of the records of the end of a game, with the seat of the winner.
+     */
+    private static final int GAME_OVER = -1;
+
+    /**
+     * The code of the records of the standings, with the seat, the number of properties and the capital of a player.
+     */
+    private static final int STANDING = -2;
+
+    /**
+     * The batch handed to the background thread to make it stop.
+     */
+    private static final int[] END = new int[0];
+
+    /**
+     * The writer the text goes to.
+     */
+    private final Writer out;
+
+    /**
+     * The names of the players, in seat order.
+     */
+    private final String[] names;
+
+    /**
+     * The seats of the players, by identity.
+     */
+    private final Map<Player, Integer> seatOf;
+
+    /**
+     * The batches waiting to be written.
+     */
+    private final BlockingQueue<int[]> full;
+
+    /**
+     * The batches ready to be filled.
+     */
+    private final BlockingQueue<int[]> free;
+
+    /**
+     * The background thread writing the batches.
+     */
+    private final Thread writer;
+
+    /**
+     * The batch being filled, its first int is the number of records in it.
+     */
+    private int[] batch;
+
+    /**
+     * Whether the sink has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * The error the background thread ran into, if any.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Constructs a new AsyncTextSink with the default batch size and starts its background thread.
+     *
+     * @param out   The writer the text goes to, closed with the sink.
+     * @param seats The players of the game, in seat order.
+     */
+    public AsyncTextSink(Writer out, List<Player> seats) {
+        this(out, seats, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new AsyncTextSink and starts its background thread.
+     *
+     * @param out       The writer the text goes to, closed with the sink.
+     * @param seats     The players of the game, in seat order.
+     * @param batchSize The number of records in a batch.
+     * @throws IllegalArgumentException If the batch size is not positive.
+     */
+    public AsyncTextSink(Writer out, List<Player> seats, int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("Expected a positive batch size, got " + batchSize + '.');
+
+        this.out = out;
+        this.names = new String[seats.size()];
+        this.seatOf = new IdentityHashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            names[i] = seats.get(i).getName();
+            seatOf.put(seats.get(i), i);
+        }
+        this.full = new ArrayBlockingQueue<>(BATCHES + 1);
+        this.free = new ArrayBlockingQueue<>(BATCHES);
+        for (int i = 1; i < BATCHES; i++) free.add(new int[1 + batchSize * RECORD_INTS]);
+        this.batch = new int[1 + batchSize * RECORD_INTS];
+
+        this.writer = new Thread(this::drain, "capitaly-text-sink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the event to be written.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    @Override
+    public void onEvent(EventType type, int seat, int tile, int amount) {
+        this.record(type.getCode(), seat, tile, amount);
+    }
+
+    /**
+     * Queues the end of the game to be written.
+     *
+     * @param winner The seat of the last player standing.
+     */
+    @Override
+    public void onGameOver(int winner) {
+        this.record(GAME_OVER, winner, 0, 0);
+    }
+
+    /**
+     * Queues the capital and the number of properties of every player still in the game to be written.
+     *
+     * @param players The players still in the game, in turn order.
+     */
+    @Override
+    public void onStandings(List<Player> players) {
+        for (Player player : players) this.record(STANDING, seatOf.get(player), player.getProperties().size(), player.getCapital());
+    }
+
+    /**
+     * Writes the queued records, stops the background thread and closes the writer.
+     *
+     * @throws UncheckedIOException If the text could not be written.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        this.handOver(batch);
+        this.handOver(END);
+        try {
+            writer.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            out.close();
+        } catch (IOException exception) {
+            if (failure == null) failure = exception;
+        }
+        if (failure != null) throw new UncheckedIOException(failure);
+    }
+
+    /**
+     * Adds a record to the batch being filled, and hands the batch over once it is full.
+     *
+     * @param code   The code of the record.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile, or the number of properties of a standing.
+     * @param amount The amount of money.
+     */
+    private void record(int code, int seat, int tile, int amount) {
+        int offset = 1 + batch[0] * RECORD_INTS;
+        batch[offset] = code;
+        batch[offset + 1] = seat;
+        batch[offset + 2] = tile;
+        batch[offset + 3] = amount;
+        batch[0]++;
+
+        if (offset + RECORD_INTS == batch.length) {
+            this.handOver(batch);
+            try {
+                batch = free.take();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the text sink.", exception);
+            }
+        }
+    }
+
+    /**
+     * Queues a batch for the background thread.
+     *
+     * @param records The batch.
+     */
+    private void handOver(int[] records) {
+        try {
+            full.put(records);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the text sink.", exception);
+        }
+    }
+
+    /**
+     * Writes the queued batches until the sink is closed, run by the background thread.
+     */
+    private void drain() {
+        StringBuilder text = new StringBuilder();
+        try {
+            for (int[] records = full.take(); records != END; records = full.take()) {
+                for (int i = 0; i < records[0]; i++) {
+                    int offset = 1 + i * RECORD_INTS;
+                    describe(text, records[offset], records[offset + 1], records[offset + 2], records[offset + 3]);
+                }
+                records[0] = 0;
+                free.offer(records);
+
+                if (failure == null) {
+                    try {
+                        out.append(text);
+                        out.flush();
+                    } catch (IOException exception) {
+                        failure = exception;
+                    }
+                }
+                text.setLength(0);
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends the line describing a record.
+     *
+     * @param text   The text to append to.
+     * @param code   The code of the record.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile, or the number of properties of a standing.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    private void describe(StringBuilder text, int code, int seat, int tile, int amount) {
+        text.append(names[seat]);
+        switch (code) {
+            case GAME_OVER -> text.append(" won the game!");
+            case STANDING -> text.append(":\tcapital: ").append(amount).append("\tproperties: ").append(tile);
+            default -> {
+                switch (EventType.ofCode(code)) {
+                    case MOVE -> text.append(" rolled ").append(amount).append(" and moved to tile ").append(tile);
+                    case PURCHASE -> text.append(" bought tile ").append(tile).append(" for ").append(amount);
+                    case UPGRADE -> text.append(" built a house on tile ").append(tile).append(" for ").append(amount);
+                    case DECLINE -> text.append(" passed on tile ").append(tile).append(" for ").append(amount);
+                    case RENT -> text.append(" owed ").append(amount).append(" rent on tile ").append(tile);
+                    case SERVICE_FEE -> text.append(" owed a fee of ").append(amount).append(" on tile ").append(tile);
+                    case LUCK_REWARD -> text.append(" received ").append(amount).append(" on tile ").append(tile);
+                    case ELIMINATION -> text.append(" got eliminated.");
+                }
+            }
+        }
+        text.append(System.lineSeparator());
+    }
+}
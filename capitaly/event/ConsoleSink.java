@@ -0,0 +1,74 @@
+package capitaly.event;
+
+import capitaly.player.Player;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * A sink printing the eliminations, the winner and the standings of a game as text, as the console game does.
+ */
+public final class ConsoleSink implements GameSink {
+
+    /**
+     * The stream to print to.
+     */
+    private final PrintStream out;
+
+    /**
+     * The players of the game, in seat order.
+     */
+    private final List<Player> seats;
+
+    /**
+     * Constructs a new ConsoleSink.
+     *
+     * @param out   The stream to print to.
+     * @param seats The players of the game, in seat order.
+     */
+    public ConsoleSink(PrintStream out, List<Player> seats) {
+        this.out = out;
+        this.seats = List.copyOf(seats);
+    }
+
+    /**
+     * Prints the eliminations of the game, ignoring the other events.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    @Override
+    public void onEvent(EventType type, int seat, int tile, int amount) {
+        if (type == EventType.ELIMINATION) out.println(seats.get(seat).getName() + " got eliminated.");
+    }
+
+    /**
+     * Prints the winner of the game.
+     *
+     * @param winner The seat of the last player standing.
+     */
+    @Override
+    public void onGameOver(int winner) {
+        out.println(seats.get(winner).getName() + " won the game!");
+    }
+
+    /**
+     * Prints the information about the players still in the game.
+     *
+     * @param players The players still in the game, in turn order.
+     */
+    @Override
+    public void onStandings(List<Player> players) {
+        for (Player player : players) out.println(player);
+    }
+
+    /**
+     * Flushes the stream, which is left open.
+     */
+    @Override
+    public void close() {
+        out.flush();
+    }
+}
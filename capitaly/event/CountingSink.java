@@ -0,0 +1,98 @@
+package capitaly.event;
+
+/**
+ * A sink only counting the events of its games and summing their amounts, without any formatting.
+ * It can be shared by the games of a single thread.
+ */
+public final class CountingSink implements GameSink {
+
+    /**
+     * The number of events of every type, indexed by their code.
+     */
+    private final long[] counts;
+
+    /**
+     * The sum of the amounts of the events of every type, indexed by their code.
+     */
+    private final long[] totals;
+
+    /**
+     * The number of games which ended.
+     */
+    private long games;
+
+    /**
+     * Constructs a new CountingSink with every counter at 0.
+     */
+    public CountingSink() {
+        this.counts = new long[EventType.values().length];
+        this.totals = new long[EventType.values().length];
+        this.games = 0;
+    }
+
+    /**
+     * Counts the event.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    @Override
+    public void onEvent(EventType type, int seat, int tile, int amount) {
+        counts[type.getCode()]++;
+        totals[type.getCode()] += amount;
+    }
+
+    /**
+     * Counts the end of a game.
+     *
+     * @param winner The seat of the last player standing.
+     */
+    @Override
+    public void onGameOver(int winner) {
+        games++;
+    }
+
+    /**
+     * Returns the number of events of the given type.
+     *
+     * @param type The type of the events.
+     * @return The number of events.
+     */
+    public long getCount(EventType type) {
+        return counts[type.getCode()];
+    }
+
+    /**
+     * Returns the sum of the amounts of the events of the given type.
+     *
+     * @param type The type of the events.
+     * @return The sum of the amounts, the sum of the rolls for {@link EventType#MOVE}.
+     */
+    public long getTotal(EventType type) {
+        return totals[type.getCode()];
+    }
+
+    /**
+     * Returns the number of games which ended.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the string representation of the counters.
+     *
+     * @return The string listing the count and the total of every event type.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("CountingSink {\n\tgames: ").append(games);
+        for (EventType type : EventType.values())
+            builder.append("\n\t").append(type).append(": ").append(getCount(type)).append(" / ").append(getTotal(type));
+        return builder.append("\n}").toString();
+    }
+}
@@ -0,0 +1,74 @@
+package capitaly.event;
+
+/**
+ * Enumerates the things that can happen during a game.
+ * Every event names a player by their seat, a tile by its index on the track and an amount of money, whose meaning
+ * depends on the type.
+ */
+public enum EventType {
+    /**
+     * A player moved onto a tile, the amount is the roll of the die.
+     */
+    MOVE,
+
+    /**
+     * A player bought a tile, the amount is its price.
+     */
+    PURCHASE,
+
+    /**
+     * A player built a house on their tile, the amount is its price (0 if the tile already has one).
+     */
+    UPGRADE,
+
+    /**
+     * A player passed on buying a tile or a house, the amount is the price they were offered.
+     */
+    DECLINE,
+
+    /**
+     * A player owed rent to the owner of the tile, the amount is the landing fee.
+     */
+    RENT,
+
+    /**
+     * A player owed the fee of a service tile, the amount is the fee.
+     */
+    SERVICE_FEE,
+
+    /**
+     * A player received the reward of a luck tile, the amount is the reward.
+     */
+    LUCK_REWARD,
+
+    /**
+     * A player went bankrupt and left the game, the tile is where it happened and the amount is 0.
+     */
+    ELIMINATION;
+
+    /**
+     * The types, indexed by their code.
+     */
+    private static final EventType[] TYPES = values();
+
+    /**
+     * Returns the compact code of the type, as written to journals.
+     *
+     * @return The code of the type.
+     */
+    public int getCode() {
+        return ordinal();
+    }
+
+    /**
+     * Returns the type with the given code.
+     *
+     * @param code The code of the type.
+     * @return The type.
+     * @throws IllegalArgumentException If no type has the code.
+     */
+    public static EventType ofCode(int code) {
+        if (code < 0 || code >= TYPES.length) throw new IllegalArgumentException("Unknown event type " + code + '.');
+        return TYPES[code];
+    }
+}
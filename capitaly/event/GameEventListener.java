@@ -0,0 +1,26 @@
+package capitaly.event;
+
+/**
+ * Receives the events of a game as they happen.
+ * The events are passed as primitives, so reporting them does not allocate.
+ * Amounts are what is owed: a bankrupt player pays only their remaining capital.
+ */
+@FunctionalInterface
+public interface GameEventListener {
+
+    /**
+     * A listener ignoring every event.
+     */
+    GameEventListener NONE = (type, seat, tile, amount) -> {
+    };
+
+    /**
+     * Handles an event of the game.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player, -1 if the game does not seat its players.
+     * @param tile   The index of the tile on the track, -1 if the game does not track it.
+     * @param amount The amount of money, or the roll of a {@link EventType#MOVE}.
+     */
+    void onEvent(EventType type, int seat, int tile, int amount);
+}
@@ -0,0 +1,53 @@
+package capitaly.event;
+
+import capitaly.player.Player;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * Receives the output of a game: its events, its end and the standings of its players.
+ * The game only reports what happens, the sink decides how and when it is written, if at all.
+ */
+public interface GameSink extends GameEventListener, Closeable {
+
+    /**
+     * A sink ignoring everything.
+     */
+    GameSink NONE = (type, seat, tile, amount) -> {
+    };
+
+    /**
+     * Handles the end of the game.
+     *
+     * @param winner The seat of the last player standing.
+     */
+    default void onGameOver(int winner) {
+    }
+
+    /**
+     * Handles the standings of the game, reported after every manual roll and at the end of the game.
+     * The players keep changing as the game goes on, so they must be read before the method returns.
+     *
+     * @param players The players still in the game, in turn order.
+     */
+    default void onStandings(List<Player> players) {
+    }
+
+    /**
+     * Writes everything received so far and releases the resources of the sink.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Adapts an event listener to a sink ignoring the end and the standings of the game.
+     *
+     * @param listener The listener receiving the events.
+     * @return The sink.
+     */
+    static GameSink of(GameEventListener listener) {
+        return listener instanceof GameSink sink ? sink : listener::onEvent;
+    }
+}
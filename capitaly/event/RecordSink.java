@@ -0,0 +1,152 @@
+package capitaly.event;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A sink writing one machine readable record per event, as CSV rows or as JSON lines.
+ * Every record holds the turn it happened in (counting the moves), the type, the seat, the tile and the amount.
+ * The end of the game is written as a record of type {@code GAME_OVER} with the seat of the winner, the standings are
+ * not written since they follow from the events.
+ */
+public final class RecordSink implements GameSink {
+
+    /**
+     * The formats of the records.
+     */
+    public enum Format {
+        /**
+         * Comma separated values, with a header row.
+         */
+        CSV,
+
+        /**
+         * One JSON object per line.
+         */
+        JSON_LINES
+    }
+
+    /**
+     * The header row of the CSV format.
+     */
+    private static final String CSV_HEADER = "turn,type,seat,tile,amount";
+
+    /**
+     * The writer the records go to.
+     */
+    private final Writer out;
+
+    /**
+     * The format of the records.
+     */
+    private final Format format;
+
+    /**
+     * The record being written, reused for every record.
+     */
+    private final StringBuilder line;
+
+    /**
+     * The characters of the record being written, reused for every record.
+     */
+    private char[] chars;
+
+    /**
+     * The number of moves so far.
+     */
+    private long turn;
+
+    /**
+     * Constructs a new RecordSink and writes the header of the format, if it has one.
+     *
+     * @param out    The writer the records go to, preferably buffered, closed with the sink.
+     * @param format The format of the records.
+     */
+    public RecordSink(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+        this.line = new StringBuilder(64);
+        this.chars = new char[64];
+        this.turn = 0;
+
+        if (format == Format.CSV) {
+            line.append(CSV_HEADER).append('\n');
+            this.write();
+        }
+    }
+
+    /**
+     * Writes the record of an event.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    @Override
+    public void onEvent(EventType type, int seat, int tile, int amount) {
+        if (type == EventType.MOVE) turn++;
+        this.record(type.name(), seat, tile, amount);
+    }
+
+    /**
+     * Writes the record of the end of the game.
+     *
+     * @param winner The seat of the last player standing.
+     */
+    @Override
+    public void onGameOver(int winner) {
+        this.record("GAME_OVER", winner, -1, 0);
+    }
+
+    /**
+     * Flushes and closes the writer.
+     *
+     * @throws UncheckedIOException If the records could not be written.
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Formats and writes a record.
+     *
+     * @param type   The name of the type of the record.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     */
+    private void record(String type, int seat, int tile, int amount) {
+        if (format == Format.CSV) {
+            line.append(turn).append(',').append(type).append(',').append(seat).append(',').append(tile).append(',').append(amount);
+        } else {
+            line.append("{\"turn\":").append(turn).append(",\"type\":\"").append(type).append("\",\"seat\":").append(seat)
+                .append(",\"tile\":").append(tile).append(",\"amount\":").append(amount).append('}');
+        }
+        line.append('\n');
+        this.write();
+    }
+
+    /**
+     * Writes the record being built and clears it.
+     *
+     * @throws UncheckedIOException If the record could not be written.
+     */
+    private void write() {
+        int length = line.length();
+        if (chars.length < length) chars = new char[Math.max(length, chars.length * 2)];
+        line.getChars(0, length, chars, 0);
+        line.setLength(0);
+        try {
+            out.write(chars, 0, length);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
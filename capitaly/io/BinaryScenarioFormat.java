@@ -0,0 +1,50 @@
+package capitaly.io;
+
+/**
+ * The constants of the binary scenario format, shared by {@link BinaryScenarioWriter} and {@link BinaryScenarioReader}.
+ * <p>
+ * All numbers are big-endian. A file consists of:
+ * <ul>
+ *     <li>the header: the magic bytes {@code "CPTL"}, the version (u16), the tile count (i32), the player count (i32)
+ *     and the roll count (i64, 0 for a manual game);</li>
+ *     <li>the tile table: for every tile its kind (the ordinal of {@link capitaly.tile.TileKind}, u8) and its
+ *     amount (i32);</li>
+ *     <li>the player table: for every player their strategy (the ordinal of {@link capitaly.player.Strategy}, u8)
+ *     and their name (as written by {@link java.io.DataOutput#writeUTF(String)});</li>
+ *     <li>zero padding up to a multiple of 8 bytes;</li>
+ *     <li>the rolls, 21 per i64 word: roll i is {@code 1 + ((word[i / 21] >>> 3 * (i % 21)) & 7)}.</li>
+ * </ul>
+ */
+final class BinaryScenarioFormat {
+
+    /**
+     * The magic bytes at the start of every binary scenario.
+     */
+    static final int MAGIC = 0x4350544C;
+
+    /**
+     * The version of the format written by this code.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The number of bits of a packed roll.
+     */
+    static final int ROLL_BITS = 3;
+
+    /**
+     * The number of rolls packed into a word.
+     */
+    static final int ROLLS_PER_WORD = Long.SIZE / ROLL_BITS;
+
+    /**
+     * The mask of a packed roll.
+     */
+    static final long ROLL_MASK = (1L << ROLL_BITS) - 1;
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private BinaryScenarioFormat() {
+    }
+}
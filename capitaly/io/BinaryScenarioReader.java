@@ -0,0 +1,325 @@
+package capitaly.io;
+
+import capitaly.GameContext;
+import capitaly.Track;
+import capitaly.dice.RollSource;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static capitaly.io.BinaryScenarioFormat.*;
+
+/**
+ * Loads scenarios written in the binary format described by {@link BinaryScenarioFormat}.
+ * The tile and player tables are read up front, the rolls are memory-mapped and can be streamed from any offset,
+ * so a game can be resumed in the middle of a long roll list.
+ */
+public final class BinaryScenarioReader implements Closeable {
+
+    /**
+     * The maximum number of words in a single mapping of the rolls.
+     */
+    private static final int WINDOW_WORDS = 1 << 27;
+
+    /**
+     * The channel of the scenario file, kept open to map the rolls.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The layout of the track.
+     */
+    private final TrackSpec track;
+
+    /**
+     * The players at the table, in seating order.
+     */
+    private final List<PlayerSpec> players;
+
+    /**
+     * The number of rolls in the scenario, 0 for a manual game.
+     */
+    private final long rollCount;
+
+    /**
+     * The offset of the first word of rolls in the file.
+     */
+    private final long rollsStart;
+
+    /**
+     * Constructs a new BinaryScenarioReader and reads the header and the tables of the scenario.
+     *
+     * @param path The path to the binary scenario.
+     * @throws InvalidInputException If the file is missing or not a valid binary scenario.
+     */
+    public BinaryScenarioReader(String path) throws InvalidInputException {
+        try {
+            this.channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        } catch (NoSuchFileException exception) {
+            throw new InvalidInputException("No input file found at " + path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        try {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+            if (input.readInt() != MAGIC)
+                throw invalid("Missing the magic bytes, " + path + " is not a binary scenario.");
+            short version = input.readShort();
+            if (version != VERSION)
+                throw invalid("Expected format version " + VERSION + ", found " + version + '.');
+
+            int tileCount = input.readInt();
+            int playerCount = input.readInt();
+            this.rollCount = input.readLong();
+            if (tileCount < 1) throw invalid("Expected a positive tile count, found " + tileCount + '.');
+            if (playerCount < 1) throw invalid("Expected a positive player count, found " + playerCount + '.');
+            if (rollCount < 0) throw invalid("Expected a non-negative roll count, found " + rollCount + '.');
+            long headerSize = Integer.BYTES + Short.BYTES + 2L * Integer.BYTES + Long.BYTES;
+
+            TileKind[] kinds = new TileKind[tileCount];
+            int[] amounts = new int[tileCount];
+            TileKind[] tileKinds = TileKind.values();
+            for (int i = 0; i < tileCount; i++) {
+                int kind = input.readUnsignedByte();
+                if (kind >= tileKinds.length) throw invalid("Unknown kind " + kind + " of tile " + i + '.');
+                kinds[i] = tileKinds[kind];
+                amounts[i] = input.readInt();
+            }
+            headerSize += (long) tileCount * (Byte.BYTES + Integer.BYTES);
+
+            List<PlayerSpec> players = new ArrayList<>(playerCount);
+            Strategy[] strategies = Strategy.values();
+            for (int i = 0; i < playerCount; i++) {
+                int strategy = input.readUnsignedByte();
+                if (strategy >= strategies.length) throw invalid("Unknown strategy " + strategy + " of player " + i + '.');
+                input.mark(Short.BYTES);
+                int nameLength = input.readUnsignedShort();
+                input.reset();
+                players.add(new PlayerSpec(input.readUTF(), strategies[strategy]));
+                headerSize += Byte.BYTES + Short.BYTES + nameLength;
+            }
+
+            this.track = new TrackSpec(kinds, amounts);
+            this.players = List.copyOf(players);
+            this.rollsStart = (headerSize + Long.BYTES - 1) / Long.BYTES * Long.BYTES;
+            long words = (rollCount + ROLLS_PER_WORD - 1) / ROLLS_PER_WORD;
+            if (channel.size() < rollsStart + words * Long.BYTES)
+                throw invalid("Expected " + rollCount + " rolls, but the file ends early.");
+        } catch (EOFException exception) {
+            this.close();
+            throw invalid("The file ends in the middle of the header or the tables.");
+        } catch (IOException exception) {
+            this.close();
+            throw new UncheckedIOException(exception);
+        } catch (RuntimeException exception) {
+            this.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Creates the exception thrown for a malformed binary scenario.
+     *
+     * @param detail The description of the problem.
+     * @return The exception to throw.
+     */
+    private static InvalidInputException invalid(String detail) {
+        return new InvalidInputException("Invalid input while reading binary scenario:\n" + detail);
+    }
+
+    /**
+     * Builds a new track with fresh tiles following the scenario.
+     *
+     * @param context The context of the game the track is built for.
+     * @return The new track.
+     */
+    public Track getTrack(GameContext context) {
+        return track.build(context);
+    }
+
+    /**
+     * Creates new players following the scenario.
+     *
+     * @param context The context of the game the players take part in.
+     * @return The new players, in seating order.
+     */
+    public List<Player> getPlayers(GameContext context) {
+        List<Player> result = new ArrayList<>(players.size());
+        for (PlayerSpec player : players) result.add(player.create(context));
+        return result;
+    }
+
+    /**
+     * Returns the layout of the track.
+     *
+     * @return The layout of the track.
+     */
+    public TrackSpec getTrackSpec() {
+        return track;
+    }
+
+    /**
+     * Returns the players at the table.
+     *
+     * @return The players, in seating order.
+     */
+    public List<PlayerSpec> getPlayerSpecs() {
+        return players;
+    }
+
+    /**
+     * Returns the number of rolls in the scenario.
+     *
+     * @return The number of rolls, 0 for a manual game.
+     */
+    public long getRollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Returns a new source streaming the rolls from the first one.
+     *
+     * @return The source of the rolls.
+     */
+    public RollSource getRollSource() {
+        return getRollSource(0);
+    }
+
+    /**
+     * Returns a new source streaming the rolls from the given offset.
+     *
+     * @param offset The index of the first roll to stream.
+     * @return The source of the rolls.
+     * @throws IndexOutOfBoundsException If the offset is negative or past the last roll.
+     */
+    public RollSource getRollSource(long offset) {
+        if (offset < 0 || offset > rollCount)
+            throw new IndexOutOfBoundsException("Roll offset " + offset + " out of bounds for " + rollCount + " rolls.");
+        return new PackedRollSource(offset);
+    }
+
+    /**
+     * Closes the scenario file. The roll sources cannot be read any further.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Streams the packed rolls of the scenario.
+     */
+    private final class PackedRollSource implements RollSource {
+
+        /**
+         * The currently mapped words.
+         */
+        private LongBuffer window;
+
+        /**
+         * The index of the first mapped word.
+         */
+        private long base;
+
+        /**
+         * The index of the next roll.
+         */
+        private long next;
+
+        /**
+         * Constructs a new PackedRollSource at the given roll.
+         *
+         * @param next The index of the next roll.
+         */
+        private PackedRollSource(long next) {
+            this.next = next;
+            this.base = -1;
+        }
+
+        /**
+         * Unpacks the next roll.
+         *
+         * @return The next roll, or {@link #END} after the last one.
+         * @throws InvalidInputException If the packed value is not a valid roll.
+         */
+        @Override
+        public int nextRoll() throws InvalidInputException {
+            if (next == rollCount) return END;
+            long word = next / ROLLS_PER_WORD;
+            int roll = 1 + (int) ((wordAt(word) >>> (ROLL_BITS * (next - word * ROLLS_PER_WORD))) & ROLL_MASK);
+            if (roll > 6) throw invalid("Invalid packed roll " + roll + " at offset " + next + '.');
+            next++;
+            return roll;
+        }
+
+        /**
+         * Unpacks the next rolls into the given buffer.
+         *
+         * @param buffer The buffer to fill.
+         * @param offset The index of the first roll in the buffer.
+         * @param length The maximum number of rolls to read.
+         * @return The number of rolls read.
+         * @throws InvalidInputException If a packed value is not a valid roll.
+         */
+        @Override
+        public int fill(int[] buffer, int offset, int length) throws InvalidInputException {
+            int count = (int) Math.min(length, rollCount - next);
+            int i = 0;
+            while (i < count) {
+                long word = next / ROLLS_PER_WORD;
+                int shift = (int) (next - word * ROLLS_PER_WORD);
+                long bits = wordAt(word) >>> (ROLL_BITS * shift);
+                int end = Math.min(count, i + ROLLS_PER_WORD - shift);
+                for (; i < end; i++, bits >>>= ROLL_BITS) {
+                    int roll = 1 + (int) (bits & ROLL_MASK);
+                    if (roll > 6) throw invalid("Invalid packed roll " + roll + " at offset " + next + '.');
+                    buffer[offset + i] = roll;
+                    next++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Returns the word of rolls with the given index, mapping a new window if needed.
+         *
+         * @param word The index of the word.
+         * @return The word.
+         */
+        private long wordAt(long word) {
+            if (base < 0 || word < base || word >= base + window.limit()) {
+                long words = (rollCount + ROLLS_PER_WORD - 1) / ROLLS_PER_WORD;
+                try {
+                    base = word;
+                    int size = (int) Math.min(WINDOW_WORDS, words - word);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, rollsStart + word * Long.BYTES, (long) size * Long.BYTES).asLongBuffer();
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            return window.get((int) (word - base));
+        }
+    }
+}
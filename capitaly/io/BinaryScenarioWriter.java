@@ -0,0 +1,145 @@
+package capitaly.io;
+
+import capitaly.dice.RollSource;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import static capitaly.io.BinaryScenarioFormat.*;
+
+/**
+ * Writes scenarios in the binary format described by {@link BinaryScenarioFormat}, and converts text input files to it.
+ */
+public final class BinaryScenarioWriter {
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private BinaryScenarioWriter() {
+    }
+
+    /**
+     * Converts a text input file to a binary scenario.
+     * Usage: {@code java capitaly.io.BinaryScenarioWriter <input.txt> <output.bin>}
+     *
+     * @param args The arguments of the program (the path of the text input and of the binary output).
+     * @throws InvalidInputException If the text input file is invalid.
+     */
+    public static void main(String[] args) throws InvalidInputException {
+        if (args.length != 2) {
+            System.out.println("Usage: java capitaly.io.BinaryScenarioWriter <input.txt> <output.bin>");
+            return;
+        }
+        convert(args[0], args[1]);
+    }
+
+    /**
+     * Converts a text input file to a binary scenario, streaming the rolls.
+     *
+     * @param textPath   The path to the text input file.
+     * @param binaryPath The path of the binary scenario to write.
+     * @throws InvalidInputException If the text input file is invalid.
+     */
+    public static void convert(String textPath, String binaryPath) throws InvalidInputException {
+        try (MappedInputParser parser = new MappedInputParser(textPath)) {
+            write(
+                Path.of(binaryPath),
+                TrackSpec.of(parser.getTrack()),
+                PlayerSpec.of(parser.getPlayers()),
+                parser.getRollSource(),
+                parser.getRollCount()
+            );
+        }
+    }
+
+    /**
+     * Writes a binary scenario.
+     *
+     * @param path      The path of the binary scenario to write.
+     * @param track     The layout of the track.
+     * @param players   The players at the table, in seating order.
+     * @param rolls     The source of the rolls.
+     * @param rollCount The number of rolls to take from the source, 0 for a manual game.
+     * @throws IllegalArgumentException If the source runs out before the given number of rolls or rolls out of range.
+     */
+    public static void write(Path path, TrackSpec track, List<PlayerSpec> players, RollSource rolls, long rollCount) {
+        write(path, track.length(), track::kind, track::amount, players, rolls, rollCount);
+    }
+
+    /**
+     * Writes a binary scenario whose tiles are produced one at a time, in track order, so that the track does not
+     * have to be held in memory.
+     *
+     * @param path      The path of the binary scenario to write.
+     * @param length    The length of the track.
+     * @param kinds     The kind of each tile, by index.
+     * @param amounts   The amount of each tile, by index.
+     * @param players   The players at the table, in seating order.
+     * @param rolls     The source of the rolls.
+     * @param rollCount The number of rolls to take from the source, 0 for a manual game.
+     * @throws IllegalArgumentException If the source runs out before the given number of rolls or rolls out of range.
+     */
+    static void write(Path path, int length, IntFunction<TileKind> kinds, IntUnaryOperator amounts, List<PlayerSpec> players, RollSource rolls, long rollCount) {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeShort(VERSION);
+            output.writeInt(length);
+            output.writeInt(players.size());
+            output.writeLong(rollCount);
+
+            for (int i = 0; i < length; i++) {
+                output.writeByte(kinds.apply(i).ordinal());
+                output.writeInt(amounts.applyAsInt(i));
+            }
+            for (PlayerSpec player : players) {
+                output.writeByte(player.strategy().ordinal());
+                output.writeUTF(player.name());
+            }
+            while (output.size() % Long.BYTES != 0) output.writeByte(0);
+
+            writeRolls(output, rolls, rollCount);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Packs and writes the given number of rolls.
+     *
+     * @param output    The stream to write to.
+     * @param rolls     The source of the rolls.
+     * @param rollCount The number of rolls to write.
+     * @throws IOException If the stream cannot be written.
+     */
+    private static void writeRolls(DataOutputStream output, RollSource rolls, long rollCount) throws IOException {
+        int[] buffer = new int[ROLLS_PER_WORD * 1024];
+        long written = 0;
+        while (written < rollCount) {
+            int count = (int) Math.min(buffer.length, rollCount - written);
+            if (rolls.fill(buffer, 0, count) != count)
+                throw new IllegalArgumentException("The roll source ran out after " + written + " of " + rollCount + " rolls.");
+
+            for (int start = 0; start < count; start += ROLLS_PER_WORD) {
+                long word = 0;
+                int end = Math.min(count, start + ROLLS_PER_WORD);
+                for (int i = start; i < end; i++) {
+                    if (buffer[i] < 1 || buffer[i] > 6)
+                        throw new IllegalArgumentException("Expected rolls between 1 and 6, got " + buffer[i] + '.');
+                    word |= (long) (buffer[i] - 1) << (ROLL_BITS * (i - start));
+                }
+                output.writeLong(word);
+            }
+            written += count;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package capitaly.io;
+
+/**
+ * The constants of the binary event journal, shared by {@link EventJournalWriter} and {@link EventJournalReader}.
+ * <p>
+ * All numbers are big-endian. A journal consists of:
+ * <ul>
+ *     <li>the header: the magic bytes {@code "CPEV"}, the version (u16), zero padding (u16), the tile count (i32)
+ *     and the player count (i32);</li>
+ *     <li>the events, 12 bytes each: the code of the {@link capitaly.event.EventType} (u8) and the seat (u24),
+ *     the tile (i32) and the amount (i32).</li>
+ * </ul>
+ * Since every record has the same size, the journal can be read from any event on.
+ */
+final class EventJournalFormat {
+
+    /**
+     * The magic bytes at the start of every event journal.
+     */
+    static final int MAGIC = 0x43504556;
+
+    /**
+     * The version of the format written by this code.
+     */
+    static final short VERSION = 1;
+
+    /**
+     * The size of the header in bytes.
+     */
+    static final int HEADER_BYTES = 16;
+
+    /**
+     * The size of an event in bytes.
+     */
+    static final int EVENT_BYTES = 12;
+
+    /**
+     * The number of bits of the seat in the first word of an event.
+     */
+    static final int SEAT_BITS = 24;
+
+    /**
+     * The mask of the seat in the first word of an event.
+     */
+    static final int SEAT_MASK = (1 << SEAT_BITS) - 1;
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private EventJournalFormat() {
+    }
+}
@@ -0,0 +1,257 @@
+package capitaly.io;
+
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.kernel.GameKernel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static capitaly.io.EventJournalFormat.*;
+
+/**
+ * Replays binary event journals written by {@link EventJournalWriter}.
+ * The events are memory-mapped and can be replayed from any of them, e.g. into {@link GameKernel#apply} to rebuild the
+ * state of the recorded game after any event.
+ */
+public final class EventJournalReader implements Closeable {
+
+    /**
+     * The maximum number of events in a single mapping of the journal.
+     */
+    private static final long WINDOW_EVENTS = 1L << 26;
+
+    /**
+     * The number of event types.
+     */
+    private static final int TYPE_COUNT = EventType.values().length;
+
+    /**
+     * The channel of the journal file, kept open to map the events.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The number of tiles of the recorded game.
+     */
+    private final int tiles;
+
+    /**
+     * The number of seats of the recorded game.
+     */
+    private final int seats;
+
+    /**
+     * The number of complete events in the journal.
+     */
+    private final long count;
+
+    /**
+     * The index of the next event to replay.
+     */
+    private long position;
+
+    /**
+     * The mapping of the events around the position, null until the first replay.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * The index of the first event of the mapping.
+     */
+    private long windowStart;
+
+    /**
+     * Constructs a new EventJournalReader and reads the header of the journal.
+     * An event cut short, e.g. by a crash of the recording program, is ignored.
+     *
+     * @param path The path to the journal.
+     * @throws InvalidInputException If the file is missing or not an event journal.
+     */
+    public EventJournalReader(String path) throws InvalidInputException {
+        try {
+            this.channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        } catch (NoSuchFileException exception) {
+            throw new InvalidInputException("No input file found at " + path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) if (channel.read(header) < 0) break;
+            if (header.hasRemaining()) throw invalid("The file ends in the middle of the header.");
+            header.flip();
+
+            if (header.getInt() != MAGIC) throw invalid("Missing the magic bytes, " + path + " is not an event journal.");
+            short version = header.getShort();
+            if (version != VERSION) throw invalid("Expected format version " + VERSION + ", found " + version + '.');
+            header.getShort();
+            this.tiles = header.getInt();
+            this.seats = header.getInt();
+            if (tiles < 1) throw invalid("Expected a positive tile count, found " + tiles + '.');
+            if (seats < 1 || seats > SEAT_MASK) throw invalid("Expected 1 to " + SEAT_MASK + " seats, found " + seats + '.');
+
+            this.count = (channel.size() - HEADER_BYTES) / EVENT_BYTES;
+            this.position = 0;
+        } catch (IOException exception) {
+            this.close();
+            throw new UncheckedIOException(exception);
+        } catch (RuntimeException exception) {
+            this.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Creates the exception thrown for a malformed event journal.
+     *
+     * @param detail The description of the problem.
+     * @return The exception.
+     */
+    private static InvalidInputException invalid(String detail) {
+        return new InvalidInputException("Invalid event journal:\n" + detail);
+    }
+
+    /**
+     * Returns the number of tiles of the recorded game.
+     *
+     * @return The number of tiles.
+     */
+    public int getLength() {
+        return tiles;
+    }
+
+    /**
+     * Returns the number of seats of the recorded game.
+     *
+     * @return The number of seats.
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * Returns the number of events in the journal.
+     *
+     * @return The number of events.
+     */
+    public long getEventCount() {
+        return count;
+    }
+
+    /**
+     * Returns the index of the next event to replay.
+     *
+     * @return The index of the next event.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Moves to the given event, the next one to replay.
+     *
+     * @param event The index of the event, at most the number of events.
+     * @throws IllegalArgumentException If the journal has fewer events.
+     */
+    public void seek(long event) {
+        if (event < 0 || event > count) throw new IllegalArgumentException("Expected an event between 0 and " + count + ", got " + event + '.');
+        this.position = event;
+    }
+
+    /**
+     * Replays every remaining event to the given listener.
+     *
+     * @param listener The listener receiving the events.
+     * @return The number of events replayed.
+     * @throws InvalidInputException If an event is malformed.
+     */
+    public long replay(GameEventListener listener) throws InvalidInputException {
+        return this.replay(listener, count - position);
+    }
+
+    /**
+     * Replays at most the given number of events to the given listener.
+     *
+     * @param listener  The listener receiving the events.
+     * @param maxEvents The number of events to replay.
+     * @return The number of events replayed, fewer at the end of the journal.
+     * @throws InvalidInputException If an event is malformed.
+     */
+    public long replay(GameEventListener listener, long maxEvents) throws InvalidInputException {
+        long end = position + Math.min(Math.max(maxEvents, 0), count - position);
+        long replayed = end - position;
+        while (position < end) {
+            if (window == null || position < windowStart || position >= windowStart + window.capacity() / EVENT_BYTES)
+                this.map(position);
+
+            int offset = (int) (position - windowStart) * EVENT_BYTES;
+            int head = window.getInt(offset);
+            int code = head >>> SEAT_BITS;
+            int seat = head & SEAT_MASK;
+            if (code >= TYPE_COUNT || seat >= seats)
+                throw invalid("Malformed event " + position + " (type " + code + ", seat " + seat + ").");
+            listener.onEvent(EventType.ofCode(code), seat, window.getInt(offset + Integer.BYTES), window.getInt(offset + 2 * Integer.BYTES));
+            position++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Rebuilds the state of the recorded game after the given number of events.
+     * The game is reset first, with the turn order starting at the seat of the first recorded move.
+     * The journal is left positioned after the last replayed event.
+     *
+     * @param game   A game of the recorded scenario.
+     * @param events The number of events to replay from the start of the journal.
+     * @return The number of events replayed, fewer if the journal is shorter.
+     * @throws IllegalArgumentException If the game does not match the journal or the events do not fit the game.
+     * @throws InvalidInputException    If an event is malformed.
+     */
+    public long rebuild(GameKernel game, long events) throws InvalidInputException {
+        if (game.getLength() != tiles || game.getSeats() != seats)
+            throw new IllegalArgumentException("Cannot replay a journal of " + tiles + " tiles and " + seats + " seats into a game of " + game.getLength() + " tiles and " + game.getSeats() + " seats.");
+        this.seek(0);
+        if (count == 0) game.reset();
+        else {
+            this.map(0);
+            game.reset(window.getInt(0) & SEAT_MASK);
+        }
+        return this.replay(game::apply, events);
+    }
+
+    /**
+     * Maps the window of events starting at the given one.
+     *
+     * @param start The index of the first event of the window.
+     */
+    private void map(long start) {
+        long size = Math.min(WINDOW_EVENTS, count - start) * EVENT_BYTES;
+        try {
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start * EVENT_BYTES, size);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        this.windowStart = start;
+    }
+
+    /**
+     * Closes the journal file.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
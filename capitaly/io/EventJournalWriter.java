@@ -0,0 +1,150 @@
+package capitaly.io;
+
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static capitaly.io.EventJournalFormat.*;
+
+/**
+ * Records the events of a game to a binary journal in the format described by {@link EventJournalFormat}.
+ * The events are collected in a direct buffer and written in large blocks, so recording an event neither formats
+ * text nor allocates.
+ */
+public final class EventJournalWriter implements GameEventListener, Flushable, Closeable {
+
+    /**
+     * The default number of events buffered between two writes.
+     */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The channel of the journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The buffer collecting the events.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of seats of the recorded game.
+     */
+    private final int seats;
+
+    /**
+     * The number of events recorded.
+     */
+    private long count;
+
+    /**
+     * Constructs a new EventJournalWriter with the default buffer capacity, replacing the given file.
+     *
+     * @param path  The path of the journal to write.
+     * @param tiles The number of tiles of the recorded game.
+     * @param seats The number of seats of the recorded game.
+     */
+    public EventJournalWriter(Path path, int tiles, int seats) {
+        this(path, tiles, seats, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new EventJournalWriter, replacing the given file.
+     *
+     * @param path     The path of the journal to write.
+     * @param tiles    The number of tiles of the recorded game.
+     * @param seats    The number of seats of the recorded game.
+     * @param capacity The number of events buffered between two writes.
+     * @throws IllegalArgumentException If the game has too many seats or the capacity is not positive.
+     */
+    public EventJournalWriter(Path path, int tiles, int seats, int capacity) {
+        if (seats < 1 || seats > SEAT_MASK) throw new IllegalArgumentException("Expected 1 to " + SEAT_MASK + " seats, got " + seats + '.');
+        if (capacity < 1) throw new IllegalArgumentException("Expected a positive capacity, got " + capacity + '.');
+
+        try {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        this.buffer = ByteBuffer.allocateDirect(Math.max(HEADER_BYTES, capacity * EVENT_BYTES));
+        this.seats = seats;
+        this.count = 0;
+
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(tiles);
+        buffer.putInt(seats);
+    }
+
+    /**
+     * Records an event of the game.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     * @throws IllegalArgumentException If the seat is not one of the recorded game.
+     */
+    @Override
+    public void onEvent(EventType type, int seat, int tile, int amount) {
+        if (seat < 0 || seat >= seats) throw new IllegalArgumentException("Expected a seat below " + seats + ", got " + seat + '.');
+        if (buffer.remaining() < EVENT_BYTES) this.drain();
+
+        buffer.putInt(type.getCode() << SEAT_BITS | seat);
+        buffer.putInt(tile);
+        buffer.putInt(amount);
+        count++;
+    }
+
+    /**
+     * Returns the number of events recorded.
+     *
+     * @return The number of events recorded.
+     */
+    public long getEventCount() {
+        return count;
+    }
+
+    /**
+     * Writes the buffered events to the journal file.
+     */
+    @Override
+    public void flush() {
+        this.drain();
+    }
+
+    /**
+     * Writes the buffered events and closes the journal file.
+     */
+    @Override
+    public void close() {
+        try (channel) {
+            this.drain();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes the content of the buffer to the channel and empties it.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        buffer.clear();
+    }
+}
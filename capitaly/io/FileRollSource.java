@@ -0,0 +1,121 @@
+package capitaly.io;
+
+import capitaly.dice.RollSource;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * A roll source streaming the dice rolls of an input file line by line.
+ * Only the line being parsed is held in memory, however many rolls the file lists.
+ * The tiles and the players are skipped without being validated, read them with {@link InputDataParser}.
+ */
+public final class FileRollSource implements RollSource, Closeable {
+
+    /**
+     * The reader of the input file, positioned at the next roll.
+     */
+    private final BufferedReader reader;
+
+    /**
+     * The number of rolls listed in the input file, 0 if the file lists none.
+     */
+    private final int count;
+
+    /**
+     * The number of rolls read so far.
+     */
+    private int read;
+
+    /**
+     * Constructs a new FileRollSource for the given input file.
+     *
+     * @param path The path to the input file.
+     * @throws InvalidInputException If the input file is missing or its lists are malformed.
+     */
+    public FileRollSource(String path) throws InvalidInputException {
+        try {
+            this.reader = Files.newBufferedReader(Path.of(path));
+        } catch (NoSuchFileException exception) {
+            throw new InvalidInputException("No input file found at " + path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        try {
+            this.skipList();
+            this.skipList();
+            String line = reader.readLine();
+            this.count = line == null ? 0 : InputDataParser.parseDataCount(line);
+            this.read = 0;
+        } catch (IOException exception) {
+            this.close();
+            throw new UncheckedIOException(exception);
+        } catch (InvalidInputException exception) {
+            this.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Skips a list of the input file, including its line count.
+     *
+     * @throws IOException If the file cannot be read.
+     * @throws InvalidInputException If the list is malformed.
+     */
+    private void skipList() throws IOException, InvalidInputException {
+        String line = reader.readLine();
+        if (line == null) throw InputDataParser.missingLines(0, 0);
+        int dataCount = InputDataParser.parseDataCount(line);
+        for (int counter = 1; counter <= dataCount; counter++) {
+            if (reader.readLine() == null) throw InputDataParser.missingLines(dataCount, counter);
+        }
+    }
+
+    /**
+     * Returns whether the input file lists any rolls, i.e. whether the game is not meant to be played manually.
+     *
+     * @return Whether the input file lists rolls.
+     */
+    public boolean hasRolls() {
+        return count > 0;
+    }
+
+    /**
+     * Reads and parses the next roll of the input file.
+     *
+     * @return The next roll, or {@link #END} after the last listed roll.
+     * @throws InvalidInputException If the roll is invalid or the file ends early.
+     */
+    @Override
+    public int nextRoll() throws InvalidInputException {
+        if (read == count) return END;
+
+        final String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        if (line == null) throw InputDataParser.missingLines(count, read + 1);
+        read++;
+        return InputDataParser.parseDiceRoll(line);
+    }
+
+    /**
+     * Closes the input file.
+     */
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+}
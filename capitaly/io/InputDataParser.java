@@ -1,8 +1,10 @@
 package capitaly.io;
 
+import capitaly.GameContext;
 import capitaly.Track;
 import capitaly.player.CarefulPlayer;
 import capitaly.player.GreedyPlayer;
+import capitaly.player.LookaheadPlayer;
 import capitaly.player.Player;
 import capitaly.player.StrategicPlayer;
 import capitaly.tile.LuckTile;
@@ -12,6 +14,7 @@ import capitaly.tile.Tile;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.Reader;
 import java.util.*;
 import java.util.function.Function;
 
@@ -20,6 +23,11 @@ import java.util.function.Function;
  */
 public final class InputDataParser {
 
+    /**
+     * The context of the game described in the input file.
+     */
+    private final GameContext context;
+
     /**
      * The track described in the input file.
      */
@@ -41,16 +49,63 @@ public final class InputDataParser {
      * @throws InvalidInputException If the input file is invalid.
      */
     public InputDataParser(String path) throws InvalidInputException {
-        try (Scanner scanner = new Scanner(new File(path))) {
-            this.track = new Track(readList(scanner, InputDataParser::parseTile));
-            this.players = readList(scanner, InputDataParser::parsePlayer);
-            this.diceRolls = !scanner.hasNextLine() ?
+        this(open(path), true);
+    }
+
+    /**
+     * Constructs a new InputDataParser object, reading the dice rolls only if asked to. Without them, the rolls are
+     * reported as null and can be streamed with a {@link FileRollSource} instead.
+     *
+     * @param path      The path to the input file.
+     * @param readRolls Whether to read the dice rolls.
+     * @throws InvalidInputException If the input file is invalid.
+     */
+    public InputDataParser(String path, boolean readRolls) throws InvalidInputException {
+        this(open(path), readRolls);
+    }
+
+    /**
+     * Constructs a new InputDataParser object reading the input from the given reader, e.g. a scenario received over
+     * the network.
+     *
+     * @param reader The reader of the input, closed once the input is parsed.
+     * @throws InvalidInputException If the input is invalid.
+     */
+    public InputDataParser(Reader reader) throws InvalidInputException {
+        this(new Scanner(reader), true);
+    }
+
+    /**
+     * Constructs a new InputDataParser object reading the input from the given scanner.
+     *
+     * @param source    The scanner of the input, closed once the input is parsed.
+     * @param readRolls Whether to read the dice rolls.
+     * @throws InvalidInputException If the input is invalid.
+     */
+    private InputDataParser(Scanner source, boolean readRolls) throws InvalidInputException {
+        this.context = new GameContext();
+        try (Scanner scanner = source) {
+            this.track = new Track(readList(scanner, line -> parseTile(line, context)));
+            this.players = readList(scanner, line -> parsePlayer(line, context));
+            this.diceRolls = !readRolls || !scanner.hasNextLine() ?
                 null :
                 readList(scanner, InputDataParser::parseDiceRoll)
                     .stream()
                     .mapToInt(i -> i)
                     .toArray();
+        }
+    }
 
+    /**
+     * Opens the input file.
+     *
+     * @param path The path to the input file.
+     * @return The scanner of the input file.
+     * @throws InvalidInputException If there is no file at the path.
+     */
+    private static Scanner open(String path) throws InvalidInputException {
+        try {
+            return new Scanner(new File(path));
         } catch (FileNotFoundException exception) {
             throw new InvalidInputException("No input file found at " + path);
         }
@@ -68,30 +123,55 @@ public final class InputDataParser {
     private static <TYPE> List<TYPE> readList(Scanner scanner, Function<String, TYPE> lineParser) throws InvalidInputException {
         int counter = 0;
         int dataCount = 0;
-        String line = null;
 
         try {
-            line = scanner.nextLine();
-            dataCount = Integer.parseInt(line);
-            if(dataCount < 1) throw new InvalidInputException("Invalid input while reading file:\nExpected a positive integer value for data count, found " + dataCount + '.');
+            dataCount = parseDataCount(scanner.nextLine());
             final List<TYPE> result = new ArrayList<>(dataCount);
             while (counter++ < dataCount) result.add(lineParser.apply(scanner.nextLine()));
             return result;
         } catch (NoSuchElementException exception) {
-            throw new InvalidInputException("Invalid input while reading file:\nExpected " + dataCount + " lines of type, found only " + counter + ".");
+            throw missingLines(dataCount, counter);
+        }
+    }
+
+    /**
+     * Parses the number of lines of a list from the input file.
+     *
+     * @param line The line to parse.
+     * @return The number of lines in the list.
+     * @throws InvalidInputException If the string is not a positive integer.
+     */
+    static int parseDataCount(String line) throws InvalidInputException {
+        final int dataCount;
+        try {
+            dataCount = Integer.parseInt(line);
         } catch (NumberFormatException exception) {
             throw new InvalidInputException("Invalid input while reading file:\nExpected an integer value for data count, found \"" + line + "\".");
         }
+        if (dataCount < 1) throw new InvalidInputException("Invalid input while reading file:\nExpected a positive integer value for data count, found " + dataCount + '.');
+        return dataCount;
+    }
+
+    /**
+     * Creates the exception thrown when a list ends before its announced number of lines.
+     *
+     * @param dataCount The announced number of lines.
+     * @param counter   The number of lines attempted to read.
+     * @return The exception to throw.
+     */
+    static InvalidInputException missingLines(int dataCount, int counter) {
+        return new InvalidInputException("Invalid input while reading file:\nExpected " + dataCount + " lines of type, found only " + counter + ".");
     }
 
     /**
      * Parses a tile from the input file.
      *
-     * @param line The line to parse.
+     * @param line    The line to parse.
+     * @param context The context of the game the tile belongs to.
      * @return The parsed tile.
      * @throws InvalidInputException If the string is not a valid tile.
      */
-    private static Tile parseTile(String line) throws InvalidInputException {
+    static Tile parseTile(String line, GameContext context) throws InvalidInputException {
         if (line == null || line.isBlank())
             throw new InvalidInputException("Invalid input while parsing tile:\nTrying to parse blank string.");
         final String[] tokens = line.split(" ");
@@ -100,9 +180,9 @@ public final class InputDataParser {
 
         try {
             return switch (tokens[0]) {
-                case "realestate" -> new RealEstateTile();
-                case "service" -> new ServiceTile(Integer.parseInt(tokens[1]));
-                case "luck" -> new LuckTile(Integer.parseInt(tokens[1]));
+                case "realestate" -> new RealEstateTile(context);
+                case "service" -> new ServiceTile(Integer.parseInt(tokens[1]), context);
+                case "luck" -> new LuckTile(Integer.parseInt(tokens[1]), context);
                 default ->
                     throw new InvalidInputException("Invalid input while parsing tile:\nExpected <\"realestate\"|\"service\"|\"luck\"> [amount: int], got \"" + line + "\" instead.");
             };
@@ -114,11 +194,12 @@ public final class InputDataParser {
     /**
      * Parses a player from the input file.
      *
-     * @param line The line to parse.
+     * @param line    The line to parse.
+     * @param context The context of the game the player takes part in.
      * @return The parsed player.
      * @throws InvalidInputException If the string is not a valid player.
      */
-    private static Player parsePlayer(String line) throws InvalidInputException {
+    static Player parsePlayer(String line, GameContext context) throws InvalidInputException {
         if (line == null || line.isBlank())
             throw new InvalidInputException("Invalid input while parsing player:\nTrying to parse blank string.");
         final String[] tokens = line.split(" ");
@@ -126,11 +207,12 @@ public final class InputDataParser {
             throw new InvalidInputException("Invalid input while parsing player:\nExpected 2 tokens, got " + tokens.length + " instead: " + Arrays.toString(tokens));
 
         return switch (tokens[1]) {
-            case "careful" -> new CarefulPlayer(tokens[0]);
-            case "strategic" -> new StrategicPlayer(tokens[0]);
-            case "greedy" -> new GreedyPlayer(tokens[0]);
+            case "careful" -> new CarefulPlayer(tokens[0], context);
+            case "strategic" -> new StrategicPlayer(tokens[0], context);
+            case "greedy" -> new GreedyPlayer(tokens[0], context);
+            case "lookahead" -> new LookaheadPlayer(tokens[0], context);
             default ->
-                throw new InvalidInputException("Invalid input while parsing player:\nExpected <\"careful\"|\"strategic\"|\"greedy\"> <name: String>, got " + Arrays.toString(tokens) + " instead.");
+                throw new InvalidInputException("Invalid input while parsing player:\nExpected <\"careful\"|\"strategic\"|\"greedy\"|\"lookahead\"> <name: String>, got " + Arrays.toString(tokens) + " instead.");
         };
     }
 
@@ -161,6 +243,15 @@ public final class InputDataParser {
         };
     }
 
+    /**
+     * Returns the context of the game described in the input file, which issued the IDs of its tiles and players.
+     *
+     * @return The context of the game.
+     */
+    public GameContext getContext() {
+        return context;
+    }
+
     /**
      * Returns the track described in the input file.
      *
@@ -182,7 +273,7 @@ public final class InputDataParser {
     /**
      * Returns the list of dice rolls specified in the input file.
      *
-     * @return The list of dice rolls specified in the input file.
+     * @return The list of dice rolls specified in the input file, null if it lists none or they were not read.
      */
     public int[] getDiceRolls() {
         return diceRolls;
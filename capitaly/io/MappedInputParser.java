@@ -0,0 +1,491 @@
+package capitaly.io;
+
+import capitaly.GameContext;
+import capitaly.Track;
+import capitaly.dice.RollSource;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.tile.Tile;
+import capitaly.tile.TileKind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses an input file through a memory mapping, for scenario files too large for {@link InputDataParser}.
+ * Lines are parsed straight from the mapped bytes, without building a String for every line, and the dice rolls are
+ * not read up front but streamed by the sources returned from {@link #getRollSource()}.
+ * <p>
+ * Lines the fast path does not recognize are decoded and handed to the parsing methods of {@link InputDataParser},
+ * so the accepted inputs and the {@link InvalidInputException} messages are the same as those of the Scanner path.
+ */
+public final class MappedInputParser implements Closeable {
+
+    /**
+     * The maximum size of a single mapping of the file.
+     */
+    private static final int WINDOW = 1 << 30;
+
+    /**
+     * The channel of the input file, kept open to map further windows.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the input file.
+     */
+    private final long size;
+
+    /**
+     * The context of the game described in the input file.
+     */
+    private final GameContext context;
+
+    /**
+     * The track described in the input file.
+     */
+    private final Track track;
+
+    /**
+     * The list of players specified in the input file.
+     */
+    private final List<Player> players;
+
+    /**
+     * The number of dice rolls specified in the input file, 0 if there are none.
+     */
+    private final int rollCount;
+
+    /**
+     * The offset of the first dice roll in the input file.
+     */
+    private final long rollsStart;
+
+    /**
+     * Constructs a new MappedInputParser and parses the tiles, the players and the roll count of the file.
+     *
+     * @param path The path to the input file.
+     * @throws InvalidInputException If the input file is invalid.
+     */
+    public MappedInputParser(String path) throws InvalidInputException {
+        try {
+            this.channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+            this.size = channel.size();
+        } catch (NoSuchFileException exception) {
+            throw new InvalidInputException("No input file found at " + path);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        this.context = new GameContext();
+        try {
+            Cursor cursor = new Cursor(0);
+            this.track = new Track(readTiles(cursor));
+            this.players = readPlayers(cursor);
+            this.rollCount = cursor.atEnd() ? 0 : cursor.readCount();
+            this.rollsStart = cursor.position;
+        } catch (RuntimeException exception) {
+            this.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Reads the list of tiles.
+     *
+     * @param cursor The cursor at the tile count.
+     * @return The parsed tiles.
+     * @throws InvalidInputException If the list is invalid.
+     */
+    private List<Tile> readTiles(Cursor cursor) throws InvalidInputException {
+        int dataCount = cursor.readCount();
+        List<Tile> tiles = new ArrayList<>(dataCount);
+        for (int counter = 1; counter <= dataCount; counter++) {
+            cursor.nextLine(dataCount, counter);
+            Tile tile = cursor.parseTile();
+            tiles.add(tile != null ? tile : InputDataParser.parseTile(cursor.line(), context));
+        }
+        return tiles;
+    }
+
+    /**
+     * Reads the list of players.
+     *
+     * @param cursor The cursor at the player count.
+     * @return The parsed players.
+     * @throws InvalidInputException If the list is invalid.
+     */
+    private List<Player> readPlayers(Cursor cursor) throws InvalidInputException {
+        int dataCount = cursor.readCount();
+        List<Player> players = new ArrayList<>(dataCount);
+        for (int counter = 1; counter <= dataCount; counter++) {
+            cursor.nextLine(dataCount, counter);
+            Player player = cursor.parsePlayer();
+            players.add(player != null ? player : InputDataParser.parsePlayer(cursor.line(), context));
+        }
+        return players;
+    }
+
+    /**
+     * Returns the context of the game described in the input file, which issued the IDs of its tiles and players.
+     *
+     * @return The context of the game.
+     */
+    public GameContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the track described in the input file.
+     *
+     * @return The track described in the input file.
+     */
+    public Track getTrack() {
+        return track;
+    }
+
+    /**
+     * Returns the list of players specified in the input file.
+     *
+     * @return The list of players specified in the input file.
+     */
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns whether the input file lists dice rolls, i.e. whether the game is not meant to be played manually.
+     *
+     * @return Whether the input file lists dice rolls.
+     */
+    public boolean hasRolls() {
+        return rollCount > 0;
+    }
+
+    /**
+     * Returns the number of dice rolls specified in the input file.
+     *
+     * @return The number of dice rolls, 0 if there are none.
+     */
+    public int getRollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Returns a new source streaming the dice rolls of the input file from the first one.
+     * Every source has its own position, and rolls are only validated when they are read.
+     *
+     * @return The source of the dice rolls.
+     */
+    public RollSource getRollSource() {
+        return new MappedRollSource();
+    }
+
+    /**
+     * Closes the input file. The roll sources cannot be read any further.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Streams the dice rolls of the input file.
+     */
+    private final class MappedRollSource implements RollSource {
+
+        /**
+         * The cursor at the next roll.
+         */
+        private final Cursor cursor;
+
+        /**
+         * The number of rolls read so far.
+         */
+        private int read;
+
+        /**
+         * Constructs a new MappedRollSource at the first roll.
+         */
+        private MappedRollSource() {
+            this.cursor = new Cursor(rollsStart);
+            this.read = 0;
+        }
+
+        /**
+         * Parses the next roll of the input file.
+         *
+         * @return The next roll, or {@link #END} after the last listed roll.
+         * @throws InvalidInputException If the roll is invalid or the file ends early.
+         */
+        @Override
+        public int nextRoll() throws InvalidInputException {
+            if (read == rollCount) return END;
+            cursor.nextLine(rollCount, ++read);
+            int roll = cursor.parseDiceRoll();
+            return roll != END ? roll : InputDataParser.parseDiceRoll(cursor.line());
+        }
+
+        /**
+         * Parses the next rolls of the input file into the given buffer.
+         *
+         * @param buffer The buffer to fill.
+         * @param offset The index of the first roll in the buffer.
+         * @param length The maximum number of rolls to read.
+         * @return The number of rolls read.
+         * @throws InvalidInputException If a roll is invalid or the file ends early.
+         */
+        @Override
+        public int fill(int[] buffer, int offset, int length) throws InvalidInputException {
+            int count = Math.min(length, rollCount - read);
+            for (int i = 0; i < count; i++) {
+                cursor.nextLine(rollCount, ++read);
+                int roll = cursor.parseDiceRoll();
+                buffer[offset + i] = roll != END ? roll : InputDataParser.parseDiceRoll(cursor.line());
+            }
+            return count;
+        }
+    }
+
+    /**
+     * A position in the input file and the line it last stepped over.
+     * Lines end with "\n", "\r\n" or "\r", as they do for {@link java.util.Scanner#nextLine()}.
+     */
+    private final class Cursor {
+
+        /**
+         * The currently mapped part of the file.
+         */
+        private MappedByteBuffer window;
+
+        /**
+         * The offset of the mapped part in the file.
+         */
+        private long base;
+
+        /**
+         * The size of the mapped part.
+         */
+        private int limit;
+
+        /**
+         * The offset of the next line.
+         */
+        private long position;
+
+        /**
+         * The offset of the current line.
+         */
+        private long lineStart;
+
+        /**
+         * The length of the current line, without the line separator.
+         */
+        private int lineLength;
+
+        /**
+         * Constructs a new Cursor at the given offset.
+         *
+         * @param position The offset of the next line.
+         */
+        private Cursor(long position) {
+            this.position = position;
+            this.limit = 0;
+        }
+
+        /**
+         * Returns whether there are no more lines.
+         *
+         * @return Whether the cursor is at the end of the file.
+         */
+        private boolean atEnd() {
+            return position >= size;
+        }
+
+        /**
+         * Returns the byte at the given offset, mapping a new window if needed.
+         *
+         * @param offset The offset in the file.
+         * @return The byte at the offset.
+         */
+        private byte byteAt(long offset) {
+            if (offset < base || offset >= base + limit) {
+                try {
+                    base = offset;
+                    limit = (int) Math.min(WINDOW, size - offset);
+                    window = channel.map(FileChannel.MapMode.READ_ONLY, base, limit);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            }
+            return window.get((int) (offset - base));
+        }
+
+        /**
+         * Steps over the next line of a list.
+         *
+         * @param dataCount The number of lines in the list.
+         * @param counter   The number of the line in the list, starting from 1.
+         * @throws InvalidInputException If the file has no more lines.
+         */
+        private void nextLine(int dataCount, int counter) throws InvalidInputException {
+            if (atEnd()) throw InputDataParser.missingLines(dataCount, counter);
+
+            long end = position;
+            byte value = 0;
+            while (end < size && (value = byteAt(end)) != '\n' && value != '\r') end++;
+            if (end - position > Integer.MAX_VALUE)
+                throw new InvalidInputException("Invalid input while reading file:\nLine at offset " + position + " is too long.");
+
+            lineStart = position;
+            lineLength = (int) (end - position);
+            position = end < size ? end + 1 : end;
+            if (value == '\r' && position < size && byteAt(position) == '\n') position++;
+        }
+
+        /**
+         * Steps over and parses the count line of a list.
+         *
+         * @return The number of lines in the list.
+         * @throws InvalidInputException If the file has no more lines or the line is not a positive integer.
+         */
+        private int readCount() throws InvalidInputException {
+            nextLine(0, 0);
+            int count = parseInt(0, lineLength);
+            return count > 0 ? count : InputDataParser.parseDataCount(line());
+        }
+
+        /**
+         * Parses the current line as a tile if it has a canonical form.
+         *
+         * @return The parsed tile, or null if the line has to be parsed as a String.
+         */
+        private Tile parseTile() {
+            for (TileKind kind : TileKind.values()) {
+                String keyword = kind.getKeyword();
+                if (!startsWith(keyword)) continue;
+                if (kind == TileKind.REAL_ESTATE) return lineLength == keyword.length() ? kind.create(0, context) : null;
+                if (lineLength <= keyword.length() + 1 || byteAt(lineStart + keyword.length()) != ' ') return null;
+
+                int amount = parseInt(keyword.length() + 1, lineLength);
+                return amount != Integer.MIN_VALUE ? kind.create(amount, context) : null;
+            }
+            return null;
+        }
+
+        /**
+         * Parses the current line as a player if it has a canonical form.
+         *
+         * @return The parsed player, or null if the line has to be parsed as a String.
+         */
+        private Player parsePlayer() {
+            int space = -1;
+            for (int i = 0; i < lineLength; i++) {
+                byte value = byteAt(lineStart + i);
+                if (value == ' ') {
+                    if (space >= 0) return null;
+                    space = i;
+                } else if (value < 0) return null;
+            }
+            if (space < 1) return null;
+
+            for (Strategy strategy : Strategy.values()) {
+                String keyword = strategy.getKeyword();
+                if (lineLength - space - 1 == keyword.length() && matches(space + 1, keyword))
+                    return strategy.create(decode(0, space), context);
+            }
+            return null;
+        }
+
+        /**
+         * Parses the current line as a dice roll if it is a single digit between 1 and 6.
+         *
+         * @return The parsed roll, or {@link RollSource#END} if the line has to be parsed as a String.
+         */
+        private int parseDiceRoll() {
+            if (lineLength != 1) return RollSource.END;
+            int value = byteAt(lineStart) - '0';
+            return value >= 1 && value <= 6 ? value : RollSource.END;
+        }
+
+        /**
+         * Parses a plain decimal integer, optionally negative, of at most nine digits from the current line.
+         *
+         * @param from The index of the first byte in the line.
+         * @param to   The index after the last byte in the line.
+         * @return The parsed integer, or {@link Integer#MIN_VALUE} if the bytes are not in that form.
+         */
+        private int parseInt(int from, int to) {
+            boolean negative = from < to && byteAt(lineStart + from) == '-';
+            if (negative) from++;
+            if (from == to || to - from > 9) return Integer.MIN_VALUE;
+
+            int result = 0;
+            for (int i = from; i < to; i++) {
+                int digit = byteAt(lineStart + i) - '0';
+                if (digit < 0 || digit > 9) return Integer.MIN_VALUE;
+                result = result * 10 + digit;
+            }
+            return negative ? -result : result;
+        }
+
+        /**
+         * Returns whether the current line starts with the given ASCII keyword.
+         *
+         * @param keyword The keyword to look for.
+         * @return Whether the line starts with the keyword.
+         */
+        private boolean startsWith(String keyword) {
+            return lineLength >= keyword.length() && matches(0, keyword);
+        }
+
+        /**
+         * Returns whether the current line holds the given ASCII keyword at the given index.
+         *
+         * @param from    The index of the keyword in the line.
+         * @param keyword The keyword to look for.
+         * @return Whether the line holds the keyword at the index.
+         */
+        private boolean matches(int from, String keyword) {
+            for (int i = 0; i < keyword.length(); i++) {
+                if (byteAt(lineStart + from + i) != keyword.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Decodes a part of the current line.
+         *
+         * @param from The index of the first byte in the line.
+         * @param to   The index after the last byte in the line.
+         * @return The decoded part of the line.
+         */
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            for (int i = 0; i < bytes.length; i++) bytes[i] = byteAt(lineStart + from + i);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Decodes the current line, for the lines the fast path does not recognize.
+         *
+         * @return The current line.
+         */
+        private String line() {
+            return decode(0, lineLength);
+        }
+    }
+}
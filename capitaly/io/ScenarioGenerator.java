@@ -0,0 +1,542 @@
+package capitaly.io;
+
+import capitaly.dice.LimitedRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.dice.RollSource;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic scenarios from a seed: a track with a chosen mix of tile kinds and distribution of amounts,
+ * players with a chosen mix of strategies, and rolls of a fair die.
+ * <p>
+ * Every tile is a function of the seed and its index alone, so a track is generated in any order, written out one tile
+ * at a time, or built in memory with {@link #getTrack()}, always the same. The rolls are a {@link RandomRollSource}
+ * stopping after the chosen count. Written to a file with {@link #writeText(Path)} or {@link #writeBinary(Path)}, a
+ * scenario takes a fixed amount of memory however many tiles and rolls it has; only the players are held at once.
+ * <p>
+ * The settings are changed with the chained setters and checked as they are set.
+ */
+public final class ScenarioGenerator {
+
+    /**
+     * The increment between the random streams of the tiles, the odd integer closest to 2^64 divided by the golden
+     * ratio.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * The index of the random stream of the players, below the streams of the tiles.
+     */
+    private static final long PLAYER_STREAM = -1;
+
+    /**
+     * The index of the random stream of the seed of the rolls, below the streams of the tiles.
+     */
+    private static final long ROLL_STREAM = -2;
+
+    /**
+     * The number of rolls generated at once when writing a scenario.
+     */
+    private static final int ROLL_BUFFER = 8192;
+
+    /**
+     * The usage of the program.
+     */
+    private static final String USAGE = """
+        Usage: java capitaly.io.ScenarioGenerator <output> [options]
+          --seed <n>                      the seed of the scenario (default 0)
+          --tiles <n>                     the number of tiles (default 40)
+          --mix <realestate:service:luck> the weights of the tile kinds (default 2:1:1)
+          --service <min-max>[:log]       the fees of service tiles (default 1-1000, uniform)
+          --luck <min-max>[:log]          the rewards of luck tiles (default 1-1000, uniform)
+          --players <n>                   the number of players (default 4)
+          --strategies <g:c:s:l>          the weights of greedy, careful, strategic and lookahead (default 1:1:1:0)
+          --rolls <n>                     the number of rolls (default 1000)
+          --binary                        writes the binary format instead of the text format""";
+
+    /**
+     * The exit status of the program when its arguments are missing or invalid.
+     */
+    static final int USAGE_ERROR = 2;
+
+    /**
+     * The seed of the scenario.
+     */
+    private final long seed;
+
+    /**
+     * The number of tiles.
+     */
+    private int tileCount = 40;
+
+    /**
+     * The cumulative weights of the tile kinds, by ordinal, the last one being their sum.
+     */
+    private final double[] kindWeights = {2, 3, 4};
+
+    /**
+     * The smallest amount of the tiles of each kind, by ordinal.
+     */
+    private final int[] minAmount = {0, 1, 1};
+
+    /**
+     * The largest amount of the tiles of each kind, by ordinal.
+     */
+    private final int[] maxAmount = {0, 1000, 1000};
+
+    /**
+     * The distribution of the amounts of the tiles of each kind, by ordinal.
+     */
+    private final Distribution[] distribution = {Distribution.UNIFORM, Distribution.UNIFORM, Distribution.UNIFORM};
+
+    /**
+     * The number of players.
+     */
+    private int playerCount = 4;
+
+    /**
+     * The weights of the strategies, by ordinal.
+     */
+    private final double[] strategyWeights = {1, 1, 1, 0};
+
+    /**
+     * The number of rolls.
+     */
+    private long rollCount = 1000;
+
+    /**
+     * Constructs a new ScenarioGenerator with the given seed and the default settings.
+     *
+     * @param seed The seed of the scenario.
+     */
+    public ScenarioGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Generates a scenario file.
+     * Usage: {@code java capitaly.io.ScenarioGenerator <output> [options]}, see {@link #USAGE}.
+     * Exits with the status {@link #USAGE_ERROR} if the arguments are missing or invalid.
+     *
+     * @param args The arguments of the program (the path of the output and the options).
+     */
+    public static void main(String[] args) {
+        int status = run(args);
+        if (status != 0) System.exit(status);
+    }
+
+    /**
+     * Generates a scenario file, printing the usage to the standard error if the arguments are missing or invalid.
+     *
+     * @param args The arguments of the program (the path of the output and the options).
+     * @return The exit status: 0 once the scenario is written, {@link #USAGE_ERROR} if the arguments are invalid.
+     */
+    static int run(String... args) {
+        if (args.length == 0) {
+            System.err.println(USAGE);
+            return USAGE_ERROR;
+        }
+
+        long seed = 0;
+        boolean binary = false;
+        List<String[]> settings = new ArrayList<>();
+        ScenarioGenerator generator;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--binary" -> binary = true;
+                    case "--seed", "--tiles", "--mix", "--service", "--luck", "--players", "--strategies", "--rolls" -> {
+                        if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + args[i] + '.');
+                        if (args[i].equals("--seed")) seed = Long.parseLong(args[++i]);
+                        else settings.add(new String[]{args[i], args[++i]});
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i] + '.');
+                }
+            }
+            generator = new ScenarioGenerator(seed);
+            for (String[] setting : settings) generator.apply(setting[0], setting[1]);
+            if (!binary && generator.rollCount > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("A text input file lists at most " + Integer.MAX_VALUE + " rolls, got " + generator.rollCount + '.');
+        } catch (IllegalArgumentException exception) {
+            System.err.println(exception.getMessage() + '\n' + USAGE);
+            return USAGE_ERROR;
+        }
+        if (binary) generator.writeBinary(Path.of(args[0]));
+        else generator.writeText(Path.of(args[0]));
+        return 0;
+    }
+
+    /**
+     * Applies a setting given on the command line.
+     *
+     * @param option The option, e.g. {@code --tiles}.
+     * @param value  The value of the option.
+     * @throws IllegalArgumentException If the value is malformed or out of range.
+     */
+    private void apply(String option, String value) {
+        switch (option) {
+            case "--tiles" -> this.setTiles(Integer.parseInt(value), kindWeights[0], kindWeights[1] - kindWeights[0], kindWeights[2] - kindWeights[1]);
+            case "--mix" -> {
+                double[] weights = weights(value, 3);
+                this.setTiles(tileCount, weights[0], weights[1], weights[2]);
+            }
+            case "--service" -> this.setAmounts(TileKind.SERVICE, value);
+            case "--luck" -> this.setAmounts(TileKind.LUCK, value);
+            case "--players" -> this.setPlayers(Integer.parseInt(value), strategyWeights);
+            case "--strategies" -> this.setPlayers(playerCount, weights(value, strategyWeights.length));
+            default -> this.setRolls(Long.parseLong(value));
+        }
+    }
+
+    /**
+     * Parses weights separated by colons.
+     *
+     * @param value The weights, e.g. {@code 2:1:1}.
+     * @param count The number of weights expected.
+     * @return The weights.
+     * @throws IllegalArgumentException If there are not as many weights as expected or they are not numbers.
+     */
+    private static double[] weights(String value, int count) {
+        String[] tokens = value.split(":");
+        if (tokens.length != count) throw new IllegalArgumentException("Expected " + count + " weights, got \"" + value + "\".");
+        double[] weights = new double[count];
+        for (int i = 0; i < count; i++) weights[i] = Double.parseDouble(tokens[i]);
+        return weights;
+    }
+
+    /**
+     * Parses and applies the amounts of a tile kind given as {@code min-max}, optionally followed by {@code :log}.
+     *
+     * @param kind  The kind of the tiles.
+     * @param value The amounts.
+     * @throws IllegalArgumentException If the amounts are malformed or out of range.
+     */
+    private void setAmounts(TileKind kind, String value) {
+        boolean log = value.endsWith(":log");
+        String range = log ? value.substring(0, value.length() - 4) : value;
+        int dash = range.indexOf('-', 1);
+        if (dash < 0) throw new IllegalArgumentException("Expected amounts as <min-max>[:log], got \"" + value + "\".");
+        this.setAmounts(kind, Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1)),
+            log ? Distribution.LOG_UNIFORM : Distribution.UNIFORM);
+    }
+
+    /**
+     * Sets the number of tiles and the weights of their kinds. Each tile is of a kind drawn with these weights.
+     *
+     * @param count      The number of tiles.
+     * @param realEstate The weight of real estate tiles.
+     * @param service    The weight of service tiles.
+     * @param luck       The weight of luck tiles.
+     * @return This generator.
+     * @throws IllegalArgumentException If the count is not positive, or the weights are negative or all zero.
+     */
+    public ScenarioGenerator setTiles(int count, double realEstate, double service, double luck) {
+        if (count < 1) throw new IllegalArgumentException("Expected a positive number of tiles, got " + count + '.');
+        checkWeights(realEstate, service, luck);
+        this.tileCount = count;
+        kindWeights[0] = realEstate;
+        kindWeights[1] = realEstate + service;
+        kindWeights[2] = realEstate + service + luck;
+        return this;
+    }
+
+    /**
+     * Sets the amounts of the tiles of a kind: the fees of service tiles or the rewards of luck tiles.
+     *
+     * @param kind         The kind of the tiles, service or luck.
+     * @param min          The smallest amount.
+     * @param max          The largest amount.
+     * @param distribution How the amounts are distributed between them.
+     * @return This generator.
+     * @throws IllegalArgumentException If the kind is real estate or the smallest amount is above the largest.
+     */
+    public ScenarioGenerator setAmounts(TileKind kind, int min, int max, Distribution distribution) {
+        if (kind == TileKind.REAL_ESTATE) throw new IllegalArgumentException("Real estate tiles have no amount.");
+        if (min > max) throw new IllegalArgumentException("Expected the smallest amount to be at most the largest, got " + min + " and " + max + '.');
+        minAmount[kind.ordinal()] = min;
+        maxAmount[kind.ordinal()] = max;
+        this.distribution[kind.ordinal()] = distribution;
+        return this;
+    }
+
+    /**
+     * Sets the number of players and the weights of their strategies. The strategies are shared out in proportion to
+     * the weights, as exactly as the number of players allows, and seated in a random order.
+     *
+     * @param count   The number of players.
+     * @param weights The weight of each strategy, in the order of {@link Strategy}.
+     * @return This generator.
+     * @throws IllegalArgumentException If the count is not positive, or there is not a weight per strategy, or the
+     *                                  weights are negative or all zero.
+     */
+    public ScenarioGenerator setPlayers(int count, double... weights) {
+        if (count < 1) throw new IllegalArgumentException("Expected a positive number of players, got " + count + '.');
+        if (weights.length != strategyWeights.length)
+            throw new IllegalArgumentException("Expected " + strategyWeights.length + " strategy weights, got " + weights.length + '.');
+        checkWeights(weights);
+        this.playerCount = count;
+        System.arraycopy(weights, 0, strategyWeights, 0, weights.length);
+        return this;
+    }
+
+    /**
+     * Sets the number of rolls.
+     *
+     * @param count The number of rolls, 0 for a manual game.
+     * @return This generator.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public ScenarioGenerator setRolls(long count) {
+        if (count < 0) throw new IllegalArgumentException("Expected a non-negative number of rolls, got " + count + '.');
+        this.rollCount = count;
+        return this;
+    }
+
+    /**
+     * Checks that weights are non-negative and not all zero.
+     *
+     * @param weights The weights.
+     * @throws IllegalArgumentException If a weight is negative or not a number, or they are all zero.
+     */
+    private static void checkWeights(double... weights) {
+        double sum = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0) || weight == Double.POSITIVE_INFINITY)
+                throw new IllegalArgumentException("Expected finite non-negative weights, got " + Arrays.toString(weights) + '.');
+            sum += weight;
+        }
+        if (sum == 0) throw new IllegalArgumentException("Expected some positive weight, got " + Arrays.toString(weights) + '.');
+    }
+
+    /**
+     * Returns the number of tiles.
+     *
+     * @return The length of the track.
+     */
+    public int getTileCount() {
+        return tileCount;
+    }
+
+    /**
+     * Returns the number of players.
+     *
+     * @return The number of players.
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Returns the number of rolls.
+     *
+     * @return The number of rolls, 0 for a manual game.
+     */
+    public long getRollCount() {
+        return rollCount;
+    }
+
+    /**
+     * Returns the kind of a tile.
+     *
+     * @param index The index of the tile.
+     * @return The kind of the tile.
+     */
+    public TileKind kind(int index) {
+        double draw = unit(random(index)) * kindWeights[2];
+        return draw < kindWeights[0] ? TileKind.REAL_ESTATE : draw < kindWeights[1] ? TileKind.SERVICE : TileKind.LUCK;
+    }
+
+    /**
+     * Returns the amount of a tile.
+     *
+     * @param index The index of the tile.
+     * @return The fee or reward of the tile, 0 for real estate.
+     */
+    public int amount(int index) {
+        int kind = this.kind(index).ordinal();
+        long span = (long) maxAmount[kind] - minAmount[kind] + 1;
+        double draw = unit(mix(random(index)));
+        long offset = distribution[kind] == Distribution.UNIFORM ? (long) (draw * span) : (long) Math.exp(draw * Math.log(span)) - 1;
+        return (int) (minAmount[kind] + Math.min(offset, span - 1));
+    }
+
+    /**
+     * Builds the track in memory.
+     *
+     * @return The layout of the track.
+     */
+    public TrackSpec getTrack() {
+        TileKind[] kinds = new TileKind[tileCount];
+        int[] amounts = new int[tileCount];
+        for (int i = 0; i < tileCount; i++) {
+            kinds[i] = this.kind(i);
+            amounts[i] = this.amount(i);
+        }
+        return new TrackSpec(kinds, amounts);
+    }
+
+    /**
+     * Generates the players, named {@code Player1}, {@code Player2} and so on in seating order.
+     *
+     * @return The players at the table, in seating order.
+     */
+    public List<PlayerSpec> getPlayers() {
+        // Largest remainder: every strategy gets its share rounded down, the seats left go to the largest fractions.
+        Strategy[] strategies = Strategy.values();
+        double total = 0;
+        for (double weight : strategyWeights) total += weight;
+        int[] counts = new int[strategies.length];
+        double[] fractions = new double[strategies.length];
+        int seated = 0;
+        for (int i = 0; i < strategies.length; i++) {
+            double share = playerCount * strategyWeights[i] / total;
+            counts[i] = (int) share;
+            fractions[i] = share - counts[i];
+            seated += counts[i];
+        }
+        for (; seated < playerCount; seated++) {
+            int largest = 0;
+            for (int i = 1; i < strategies.length; i++) if (fractions[i] > fractions[largest]) largest = i;
+            counts[largest]++;
+            fractions[largest] = -1;
+        }
+
+        Strategy[] seats = new Strategy[playerCount];
+        int seat = 0;
+        for (int i = 0; i < strategies.length; i++) for (int n = 0; n < counts[i]; n++) seats[seat++] = strategies[i];
+        SplittableRandom random = new SplittableRandom(random(PLAYER_STREAM));
+        for (int i = playerCount - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            Strategy swap = seats[i];
+            seats[i] = seats[other];
+            seats[other] = swap;
+        }
+
+        List<PlayerSpec> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) players.add(new PlayerSpec("Player" + (i + 1), seats[i]));
+        return players;
+    }
+
+    /**
+     * Returns a new source of the rolls, starting from the first one.
+     *
+     * @return The rolls, ending after {@link #getRollCount()} of them.
+     */
+    public RollSource getRollSource() {
+        return new LimitedRollSource(new RandomRollSource(random(ROLL_STREAM)), rollCount);
+    }
+
+    /**
+     * Writes the scenario as a text input file, as read by {@link InputDataParser}.
+     * The file has no rolls if the scenario has none, as for a manual game.
+     *
+     * @param path The path of the file to write.
+     * @throws IllegalArgumentException If there are more rolls than a text input file can list.
+     * @throws UncheckedIOException     If the file cannot be written.
+     */
+    public void writeText(Path path) {
+        if (rollCount > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A text input file lists at most " + Integer.MAX_VALUE + " rolls, got " + rollCount + '.');
+
+        try (Writer output = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8), 1 << 16)) {
+            output.write(tileCount + "\n");
+            for (int i = 0; i < tileCount; i++) {
+                TileKind kind = this.kind(i);
+                output.write(kind.getKeyword());
+                if (kind != TileKind.REAL_ESTATE) output.write(" " + this.amount(i));
+                output.write('\n');
+            }
+            output.write(playerCount + "\n");
+            for (PlayerSpec player : this.getPlayers()) output.write(player.name() + ' ' + player.strategy().getKeyword() + '\n');
+            if (rollCount == 0) return;
+
+            output.write(rollCount + "\n");
+            RollSource rolls = this.getRollSource();
+            int[] buffer = new int[ROLL_BUFFER];
+            char[] lines = new char[2 * ROLL_BUFFER];
+            for (int read; (read = rolls.fill(buffer, 0, buffer.length)) > 0; ) {
+                for (int i = 0; i < read; i++) {
+                    lines[2 * i] = (char) ('0' + buffer[i]);
+                    lines[2 * i + 1] = '\n';
+                }
+                output.write(lines, 0, 2 * read);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Writes the scenario as a binary scenario, as read by {@link BinaryScenarioReader}.
+     *
+     * @param path The path of the file to write.
+     * @throws UncheckedIOException If the file cannot be written.
+     */
+    public void writeBinary(Path path) {
+        BinaryScenarioWriter.write(path, tileCount, this::kind, this::amount, this.getPlayers(), this.getRollSource(), rollCount);
+    }
+
+    /**
+     * Returns the random bits of the given stream of the scenario.
+     *
+     * @param stream The index of the stream: the index of a tile, or a negative stream.
+     * @return The random bits.
+     */
+    private long random(long stream) {
+        return mix(seed + (stream + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Mixes the bits of a value, as the SplitMix64 generator does.
+     *
+     * @param z The value.
+     * @return The mixed bits.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Maps random bits to a number between 0 (inclusive) and 1 (exclusive).
+     *
+     * @param bits The random bits.
+     * @return The number.
+     */
+    private static double unit(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * The distributions of the amounts of the tiles.
+     */
+    public enum Distribution {
+        /**
+         * Every amount between the smallest and the largest is as likely.
+         */
+        UNIFORM,
+
+        /**
+         * The amount above the smallest, plus one, is log-uniform: every order of magnitude is as likely, so most
+         * amounts are small and a few are large.
+         */
+        LOG_UNIFORM
+    }
+}
@@ -0,0 +1,1028 @@
+package capitaly.kernel;
+
+import capitaly.RuleSet;
+import capitaly.dice.RollSource;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.RealEstateTile;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact, array based representation of a whole Capitaly game.
+ * Players are identified by their seat and tiles by their index on the track, and every piece of state lives in
+ * primitive arrays indexed by them. After construction, playing and resetting a game does not allocate.
+ * <p>
+ * The rules are the same as those of {@link capitaly.Capitaly}, {@link capitaly.Track}, the tiles and the players,
+ * including the order in which the players take turns after an elimination.
+ * <p>
+ * The state is package-private so that {@link LookaheadSearch} can play out and undo moves in place.
+ */
+public final class GameKernel {
+
+    /**
+     * The tile kind code of a {@link capitaly.tile.RealEstateTile}.
+     */
+    public static final byte REAL_ESTATE = 0;
+
+    /**
+     * The tile kind code of a {@link capitaly.tile.ServiceTile}.
+     */
+    public static final byte SERVICE = 1;
+
+    /**
+     * The tile kind code of a {@link capitaly.tile.LuckTile}.
+     */
+    public static final byte LUCK = 2;
+
+    /**
+     * The strategy code of a {@link capitaly.player.GreedyPlayer}.
+     */
+    public static final byte GREEDY = 0;
+
+    /**
+     * The strategy code of a {@link capitaly.player.CarefulPlayer}.
+     */
+    public static final byte CAREFUL = 1;
+
+    /**
+     * The strategy code of a {@link capitaly.player.StrategicPlayer}.
+     */
+    public static final byte STRATEGIC = 2;
+
+    /**
+     * The strategy code of a {@link capitaly.player.LookaheadPlayer}.
+     */
+    public static final byte LOOKAHEAD = 3;
+
+    /**
+     * Marks a tile without an owner, or the end of an owned tile list.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The number of ints encoding a seat in {@link #encodeState()}.
+     */
+    private static final int SEAT_INTS = 3;
+
+    /**
+     * The rules of the game.
+     */
+    final RuleSet rules;
+
+    /**
+     * The length of the track (the number of tiles).
+     */
+    final int length;
+
+    /**
+     * The kind codes of the tiles.
+     */
+    final byte[] tileKind;
+
+    /**
+     * The fees or rewards of the tiles.
+     */
+    final int[] tileAmount;
+
+    /**
+     * The seats of the owners of the tiles, {@link #NONE} if the tile has no owner.
+     */
+    final int[] tileOwner;
+
+    /**
+     * Whether the tiles have a house.
+     */
+    final boolean[] tileHouse;
+
+    /**
+     * The next tile owned by the same player, {@link #NONE} at the end of the list.
+     */
+    final int[] nextOwned;
+
+    /**
+     * The strategy codes of the players.
+     */
+    final byte[] strategy;
+
+    /**
+     * The positions of the players on the track, -1 before their first move.
+     */
+    final int[] position;
+
+    /**
+     * The capitals of the players.
+     */
+    final int[] capital;
+
+    /**
+     * Whether the players are bankrupt.
+     */
+    final boolean[] bankrupt;
+
+    /**
+     * Whether the strategic players want to skip their next purchase.
+     */
+    final boolean[] skip;
+
+    /**
+     * The first tile owned by each player, {@link #NONE} if they own nothing.
+     */
+    final int[] ownedHead;
+
+    /**
+     * The seats of the players still in the game, in turn order. Only the first {@link #alive} entries are valid.
+     */
+    final int[] order;
+
+    /**
+     * The number of players still in the game.
+     */
+    int alive;
+
+    /**
+     * The index in {@link #order} of the player taking the next turn.
+     */
+    int current;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * The Zobrist hash of the owners and houses of the owned tiles, updated whenever one of them changes so that
+     * hashing the state does not depend on the length of the track.
+     */
+    private long tileHash;
+
+    /**
+     * The rolls of the chunk being played with an {@link OutcomeCache}, allocated when first needed.
+     */
+    private int[] chunkRolls;
+
+    /**
+     * The recorder of the events of the chunk being played with an {@link OutcomeCache}, allocated when first needed.
+     */
+    private ChunkRecorder recorder;
+
+    /**
+     * The search deciding the purchases of the lookahead players, created when first needed.
+     */
+    private LookaheadSearch lookahead;
+
+    /**
+     * The listener receiving the events of the game.
+     */
+    private GameEventListener listener;
+
+    /**
+     * The recorder of the metrics of the game, null if the metrics are off.
+     */
+    private final MetricsRecorder metrics;
+
+    /**
+     * Constructs a new GameKernel for the given track and players under the standard rules, ready to play.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at the table, in seating order.
+     */
+    public GameKernel(TrackSpec track, List<PlayerSpec> players) {
+        this(track, players, RuleSet.STANDARD);
+    }
+
+    /**
+     * Constructs a new GameKernel for the given track and players under the given rules, ready to play.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at the table, in seating order.
+     * @param rules   The rules of the game.
+     */
+    public GameKernel(TrackSpec track, List<PlayerSpec> players, RuleSet rules) {
+        this.rules = rules;
+        this.length = track.length();
+        this.tileKind = new byte[length];
+        this.tileAmount = new int[length];
+        this.tileOwner = new int[length];
+        this.tileHouse = new boolean[length];
+        this.nextOwned = new int[length];
+        for (int i = 0; i < length; i++) {
+            this.tileOwner[i] = NONE;
+            this.tileKind[i] = switch (track.kind(i)) {
+                case REAL_ESTATE -> REAL_ESTATE;
+                case SERVICE -> SERVICE;
+                case LUCK -> LUCK;
+            };
+            this.tileAmount[i] = track.amount(i);
+        }
+
+        int count = players.size();
+        this.strategy = new byte[count];
+        this.position = new int[count];
+        this.capital = new int[count];
+        this.bankrupt = new boolean[count];
+        this.skip = new boolean[count];
+        this.ownedHead = new int[count];
+        this.order = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.ownedHead[i] = NONE;
+            this.strategy[i] = code(players.get(i).strategy());
+        }
+
+        this.listener = GameEventListener.NONE;
+        this.metrics = GameMetrics.ENABLED ? new MetricsRecorder() : null;
+        this.reset();
+    }
+
+    /**
+     * Constructs a new GameKernel in the same state as the given one.
+     * The rules, tiles and strategies never change during a game, so they are shared instead of copied.
+     *
+     * @param source The game to copy.
+     */
+    private GameKernel(GameKernel source) {
+        this.rules = source.rules;
+        this.length = source.length;
+        this.tileKind = source.tileKind;
+        this.tileAmount = source.tileAmount;
+        this.strategy = source.strategy;
+        this.tileOwner = source.tileOwner.clone();
+        this.tileHouse = source.tileHouse.clone();
+        this.nextOwned = source.nextOwned.clone();
+        this.position = source.position.clone();
+        this.capital = source.capital.clone();
+        this.bankrupt = source.bankrupt.clone();
+        this.skip = source.skip.clone();
+        this.ownedHead = source.ownedHead.clone();
+        this.order = source.order.clone();
+        this.alive = source.alive;
+        this.current = source.current;
+        this.turns = source.turns;
+        this.tileHash = source.tileHash;
+        this.lookahead = source.lookahead == null ? null : source.lookahead.copy();
+        this.listener = GameEventListener.NONE;
+        this.metrics = GameMetrics.ENABLED ? new MetricsRecorder() : null;
+    }
+
+    /**
+     * Creates an independent copy of the game in its current state, for exploring an alternative continuation.
+     * The copy does not report its events to the listener of this game, and counts its metrics on its own.
+     *
+     * @return The copy of the game.
+     */
+    public GameKernel fork() {
+        return new GameKernel(this);
+    }
+
+    /**
+     * Takes a snapshot of the current state of the game.
+     *
+     * @return The snapshot.
+     */
+    public GameSnapshot snapshot() {
+        return new GameSnapshot(
+            tileOwner, tileHouse, nextOwned, position, capital, bankrupt, skip, ownedHead,
+            Arrays.copyOf(order, alive), current, turns
+        );
+    }
+
+    /**
+     * Puts the game back into the state of the given snapshot, without allocating.
+     *
+     * @param snapshot The snapshot of a game of the same scenario.
+     * @throws IllegalArgumentException If the snapshot has a different number of tiles or seats.
+     */
+    public void restore(GameSnapshot snapshot) {
+        if (snapshot.getLength() != length || snapshot.getSeats() != order.length)
+            throw new IllegalArgumentException("Cannot restore a snapshot of " + snapshot.getLength() + " tiles and " + snapshot.getSeats() + " seats into a game of " + length + " tiles and " + order.length + " seats.");
+
+        System.arraycopy(snapshot.tileOwner, 0, tileOwner, 0, length);
+        System.arraycopy(snapshot.tileHouse, 0, tileHouse, 0, length);
+        System.arraycopy(snapshot.nextOwned, 0, nextOwned, 0, length);
+        System.arraycopy(snapshot.position, 0, position, 0, order.length);
+        System.arraycopy(snapshot.capital, 0, capital, 0, order.length);
+        System.arraycopy(snapshot.bankrupt, 0, bankrupt, 0, order.length);
+        System.arraycopy(snapshot.skip, 0, skip, 0, order.length);
+        System.arraycopy(snapshot.ownedHead, 0, ownedHead, 0, order.length);
+        System.arraycopy(snapshot.order, 0, order, 0, snapshot.order.length);
+        alive = snapshot.order.length;
+        current = snapshot.current;
+        turns = snapshot.turns;
+        tileHash = 0;
+        for (int seat = 0; seat < order.length; seat++)
+            for (int tile = ownedHead[seat]; tile != NONE; tile = nextOwned[tile]) tileHash ^= Zobrist.tile(tile, seat, tileHouse[tile]);
+    }
+
+    /**
+     * Returns the strategy code of a strategy.
+     *
+     * @param strategy The strategy.
+     * @return The strategy code.
+     */
+    private static byte code(Strategy strategy) {
+        return switch (strategy) {
+            case GREEDY -> GREEDY;
+            case CAREFUL -> CAREFUL;
+            case STRATEGIC -> STRATEGIC;
+            case LOOKAHEAD -> LOOKAHEAD;
+        };
+    }
+
+    /**
+     * Seats other players at the table, as many as before, and resets the game, so that a game of the same track is
+     * reused for another seating without building it again. Forks taken before share the strategies of this game and
+     * are not to be played on afterwards.
+     *
+     * @param players The players at the table, in seating order.
+     * @throws IllegalArgumentException If there are not as many players as seats.
+     */
+    public void reseat(List<PlayerSpec> players) {
+        if (players.size() != strategy.length)
+            throw new IllegalArgumentException("Expected " + strategy.length + " players, got " + players.size() + '.');
+        for (int i = 0; i < strategy.length; i++) strategy[i] = code(players.get(i).strategy());
+        this.reset();
+    }
+
+    /**
+     * Resets the game to its initial state: every player at the start with the starting capital, no owned tiles.
+     * Only the tiles owned by someone are touched, so resetting does not depend on the length of the track.
+     */
+    public void reset() {
+        this.reset(0);
+    }
+
+    /**
+     * Resets the game to its initial state, with the turn order rotated to start at the given seat.
+     * The seats keep their strategies, only the order in which they take their turns changes.
+     *
+     * @param firstSeat The seat of the player taking the first turn.
+     */
+    public void reset(int firstSeat) {
+        for (int i = 0; i < order.length; i++) {
+            release(i);
+            position[i] = -1;
+            capital[i] = rules.startingCapital();
+            bankrupt[i] = false;
+            skip[i] = false;
+            order[i] = (firstSeat + i) % order.length;
+        }
+        alive = order.length;
+        current = 0;
+        turns = 0;
+    }
+
+    /**
+     * Progresses the game with the given roll, rolled by the current player.
+     *
+     * @param roll The roll of the die.
+     * @return Whether the game is over after the turn.
+     */
+    public boolean step(int roll) {
+        if (current >= alive) current = 0;
+        int seat = order[current++];
+        int target = (position[seat] + roll) % length;
+        boolean timed = GameMetrics.ENABLED && metrics.startMove(tileKind[target]); // The kind codes are the ordinals.
+        position[seat] = target;
+        listener.onEvent(EventType.MOVE, seat, target, roll);
+
+        if (timed) metrics.entering();
+        switch (tileKind[target]) {
+            case REAL_ESTATE -> enterRealEstate(seat, target);
+            case SERVICE -> {
+                pay(seat, tileAmount[target]);
+                listener.onEvent(EventType.SERVICE_FEE, seat, target, tileAmount[target]);
+            }
+            default -> {
+                capital[seat] += tileAmount[target];
+                listener.onEvent(EventType.LUCK_REWARD, seat, target, tileAmount[target]);
+            }
+        }
+        turns++;
+        if (timed) metrics.endMove();
+
+        if (bankrupt[seat]) eliminateCurrent(seat, target);
+        return alive <= 1;
+    }
+
+    /**
+     * Eliminates the player who just took their turn and went bankrupt. Kept out of {@link #step} to keep it small.
+     *
+     * @param seat   The seat of the player.
+     * @param target The index of the tile the player went bankrupt on.
+     */
+    private void eliminateCurrent(int seat, int target) {
+        listener.onEvent(EventType.ELIMINATION, seat, target, 0);
+        eliminate(current - 1);
+        if (GameMetrics.ENABLED) metrics.eliminated(alive <= 1);
+    }
+
+    /**
+     * Progresses the game with the given rolls until it is over, the source is exhausted or the turn limit is reached.
+     *
+     * @param rolls    The rolls of the die.
+     * @param maxTurns The number of turns after which the game is abandoned.
+     * @return Whether the game is over.
+     */
+    public boolean play(RollSource rolls, int maxTurns) {
+        boolean over = this.isOver();
+        while (!over && turns < maxTurns) {
+            int roll = rolls.nextRoll();
+            if (roll == RollSource.END) break;
+            over = this.step(roll);
+        }
+        return over;
+    }
+
+    /**
+     * Progresses the game like {@link #play(RollSource, int)}, reusing the continuations of an outcome cache.
+     * The rolls are read a chunk at a time: while the cache knows what the chunk does from the current state, its events
+     * are replayed instead of being played, which skips the decisions of the players, notably the searches of the
+     * lookahead players. The first chunk the cache does not know is played and its events are stored, and the rest of
+     * the game is played without the cache: games diverge quickly, so the states a game reaches after leaving the
+     * known ones are hardly ever reached again, and the cache grows into a tree of the openings of the games, one chunk
+     * deeper per game. The events reach the listener either way, and the outcome is the same as without the cache.
+     * <p>
+     * A chunk is read whole even if the game ends in its middle, so the source may be read past the end of the game.
+     * The turns within a chunk of the turn limit are played without the cache, and so is the rest of the game from a
+     * chunk with a roll out of 1 to {@value OutcomeCache#MAX_ROLL}, which keys cannot hold. A game whose lookahead
+     * search has a time budget is played without the cache at all, since its decisions depend on the clock and not on
+     * the state alone.
+     *
+     * @param rolls    The rolls of the die.
+     * @param maxTurns The number of turns after which the game is abandoned.
+     * @param cache    The cache, shared only by games of the same track, players and rules, in any seat rotation.
+     * @return Whether the game is over.
+     */
+    public boolean play(RollSource rolls, int maxTurns, OutcomeCache cache) {
+        int chunk = cache.getChunk();
+        if (chunkRolls == null || chunkRolls.length < chunk) chunkRolls = new int[chunk];
+        if (recorder == null) recorder = new ChunkRecorder();
+
+        boolean over = this.isOver();
+        if (lookahead != null && lookahead.isTimed()) return over || this.play(rolls, maxTurns);
+        while (!over && maxTurns - turns >= chunk) {
+            long key = 0;
+            for (int i = 0; i < chunk; i++) {
+                int roll = rolls.nextRoll();
+                if (roll == RollSource.END || roll < 1 || roll > OutcomeCache.MAX_ROLL) {
+                    for (int j = 0; j < i && !over; j++) over = this.step(chunkRolls[j]);
+                    if (roll == RollSource.END) return over;
+                    if (!over) over = this.step(roll);
+                    return over || this.play(rolls, maxTurns);
+                }
+                chunkRolls[i] = roll;
+                key = key << OutcomeCache.ROLL_BITS | roll;
+            }
+
+            long state = this.getStateHash();
+            int[] events = cache.get(state, key, this);
+            if (events != null) {
+                over = this.replay(events);
+                continue;
+            }
+
+            int[] encoded = this.encodeState();
+            recorder.start(listener);
+            listener = recorder;
+            try {
+                for (int i = 0; i < chunk && !over; i++) over = this.step(chunkRolls[i]);
+            } finally {
+                listener = recorder.target;
+            }
+            cache.put(state, key, encoded, recorder.events());
+            break;
+        }
+        return over || this.play(rolls, maxTurns);
+    }
+
+    /**
+     * Applies the events of a chunk stored in an outcome cache and reports them to the listener, an elimination before
+     * the tiles are released like in {@link #step}. The moves and eliminations are counted into the metrics as if they
+     * had been played, without timing.
+     *
+     * @param events The type code, seat, tile and amount of every event.
+     * @return Whether the game is over after the events.
+     */
+    private boolean replay(int[] events) {
+        for (int i = 0; i < events.length; i += ChunkRecorder.EVENT_INTS) {
+            EventType type = EventType.ofCode(events[i]);
+            int seat = events[i + 1], tile = events[i + 2], amount = events[i + 3];
+            if (type == EventType.ELIMINATION) listener.onEvent(type, seat, tile, amount);
+            this.apply(type, seat, tile, amount);
+            if (type != EventType.ELIMINATION) listener.onEvent(type, seat, tile, amount);
+            if (GameMetrics.ENABLED) {
+                if (type == EventType.MOVE) metrics.move(tileKind[tile]);
+                else if (type == EventType.ELIMINATION) metrics.eliminated(alive <= 1);
+            }
+        }
+        return this.isOver();
+    }
+
+    /**
+     * Handles the logic when a player enters a real estate tile, as {@link RealEstateTile#enter(Player)} does.
+     *
+     * @param seat The seat of the player.
+     * @param tile The index of the tile.
+     */
+    private void enterRealEstate(int seat, int tile) {
+        int owner = tileOwner[tile];
+        int price = priceFor(seat, tile);
+
+        if (owner == seat) {
+            if (wantsToBuy(seat, price)) {
+                pay(seat, price);
+                build(seat, tile);
+                listener.onEvent(EventType.UPGRADE, seat, tile, price);
+            } else listener.onEvent(EventType.DECLINE, seat, tile, price);
+        } else if (owner == NONE) {
+            if (wantsToBuy(seat, price)) {
+                pay(seat, price);
+                acquire(seat, tile);
+                listener.onEvent(EventType.PURCHASE, seat, tile, price);
+            } else listener.onEvent(EventType.DECLINE, seat, tile, price);
+        } else {
+            capital[owner] += pay(seat, price);
+            listener.onEvent(EventType.RENT, seat, tile, price);
+        }
+    }
+
+    /**
+     * Applies an event reported by a game of the same scenario, without consulting the strategies of the players.
+     * Applying the events of a game in order, starting from a reset, rebuilds its state after any of them.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     * @throws IllegalArgumentException If the player does not take the next turn or is not in the game.
+     */
+    public void apply(EventType type, int seat, int tile, int amount) {
+        switch (type) {
+            case MOVE -> {
+                if (current >= alive) current = 0;
+                if (order[current] != seat)
+                    throw new IllegalArgumentException("Seat " + seat + " moved, but seat " + order[current] + " takes the next turn.");
+                current++;
+                position[seat] = tile;
+                turns++;
+            }
+            case PURCHASE -> {
+                decided(seat, amount);
+                pay(seat, amount);
+                acquire(seat, tile);
+            }
+            case UPGRADE -> {
+                decided(seat, amount);
+                pay(seat, amount);
+                build(seat, tile);
+            }
+            case DECLINE -> decided(seat, amount);
+            case RENT -> capital[tileOwner[tile]] += pay(seat, amount);
+            case SERVICE_FEE -> pay(seat, amount);
+            case LUCK_REWARD -> capital[seat] += amount;
+            case ELIMINATION -> {
+                int index = 0;
+                while (index < alive && order[index] != seat) index++;
+                if (index == alive) throw new IllegalArgumentException("Seat " + seat + " is not in the game.");
+                bankrupt[seat] = true;
+                eliminate(index);
+            }
+        }
+    }
+
+    /**
+     * Updates the state of the strategy of a player who made a purchase decision, as {@link #wantsToBuy} does.
+     * Only strategic players who could afford the price flip their skip flag, whatever they decided.
+     *
+     * @param seat  The seat of the player.
+     * @param price The price of the purchase.
+     */
+    private void decided(int seat, int price) {
+        if (strategy[seat] == STRATEGIC && capital[seat] >= price) skip[seat] = !skip[seat];
+    }
+
+    /**
+     * Calculates the price for the given player to interact with a real estate tile.
+     *
+     * @param seat The seat of the player.
+     * @param tile The index of the tile.
+     * @return The price the player has to pay.
+     */
+    private int priceFor(int seat, int tile) {
+        int owner = tileOwner[tile];
+        if (owner == NONE) return rules.purchaseCost();
+        if (owner == seat) return tileHouse[tile] ? 0 : rules.upgradeCost();
+        return rules.landingFee(tileHouse[tile]);
+    }
+
+    /**
+     * Returns whether the given player wants to buy for the given price, according to their strategy.
+     *
+     * @param seat  The seat of the player.
+     * @param price The price of the purchase.
+     * @return Whether the player wants to buy.
+     */
+    private boolean wantsToBuy(int seat, int price) {
+        return switch (strategy[seat]) {
+            case GREEDY -> true;
+            case CAREFUL -> capital[seat] >= price * 2;
+            case STRATEGIC -> capital[seat] >= price && (skip[seat] = !skip[seat]);
+            default -> {
+                if (lookahead == null) lookahead = new LookaheadSearch();
+                yield lookahead.decide(this, seat, price);
+            }
+        };
+    }
+
+    /**
+     * Adds the metrics counted by this game so far to the {@link GameMetrics process-wide metrics}, which otherwise
+     * happens every few thousand moves, so that a game reused for many short games does not pay for it every game.
+     * Does nothing if the metrics are off.
+     */
+    public void flushMetrics() {
+        if (GameMetrics.ENABLED) metrics.flush();
+    }
+
+    /**
+     * Sets the listener receiving the events of the game.
+     *
+     * @param listener The listener, {@link GameEventListener#NONE} to stop reporting events.
+     */
+    public void setListener(GameEventListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the search deciding the purchases of the lookahead players of this game.
+     *
+     * @param lookahead The search, used by this game only.
+     */
+    public void setLookahead(LookaheadSearch lookahead) {
+        this.lookahead = lookahead;
+    }
+
+    /**
+     * Takes the given amount from a player, as {@link Player#pay(int)} does.
+     *
+     * @param seat   The seat of the player.
+     * @param amount The amount to pay.
+     * @return The amount actually paid.
+     */
+    private int pay(int seat, int amount) {
+        if (amount > capital[seat]) {
+            bankrupt[seat] = true;
+            amount = capital[seat];
+        }
+
+        capital[seat] -= amount;
+        return amount;
+    }
+
+    /**
+     * Gives an unowned tile to a player.
+     *
+     * @param seat The seat of the player.
+     * @param tile The index of the tile.
+     */
+    private void acquire(int seat, int tile) {
+        tileOwner[tile] = seat;
+        nextOwned[tile] = ownedHead[seat];
+        ownedHead[seat] = tile;
+        tileHash ^= Zobrist.tile(tile, seat, false);
+    }
+
+    /**
+     * Puts a house on a tile of its owner, if it has none yet.
+     *
+     * @param seat The seat of the owner.
+     * @param tile The index of the tile.
+     */
+    private void build(int seat, int tile) {
+        if (tileHouse[tile]) return;
+        tileHouse[tile] = true;
+        tileHash ^= Zobrist.tile(tile, seat, false) ^ Zobrist.tile(tile, seat, true);
+    }
+
+    /**
+     * Eliminates the player at the given index of the turn order and releases their tiles.
+     *
+     * @param index The index of the player in the turn order.
+     */
+    private void eliminate(int index) {
+        release(order[index]);
+        System.arraycopy(order, index + 1, order, index, alive - index - 1);
+        alive--;
+    }
+
+    /**
+     * Releases every tile owned by the given player, as {@link Player#lose()} does.
+     *
+     * @param seat The seat of the player.
+     */
+    private void release(int seat) {
+        for (int tile = ownedHead[seat]; tile != NONE; tile = nextOwned[tile]) {
+            tileHash ^= Zobrist.tile(tile, seat, tileHouse[tile]);
+            tileOwner[tile] = NONE;
+            tileHouse[tile] = false;
+        }
+        ownedHead[seat] = NONE;
+    }
+
+    /**
+     * Returns whether the game is over, i.e. there is only one player left.
+     *
+     * @return Whether the game is over.
+     */
+    public boolean isOver() {
+        return alive <= 1;
+    }
+
+    /**
+     * Returns the winner of the game.
+     *
+     * @return The seat of the last player standing, or {@link #NONE} if the game is not over yet.
+     */
+    public int getWinner() {
+        return alive == 1 ? order[0] : NONE;
+    }
+
+    /**
+     * Returns the number of turns played.
+     *
+     * @return The number of turns played.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the length of the track (the number of tiles).
+     *
+     * @return The length of the track.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the number of seats at the table, including the eliminated players.
+     *
+     * @return The number of seats.
+     */
+    public int getSeats() {
+        return order.length;
+    }
+
+    /**
+     * Returns the number of players still in the game.
+     *
+     * @return The number of players still in the game.
+     */
+    public int getAlive() {
+        return alive;
+    }
+
+    /**
+     * Returns the seat of the player at the given index of the turn order.
+     *
+     * @param index The index in the turn order, less than {@link #getAlive()}.
+     * @return The seat of the player.
+     */
+    public int getSeatInOrder(int index) {
+        return order[index];
+    }
+
+    /**
+     * Returns the position of the given player on the track.
+     *
+     * @param seat The seat of the player.
+     * @return The index of the tile the player stands on, -1 before their first move.
+     */
+    public int getPosition(int seat) {
+        return position[seat];
+    }
+
+    /**
+     * Returns the capital of the given player.
+     *
+     * @param seat The seat of the player.
+     * @return The capital of the player.
+     */
+    public int getCapital(int seat) {
+        return capital[seat];
+    }
+
+    /**
+     * Returns whether the given player is bankrupt.
+     *
+     * @param seat The seat of the player.
+     * @return Whether the player is bankrupt.
+     */
+    public boolean isBankrupt(int seat) {
+        return bankrupt[seat];
+    }
+
+    /**
+     * Returns the number of tiles the given player owns.
+     *
+     * @param seat The seat of the player.
+     * @return The number of tiles, 0 once the player is eliminated.
+     */
+    public int getProperties(int seat) {
+        int properties = 0;
+        for (int tile = ownedHead[seat]; tile != NONE; tile = nextOwned[tile]) properties++;
+        return properties;
+    }
+
+    /**
+     * Returns the number of houses on the tiles the given player owns.
+     *
+     * @param seat The seat of the player.
+     * @return The number of houses, 0 once the player is eliminated.
+     */
+    public int getHouses(int seat) {
+        int houses = 0;
+        for (int tile = ownedHead[seat]; tile != NONE; tile = nextOwned[tile]) if (tileHouse[tile]) houses++;
+        return houses;
+    }
+
+    /**
+     * Returns the Zobrist hash of the state the rest of the game depends on: the turn order of the players still in the
+     * game and the one taking the next turn, their positions, capitals and skip flags, the bankruptcies, and the owners
+     * and houses of the tiles, but not the number of turns played nor the positions and capitals left behind by
+     * eliminated players. The tiles are hashed incrementally as they change hands, the players when asked, so hashing
+     * costs as much on a long track as on a short one, and nothing to games that do not ask.
+     *
+     * @return The hash of the state.
+     */
+    public long getStateHash() {
+        long hash = tileHash ^ Zobrist.current(current >= alive ? 0 : current);
+        for (int index = 0; index < alive; index++) hash ^= Zobrist.order(index, order[index]);
+        for (int seat = 0; seat < order.length; seat++) {
+            if (bankrupt[seat]) {
+                hash ^= Zobrist.bankrupt(seat);
+                continue;
+            }
+            hash ^= Zobrist.position(seat, position[seat]) ^ Zobrist.capital(seat, capital[seat]);
+            if (skip[seat]) hash ^= Zobrist.skip(seat);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns an exact encoding of the state {@link #getStateHash()} hashes, for {@link #hasState(int[])} to tell
+     * apart the states whose hashes collide: the number of players alive, the index of the player taking the next
+     * turn, the turn order, the flags, position and capital of every seat, and the number of owned tiles followed by
+     * the index, owner and house of each of them.
+     *
+     * @return The encoded state.
+     */
+    int[] encodeState() {
+        int owned = 0;
+        for (int seat = 0; seat < order.length; seat++) owned += this.getProperties(seat);
+
+        int[] state = new int[2 + alive + SEAT_INTS * order.length + 1 + 2 * owned];
+        int size = 0;
+        state[size++] = alive;
+        state[size++] = current >= alive ? 0 : current;
+        for (int index = 0; index < alive; index++) state[size++] = order[index];
+        for (int seat = 0; seat < order.length; seat++) {
+            state[size++] = this.flags(seat);
+            state[size++] = bankrupt[seat] ? 0 : position[seat];
+            state[size++] = bankrupt[seat] ? 0 : capital[seat];
+        }
+        state[size++] = owned;
+        for (int seat = 0; seat < order.length; seat++) {
+            for (int tile = ownedHead[seat]; tile != NONE; tile = nextOwned[tile]) {
+                state[size++] = tile;
+                state[size++] = seat << 1 | (tileHouse[tile] ? 1 : 0);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Returns whether the game is in the state encoded by {@link #encodeState()}, without allocating.
+     *
+     * @param state The encoded state.
+     * @return Whether the game is in that state.
+     */
+    boolean hasState(int[] state) {
+        int size = 0;
+        if (state[size++] != alive || state[size++] != (current >= alive ? 0 : current)) return false;
+        for (int index = 0; index < alive; index++) if (state[size++] != order[index]) return false;
+        for (int seat = 0; seat < order.length; seat++) {
+            if (state[size++] != this.flags(seat)) return false;
+            if (state[size++] != (bankrupt[seat] ? 0 : position[seat])) return false;
+            if (state[size++] != (bankrupt[seat] ? 0 : capital[seat])) return false;
+        }
+
+        int owned = state[size++];
+        for (int i = 0; i < owned; i++) {
+            int tile = state[size++], owner = state[size++];
+            if (tileOwner[tile] != owner >> 1 || tileHouse[tile] != ((owner & 1) == 1)) return false;
+        }
+        for (int seat = 0; seat < order.length; seat++) owned -= this.getProperties(seat);
+        return owned == 0;
+    }
+
+    /**
+     * Returns the skip and bankruptcy flags of a player, as encoded by {@link #encodeState()}.
+     *
+     * @param seat The seat of the player.
+     * @return The flags.
+     */
+    private int flags(int seat) {
+        return (skip[seat] && !bankrupt[seat] ? 1 : 0) | (bankrupt[seat] ? 2 : 0);
+    }
+
+    /**
+     * Returns the owner of the given tile.
+     *
+     * @param tile The index of the tile.
+     * @return The seat of the owner, or {@link #NONE} if the tile has no owner.
+     */
+    public int getOwner(int tile) {
+        return tileOwner[tile];
+    }
+
+    /**
+     * Returns whether the given tile has a house.
+     *
+     * @param tile The index of the tile.
+     * @return Whether the tile has a house.
+     */
+    public boolean hasHouse(int tile) {
+        return tileHouse[tile];
+    }
+
+    /**
+     * Records the events of a chunk played with an {@link OutcomeCache} while passing them on to the listener.
+     */
+    private static final class ChunkRecorder implements GameEventListener {
+
+        /**
+         * The number of ints of a recorded event.
+         */
+        private static final int EVENT_INTS = 4;
+
+        /**
+         * The listener of the game, receiving the events as they are recorded.
+         */
+        private GameEventListener target;
+
+        /**
+         * The type code, seat, tile and amount of every event recorded.
+         */
+        private int[] events = new int[16 * EVENT_INTS];
+
+        /**
+         * The number of ints recorded.
+         */
+        private int size;
+
+        /**
+         * Starts recording a chunk.
+         *
+         * @param target The listener of the game.
+         */
+        private void start(GameEventListener target) {
+            this.target = target;
+            this.size = 0;
+        }
+
+        /**
+         * Records an event and passes it on.
+         *
+         * @param type   The type of the event.
+         * @param seat   The seat of the player.
+         * @param tile   The index of the tile.
+         * @param amount The amount of money, or the roll of a move.
+         */
+        @Override
+        public void onEvent(EventType type, int seat, int tile, int amount) {
+            if (size + EVENT_INTS > events.length) events = Arrays.copyOf(events, 2 * events.length);
+            events[size++] = type.getCode();
+            events[size++] = seat;
+            events[size++] = tile;
+            events[size++] = amount;
+            target.onEvent(type, seat, tile, amount);
+        }
+
+        /**
+         * Returns a copy of the events recorded.
+         *
+         * @return The events.
+         */
+        private int[] events() {
+            return Arrays.copyOf(events, size);
+        }
+    }
+}
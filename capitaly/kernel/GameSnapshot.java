@@ -0,0 +1,241 @@
+package capitaly.kernel;
+
+/**
+ * An immutable copy of the whole state of a game at a point in time.
+ * Players are identified by their seat and tiles by their index on the track, the same way as in the
+ * {@link GameKernel}, so a snapshot taken from a {@link capitaly.Capitaly} game can be restored into a kernel of the
+ * same scenario and the other way around. The arrays are never shared with a live game, so a snapshot can be
+ * restored any number of times, from any thread.
+ */
+public final class GameSnapshot {
+
+    /**
+     * The seats of the owners of the tiles, {@link GameKernel#NONE} if the tile has no owner.
+     */
+    final int[] tileOwner;
+
+    /**
+     * Whether the tiles have a house.
+     */
+    final boolean[] tileHouse;
+
+    /**
+     * The next tile owned by the same player, {@link GameKernel#NONE} at the end of the list.
+     */
+    final int[] nextOwned;
+
+    /**
+     * The positions of the players on the track, -1 before their first move.
+     */
+    final int[] position;
+
+    /**
+     * The capitals of the players.
+     */
+    final int[] capital;
+
+    /**
+     * Whether the players are bankrupt.
+     */
+    final boolean[] bankrupt;
+
+    /**
+     * Whether the strategic players want to skip their next purchase.
+     */
+    final boolean[] skip;
+
+    /**
+     * The last tile bought by each player, {@link GameKernel#NONE} if they own nothing.
+     */
+    final int[] ownedHead;
+
+    /**
+     * The seats of the players still in the game, in turn order.
+     */
+    final int[] order;
+
+    /**
+     * The index in the turn order of the player taking the next turn.
+     */
+    final int current;
+
+    /**
+     * The number of turns played.
+     */
+    final int turns;
+
+    /**
+     * Constructs a new GameSnapshot holding copies of the given arrays, so that the caller may reuse them.
+     * The owned tiles of every player form a list starting at their last purchase and linked through nextOwned.
+     *
+     * @param tileOwner The seats of the owners of the tiles, {@link GameKernel#NONE} for no owner.
+     * @param tileHouse Whether the tiles have a house.
+     * @param nextOwned The next tile owned by the same player, {@link GameKernel#NONE} at the end of the list.
+     * @param position  The positions of the players, -1 before their first move.
+     * @param capital   The capitals of the players.
+     * @param bankrupt  Whether the players are bankrupt.
+     * @param skip      Whether the strategic players want to skip their next purchase.
+     * @param ownedHead The last tile bought by each player, {@link GameKernel#NONE} if they own nothing.
+     * @param order     The seats of the players still in the game, in turn order.
+     * @param current   The index in the turn order of the player taking the next turn.
+     * @param turns     The number of turns played.
+     * @throws IllegalArgumentException If the arrays do not describe the same tiles and seats.
+     */
+    public GameSnapshot(int[] tileOwner, boolean[] tileHouse, int[] nextOwned,
+                        int[] position, int[] capital, boolean[] bankrupt, boolean[] skip, int[] ownedHead,
+                        int[] order, int current, int turns) {
+        int tiles = tileOwner.length;
+        int seats = position.length;
+        if (tileHouse.length != tiles || nextOwned.length != tiles)
+            throw new IllegalArgumentException("Expected " + tiles + " entries in every tile array.");
+        if (capital.length != seats || bankrupt.length != seats || skip.length != seats || ownedHead.length != seats || order.length > seats)
+            throw new IllegalArgumentException("Expected " + seats + " entries in every seat array.");
+
+        this.tileOwner = tileOwner.clone();
+        this.tileHouse = tileHouse.clone();
+        this.nextOwned = nextOwned.clone();
+        this.position = position.clone();
+        this.capital = capital.clone();
+        this.bankrupt = bankrupt.clone();
+        this.skip = skip.clone();
+        this.ownedHead = ownedHead.clone();
+        this.order = order.clone();
+        this.current = current;
+        this.turns = turns;
+    }
+
+    /**
+     * Returns the length of the track (the number of tiles).
+     *
+     * @return The length of the track.
+     */
+    public int getLength() {
+        return tileOwner.length;
+    }
+
+    /**
+     * Returns the number of seats at the table, including the eliminated players.
+     *
+     * @return The number of seats.
+     */
+    public int getSeats() {
+        return position.length;
+    }
+
+    /**
+     * Returns the number of players still in the game.
+     *
+     * @return The number of players still in the game.
+     */
+    public int getAlive() {
+        return order.length;
+    }
+
+    /**
+     * Returns the seat of the player at the given index of the turn order.
+     *
+     * @param index The index in the turn order, less than {@link #getAlive()}.
+     * @return The seat of the player.
+     */
+    public int getSeatInOrder(int index) {
+        return order[index];
+    }
+
+    /**
+     * Returns the index in the turn order of the player taking the next turn.
+     *
+     * @return The index of the next player, wrapped to 0 on their turn if it is past the end of the order.
+     */
+    public int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns the number of turns played.
+     *
+     * @return The number of turns played.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the position of the given player on the track.
+     *
+     * @param seat The seat of the player.
+     * @return The index of the tile the player stands on, -1 before their first move.
+     */
+    public int getPosition(int seat) {
+        return position[seat];
+    }
+
+    /**
+     * Returns the capital of the given player.
+     *
+     * @param seat The seat of the player.
+     * @return The capital of the player.
+     */
+    public int getCapital(int seat) {
+        return capital[seat];
+    }
+
+    /**
+     * Returns whether the given player is bankrupt.
+     *
+     * @param seat The seat of the player.
+     * @return Whether the player is bankrupt.
+     */
+    public boolean isBankrupt(int seat) {
+        return bankrupt[seat];
+    }
+
+    /**
+     * Returns whether the given strategic player wants to skip their next purchase.
+     *
+     * @param seat The seat of the player.
+     * @return Whether the player skips their next purchase, always false for other strategies.
+     */
+    public boolean isSkipping(int seat) {
+        return skip[seat];
+    }
+
+    /**
+     * Returns the last tile bought by the given player and still owned by them.
+     *
+     * @param seat The seat of the player.
+     * @return The index of the tile, {@link GameKernel#NONE} if they own nothing.
+     */
+    public int getOwnedHead(int seat) {
+        return ownedHead[seat];
+    }
+
+    /**
+     * Returns the tile the owner of the given tile bought before it.
+     *
+     * @param tile The index of an owned tile.
+     * @return The index of the previous tile, {@link GameKernel#NONE} if it was their first purchase.
+     */
+    public int getNextOwned(int tile) {
+        return nextOwned[tile];
+    }
+
+    /**
+     * Returns the owner of the given tile.
+     *
+     * @param tile The index of the tile.
+     * @return The seat of the owner, or {@link GameKernel#NONE} if the tile has no owner.
+     */
+    public int getOwner(int tile) {
+        return tileOwner[tile];
+    }
+
+    /**
+     * Returns whether the given tile has a house.
+     *
+     * @param tile The index of the tile.
+     * @return Whether the tile has a house.
+     */
+    public boolean hasHouse(int tile) {
+        return tileHouse[tile];
+    }
+}
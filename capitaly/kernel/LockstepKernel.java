@@ -0,0 +1,500 @@
+package capitaly.kernel;
+
+import capitaly.RuleSet;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Many games of the same track and players played in lockstep: every {@link #step} takes one turn in each running game,
+ * a lane, with the rules of {@link GameKernel}.
+ * <p>
+ * The state of the lanes is laid out side by side in primitive arrays, lane by lane, and a turn is taken in all lanes
+ * in phases: every lane moves its player and collects the reward or pays the fee of a luck or service tile, selected
+ * by masks derived from the kind of the tile rather than by branches, then the lanes that landed on real estate have
+ * their players decide, and finally the lanes whose player went bankrupt eliminate them. Which lanes take part in a
+ * phase is a bit mask over the lanes, so the lanes diverge without branching the whole step, and the lanes of a phase
+ * are independent, so the processor looks up the tiles of several lanes at once.
+ * <p>
+ * Lookahead players consult a search over a whole {@link GameKernel} and cannot be played in lockstep; games with them
+ * are played one by one, see {@link #supports(List)}. The tiles are kept for every lane, so the kernel takes
+ * {@code lanes * length} times a few bytes. Like the game kernel, it does not allocate after construction and is not
+ * thread-safe.
+ * <p>
+ * The moves, eliminations and finished games of the lanes are counted into the {@link GameMetrics} as those of the
+ * game kernel are, but no move is timed, the moves of the lanes being taken together.
+ */
+public final class LockstepKernel {
+
+    /**
+     * The largest number of lanes, the bits of a mask.
+     */
+    public static final int MAX_LANES = Long.SIZE;
+
+    /**
+     * The rules of the games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The number of lanes.
+     */
+    private final int lanes;
+
+    /**
+     * The number of seats at every table.
+     */
+    private final int seats;
+
+    /**
+     * The length of the track (the number of tiles).
+     */
+    private final int length;
+
+    /**
+     * The kind codes of the tiles, as in {@link GameKernel}.
+     */
+    private final byte[] tileKind;
+
+    /**
+     * The fees or rewards of the tiles.
+     */
+    private final int[] tileAmount;
+
+    /**
+     * The strategy codes of the players, as in {@link GameKernel}.
+     */
+    private final byte[] strategy;
+
+    /**
+     * The seats of the owners of the tiles, by lane then tile, {@link GameKernel#NONE} if the tile has no owner.
+     */
+    private final int[] tileOwner;
+
+    /**
+     * Whether the tiles have a house, by lane then tile.
+     */
+    private final boolean[] tileHouse;
+
+    /**
+     * The next tile owned by the same player, by lane then tile, {@link GameKernel#NONE} at the end of the list.
+     */
+    private final int[] nextOwned;
+
+    /**
+     * The positions of the players, by lane then seat, -1 before their first move.
+     */
+    private final int[] position;
+
+    /**
+     * The capitals of the players, by lane then seat.
+     */
+    private final int[] capital;
+
+    /**
+     * Whether the players are bankrupt, by lane then seat.
+     */
+    private final boolean[] bankrupt;
+
+    /**
+     * Whether the strategic players want to skip their next purchase, by lane then seat.
+     */
+    private final boolean[] skip;
+
+    /**
+     * The first tile owned by each player, by lane then seat, {@link GameKernel#NONE} if they own nothing.
+     */
+    private final int[] ownedHead;
+
+    /**
+     * The seats of the players still in the game, by lane then turn order. Only the first {@link #alive} entries of a
+     * lane are valid.
+     */
+    private final int[] order;
+
+    /**
+     * The number of players still in the game, by lane.
+     */
+    private final int[] alive;
+
+    /**
+     * The index in the turn order of the player taking the next turn, by lane.
+     */
+    private final int[] current;
+
+    /**
+     * The number of turns played, by lane.
+     */
+    private final int[] turns;
+
+    /**
+     * The player taking the turn of the current step, by lane, as an index into the arrays by lane then seat.
+     */
+    private final int[] mover;
+
+    /**
+     * The tile the player of the current step landed on, by lane.
+     */
+    private final int[] landed;
+
+    /**
+     * The recorder of the metrics of the lanes, null if the metrics are off.
+     */
+    private final MetricsRecorder metrics;
+
+    /**
+     * The lanes whose game is running, one bit per lane.
+     */
+    private long running;
+
+    /**
+     * Constructs a new LockstepKernel for the given track and players under the standard rules, with no game running.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at every table, in seating order.
+     * @param lanes   The number of games played at once, from 1 to {@value #MAX_LANES}.
+     * @throws IllegalArgumentException If there are no players, some play the lookahead strategy, the number of lanes
+     *                                  is out of range or the tiles of the lanes do not fit in an array.
+     */
+    public LockstepKernel(TrackSpec track, List<PlayerSpec> players, int lanes) {
+        this(track, players, RuleSet.STANDARD, lanes);
+    }
+
+    /**
+     * Constructs a new LockstepKernel for the given track and players under the given rules, with no game running.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at every table, in seating order.
+     * @param rules   The rules of the games.
+     * @param lanes   The number of games played at once, from 1 to {@value #MAX_LANES}.
+     * @throws IllegalArgumentException If there are no players, some play the lookahead strategy, the number of lanes
+     *                                  is out of range or the tiles of the lanes do not fit in an array.
+     */
+    public LockstepKernel(TrackSpec track, List<PlayerSpec> players, RuleSet rules, int lanes) {
+        if (players.isEmpty()) throw new IllegalArgumentException("A game needs at least one player.");
+        if (!supports(players)) throw new IllegalArgumentException("Lookahead players cannot be played in lockstep.");
+        if (lanes < 1 || lanes > MAX_LANES) throw new IllegalArgumentException("Expected 1 to " + MAX_LANES + " lanes, got " + lanes + '.');
+        if ((long) lanes * track.length() > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Cannot play " + lanes + " lanes of " + track.length() + " tiles.");
+
+        this.rules = rules;
+        this.lanes = lanes;
+        this.seats = players.size();
+        this.length = track.length();
+        this.tileKind = new byte[length];
+        this.tileAmount = new int[length];
+        for (int i = 0; i < length; i++) {
+            this.tileKind[i] = switch (track.kind(i)) {
+                case REAL_ESTATE -> GameKernel.REAL_ESTATE;
+                case SERVICE -> GameKernel.SERVICE;
+                case LUCK -> GameKernel.LUCK;
+            };
+            this.tileAmount[i] = track.amount(i);
+        }
+        this.strategy = new byte[seats];
+        for (int i = 0; i < seats; i++) {
+            this.strategy[i] = switch (players.get(i).strategy()) {
+                case GREEDY -> GameKernel.GREEDY;
+                case CAREFUL -> GameKernel.CAREFUL;
+                default -> GameKernel.STRATEGIC;
+            };
+        }
+
+        this.tileOwner = new int[lanes * length];
+        this.tileHouse = new boolean[lanes * length];
+        this.nextOwned = new int[lanes * length];
+        Arrays.fill(this.tileOwner, GameKernel.NONE);
+        this.position = new int[lanes * seats];
+        this.capital = new int[lanes * seats];
+        this.bankrupt = new boolean[lanes * seats];
+        this.skip = new boolean[lanes * seats];
+        this.ownedHead = new int[lanes * seats];
+        Arrays.fill(this.ownedHead, GameKernel.NONE);
+        this.order = new int[lanes * seats];
+        this.alive = new int[lanes];
+        this.current = new int[lanes];
+        this.turns = new int[lanes];
+        this.mover = new int[lanes];
+        this.landed = new int[lanes];
+        this.metrics = GameMetrics.ENABLED ? new MetricsRecorder() : null;
+    }
+
+    /**
+     * Returns whether games of the given players can be played in lockstep, i.e. none of them plays the lookahead
+     * strategy.
+     *
+     * @param players The players at the table.
+     * @return Whether the players are supported.
+     */
+    public static boolean supports(List<PlayerSpec> players) {
+        for (PlayerSpec player : players) if (player.strategy() == Strategy.LOOKAHEAD) return false;
+        return true;
+    }
+
+    /**
+     * Returns the number of lanes.
+     *
+     * @return The number of games played at once.
+     */
+    public int getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Returns the lanes whose game is running.
+     *
+     * @return The mask of the running lanes, bit i standing for lane i.
+     */
+    public long getRunning() {
+        return running;
+    }
+
+    /**
+     * Starts a new game in the given lane, with the turn order rotated to start at the given seat as
+     * {@link GameKernel#reset(int)} does. A game of a single player is over before it starts and does not run.
+     *
+     * @param lane      The lane.
+     * @param firstSeat The seat of the player taking the first turn.
+     */
+    public void reset(int lane, int firstSeat) {
+        int base = lane * seats;
+        for (int i = 0; i < seats; i++) {
+            release(lane, i);
+            position[base + i] = -1;
+            capital[base + i] = rules.startingCapital();
+            bankrupt[base + i] = false;
+            skip[base + i] = false;
+            order[base + i] = (firstSeat + i) % seats;
+        }
+        alive[lane] = seats;
+        current[lane] = 0;
+        turns[lane] = 0;
+        if (seats > 1) running |= 1L << lane;
+        else running &= ~(1L << lane);
+    }
+
+    /**
+     * Takes a turn in every running lane, each with its own roll, and stops the lanes whose game is over or whose turn
+     * limit is reached.
+     *
+     * @param rolls    The roll of the die of each lane, by lane. The rolls of the lanes not running are ignored.
+     * @param maxTurns The number of turns after which a game is stopped.
+     * @return The mask of the lanes still running.
+     */
+    public long step(int[] rolls, int maxTurns) {
+        // Moves every lane, and settles the lanes on luck and service tiles without branching on the kind: the kind
+        // codes are 0, 1 and 2, so their bits give the masks selecting the reward or the fee.
+        long realEstate = 0, broke = 0, stopped = 0;
+        for (long mask = running; mask != 0; mask &= mask - 1) {
+            int lane = Long.numberOfTrailingZeros(mask);
+            long bit = mask & -mask;
+            int index = current[lane];
+            if (index >= alive[lane]) index = 0;
+            int player = lane * seats + order[lane * seats + index];
+            current[lane] = index + 1;
+            int target = (position[player] + rolls[lane]) % length;
+            position[player] = target;
+            mover[lane] = player;
+            landed[lane] = target;
+            if (++turns[lane] >= maxTurns) stopped |= bit;
+
+            int kind = tileKind[target];
+            int amount = tileAmount[target];
+            if (GameMetrics.ENABLED) metrics.move(kind); // The kind codes are the ordinals.
+            int isService = -(kind & GameKernel.SERVICE), isLuck = -(kind >> 1);
+            realEstate |= bit & ~((long) isService | isLuck);
+            int fee = amount & isService;
+            if (fee > capital[player] && isService != 0) {
+                bankrupt[player] = true;
+                fee = capital[player];
+                broke |= bit;
+            }
+            capital[player] += (amount & isLuck) - fee;
+        }
+
+        for (long mask = realEstate; mask != 0; mask &= mask - 1) {
+            int lane = Long.numberOfTrailingZeros(mask);
+            int player = mover[lane];
+            enterRealEstate(lane, player, landed[lane]);
+            if (bankrupt[player]) broke |= mask & -mask;
+        }
+
+        for (long mask = broke; mask != 0; mask &= mask - 1) {
+            int lane = Long.numberOfTrailingZeros(mask);
+            eliminate(lane, current[lane] - 1);
+            if (GameMetrics.ENABLED) metrics.eliminated(alive[lane] <= 1);
+            if (alive[lane] <= 1) stopped |= mask & -mask;
+        }
+        return running &= ~stopped;
+    }
+
+    /**
+     * Adds the metrics counted by the lanes so far to the {@link GameMetrics process-wide metrics}, which otherwise
+     * only happens every few thousand moves. Does nothing if the metrics are off.
+     */
+    public void flushMetrics() {
+        if (GameMetrics.ENABLED) metrics.flush();
+    }
+
+    /**
+     * Handles the logic when a player enters a real estate tile, as {@link GameKernel} does.
+     *
+     * @param lane   The lane.
+     * @param player The player, as an index into the arrays by lane then seat.
+     * @param tile   The index of the tile.
+     */
+    private void enterRealEstate(int lane, int player, int tile) {
+        int seat = player - lane * seats;
+        int slot = lane * length + tile;
+        int owner = tileOwner[slot];
+
+        if (owner == seat) {
+            int price = tileHouse[slot] ? 0 : rules.upgradeCost();
+            if (wantsToBuy(player, seat, price)) {
+                pay(player, price);
+                tileHouse[slot] = true;
+            }
+        } else if (owner == GameKernel.NONE) {
+            if (wantsToBuy(player, seat, rules.purchaseCost())) {
+                pay(player, rules.purchaseCost());
+                tileOwner[slot] = seat;
+                nextOwned[slot] = ownedHead[player];
+                ownedHead[player] = tile;
+            }
+        } else {
+            int price = rules.landingFee(tileHouse[slot]);
+            capital[lane * seats + owner] += pay(player, price);
+        }
+    }
+
+    /**
+     * Returns whether the given player wants to buy for the given price, according to their strategy.
+     *
+     * @param player The player, as an index into the arrays by lane then seat.
+     * @param seat   The seat of the player.
+     * @param price  The price of the purchase.
+     * @return Whether the player wants to buy.
+     */
+    private boolean wantsToBuy(int player, int seat, int price) {
+        return switch (strategy[seat]) {
+            case GameKernel.GREEDY -> true;
+            case GameKernel.CAREFUL -> capital[player] >= price * 2;
+            default -> capital[player] >= price && (skip[player] = !skip[player]);
+        };
+    }
+
+    /**
+     * Takes the given amount from a player, as {@link Player#pay(int)} does.
+     *
+     * @param player The player, as an index into the arrays by lane then seat.
+     * @param amount The amount to pay.
+     * @return The amount actually paid.
+     */
+    private int pay(int player, int amount) {
+        if (amount > capital[player]) {
+            bankrupt[player] = true;
+            amount = capital[player];
+        }
+
+        capital[player] -= amount;
+        return amount;
+    }
+
+    /**
+     * Eliminates the player at the given index of the turn order of a lane and releases their tiles.
+     *
+     * @param lane  The lane.
+     * @param index The index of the player in the turn order.
+     */
+    private void eliminate(int lane, int index) {
+        int base = lane * seats;
+        release(lane, order[base + index]);
+        System.arraycopy(order, base + index + 1, order, base + index, alive[lane] - index - 1);
+        alive[lane]--;
+    }
+
+    /**
+     * Releases every tile owned by the given player of a lane, as {@link Player#lose()} does.
+     *
+     * @param lane The lane.
+     * @param seat The seat of the player.
+     */
+    private void release(int lane, int seat) {
+        int base = lane * length;
+        int player = lane * seats + seat;
+        for (int tile = ownedHead[player]; tile != GameKernel.NONE; tile = nextOwned[base + tile]) {
+            tileOwner[base + tile] = GameKernel.NONE;
+            tileHouse[base + tile] = false;
+        }
+        ownedHead[player] = GameKernel.NONE;
+    }
+
+    /**
+     * Returns whether the game of a lane is over.
+     *
+     * @param lane The lane.
+     * @return Whether at most one player is left.
+     */
+    public boolean isOver(int lane) {
+        return alive[lane] <= 1;
+    }
+
+    /**
+     * Returns the winner of the game of a lane.
+     *
+     * @param lane The lane.
+     * @return The seat of the last player standing, or {@link GameKernel#NONE} if the game is not over.
+     */
+    public int getWinner(int lane) {
+        return alive[lane] == 1 ? order[lane * seats] : GameKernel.NONE;
+    }
+
+    /**
+     * Returns the number of turns played in the game of a lane.
+     *
+     * @param lane The lane.
+     * @return The number of turns.
+     */
+    public int getTurns(int lane) {
+        return turns[lane];
+    }
+
+    /**
+     * Returns the capital of a player in the game of a lane.
+     *
+     * @param lane The lane.
+     * @param seat The seat of the player.
+     * @return The capital of the player.
+     */
+    public int getCapital(int lane, int seat) {
+        return capital[lane * seats + seat];
+    }
+
+    /**
+     * Returns the position of a player in the game of a lane.
+     *
+     * @param lane The lane.
+     * @param seat The seat of the player.
+     * @return The index of the tile the player stands on, -1 if they have not moved.
+     */
+    public int getPosition(int lane, int seat) {
+        return position[lane * seats + seat];
+    }
+
+    /**
+     * Returns whether a player of the game of a lane is bankrupt.
+     *
+     * @param lane The lane.
+     * @param seat The seat of the player.
+     * @return Whether the player is bankrupt.
+     */
+    public boolean isBankrupt(int lane, int seat) {
+        return bankrupt[lane * seats + seat];
+    }
+}
@@ -0,0 +1,450 @@
+package capitaly.kernel;
+
+import java.util.Arrays;
+
+/**
+ * A budgeted expectimax search deciding the purchases of the {@link GameKernel#LOOKAHEAD} players.
+ * <p>
+ * A purchase is compared with passing by the value the game is expected to have a few rounds later, averaged over every
+ * roll of every player taking a turn in between. The other players follow their own strategies (other lookahead
+ * players buy whatever they can afford), while the deciding player picks the better option again at each of their own
+ * purchases. The value of a game is the share of the deciding player in the net worth of the players still in it,
+ * counting their capital and the price paid for their tiles and houses. A bankruptcy ends a line of play.
+ * <p>
+ * The search plays out and undoes the moves on the game itself, remembers the values of the states it has already
+ * evaluated in a transposition table, and does not allocate once the table is set up. It deepens one turn at a time,
+ * so when the node or time budget runs out, the decision of the last completed depth is taken.
+ * A search must only be used by one game at a time.
+ */
+public final class LookaheadSearch {
+
+    /**
+     * The default number of rounds (turns of every player) searched ahead.
+     */
+    public static final int DEFAULT_ROUNDS = 2;
+
+    /**
+     * The default number of states evaluated per decision.
+     */
+    public static final long DEFAULT_NODE_BUDGET = 4096;
+
+    /**
+     * The default base 2 logarithm of the number of transposition table entries.
+     */
+    public static final int DEFAULT_TABLE_BITS = 14;
+
+    /**
+     * The number of states evaluated between two looks at the clock.
+     */
+    private static final int CLOCK_INTERVAL = 256;
+
+    /**
+     * The number of rounds searched ahead.
+     */
+    private final int rounds;
+
+    /**
+     * The number of states evaluated per decision.
+     */
+    private final long nodeBudget;
+
+    /**
+     * The time available per decision in nanoseconds, 0 for no limit.
+     */
+    private final long timeBudget;
+
+    /**
+     * The base 2 logarithm of the number of transposition table entries.
+     */
+    private final int tableBits;
+
+    /**
+     * The hashes of the states in the transposition table.
+     */
+    private long[] keys;
+
+    /**
+     * The values of the states in the transposition table.
+     */
+    private double[] values;
+
+    /**
+     * The decisions the entries of the transposition table were stored in, older entries are stale.
+     */
+    private int[] stamps;
+
+    /**
+     * The number of the current decision.
+     */
+    private int generation;
+
+    /**
+     * The game being searched.
+     */
+    private GameKernel game;
+
+    /**
+     * The seat of the deciding player.
+     */
+    private int me;
+
+    /**
+     * The net worth of every player, kept up to date while moves are played out.
+     */
+    private long[] worth;
+
+    /**
+     * The net worth of the players still in the game.
+     */
+    private long total;
+
+    /**
+     * The hash of the changes made to the searched state, 0 at the decision itself.
+     */
+    private long hash;
+
+    /**
+     * The number of states evaluated for the current decision.
+     */
+    private long nodes;
+
+    /**
+     * The time by which the current decision has to be made, in {@link System#nanoTime()} terms.
+     */
+    private long deadline;
+
+    /**
+     * Whether the current depth may be abandoned when the budget runs out.
+     */
+    private boolean budgeted;
+
+    /**
+     * Whether the current depth has been abandoned.
+     */
+    private boolean aborted;
+
+    /**
+     * Constructs a new LookaheadSearch with the default budget.
+     */
+    public LookaheadSearch() {
+        this(DEFAULT_ROUNDS, DEFAULT_NODE_BUDGET, 0, DEFAULT_TABLE_BITS);
+    }
+
+    /**
+     * Constructs a new LookaheadSearch with the given budget.
+     * The first turn after the decision is always searched, whatever the budget.
+     *
+     * @param rounds     The number of rounds (turns of every player) searched ahead.
+     * @param nodeBudget The number of states evaluated per decision.
+     * @param timeBudget The time available per decision in nanoseconds, 0 for no limit.
+     * @param tableBits  The base 2 logarithm of the number of transposition table entries.
+     * @throws IllegalArgumentException If a parameter is out of range.
+     */
+    public LookaheadSearch(int rounds, long nodeBudget, long timeBudget, int tableBits) {
+        if (rounds < 1) throw new IllegalArgumentException("Expected at least 1 round, got " + rounds + '.');
+        if (nodeBudget < 1) throw new IllegalArgumentException("Expected a positive node budget, got " + nodeBudget + '.');
+        if (timeBudget < 0) throw new IllegalArgumentException("Expected a non-negative time budget, got " + timeBudget + '.');
+        if (tableBits < 1 || tableBits > 30) throw new IllegalArgumentException("Expected 1 to 30 table bits, got " + tableBits + '.');
+
+        this.rounds = rounds;
+        this.nodeBudget = nodeBudget;
+        this.timeBudget = timeBudget;
+        this.tableBits = tableBits;
+    }
+
+    /**
+     * Creates a new search with the same budget and an empty transposition table, e.g. for a forked game.
+     *
+     * @return The new search.
+     */
+    public LookaheadSearch copy() {
+        return new LookaheadSearch(rounds, nodeBudget, timeBudget, tableBits);
+    }
+
+    /**
+     * Returns whether the decisions depend on the clock, the search stopping at a time budget, so that the same state
+     * may be decided differently from one time to the next.
+     *
+     * @return Whether the search has a time budget.
+     */
+    boolean isTimed() {
+        return timeBudget > 0;
+    }
+
+    /**
+     * Decides whether the given player buys the real estate tile they just entered.
+     * The game must be in the middle of their turn: moved onto the tile, with nothing paid yet.
+     * The game is in the same state again when the method returns.
+     *
+     * @param game  The game.
+     * @param seat  The seat of the deciding player.
+     * @param price The price of the tile or of its house for the player.
+     * @return Whether the player buys, never if they cannot afford it.
+     */
+    public boolean decide(GameKernel game, int seat, int price) {
+        if (price == 0 || price > game.capital[seat]) return false;
+
+        this.prepare(game, seat);
+        int tile = game.position[seat];
+        int depth = rounds * game.alive;
+        boolean buy = true;
+        for (int plies = 1; plies <= depth && !aborted; plies++) {
+            budgeted = plies > 1;
+            double take = buy(seat, tile, price, plies + 1);
+            double pass = expect(plies);
+            if (!aborted) buy = take > pass;
+        }
+
+        this.game = null;
+        return buy;
+    }
+
+    /**
+     * Sets up the search of a decision: the net worths, the hash and the budget.
+     *
+     * @param game The game.
+     * @param seat The seat of the deciding player.
+     */
+    private void prepare(GameKernel game, int seat) {
+        int seats = game.order.length;
+        if (worth == null || worth.length != seats) worth = new long[seats];
+        if (keys == null) {
+            keys = new long[1 << tableBits];
+            values = new double[1 << tableBits];
+            stamps = new int[1 << tableBits];
+        }
+        if (++generation == 0) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+
+        total = 0;
+        for (int index = 0; index < game.alive; index++) {
+            int player = game.order[index];
+            long value = game.capital[player];
+            for (int owned = game.ownedHead[player]; owned != GameKernel.NONE; owned = game.nextOwned[owned])
+                value += game.tileHouse[owned] ? game.rules.purchaseCost() + game.rules.upgradeCost() : game.rules.purchaseCost();
+            worth[player] = value;
+            total += value;
+        }
+
+        this.game = game;
+        this.me = seat;
+        this.hash = 0;
+        this.nodes = 0;
+        this.deadline = System.nanoTime() + timeBudget;
+        this.aborted = false;
+    }
+
+    /**
+     * Returns the expected value of the game after the given number of turns, starting with the next player's roll.
+     *
+     * @param plies The number of turns left to play out.
+     * @return The expected share of the deciding player.
+     */
+    private double expect(int plies) {
+        if (plies == 0) return evaluate();
+        if (aborted || overBudget()) return 0;
+
+        long key = hash ^ plies * 0x9E3779B97F4A7C15L;
+        int slot = (int) Zobrist.mix(key) & (keys.length - 1);
+        if (stamps[slot] == generation && keys[slot] == key) return values[slot];
+
+        GameKernel game = this.game;
+        int oldCurrent = game.current;
+        int index = oldCurrent >= game.alive ? 0 : oldCurrent;
+        int seat = game.order[index];
+        int from = game.position[seat];
+        long moved = Zobrist.current(oldCurrent) ^ Zobrist.current(index + 1);
+        game.current = index + 1;
+        hash ^= moved;
+
+        double sum = 0;
+        for (int roll = 1; roll <= 6; roll++) {
+            int target = (from + roll) % game.length;
+            long step = Zobrist.position(seat, from) ^ Zobrist.position(seat, target);
+            game.position[seat] = target;
+            hash ^= step;
+            sum += enter(seat, target, plies);
+            hash ^= step;
+        }
+
+        game.position[seat] = from;
+        game.current = oldCurrent;
+        hash ^= moved;
+
+        double value = sum / 6;
+        if (!aborted) {
+            keys[slot] = key;
+            values[slot] = value;
+            stamps[slot] = generation;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the expected value of the game after the given player entered the given tile.
+     *
+     * @param seat  The seat of the player.
+     * @param tile  The index of the tile.
+     * @param plies The number of turns left to play out, including this one.
+     * @return The expected share of the deciding player.
+     */
+    private double enter(int seat, int tile, int plies) {
+        GameKernel game = this.game;
+        byte kind = game.tileKind[tile];
+        if (kind == GameKernel.SERVICE) return transfer(seat, GameKernel.NONE, game.tileAmount[tile], plies);
+        if (kind == GameKernel.LUCK) return transfer(GameKernel.NONE, seat, game.tileAmount[tile], plies);
+
+        int owner = game.tileOwner[tile];
+        boolean house = game.tileHouse[tile];
+        if (owner != GameKernel.NONE && owner != seat)
+            return transfer(seat, owner, game.rules.landingFee(house), plies);
+
+        int price = owner == GameKernel.NONE ? game.rules.purchaseCost() : house ? 0 : game.rules.upgradeCost();
+        int capital = game.capital[seat];
+        return switch (game.strategy[seat]) {
+            case GameKernel.GREEDY -> buy(seat, tile, price, plies);
+            case GameKernel.CAREFUL -> capital >= price * 2 ? buy(seat, tile, price, plies) : expect(plies - 1);
+            case GameKernel.STRATEGIC -> capital >= price ? toggle(seat, tile, price, plies) : expect(plies - 1);
+            default -> {
+                if (price == 0 || price > capital) yield expect(plies - 1);
+                if (seat != me) yield buy(seat, tile, price, plies);
+                yield Math.max(buy(seat, tile, price, plies), expect(plies - 1));
+            }
+        };
+    }
+
+    /**
+     * Returns the expected value of the game after a strategic player flipped their skip flag and bought if it is set.
+     *
+     * @param seat  The seat of the player.
+     * @param tile  The index of the tile.
+     * @param price The price of the tile or of its house.
+     * @param plies The number of turns left to play out, including this one.
+     * @return The expected share of the deciding player.
+     */
+    private double toggle(int seat, int tile, int price, int plies) {
+        GameKernel game = this.game;
+        boolean skip = game.skip[seat];
+        long flip = Zobrist.code(Zobrist.SKIP, seat, skip ? 1 : 0) ^ Zobrist.code(Zobrist.SKIP, seat, skip ? 0 : 1);
+        game.skip[seat] = !skip;
+        hash ^= flip;
+        double value = skip ? expect(plies - 1) : buy(seat, tile, price, plies);
+        hash ^= flip;
+        game.skip[seat] = skip;
+        return value;
+    }
+
+    /**
+     * Returns the expected value of the game after the given player bought the tile or its house.
+     *
+     * @param seat  The seat of the player.
+     * @param tile  The index of the tile.
+     * @param price The price of the tile or of its house.
+     * @param plies The number of turns left to play out, including this one.
+     * @return The expected share of the deciding player.
+     */
+    private double buy(int seat, int tile, int price, int plies) {
+        GameKernel game = this.game;
+        int capital = game.capital[seat];
+        if (price > capital) return eliminated(seat, GameKernel.NONE);
+
+        int owner = game.tileOwner[tile];
+        boolean house = game.tileHouse[tile];
+        long change = Zobrist.capital(seat, capital) ^ Zobrist.capital(seat, capital - price)
+            ^ Zobrist.tile(tile, owner, house) ^ Zobrist.tile(tile, seat, owner == seat);
+        game.capital[seat] = capital - price;
+        if (owner == seat) game.tileHouse[tile] = true;
+        else game.tileOwner[tile] = seat;
+        hash ^= change;
+
+        double value = expect(plies - 1);
+
+        hash ^= change;
+        game.tileOwner[tile] = owner;
+        game.tileHouse[tile] = house;
+        game.capital[seat] = capital;
+        return value;
+    }
+
+    /**
+     * Returns the expected value of the game after an amount of money changed hands.
+     *
+     * @param payer    The seat of the paying player, {@link GameKernel#NONE} for the bank.
+     * @param receiver The seat of the receiving player, {@link GameKernel#NONE} for the bank.
+     * @param amount   The amount of money.
+     * @param plies    The number of turns left to play out, including this one.
+     * @return The expected share of the deciding player.
+     */
+    private double transfer(int payer, int receiver, int amount, int plies) {
+        GameKernel game = this.game;
+        if (payer != GameKernel.NONE && amount > game.capital[payer]) return eliminated(payer, receiver);
+
+        long change = 0;
+        if (payer != GameKernel.NONE) change ^= adjust(payer, -amount);
+        if (receiver != GameKernel.NONE) change ^= adjust(receiver, amount);
+        hash ^= change;
+
+        double value = expect(plies - 1);
+
+        hash ^= change;
+        if (payer != GameKernel.NONE) adjust(payer, amount);
+        if (receiver != GameKernel.NONE) adjust(receiver, -amount);
+        return value;
+    }
+
+    /**
+     * Changes the capital of the given player.
+     *
+     * @param seat   The seat of the player.
+     * @param amount The amount to add, negative to take money.
+     * @return The change of the hash.
+     */
+    private long adjust(int seat, int amount) {
+        int capital = game.capital[seat];
+        game.capital[seat] = capital + amount;
+        worth[seat] += amount;
+        total += amount;
+        return Zobrist.capital(seat, capital) ^ Zobrist.capital(seat, capital + amount);
+    }
+
+    /**
+     * Returns the value of the game once the given player went bankrupt, which ends the line of play.
+     *
+     * @param seat     The seat of the bankrupt player.
+     * @param receiver The seat of the player receiving their remaining capital, {@link GameKernel#NONE} for the bank.
+     * @return The share of the deciding player.
+     */
+    private double eliminated(int seat, int receiver) {
+        if (seat == me) return 0;
+        if (game.alive <= 2) return 1;
+
+        long capital = game.capital[seat];
+        long mine = worth[me] + (receiver == me ? capital : 0);
+        long remaining = total - worth[seat] + (receiver == GameKernel.NONE ? 0 : capital);
+        return remaining <= 0 ? 0 : (double) mine / remaining;
+    }
+
+    /**
+     * Returns the value of the searched state.
+     *
+     * @return The share of the deciding player in the net worth of the players still in the game.
+     */
+    private double evaluate() {
+        return total <= 0 ? 0 : (double) worth[me] / total;
+    }
+
+    /**
+     * Counts an evaluated state and checks whether the budget of the decision ran out.
+     *
+     * @return Whether the current depth has to be abandoned.
+     */
+    private boolean overBudget() {
+        nodes++;
+        if (!budgeted) return false;
+        if (nodes > nodeBudget || timeBudget > 0 && nodes % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline)
+            aborted = true;
+        return aborted;
+    }
+}
@@ -0,0 +1,243 @@
+package capitaly.kernel;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the continuations of games, shared by the games of a scenario on any number of threads.
+ * <p>
+ * An entry maps a state of a game, by its {@link GameKernel#getStateHash() Zobrist hash}, and a chunk of upcoming rolls
+ * to the events these rolls cause from that state, so that a game reaching a state another game already played the
+ * same rolls from, by whatever path, replays the events instead of playing them, see
+ * {@link GameKernel#play(capitaly.dice.RollSource, int, OutcomeCache)}. The rolls, from 1 to {@value #MAX_ROLL}, are
+ * packed into the key exactly and the state is found by its 64-bit hash, then compared with the
+ * {@link GameKernel#encodeState() exact state} stored with the entry, so that a collision costs a miss rather than
+ * replaying the events of another state. The hash and the exact state include the turn order, so the games of every
+ * rotation of the seats can share a cache.
+ * <p>
+ * The cache is set-associative: an entry can only live in one of the {@value #WAYS} slots of the set its key hashes
+ * to, and a full set evicts with the CLOCK policy, its hand skipping, and clearing the mark of, the entries read since
+ * it last passed them. Reads and writes do not lock; the marks and hands are hints, updated with benign races.
+ */
+public final class OutcomeCache {
+
+    /**
+     * The number of bits of a roll packed into a key.
+     */
+    static final int ROLL_BITS = 3;
+
+    /**
+     * The largest roll a key holds exactly; a chunk with a larger roll, or a roll below 1, is not cached.
+     */
+    public static final int MAX_ROLL = (1 << ROLL_BITS) - 1;
+
+    /**
+     * The most rolls a chunk can have, for its rolls to fit a key.
+     */
+    public static final int MAX_CHUNK = Long.SIZE / ROLL_BITS;
+
+    /**
+     * The default number of rolls of a chunk, single rolls being found the most often.
+     */
+    public static final int DEFAULT_CHUNK = 1;
+
+    /**
+     * The default number of entries.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * The number of slots of a set.
+     */
+    private static final int WAYS = 8;
+
+    /**
+     * The number of rolls of a chunk.
+     */
+    private final int chunk;
+
+    /**
+     * The entries, set after set, null in empty slots.
+     */
+    private final AtomicReferenceArray<Entry> slots;
+
+    /**
+     * Whether the entry of every slot was read since the hand of its set last passed it.
+     */
+    private final boolean[] marks;
+
+    /**
+     * The slot of every set the hand of the set points to, from 0 to {@value #WAYS} - 1.
+     */
+    private final byte[] hands;
+
+    /**
+     * The number of sets minus one, masking a hash into a set.
+     */
+    private final int setMask;
+
+    /**
+     * The number of lookups that found their entry.
+     */
+    private final LongAdder hits;
+
+    /**
+     * The number of lookups that did not find their entry.
+     */
+    private final LongAdder misses;
+
+    /**
+     * Constructs a new, empty OutcomeCache with the default capacity and chunks.
+     */
+    public OutcomeCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_CHUNK);
+    }
+
+    /**
+     * Constructs a new, empty OutcomeCache.
+     * Longer chunks cost fewer lookups but are found less often.
+     *
+     * @param capacity The number of entries, rounded up to a power of two of at least {@value #WAYS}.
+     * @param chunk    The number of rolls of a chunk, from 1 to {@value #MAX_CHUNK}.
+     * @throws IllegalArgumentException If the capacity is not positive or too large, or the chunk is out of range.
+     */
+    public OutcomeCache(int capacity, int chunk) {
+        if (capacity < 1 || capacity > 1 << 30) throw new IllegalArgumentException("Expected a capacity from 1 to 2^30, got " + capacity + '.');
+        if (chunk < 1 || chunk > MAX_CHUNK) throw new IllegalArgumentException("Expected a chunk of 1 to " + MAX_CHUNK + " rolls, got " + chunk + '.');
+
+        int slotCount = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.chunk = chunk;
+        this.slots = new AtomicReferenceArray<>(slotCount);
+        this.marks = new boolean[slotCount];
+        this.hands = new byte[slotCount / WAYS];
+        this.setMask = slotCount / WAYS - 1;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Returns the first slot of the set of a key.
+     *
+     * @param state The hash of the state.
+     * @param rolls The packed rolls of the chunk.
+     * @return The index of the first slot of the set.
+     */
+    private int setOf(long state, long rolls) {
+        long hash = state ^ rolls * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & setMask;
+    }
+
+    /**
+     * Returns the events the given rolls cause from the state of a game, and marks the entry as recently used.
+     *
+     * @param state The hash of the state of the game.
+     * @param rolls The packed rolls of the chunk.
+     * @param game  The game, whose state is compared with the exact state of an entry of the same hash.
+     * @return The type code, seat, tile and amount of every event, not to be modified, or null if the cache does not
+     * know them.
+     */
+    int[] get(long state, long rolls, GameKernel game) {
+        int first = this.setOf(state, rolls) * WAYS;
+        for (int slot = first; slot < first + WAYS; slot++) {
+            Entry entry = slots.get(slot);
+            if (entry != null && entry.state == state && entry.rolls == rolls && game.hasState(entry.exact)) {
+                if (!marks[slot]) marks[slot] = true;
+                hits.increment();
+                return entry.events;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores the events the given rolls cause from the given state, in an empty slot of its set or instead of the
+     * first entry of the set the hand finds unmarked.
+     *
+     * @param state  The hash of the state.
+     * @param rolls  The packed rolls of the chunk.
+     * @param exact  The {@link GameKernel#encodeState() exact state}, not to be modified afterwards.
+     * @param events The type code, seat, tile and amount of every event, not to be modified afterwards.
+     */
+    void put(long state, long rolls, int[] exact, int[] events) {
+        int set = this.setOf(state, rolls), first = set * WAYS;
+        Entry entry = new Entry(state, rolls, exact, events);
+        for (int slot = first; slot < first + WAYS; slot++) {
+            Entry present = slots.get(slot);
+            if (present == null && slots.compareAndSet(slot, null, entry)) return;
+            if (present != null && present.state == state && present.rolls == rolls && Arrays.equals(present.exact, exact)) return;
+        }
+
+        int hand = hands[set];
+        for (int step = 0; step < 2 * WAYS; step++, hand = (hand + 1) % WAYS) {
+            int slot = first + hand;
+            if (marks[slot]) {
+                marks[slot] = false;
+                continue;
+            }
+            slots.set(slot, entry);
+            hand = (hand + 1) % WAYS;
+            break;
+        }
+        hands[set] = (byte) hand;
+    }
+
+    /**
+     * Returns the number of rolls of a chunk.
+     *
+     * @return The number of rolls.
+     */
+    public int getChunk() {
+        return chunk;
+    }
+
+    /**
+     * Returns the number of entries the cache holds at most.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Returns the number of lookups that found their entry.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that did not find their entry.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the string representation of the OutcomeCache.
+     *
+     * @return The string describing the cache.
+     */
+    @Override
+    public String toString() {
+        long hits = this.getHits(), lookups = hits + this.getMisses();
+        return "OutcomeCache {capacity: " + this.getCapacity() + ", chunk: " + chunk + ", hits: " + hits + " of " + lookups + '}';
+    }
+
+    /**
+     * An entry of the cache, immutable once published.
+     *
+     * @param state  The hash of the state.
+     * @param rolls  The packed rolls of the chunk.
+     * @param exact  The exact state.
+     * @param events The type code, seat, tile and amount of every event.
+     */
+    private record Entry(long state, long rolls, int[] exact, int[] events) {
+    }
+}
@@ -0,0 +1,152 @@
+package capitaly.kernel;
+
+/**
+ * The Zobrist codes hashing the state of a game: every piece of state having a value gets a pseudo-random 64-bit code,
+ * and the hash of a state is the xor of the codes of its pieces, so that a change of a piece updates the hash with two
+ * xors, whatever the size of the state.
+ * <p>
+ * The codes are shared by the {@link GameKernel}, its {@link LookaheadSearch} and the object model, so that a game
+ * hashes the same on both engines.
+ */
+public final class Zobrist {
+
+    /**
+     * The hash kind of the position of a player.
+     */
+    static final long POSITION = 1;
+
+    /**
+     * The hash kind of the capital of a player.
+     */
+    static final long CAPITAL = 2;
+
+    /**
+     * The hash kind of the owner and the house of a tile.
+     */
+    static final long TILE = 3;
+
+    /**
+     * The hash kind of the skip flag of a strategic player.
+     */
+    static final long SKIP = 4;
+
+    /**
+     * The hash kind of the index in the turn order of the player taking the next turn.
+     */
+    static final long CURRENT = 5;
+
+    /**
+     * The hash kind of the bankruptcy of a player.
+     */
+    static final long BANKRUPT = 6;
+
+    /**
+     * The hash kind of the player at an index of the turn order.
+     */
+    static final long ORDER = 7;
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the code of the position of a player.
+     *
+     * @param seat The seat of the player.
+     * @param tile The index of the tile the player is on, -1 before their first move.
+     * @return The code.
+     */
+    public static long position(int seat, int tile) {
+        return code(POSITION, seat, tile);
+    }
+
+    /**
+     * Returns the code of the capital of a player.
+     *
+     * @param seat    The seat of the player.
+     * @param capital The capital of the player.
+     * @return The code.
+     */
+    public static long capital(int seat, int capital) {
+        return code(CAPITAL, seat, capital);
+    }
+
+    /**
+     * Returns the code of an owned tile.
+     *
+     * @param tile  The index of the tile.
+     * @param owner The seat of the owner.
+     * @param house Whether the tile has a house.
+     * @return The code.
+     */
+    public static long tile(int tile, int owner, boolean house) {
+        return code(TILE, tile, owner << 1 | (house ? 1 : 0));
+    }
+
+    /**
+     * Returns the code of a strategic player wanting to skip their next purchase.
+     *
+     * @param seat The seat of the player.
+     * @return The code.
+     */
+    public static long skip(int seat) {
+        return code(SKIP, seat, 1);
+    }
+
+    /**
+     * Returns the code of a bankrupt player.
+     *
+     * @param seat The seat of the player.
+     * @return The code.
+     */
+    public static long bankrupt(int seat) {
+        return code(BANKRUPT, seat, 1);
+    }
+
+    /**
+     * Returns the code of the player at an index of the turn order.
+     *
+     * @param index The index in the turn order.
+     * @param seat  The seat of the player.
+     * @return The code.
+     */
+    public static long order(int index, int seat) {
+        return code(ORDER, index, seat);
+    }
+
+    /**
+     * Returns the code of the index in the turn order of the player taking the next turn.
+     *
+     * @param index The index in the turn order.
+     * @return The code.
+     */
+    public static long current(int index) {
+        return code(CURRENT, 0, index);
+    }
+
+    /**
+     * Returns the code of a piece of state having a value.
+     *
+     * @param kind  The kind of the state.
+     * @param index The seat or the tile the state belongs to.
+     * @param value The value of the state.
+     * @return The code.
+     */
+    static long code(long kind, int index, int value) {
+        return mix(kind << 59 ^ (long) index << 32 ^ (value & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Scrambles the bits of a value, as the finalizer of SplitMix64 does.
+     *
+     * @param value The value.
+     * @return The scrambled value.
+     */
+    static long mix(long value) {
+        value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ value >>> 27) * 0x94D049BB133111EBL;
+        return value ^ value >>> 31;
+    }
+}
@@ -0,0 +1,283 @@
+package capitaly.metrics;
+
+import capitaly.tile.TileKind;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The process-wide metrics of the games: moves, tiles entered by kind, bankruptcies, eliminations and finished games,
+ * with sampled latencies of moves and of entering tiles.
+ * <p>
+ * The metrics are off unless the JVM is started with {@code -Dcapitaly.metrics=true}. The switch is a static final
+ * constant, so when it is off the instrumentation of the game loop is removed by the JIT compiler. When it is on,
+ * every game counts into its own {@link MetricsRecorder} and adds the counts to the striped counters here in batches,
+ * and only one move in {@value MetricsRecorder#SAMPLE_INTERVAL} is timed. The metrics are exported through
+ * {@link #snapshot()} and, as {@value #OBJECT_NAME}, through JMX.
+ * <p>
+ * Every engine counts its games: the object model, the game kernel, chunks replayed from its outcome cache included,
+ * the lockstep kernel and the outcome analyzer. Only the moves of the object model and of the game kernel are timed,
+ * and the turns the analyzer settles without walking them count as moves but not as tiles entered.
+ */
+public final class GameMetrics {
+
+    /**
+     * The system property turning the metrics on.
+     */
+    public static final String PROPERTY = "capitaly.metrics";
+
+    /**
+     * Whether the metrics are on.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /**
+     * The JMX object name of the metrics.
+     */
+    public static final String OBJECT_NAME = "capitaly:type=GameMetrics";
+
+    /**
+     * The kinds of tiles, indexed by ordinal.
+     */
+    static final TileKind[] KINDS = TileKind.values();
+
+    /**
+     * The number of finished games.
+     */
+    private static final LongAdder GAMES = new LongAdder();
+
+    /**
+     * The number of moves.
+     */
+    private static final LongAdder MOVES = new LongAdder();
+
+    /**
+     * The number of payments a player could not afford.
+     */
+    private static final LongAdder BANKRUPTCIES = new LongAdder();
+
+    /**
+     * The number of players eliminated.
+     */
+    private static final LongAdder ELIMINATIONS = new LongAdder();
+
+    /**
+     * The number of tiles entered, by kind.
+     */
+    private static final LongAdder[] ENTERS = new LongAdder[KINDS.length];
+
+    /**
+     * The sampled latencies of a whole move.
+     */
+    private static final LatencyHistogram PROGRESS = new LatencyHistogram();
+
+    /**
+     * The sampled latencies of entering a tile, by kind.
+     */
+    private static final LatencyHistogram[] ENTER_LATENCIES = new LatencyHistogram[KINDS.length];
+
+    static {
+        for (int i = 0; i < KINDS.length; i++) {
+            ENTERS[i] = new LongAdder();
+            ENTER_LATENCIES[i] = new LatencyHistogram();
+        }
+        if (ENABLED) register();
+    }
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private GameMetrics() {
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server, unless they already are.
+     *
+     * @throws IllegalStateException If the metrics cannot be registered.
+     */
+    public static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException exception) {
+            // Registered before.
+        } catch (JMException exception) {
+            throw new IllegalStateException("Cannot register the game metrics.", exception);
+        }
+    }
+
+    /**
+     * Adds the counts of a game to the metrics.
+     *
+     * @param games        The number of finished games.
+     * @param moves        The number of moves.
+     * @param enters       The number of tiles entered, by kind ordinal.
+     * @param bankruptcies The number of payments a player could not afford.
+     * @param eliminations The number of players eliminated.
+     */
+    static void add(int games, long moves, int[] enters, int bankruptcies, int eliminations) {
+        if (games != 0) GAMES.add(games);
+        MOVES.add(moves);
+        for (int i = 0; i < enters.length; i++) if (enters[i] != 0) ENTERS[i].add(enters[i]);
+        if (bankruptcies != 0) BANKRUPTCIES.add(bankruptcies);
+        if (eliminations != 0) ELIMINATIONS.add(eliminations);
+    }
+
+    /**
+     * Records the sampled latencies of a move.
+     *
+     * @param kind     The ordinal of the kind of the entered tile.
+     * @param progress The latency of the whole move in nanoseconds.
+     * @param enter    The latency of entering the tile in nanoseconds.
+     */
+    static void sample(int kind, long progress, long enter) {
+        PROGRESS.record(progress);
+        ENTER_LATENCIES[kind].record(enter);
+    }
+
+    /**
+     * Takes a snapshot of the metrics. Counts flushed while the snapshot is taken may or may not be included.
+     *
+     * @return The snapshot.
+     */
+    public static MetricsSnapshot snapshot() {
+        Map<TileKind, Long> enters = new EnumMap<>(TileKind.class);
+        Map<TileKind, LatencySnapshot> latencies = new EnumMap<>(TileKind.class);
+        for (TileKind kind : KINDS) {
+            enters.put(kind, ENTERS[kind.ordinal()].sum());
+            latencies.put(kind, ENTER_LATENCIES[kind.ordinal()].snapshot());
+        }
+        return new MetricsSnapshot(GAMES.sum(), MOVES.sum(), BANKRUPTCIES.sum(), ELIMINATIONS.sum(), enters,
+            PROGRESS.snapshot(), latencies);
+    }
+
+    /**
+     * Forgets every recorded metric. Counts not yet flushed by running games are added afterwards.
+     */
+    public static void reset() {
+        GAMES.reset();
+        MOVES.reset();
+        BANKRUPTCIES.reset();
+        ELIMINATIONS.reset();
+        PROGRESS.reset();
+        for (int i = 0; i < KINDS.length; i++) {
+            ENTERS[i].reset();
+            ENTER_LATENCIES[i].reset();
+        }
+    }
+
+    /**
+     * The MXBean exporting the metrics.
+     */
+    private static final class Bean implements GameMetricsMXBean {
+
+        /**
+         * Returns the number of finished games.
+         *
+         * @return The number of games.
+         */
+        @Override
+        public long getGames() {
+            return GAMES.sum();
+        }
+
+        /**
+         * Returns the number of moves.
+         *
+         * @return The number of moves.
+         */
+        @Override
+        public long getMoves() {
+            return MOVES.sum();
+        }
+
+        /**
+         * Returns the number of payments a player could not afford.
+         *
+         * @return The number of bankruptcies.
+         */
+        @Override
+        public long getBankruptcies() {
+            return BANKRUPTCIES.sum();
+        }
+
+        /**
+         * Returns the number of players eliminated.
+         *
+         * @return The number of eliminations.
+         */
+        @Override
+        public long getEliminations() {
+            return ELIMINATIONS.sum();
+        }
+
+        /**
+         * Returns the number of tiles entered, by the keyword of their kind.
+         *
+         * @return The number of enters.
+         */
+        @Override
+        public Map<String, Long> getEnters() {
+            Map<String, Long> enters = new LinkedHashMap<>();
+            for (TileKind kind : KINDS) enters.put(kind.getKeyword(), ENTERS[kind.ordinal()].sum());
+            return enters;
+        }
+
+        /**
+         * Returns the median latency of a move.
+         *
+         * @return The median in nanoseconds.
+         */
+        @Override
+        public long getProgressP50Nanos() {
+            return PROGRESS.snapshot().getPercentile(0.5);
+        }
+
+        /**
+         * Returns the 99th percentile latency of a move.
+         *
+         * @return The percentile in nanoseconds.
+         */
+        @Override
+        public long getProgressP99Nanos() {
+            return PROGRESS.snapshot().getPercentile(0.99);
+        }
+
+        /**
+         * Returns the 99.9th percentile latency of a move.
+         *
+         * @return The percentile in nanoseconds.
+         */
+        @Override
+        public long getProgressP999Nanos() {
+            return PROGRESS.snapshot().getPercentile(0.999);
+        }
+
+        /**
+         * Returns the 99th percentile latency of entering a tile, by the keyword of its kind.
+         *
+         * @return The percentiles in nanoseconds.
+         */
+        @Override
+        public Map<String, Long> getEnterP99Nanos() {
+            Map<String, Long> latencies = new LinkedHashMap<>();
+            for (TileKind kind : KINDS) latencies.put(kind.getKeyword(), ENTER_LATENCIES[kind.ordinal()].snapshot().getPercentile(0.99));
+            return latencies;
+        }
+
+        /**
+         * Forgets every recorded metric.
+         */
+        @Override
+        public void reset() {
+            GameMetrics.reset();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package capitaly.metrics;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link GameMetrics}, registered as {@value GameMetrics#OBJECT_NAME}.
+ * Latencies are sampled, in nanoseconds, and reported as the highest value of their histogram bucket.
+ */
+public interface GameMetricsMXBean {
+
+    /**
+     * Returns the number of finished games.
+     *
+     * @return The number of games.
+     */
+    long getGames();
+
+    /**
+     * Returns the number of moves.
+     *
+     * @return The number of moves.
+     */
+    long getMoves();
+
+    /**
+     * Returns the number of payments a player could not afford.
+     *
+     * @return The number of bankruptcies.
+     */
+    long getBankruptcies();
+
+    /**
+     * Returns the number of players eliminated.
+     *
+     * @return The number of eliminations.
+     */
+    long getEliminations();
+
+    /**
+     * Returns the number of tiles entered, by the keyword of their kind.
+     *
+     * @return The number of enters.
+     */
+    Map<String, Long> getEnters();
+
+    /**
+     * Returns the median latency of a move.
+     *
+     * @return The median in nanoseconds.
+     */
+    long getProgressP50Nanos();
+
+    /**
+     * Returns the 99th percentile latency of a move.
+     *
+     * @return The percentile in nanoseconds.
+     */
+    long getProgressP99Nanos();
+
+    /**
+     * Returns the 99.9th percentile latency of a move.
+     *
+     * @return The percentile in nanoseconds.
+     */
+    long getProgressP999Nanos();
+
+    /**
+     * Returns the 99th percentile latency of entering a tile, by the keyword of its kind.
+     *
+     * @return The percentiles in nanoseconds.
+     */
+    Map<String, Long> getEnterP99Nanos();
+
+    /**
+     * Forgets every recorded metric.
+     */
+    void reset();
+}
@@ -0,0 +1,93 @@
+package capitaly.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent histogram of latencies in nanoseconds, with buckets of bounded relative width in the style of
+ * HdrHistogram: every power of two is split into {@value #SUB_BUCKETS} buckets, so a recorded value is known to
+ * within 12.5%, from a nanosecond to centuries, in a fixed number of buckets.
+ * The buckets are striped counters, so threads recording at once do not contend on a single cache line.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of bits of a value kept below its leading bit.
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * The number of buckets every power of two is split into.
+     */
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * The number of buckets, enough for any non-negative long.
+     */
+    static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final LongAdder[] counts;
+
+    /**
+     * Constructs a new empty LatencyHistogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) counts[i] = new LongAdder();
+    }
+
+    /**
+     * Returns the bucket of the given value.
+     *
+     * @param value The value, negative values being counted as 0.
+     * @return The index of the bucket.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) Math.max(value, 0);
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the highest value counted in the given bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The highest value of the bucket.
+     */
+    static long highestOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long next = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift;
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        counts[bucketOf(nanos)].increment();
+    }
+
+    /**
+     * Takes a snapshot of the histogram. Latencies recorded while the snapshot is taken may or may not be counted.
+     *
+     * @return The snapshot.
+     */
+    public LatencySnapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) buckets[i] = counts[i].sum();
+        return new LatencySnapshot(buckets);
+    }
+
+    /**
+     * Forgets every recorded latency.
+     */
+    public void reset() {
+        for (LongAdder count : counts) count.reset();
+    }
+}
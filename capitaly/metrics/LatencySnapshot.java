@@ -0,0 +1,83 @@
+package capitaly.metrics;
+
+/**
+ * The latencies recorded by a {@link LatencyHistogram} at some point in time.
+ * Percentiles are reported as the highest value of their bucket, so they overestimate by at most 12.5%.
+ */
+public final class LatencySnapshot {
+
+    /**
+     * The number of values recorded in each bucket.
+     */
+    private final long[] buckets;
+
+    /**
+     * The number of values recorded.
+     */
+    private final long count;
+
+    /**
+     * Constructs a new LatencySnapshot of the given bucket counts.
+     *
+     * @param buckets The number of values recorded in each bucket, not copied.
+     */
+    LatencySnapshot(long[] buckets) {
+        this.buckets = buckets;
+        long total = 0;
+        for (long bucket : buckets) total += bucket;
+        this.count = total;
+    }
+
+    /**
+     * Returns the number of values recorded.
+     *
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall.
+     *
+     * @param fraction The fraction, between 0 and 1, e.g. 0.99 for the 99th percentile.
+     * @return The percentile in nanoseconds, or 0 if no value was recorded.
+     * @throws IllegalArgumentException If the fraction is not between 0 and 1.
+     */
+    public long getPercentile(double fraction) {
+        if (!(fraction >= 0 && fraction <= 1)) throw new IllegalArgumentException("Expected a fraction between 0 and 1, got " + fraction + '.');
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return LatencyHistogram.highestOf(i);
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the highest recorded value.
+     *
+     * @return The maximum in nanoseconds, or 0 if no value was recorded.
+     */
+    public long getMax() {
+        for (int i = buckets.length - 1; i >= 0; i--) if (buckets[i] != 0) return LatencyHistogram.highestOf(i);
+        return 0;
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     *
+     * @return The count and the main percentiles of the latencies.
+     */
+    @Override
+    public String toString() {
+        return "count: " + count +
+            "\tp50: " + getPercentile(0.5) + " ns" +
+            "\tp99: " + getPercentile(0.99) + " ns" +
+            "\tp99.9: " + getPercentile(0.999) + " ns" +
+            "\tmax: " + getMax() + " ns";
+    }
+}
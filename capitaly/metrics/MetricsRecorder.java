@@ -0,0 +1,210 @@
+package capitaly.metrics;
+
+/**
+ * Counts the metrics of a single game, or of the games played one after another on a reused game, and adds them to
+ * the process-wide {@link GameMetrics} in batches: when {@link #flush()} is called and every
+ * {@value #FLUSH_INTERVAL} moves or so.
+ * <p>
+ * A move costs a single increment of a plain field: the tiles entered are counted by kind, the moves being their sum,
+ * and the same counters pick the moves to time, one in {@value #SAMPLE_INTERVAL} for every kind. The counters are
+ * never reset, what has been flushed is remembered instead, so the sampling does not restart with every flush.
+ * <p>
+ * Like the game it belongs to, a recorder is not thread-safe. Callers check {@link GameMetrics#ENABLED} first.
+ */
+public final class MetricsRecorder {
+
+    /**
+     * The number of moves between two timed moves onto tiles of the same kind, a power of two.
+     */
+    public static final int SAMPLE_INTERVAL = 256;
+
+    /**
+     * The number of moves after which the counts are flushed even if no one flushes them, a multiple of
+     * {@link #SAMPLE_INTERVAL}.
+     */
+    public static final int FLUSH_INTERVAL = 4096;
+
+    /**
+     * The number of tiles entered, by kind ordinal. Longs rather than ints, so that the compiler knows that counting
+     * does not write to the int arrays of the game and need not reload them.
+     */
+    private final long[] enters;
+
+    /**
+     * The values of {@link #enters} at the last flush.
+     */
+    private final long[] flushed;
+
+    /**
+     * The number of tiles entered since the last flush, by kind ordinal, filled by {@link #flush()}.
+     */
+    private final int[] delta;
+
+    /**
+     * The number of moves since the last flush, counted at every timed move.
+     */
+    private int pending;
+
+    /**
+     * The ordinal of the kind of the tile of the timed move.
+     */
+    private int sampledKind;
+
+    /**
+     * The start of the timed move.
+     */
+    private long moveStart;
+
+    /**
+     * The time the tile of the timed move started to be entered.
+     */
+    private long enterStart;
+
+    /**
+     * The number of moves since the last flush that entered no tile counted by kind, see {@link #settled}.
+     */
+    private long settledMoves;
+
+    /**
+     * The number of games finished since the last flush.
+     */
+    private int games;
+
+    /**
+     * The number of bankruptcies since the last flush.
+     */
+    private int bankruptcies;
+
+    /**
+     * The number of eliminations since the last flush.
+     */
+    private int eliminations;
+
+    /**
+     * Constructs a new MetricsRecorder with nothing counted.
+     */
+    public MetricsRecorder() {
+        int kinds = GameMetrics.KINDS.length;
+        this.enters = new long[kinds];
+        // Short games never reach the interval, so every recorder starts at a different point of it.
+        int phase = System.identityHashCode(this);
+        for (int i = 0; i < kinds; i++) this.enters[i] = (phase >>> (i * 8)) & (SAMPLE_INTERVAL - 1);
+        this.flushed = this.enters.clone();
+        this.delta = new int[kinds];
+    }
+
+    /**
+     * Counts a move onto a tile of the given kind, and tells whether it is timed.
+     *
+     * @param kind The ordinal of the kind of the tile.
+     * @return Whether the move is timed, in which case {@link #entering()} is called before the tile is entered and
+     * {@link #endMove()} after.
+     */
+    public boolean startMove(int kind) {
+        return (++enters[kind] & (SAMPLE_INTERVAL - 1)) == 0 && this.sample(kind);
+    }
+
+    /**
+     * Counts a move onto a tile of the given kind without timing it, for games whose moves are not taken one by one.
+     *
+     * @param kind The ordinal of the kind of the tile.
+     */
+    public void move(int kind) {
+        if ((++enters[kind] & (SAMPLE_INTERVAL - 1)) == 0 && (pending += SAMPLE_INTERVAL) >= FLUSH_INTERVAL) this.flush();
+    }
+
+    /**
+     * Counts moves settled at once, without entering their tiles one by one, which count as moves but not as tiles
+     * entered, along with the eliminations they led to, each following a bankruptcy.
+     *
+     * @param moves      The number of moves.
+     * @param eliminated The number of players eliminated.
+     * @param over       Whether the game ended with the last elimination.
+     */
+    public void settled(int moves, int eliminated, boolean over) {
+        settledMoves += moves;
+        bankruptcies += eliminated;
+        eliminations += eliminated;
+        if (over) games++;
+        if ((pending += moves) >= FLUSH_INTERVAL) this.flush();
+    }
+
+    /**
+     * Starts timing a move, flushing first if the counts have been pending for long.
+     *
+     * @param kind The ordinal of the kind of the tile.
+     * @return Always true.
+     */
+    private boolean sample(int kind) {
+        if ((pending += SAMPLE_INTERVAL) >= FLUSH_INTERVAL) this.flush();
+        sampledKind = kind;
+        moveStart = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Marks that the tile of a timed move is about to be entered.
+     */
+    public void entering() {
+        enterStart = System.nanoTime();
+    }
+
+    /**
+     * Records the latencies of a timed move, once the tile is entered.
+     */
+    public void endMove() {
+        long end = System.nanoTime();
+        GameMetrics.sample(sampledKind, end - moveStart, end - enterStart);
+    }
+
+    /**
+     * Counts a payment a player could not afford.
+     */
+    public void bankruptcy() {
+        bankruptcies++;
+    }
+
+    /**
+     * Counts the elimination of a player.
+     */
+    public void elimination() {
+        eliminations++;
+    }
+
+    /**
+     * Counts a player going bankrupt and being eliminated, and the end of the game if they were the last but one.
+     *
+     * @param over Whether the game is over.
+     */
+    public void eliminated(boolean over) {
+        bankruptcies++;
+        eliminations++;
+        if (over) games++;
+    }
+
+    /**
+     * Counts the end of a game.
+     */
+    public void gameOver() {
+        games++;
+    }
+
+    /**
+     * Adds the counts to the process-wide metrics and starts counting from zero.
+     */
+    public void flush() {
+        long moves = settledMoves;
+        for (int i = 0; i < enters.length; i++) {
+            delta[i] = (int) (enters[i] - flushed[i]);
+            flushed[i] = enters[i];
+            moves += delta[i];
+        }
+        pending = 0;
+        if (moves == 0 && games == 0 && bankruptcies == 0 && eliminations == 0) return;
+        GameMetrics.add(games, moves, delta, bankruptcies, eliminations);
+        settledMoves = 0;
+        games = 0;
+        bankruptcies = 0;
+        eliminations = 0;
+    }
+}
@@ -0,0 +1,55 @@
+package capitaly.metrics;
+
+import capitaly.tile.TileKind;
+
+import java.util.Map;
+
+/**
+ * The metrics of every game of the process at some point in time, see {@link GameMetrics#snapshot()}.
+ * Games flush their counts to the process-wide metrics in batches, so counts of games still running may lag behind.
+ *
+ * @param games          The number of finished games.
+ * @param moves          The number of moves.
+ * @param bankruptcies   The number of payments a player could not afford.
+ * @param eliminations   The number of players eliminated.
+ * @param enters         The number of tiles entered, by kind.
+ * @param progress       The sampled latencies of a whole move.
+ * @param enterLatencies The sampled latencies of entering a tile, by kind.
+ */
+public record MetricsSnapshot(long games, long moves, long bankruptcies, long eliminations, Map<TileKind, Long> enters,
+                              LatencySnapshot progress, Map<TileKind, LatencySnapshot> enterLatencies) {
+
+    /**
+     * Constructs a new MetricsSnapshot, keeping copies of the maps.
+     *
+     * @param games          The number of finished games.
+     * @param moves          The number of moves.
+     * @param bankruptcies   The number of payments a player could not afford.
+     * @param eliminations   The number of players eliminated.
+     * @param enters         The number of tiles entered, by kind.
+     * @param progress       The sampled latencies of a whole move.
+     * @param enterLatencies The sampled latencies of entering a tile, by kind.
+     */
+    public MetricsSnapshot {
+        enters = Map.copyOf(enters);
+        enterLatencies = Map.copyOf(enterLatencies);
+    }
+
+    /**
+     * Returns the string representation of the snapshot.
+     *
+     * @return The string describing the metrics.
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("MetricsSnapshot {")
+            .append("\n\tgames: ").append(games)
+            .append("\n\tmoves: ").append(moves)
+            .append("\n\tbankruptcies: ").append(bankruptcies)
+            .append("\n\teliminations: ").append(eliminations)
+            .append("\n\tprogress: ").append(progress);
+        for (TileKind kind : TileKind.values())
+            text.append("\n\t").append(kind.getKeyword()).append(": ").append(enters.get(kind)).append(" enters\t").append(enterLatencies.get(kind));
+        return text.append("\n}").toString();
+    }
+}
@@ -1,5 +1,6 @@
 package capitaly.player;
 
+import capitaly.GameContext;
 import capitaly.tile.RealEstateTile;
 
 /**
@@ -10,10 +11,11 @@ public class CarefulPlayer extends Player {
     /**
      * Constructs a new CarefulPlayer with the given name.
      *
-     * @param name The name of the player.
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
      */
-    public CarefulPlayer(String name) {
-        super(name);
+    public CarefulPlayer(String name, GameContext context) {
+        super(name, context);
     }
 
     /**
@@ -28,6 +30,16 @@ public class CarefulPlayer extends Player {
         return this.getCapital() >= tile.getPriceFor(this) * 2;
     }
 
+    /**
+     * Returns the strategy the player follows.
+     *
+     * @return {@link Strategy#CAREFUL}
+     */
+    @Override
+    public final Strategy getStrategy() {
+        return Strategy.CAREFUL;
+    }
+
     /**
      * Returns the string representation of the player.
      *
@@ -1,5 +1,6 @@
 package capitaly.player;
 
+import capitaly.GameContext;
 import capitaly.tile.RealEstateTile;
 
 /**
@@ -10,10 +11,11 @@ public class GreedyPlayer extends Player {
     /**
      * Constructs a new GreedyPlayer with the given name.
      *
-     * @param name The name of the player.
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
      */
-    public GreedyPlayer(String name) {
-        super(name);
+    public GreedyPlayer(String name, GameContext context) {
+        super(name, context);
     }
 
     /**
@@ -28,6 +30,16 @@ public class GreedyPlayer extends Player {
         return true;
     }
 
+    /**
+     * Returns the strategy the player follows.
+     *
+     * @return {@link Strategy#GREEDY}
+     */
+    @Override
+    public final Strategy getStrategy() {
+        return Strategy.GREEDY;
+    }
+
     /**
      * Returns the string representation of the player.
      *
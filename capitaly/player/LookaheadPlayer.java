@@ -0,0 +1,109 @@
+package capitaly.player;
+
+import capitaly.Capitaly;
+import capitaly.GameContext;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.LookaheadSearch;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.RealEstateTile;
+
+/**
+ * Represents a player that thinks a few rounds ahead before spending their money.
+ * The decisions are made by a {@link LookaheadSearch} on a {@link GameKernel} copy of the game the player joined,
+ * so they are the same as those of the lookahead seats of a kernel.
+ */
+public class LookaheadPlayer extends Player {
+
+    /**
+     * The game the player takes part in, null until they join one.
+     */
+    private Capitaly game;
+
+    /**
+     * The copy of the game the search runs on, created at the first decision.
+     */
+    private GameKernel kernel;
+
+    /**
+     * The seat of the player in the game.
+     */
+    private int seat;
+
+    /**
+     * The search deciding the purchases.
+     */
+    private LookaheadSearch search;
+
+    /**
+     * Constructs a new LookaheadPlayer with the given name.
+     *
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
+     */
+    public LookaheadPlayer(String name, GameContext context) {
+        super(name, context);
+        this.search = new LookaheadSearch();
+    }
+
+    /**
+     * Lets the player look at the state of the given game when making decisions.
+     *
+     * @param game The game the player takes part in.
+     */
+    public void join(Capitaly game) {
+        this.game = game;
+        this.kernel = null;
+    }
+
+    /**
+     * Sets the search deciding the purchases of the player.
+     *
+     * @param search The search, used by this player only.
+     */
+    public void setSearch(LookaheadSearch search) {
+        this.search = search;
+    }
+
+    /**
+     * Returns whether the player wants to buy the given tile.
+     * A lookahead player never buys what they cannot afford, and buys the rest if a search of the next rounds of the
+     * game, by the rules of the game, expects it to pay off. Outside a game they buy whatever they can afford.
+     *
+     * @param tile The tile to buy.
+     * @return Whether the player wants to buy the given tile.
+     */
+    @Override
+    public final boolean wantsToBuy(RealEstateTile tile) {
+        int price = tile.getPriceFor(this);
+        if (price == 0 || !this.canBuy(tile)) return false;
+        if (this.game == null) return true;
+
+        if (this.kernel == null) {
+            this.kernel = new GameKernel(TrackSpec.of(this.game.getTrack()), PlayerSpec.of(this.game.getSeats()), this.getContext().getRules());
+            this.seat = this.game.getSeats().indexOf(this);
+        }
+        this.kernel.restore(this.game.snapshot());
+        return this.search.decide(this.kernel, this.seat, price);
+    }
+
+    /**
+     * Returns the strategy the player follows.
+     *
+     * @return {@link Strategy#LOOKAHEAD}
+     */
+    @Override
+    public final Strategy getStrategy() {
+        return Strategy.LOOKAHEAD;
+    }
+
+    /**
+     * Returns the string representation of the player.
+     *
+     * @return The string describing the player.
+     */
+    @Override
+    public String toString() {
+        return "Player [lookahead]\t| " + super.toString();
+    }
+}
@@ -1,10 +1,12 @@
 package capitaly.player;
 
+import capitaly.GameContext;
+import capitaly.metrics.GameMetrics;
 import capitaly.tile.RealEstateTile;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * Represents a player in the game.
@@ -12,19 +14,19 @@ import java.util.Objects;
  */
 public abstract class Player {
     /**
-     * The starting capital of the players.
+     * The starting capital of the players under the standard rules, see {@link capitaly.RuleSet#startingCapital()}.
      */
-    private static final int STARTING_CAPITAL = 10000;
+    public static final int STARTING_CAPITAL = 10000;
 
     /**
-     * The number of players created.
+     * The context of the game the player takes part in.
      */
-    private static int count;
+    private final GameContext context;
 
     /**
-     * The unique ID of the player.
+     * The ID of the player, unique within their context.
      */
-    public final Integer UID;
+    public final int UID;
 
     /**
      * The name of the player.
@@ -47,15 +49,18 @@ public abstract class Player {
     private boolean bankrupt;
 
     /**
-     * Constructs a new Player with the given name, a unique ID, and the starting capital.
+     * Constructs a new Player with the given name, an ID issued by the given context, and the starting capital of the
+     * rules of its game.
      *
-     * @param name The name of the player.
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
      */
-    protected Player(String name) {
-        this.UID = count++;
+    protected Player(String name, GameContext context) {
+        this.context = context;
+        this.UID = context.nextPlayerId();
         this.name = name;
         this.properties = new ArrayList<>();
-        this.capital = Player.STARTING_CAPITAL;
+        this.capital = context.getRules().startingCapital();
         this.bankrupt = false;
     }
 
@@ -68,6 +73,13 @@ public abstract class Player {
      */
     public abstract boolean wantsToBuy(RealEstateTile tile);
 
+    /**
+     * Returns the strategy the player follows.
+     *
+     * @return The strategy of the player.
+     */
+    public abstract Strategy getStrategy();
+
     /**
      * Returns whether the player can buy the given tile.
      * The player can buy the tile if they have enough money.
@@ -94,6 +106,7 @@ public abstract class Player {
         if (amount > this.capital) {
             this.bankrupt = true;
             amount = this.capital;
+            if (GameMetrics.ENABLED) context.getMetrics().bankruptcy();
         }
 
         this.capital -= amount;
@@ -115,6 +128,39 @@ public abstract class Player {
         for (RealEstateTile property : this.properties) property.reset();
     }
 
+    /**
+     * Puts the player back into a previous state, e.g. when a game is restored from a snapshot.
+     *
+     * @param capital    The capital of the player.
+     * @param bankrupt   Whether the player is bankrupt.
+     * @param properties The properties bought by the player, in order of purchase.
+     */
+    public final void restore(int capital, boolean bankrupt, List<RealEstateTile> properties) {
+        this.capital = capital;
+        this.bankrupt = bankrupt;
+        this.properties.clear();
+        this.properties.addAll(properties);
+    }
+
+    /**
+     * Returns the state the strategy of the player keeps between decisions.
+     * Strategies without such state return 0.
+     *
+     * @return The state of the strategy.
+     */
+    public int getStrategyState() {
+        return 0;
+    }
+
+    /**
+     * Puts the strategy of the player back into a state returned by {@link #getStrategyState()}.
+     * Strategies without such state ignore it.
+     *
+     * @param state The state of the strategy.
+     */
+    public void setStrategyState(int state) {
+    }
+
     /**
      * Returns the name of the player.
      *
@@ -133,6 +179,33 @@ public abstract class Player {
         return capital;
     }
 
+    /**
+     * Returns the context of the game the player takes part in.
+     *
+     * @return The context of the player.
+     */
+    public GameContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the net worth of the player: their capital and the price paid for the properties they still own.
+     *
+     * @return The net worth of the player.
+     */
+    public int getNetWorth() {
+        return context.getPropertyIndex().getNetWorth(this);
+    }
+
+    /**
+     * Returns the properties bought by the player.
+     *
+     * @return The unmodifiable list of the properties, in order of purchase.
+     */
+    public List<RealEstateTile> getProperties() {
+        return Collections.unmodifiableList(properties);
+    }
+
     /**
      * Returns whether the player is bankrupt.
      *
@@ -142,15 +215,30 @@ public abstract class Player {
         return bankrupt;
     }
 
+    /**
+     * Compares the player to another object.
+     * Two players are equal if they got the same ID from the same context.
+     *
+     * @param o The object to compare to.
+     * @return Whether the player is equal to the object.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Player player)) return false;
+
+        return this.context == player.context && this.UID == player.UID;
+    }
+
     /**
      * Returns the hash code of the player.
-     * The hash code is based on the ID and the name of the player.
+     * The hash code is the ID of the player.
      *
      * @return The hash code of the player.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(this.UID, this.name);
+        return this.UID;
     }
 
     /**
@@ -1,5 +1,6 @@
 package capitaly.player;
 
+import capitaly.GameContext;
 import capitaly.tile.RealEstateTile;
 
 /**
@@ -15,10 +16,11 @@ public class StrategicPlayer extends Player {
     /**
      * Constructs a new StrategicPlayer with the given name.
      *
-     * @param name The name of the player.
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
      */
-    public StrategicPlayer(String name) {
-        super(name);
+    public StrategicPlayer(String name, GameContext context) {
+        super(name, context);
         this.skip = false;
     }
 
@@ -34,6 +36,36 @@ public class StrategicPlayer extends Player {
         return this.canBuy(tile) && (this.skip = !this.skip);
     }
 
+    /**
+     * Returns whether the player wants to skip their next purchase, as 1 or 0.
+     *
+     * @return The state of the strategy.
+     */
+    @Override
+    public int getStrategyState() {
+        return this.skip ? 1 : 0;
+    }
+
+    /**
+     * Sets whether the player wants to skip their next purchase.
+     *
+     * @param state 1 to skip the next purchase, 0 to make it.
+     */
+    @Override
+    public void setStrategyState(int state) {
+        this.skip = state != 0;
+    }
+
+    /**
+     * Returns the strategy the player follows.
+     *
+     * @return {@link Strategy#STRATEGIC}
+     */
+    @Override
+    public final Strategy getStrategy() {
+        return Strategy.STRATEGIC;
+    }
+
     /**
      * Returns the string representation of the player.
      *
@@ -0,0 +1,67 @@
+package capitaly.player;
+
+import capitaly.GameContext;
+
+/**
+ * Enumerates the built-in purchase strategies a {@link Player} can follow.
+ */
+public enum Strategy {
+    /**
+     * Always buys, see {@link GreedyPlayer}.
+     */
+    GREEDY("greedy"),
+
+    /**
+     * Buys only with at least twice the price in hand, see {@link CarefulPlayer}.
+     */
+    CAREFUL("careful"),
+
+    /**
+     * Buys every second affordable tile, see {@link StrategicPlayer}.
+     */
+    STRATEGIC("strategic"),
+
+    /**
+     * Buys when a search of the next few rounds expects it to pay off, see {@link LookaheadPlayer}.
+     */
+    LOOKAHEAD("lookahead");
+
+    /**
+     * The keyword of the strategy in the input file.
+     */
+    private final String keyword;
+
+    /**
+     * Constructs a new Strategy with the given keyword.
+     *
+     * @param keyword The keyword of the strategy in the input file.
+     */
+    Strategy(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /**
+     * Creates a new player following this strategy.
+     *
+     * @param name    The name of the player.
+     * @param context The context of the game the player takes part in.
+     * @return The new player.
+     */
+    public Player create(String name, GameContext context) {
+        return switch (this) {
+            case GREEDY -> new GreedyPlayer(name, context);
+            case CAREFUL -> new CarefulPlayer(name, context);
+            case STRATEGIC -> new StrategicPlayer(name, context);
+            case LOOKAHEAD -> new LookaheadPlayer(name, context);
+        };
+    }
+
+    /**
+     * Returns the keyword of the strategy in the input file.
+     *
+     * @return The keyword of the strategy.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+}
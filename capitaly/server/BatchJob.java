@@ -0,0 +1,165 @@
+package capitaly.server;
+
+import capitaly.player.Strategy;
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A job playing a Monte Carlo batch of games of a submitted scenario, split into chunks of consecutive seeds.
+ * The i-th game rolls from the seed {@code firstSeed + i} like in {@link BatchSimulator#run}, so the summary does not
+ * depend on the parallelism or on how the chunks were interleaved with other jobs.
+ */
+public final class BatchJob extends SimulationJob {
+
+    /**
+     * The number of games of a chunk, small enough for other jobs to get a turn quickly.
+     */
+    public static final int GAMES_PER_CHUNK = 1024;
+
+    /**
+     * The number of games played between two checks of whether the job has stopped.
+     */
+    private static final int GAMES_PER_CHECK = 64;
+
+    /**
+     * The simulator playing the chunks.
+     */
+    private final BatchSimulator simulator;
+
+    /**
+     * The seed of the first game.
+     */
+    private final long firstSeed;
+
+    /**
+     * The number of games of the batch.
+     */
+    private final long games;
+
+    /**
+     * The results of the chunks, null until the chunk completes.
+     */
+    private final BatchResult[] results;
+
+    /**
+     * The summary of the batch, built once the batch has succeeded.
+     */
+    private String summary;
+
+    /**
+     * Constructs a new BatchJob.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param games       The number of games to play.
+     * @param firstSeed   The seed of the first game.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param parallelism The maximum number of chunks played at once.
+     * @throws IllegalArgumentException If a count or limit is not positive, or the batch has too many chunks.
+     */
+    public BatchJob(TrackSpec track, List<PlayerSpec> players, long games, long firstSeed, int maxTurns,
+                    boolean rotateSeats, int parallelism) {
+        super(chunks(games), parallelism);
+        this.simulator = new BatchSimulator(track, players, maxTurns, rotateSeats, ForkJoinPool.commonPool());
+        this.firstSeed = firstSeed;
+        this.games = games;
+        this.results = new BatchResult[this.getChunks()];
+    }
+
+    /**
+     * Computes the number of chunks of a batch.
+     *
+     * @param games The number of games of the batch.
+     * @return The number of chunks.
+     * @throws IllegalArgumentException If the game count is not positive or needs too many chunks.
+     */
+    private static int chunks(long games) {
+        if (games < 1) throw new IllegalArgumentException("Expected a positive game count, got " + games + '.');
+        long chunks = (games + GAMES_PER_CHUNK - 1) / GAMES_PER_CHUNK;
+        if (chunks > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many games: " + games + '.');
+        return (int) chunks;
+    }
+
+    /**
+     * Returns the kind of the job.
+     *
+     * @return {@code "batch"}.
+     */
+    @Override
+    public String getKind() {
+        return "batch";
+    }
+
+    /**
+     * Plays the games of a chunk, a few at a time until they are all played or the job is stopped.
+     *
+     * @param chunk The index of the chunk.
+     * @return The outcomes of the games of the chunk, or null if the job stopped first.
+     */
+    @Override
+    protected String run(int chunk) {
+        long first = (long) chunk * GAMES_PER_CHUNK;
+        long count = Math.min(GAMES_PER_CHUNK, games - first);
+        BatchResult result = null;
+        for (long played = 0; played < count; played += GAMES_PER_CHECK) {
+            if (this.isStopped()) return null;
+            BatchResult slice = simulator.runOnCurrentThread(firstSeed + first + played, Math.min(GAMES_PER_CHECK, count - played));
+            result = result == null ? slice : result.merge(slice);
+        }
+        results[chunk] = result;
+
+        StringBuilder json = new StringBuilder("{\"chunk\":").append(chunk);
+        return describe(json, result).append('}').toString();
+    }
+
+    /**
+     * Merges the results of the chunks.
+     *
+     * @return The outcomes of all games of the batch.
+     */
+    @Override
+    protected synchronized String summarize() {
+        if (summary == null) {
+            BatchResult total = results[0];
+            for (int i = 1; i < results.length; i++) total = total.merge(results[i]);
+            StringBuilder json = new StringBuilder("{");
+            describe(json, total).append(",\"winsByStrategy\":{");
+            boolean first = true;
+            for (Map.Entry<Strategy, Long> wins : total.getWinsByStrategy().entrySet()) {
+                if (!first) json.append(',');
+                first = false;
+                Json.string(json, wins.getKey().getKeyword()).append(':').append(wins.getValue());
+            }
+            summary = json.append("}}").toString();
+        }
+        return summary;
+    }
+
+    /**
+     * Appends the fields describing a result, without the braces of the object.
+     *
+     * @param json   The document to append to.
+     * @param result The result to describe.
+     * @return The document.
+     */
+    private static StringBuilder describe(StringBuilder json, BatchResult result) {
+        if (json.length() > 1) json.append(',');
+        json.append("\"games\":").append(result.getGames())
+            .append(",\"unfinished\":").append(result.getUnfinished())
+            .append(",\"meanTurns\":");
+        double mean = result.getMeanTurns();
+        if (Double.isNaN(mean)) json.append("null");
+        else json.append(mean);
+        json.append(",\"minTurns\":").append(result.getMinTurns())
+            .append(",\"maxTurns\":").append(result.getMaxTurns())
+            .append(",\"winsBySeat\":");
+        return Json.array(json, result.getWinsBySeat());
+    }
+}
@@ -0,0 +1,106 @@
+package capitaly.server;
+
+import capitaly.Capitaly;
+import capitaly.GameResult;
+import capitaly.dice.ArrayRollSource;
+import capitaly.dice.LimitedRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.dice.RollSource;
+import capitaly.io.InputDataParser;
+import capitaly.player.Player;
+
+/**
+ * A job playing a single game of a submitted scenario, in one chunk.
+ * The game rolls the dice of the scenario, or a seeded random die if the scenario lists none, whose rolls are streamed
+ * rather than drawn up front, so that the turn limit costs no memory.
+ */
+public final class GameJob extends SimulationJob {
+
+    /**
+     * The parsed scenario, its track and players are used by the game.
+     */
+    private final InputDataParser scenario;
+
+    /**
+     * The seed of the die, used if the scenario lists no rolls.
+     */
+    private final long seed;
+
+    /**
+     * The number of random rolls after which the game is abandoned without a winner.
+     */
+    private final int maxTurns;
+
+    /**
+     * The result of the game, null until it has been played.
+     */
+    private volatile String outcome;
+
+    /**
+     * Constructs a new GameJob.
+     *
+     * @param scenario The parsed scenario, not used for anything else.
+     * @param seed     The seed of the die, used if the scenario lists no rolls.
+     * @param maxTurns The number of random rolls after which the game is abandoned without a winner.
+     * @throws IllegalArgumentException If the turn limit is not positive.
+     */
+    public GameJob(InputDataParser scenario, long seed, int maxTurns) {
+        super(1, 1);
+        if (maxTurns < 1) throw new IllegalArgumentException("Expected a positive turn limit, got " + maxTurns + '.');
+        this.scenario = scenario;
+        this.seed = seed;
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Returns the kind of the job.
+     *
+     * @return {@code "game"}.
+     */
+    @Override
+    public String getKind() {
+        return "game";
+    }
+
+    /**
+     * Plays the game, until it is over or the job is stopped.
+     *
+     * @param chunk The index of the chunk, always 0.
+     * @return The winner, the number of turns and the standings of the game, or null if the job stopped first.
+     */
+    @Override
+    protected String run(int chunk) {
+        int[] rolls = scenario.getDiceRolls();
+        RollSource die = rolls != null ? new ArrayRollSource(rolls) : new LimitedRollSource(new RandomRollSource(seed), maxTurns);
+
+        Capitaly game = new Capitaly(scenario.getTrack(), scenario.getPlayers());
+        GameResult result = game.play(() -> this.isStopped() ? RollSource.END : die.nextRoll());
+        if (this.isStopped()) return null;
+
+        StringBuilder json = new StringBuilder("{\"chunk\":").append(chunk).append(",\"winner\":");
+        Json.string(json, result.isFinished() ? result.winner().getName() : null);
+        json.append(",\"turns\":").append(result.turns()).append(",\"standings\":[");
+        for (int i = 0; i < result.standings().size(); i++) {
+            Player player = result.standings().get(i);
+            if (i > 0) json.append(',');
+            json.append("{\"name\":");
+            Json.string(json, player.getName());
+            json.append(",\"strategy\":");
+            Json.string(json, player.getStrategy().getKeyword());
+            json.append(",\"capital\":").append(player.getCapital())
+                .append(",\"properties\":").append(player.getProperties().size()).append('}');
+        }
+        this.outcome = json.append("]}").toString();
+        return outcome;
+    }
+
+    /**
+     * Summarizes the game, which is the result of its only chunk.
+     *
+     * @return The winner, the number of turns and the standings of the game.
+     */
+    @Override
+    protected String summarize() {
+        return outcome;
+    }
+}
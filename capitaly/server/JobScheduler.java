@@ -0,0 +1,241 @@
+package capitaly.server;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs the chunks of {@link SimulationJob}s on a fixed set of worker threads.
+ * <p>
+ * The workers take the chunks round-robin from the jobs with chunks left, one chunk per job per round, so a small job
+ * submitted behind a heavy Monte Carlo batch starts as soon as a worker finishes its current chunk. A job never runs
+ * more chunks at once than its parallelism, leaving the other workers to the other jobs.
+ * <p>
+ * Admission is bounded: once the given number of jobs are queued or running, further submissions are rejected
+ * instead of queueing without limit, so clients can back off. A cancelled job keeps its place until its running chunks
+ * have returned. Finished jobs are kept for their results, up to a limit,
+ * the oldest ones being dropped first.
+ */
+public final class JobScheduler implements Closeable {
+
+    /**
+     * The maximum number of jobs queued or running at once.
+     */
+    private final int capacity;
+
+    /**
+     * The maximum number of finished jobs kept for their results.
+     */
+    private final int retained;
+
+    /**
+     * The lock guarding the jobs and the rotation.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signalled when a chunk may have become available.
+     */
+    private final Condition work;
+
+    /**
+     * The admitted jobs by ID, in admission order.
+     */
+    private final Map<Long, SimulationJob> jobs;
+
+    /**
+     * The jobs with chunks left to hand out, in the order they get their next chunk.
+     */
+    private final ArrayDeque<SimulationJob> rotation;
+
+    /**
+     * The worker threads.
+     */
+    private final Thread[] workers;
+
+    /**
+     * The ID of the next admitted job.
+     */
+    private long nextId;
+
+    /**
+     * Whether the scheduler has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * A chunk handed out to a worker.
+     *
+     * @param job   The job of the chunk.
+     * @param chunk The index of the chunk.
+     */
+    private record Claim(SimulationJob job, int chunk) {
+    }
+
+    /**
+     * Constructs a new JobScheduler and starts its workers.
+     *
+     * @param workers  The number of worker threads.
+     * @param capacity The maximum number of jobs queued or running at once.
+     * @param retained The maximum number of finished jobs kept for their results.
+     * @throws IllegalArgumentException If the number of workers or the capacity is not positive, or the retention
+     *                                  is negative.
+     */
+    public JobScheduler(int workers, int capacity, int retained) {
+        if (workers < 1) throw new IllegalArgumentException("Expected a positive number of workers, got " + workers + '.');
+        if (capacity < 1) throw new IllegalArgumentException("Expected a positive capacity, got " + capacity + '.');
+        if (retained < 0) throw new IllegalArgumentException("Expected a non-negative retention, got " + retained + '.');
+        this.capacity = capacity;
+        this.retained = retained;
+        this.lock = new ReentrantLock();
+        this.work = lock.newCondition();
+        this.jobs = new LinkedHashMap<>();
+        this.rotation = new ArrayDeque<>();
+        this.nextId = 1;
+
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Thread(this::work, "capitaly-simulation-" + i);
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return The number of workers.
+     */
+    public int getWorkers() {
+        return workers.length;
+    }
+
+    /**
+     * Admits a job and queues its chunks, waking every idle worker so that the job starts as many chunks at once as its
+     * parallelism and the idle workers allow.
+     *
+     * @param job The job, not submitted before.
+     * @return The ID assigned to the job.
+     * @throws RejectedExecutionException If the scheduler is full or closed.
+     */
+    public long submit(SimulationJob job) {
+        lock.lock();
+        try {
+            if (closed) throw new RejectedExecutionException("The scheduler has been closed.");
+            int active = 0;
+            for (SimulationJob admitted : jobs.values()) if (admitted.isActive()) active++;
+            if (active >= capacity) throw new RejectedExecutionException("Already " + active + " jobs queued or running.");
+
+            long id = nextId++;
+            job.admit(id);
+            jobs.put(id, job);
+            rotation.addLast(job);
+            this.evict();
+            work.signalAll();
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the job with the given ID.
+     *
+     * @param id The ID of the job.
+     * @return The job, or null if there is no such job or it has been dropped.
+     */
+    public SimulationJob get(long id) {
+        lock.lock();
+        try {
+            return jobs.get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the oldest finished jobs beyond the retention limit, keeping those with chunks still running.
+     */
+    private void evict() {
+        int finished = 0;
+        for (SimulationJob job : jobs.values()) if (!job.isActive()) finished++;
+        for (Iterator<SimulationJob> it = jobs.values().iterator(); finished > retained && it.hasNext(); ) {
+            if (!it.next().isActive()) {
+                it.remove();
+                finished--;
+            }
+        }
+    }
+
+    /**
+     * Takes the next chunk in round-robin order, dropping the jobs with no chunks left from the rotation.
+     *
+     * @return The chunk, or null if no job can run a chunk now.
+     */
+    private Claim next() {
+        for (int i = rotation.size(); i > 0; i--) {
+            SimulationJob job = rotation.pollFirst();
+            if (job.isExhausted()) continue;
+            rotation.addLast(job);
+            int chunk = job.claim();
+            if (chunk >= 0) return new Claim(job, chunk);
+        }
+        return null;
+    }
+
+    /**
+     * Runs chunks until the scheduler is closed, the loop of every worker thread.
+     */
+    private void work() {
+        while (true) {
+            Claim claim = null;
+            lock.lock();
+            try {
+                while (!closed && (claim = this.next()) == null) work.awaitUninterruptibly();
+            } finally {
+                lock.unlock();
+            }
+            if (claim == null) return;
+
+            claim.job().execute(claim.chunk());
+
+            lock.lock();
+            try {
+                work.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Cancels every unfinished job and stops the workers once their current chunks return.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            for (SimulationJob job : jobs.values()) job.cancel();
+            rotation.clear();
+            work.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package capitaly.server;
+
+/**
+ * Enumerates the states a {@link SimulationJob} goes through.
+ */
+public enum JobState {
+    /**
+     * Admitted, but none of its chunks has started yet.
+     */
+    QUEUED,
+
+    /**
+     * At least one of its chunks has started.
+     */
+    RUNNING,
+
+    /**
+     * Every chunk has completed.
+     */
+    SUCCEEDED,
+
+    /**
+     * A chunk threw an exception, the remaining chunks are not run.
+     */
+    FAILED,
+
+    /**
+     * Cancelled before every chunk completed, the remaining chunks are not run.
+     */
+    CANCELLED;
+
+    /**
+     * Returns whether the state is final, i.e. no chunk of the job will be started anymore.
+     *
+     * @return Whether the job is finished.
+     */
+    public boolean isFinished() {
+        return this != QUEUED && this != RUNNING;
+    }
+}
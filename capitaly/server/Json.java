@@ -0,0 +1,57 @@
+package capitaly.server;
+
+/**
+ * Builds the JSON documents of the simulation service, which only needs objects of strings and numbers.
+ */
+final class Json {
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private Json() {
+    }
+
+    /**
+     * Appends the given string as a JSON string literal.
+     *
+     * @param json  The document to append to.
+     * @param value The string, null for a JSON null.
+     * @return The document.
+     */
+    static StringBuilder string(StringBuilder json, String value) {
+        if (value == null) return json.append("null");
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Appends the given numbers as a JSON array.
+     *
+     * @param json   The document to append to.
+     * @param values The numbers.
+     * @return The document.
+     */
+    static StringBuilder array(StringBuilder json, long[] values) {
+        json.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) json.append(',');
+            json.append(values[i]);
+        }
+        return json.append(']');
+    }
+}
@@ -0,0 +1,368 @@
+package capitaly.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A unit of work submitted to a {@link JobScheduler}, split into chunks run independently of each other.
+ * The scheduler hands out the chunks in order, never running more of them at once than the parallelism of the job,
+ * and keeps the result of every chunk until the job is dropped, so that the results can be read while it runs.
+ * Chunks poll {@link #isStopped()} as they go, so a cancelled or failed job frees its workers without waiting for its
+ * running chunks to complete.
+ * <p>
+ * The state of the job is guarded by a lock rather than a monitor, so readers waiting for results do not pin the
+ * carrier of a virtual thread.
+ */
+public abstract class SimulationJob {
+
+    /**
+     * The number of chunks of the job.
+     */
+    private final int chunks;
+
+    /**
+     * The maximum number of chunks run at once.
+     */
+    private final int parallelism;
+
+    /**
+     * The results of the chunks, null until the chunk completes.
+     */
+    private final String[] results;
+
+    /**
+     * The lock guarding the state of the job.
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Signalled whenever a chunk completes or the job finishes.
+     */
+    private final Condition changed;
+
+    /**
+     * The ID of the job, assigned by the scheduler.
+     */
+    private long id;
+
+    /**
+     * The state of the job.
+     */
+    private JobState state;
+
+    /**
+     * The index of the next chunk to hand out.
+     */
+    private int next;
+
+    /**
+     * The number of chunks currently running.
+     */
+    private int running;
+
+    /**
+     * The number of completed chunks.
+     */
+    private int completed;
+
+    /**
+     * The description of the error that failed the job, null unless it failed.
+     */
+    private String error;
+
+    /**
+     * Whether the job has been cancelled or has failed, read by the running chunks without the lock.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Constructs a new SimulationJob.
+     *
+     * @param chunks      The number of chunks of the job.
+     * @param parallelism The maximum number of chunks run at once.
+     * @throws IllegalArgumentException If the job has no chunks or the parallelism is not positive.
+     */
+    protected SimulationJob(int chunks, int parallelism) {
+        if (chunks < 1) throw new IllegalArgumentException("Expected a positive chunk count, got " + chunks + '.');
+        if (parallelism < 1) throw new IllegalArgumentException("Expected a positive parallelism, got " + parallelism + '.');
+        this.chunks = chunks;
+        this.parallelism = parallelism;
+        this.results = new String[chunks];
+        this.lock = new ReentrantLock();
+        this.changed = lock.newCondition();
+        this.id = -1;
+        this.state = JobState.QUEUED;
+    }
+
+    /**
+     * Returns the kind of the job, as shown to clients.
+     *
+     * @return The kind of the job.
+     */
+    public abstract String getKind();
+
+    /**
+     * Runs a chunk of the job.
+     * Called by the worker threads of the scheduler, possibly for several chunks at once. A chunk should poll
+     * {@link #isStopped()} often enough to return soon after the job is cancelled.
+     *
+     * @param chunk The index of the chunk.
+     * @return The result of the chunk, as a JSON object, or null if the chunk returned early because the job stopped.
+     */
+    protected abstract String run(int chunk);
+
+    /**
+     * Summarizes the results of every chunk, called once the job has succeeded.
+     *
+     * @return The summary of the job, as a JSON object.
+     */
+    protected abstract String summarize();
+
+    /**
+     * Returns the ID of the job.
+     *
+     * @return The ID, or -1 if the job has not been admitted.
+     */
+    public long getId() {
+        lock.lock();
+        try {
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the state of the job.
+     *
+     * @return The state of the job.
+     */
+    public JobState getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of chunks of the job.
+     *
+     * @return The number of chunks.
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Returns the maximum number of chunks run at once.
+     *
+     * @return The parallelism of the job.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Returns the number of completed chunks.
+     *
+     * @return The number of completed chunks.
+     */
+    public int getCompletedChunks() {
+        lock.lock();
+        try {
+            return completed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the description of the error that failed the job.
+     *
+     * @return The error, or null unless the job failed.
+     */
+    public String getError() {
+        lock.lock();
+        try {
+            return error;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the summary of the job.
+     *
+     * @return The summary, as a JSON object, or null unless the job succeeded.
+     */
+    public String getSummary() {
+        return this.getState() == JobState.SUCCEEDED ? this.summarize() : null;
+    }
+
+    /**
+     * Returns whether the job has been cancelled or has failed, in which case its running chunks should return early.
+     *
+     * @return Whether the job has stopped.
+     */
+    protected boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Cancels the job. No further chunk is started, and the running chunks return at their next check of
+     * {@link #isStopped()}, without a result.
+     *
+     * @return Whether the job was cancelled, false if it had already finished.
+     */
+    public boolean cancel() {
+        lock.lock();
+        try {
+            if (state.isFinished()) return false;
+            state = JobState.CANCELLED;
+            stopped = true;
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the result of the given chunk.
+     *
+     * @param chunk   The index of the chunk.
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     * @return The result of the chunk, or null if the job finished without it or the timeout elapsed.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public String awaitResult(int chunk, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (results[chunk] == null && !state.isFinished() && nanos > 0) nanos = changed.awaitNanos(nanos);
+            return results[chunk];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the job to finish.
+     *
+     * @param timeout The maximum time to wait.
+     * @param unit    The unit of the timeout.
+     * @return The state of the job, not final if the timeout elapsed.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public JobState awaitFinish(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!state.isFinished() && nanos > 0) nanos = changed.awaitNanos(nanos);
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Assigns the ID of the job, once it is admitted by a scheduler.
+     *
+     * @param id The ID of the job.
+     * @throws IllegalStateException If the job has already been admitted.
+     */
+    void admit(long id) {
+        lock.lock();
+        try {
+            if (this.id >= 0) throw new IllegalStateException("Job " + this.id + " has already been submitted.");
+            this.id = id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands out the next chunk to run, if the job has one and is below its parallelism.
+     *
+     * @return The index of the chunk, or -1 if no chunk can be run now.
+     */
+    int claim() {
+        lock.lock();
+        try {
+            if (state.isFinished() || next == chunks || running == parallelism) return -1;
+            state = JobState.RUNNING;
+            running++;
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether every chunk has been handed out or the job has finished, i.e. the scheduler can forget it.
+     *
+     * @return Whether the job has no chunks left to hand out.
+     */
+    boolean isExhausted() {
+        lock.lock();
+        try {
+            return state.isFinished() || next == chunks;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns whether the job is queued or running, or has a chunk still running although it has finished, i.e. whether
+     * it takes a place among the jobs a scheduler admits at once.
+     *
+     * @return Whether the job is active.
+     */
+    boolean isActive() {
+        lock.lock();
+        try {
+            return !state.isFinished() || running > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the given chunk and records its result, failing the job if it throws anything, errors included, so that
+     * neither the worker thread nor the job is lost to a chunk failing with e.g. a {@link StackOverflowError}.
+     *
+     * @param chunk The index of a chunk handed out by {@link #claim()}.
+     */
+    void execute(int chunk) {
+        String result = null;
+        Throwable failure = null;
+        try {
+            result = this.run(chunk);
+        } catch (Throwable throwable) {
+            failure = throwable;
+        }
+
+        lock.lock();
+        try {
+            running--;
+            if (failure != null) {
+                if (!state.isFinished()) {
+                    state = JobState.FAILED;
+                    stopped = true;
+                    error = failure.getMessage() != null ? failure.getMessage() : failure.toString();
+                }
+            } else if (result != null) {
+                results[chunk] = result;
+                completed++;
+                if (completed == chunks && state == JobState.RUNNING) state = JobState.SUCCEEDED;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,530 @@
+package capitaly.server;
+
+import capitaly.io.InputDataParser;
+import capitaly.io.InvalidInputException;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.LatencySnapshot;
+import capitaly.metrics.MetricsSnapshot;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded HTTP service playing submitted scenarios, in the format read by {@link InputDataParser}.
+ * <p>
+ * Endpoints, every response being JSON:
+ * <ul>
+ *     <li>{@code POST /games?seed=&maxTurns=} plays the scenario in the body once, rolling its dice or, if it lists
+ *     none, a die seeded with {@code seed}.</li>
+ *     <li>{@code POST /batches?games=&seed=&maxTurns=&parallelism=&rotateSeats=} plays a Monte Carlo batch of the
+ *     scenario in the body, see {@link BatchJob}.</li>
+ *     <li>{@code GET /jobs/{id}} returns the status of a job, with its summary once it has succeeded.</li>
+ *     <li>{@code GET /jobs/{id}/results} streams the result of every chunk as a JSON line as soon as it is available,
+ *     in chunk order, followed by the final status of the job.</li>
+ *     <li>{@code DELETE /jobs/{id}} cancels a job.</li>
+ *     <li>{@code GET /metrics} returns a snapshot of the {@link GameMetrics metrics} of the games played so far.</li>
+ * </ul>
+ * Submissions return {@code 202 Accepted} with the status of the job, or {@code 503 Service Unavailable} while the
+ * scheduler is full. A {@code maxTurns} above {@link #MAX_TURN_LIMIT} is rejected with {@code 400 Bad Request}.
+ * The requests are handled on virtual threads where the JDK has them, so clients streaming results do not hold
+ * platform threads, and otherwise on a bounded pool of {@link #HANDLER_THREADS} threads, beyond which up to
+ * {@link #HANDLER_QUEUE} connections wait and further ones are closed. The games themselves are played by the workers
+ * of the {@link JobScheduler}.
+ */
+public final class SimulationServer {
+
+    /**
+     * The default port of the service.
+     */
+    public static final int DEFAULT_PORT = 8080;
+
+    /**
+     * The default maximum number of jobs queued or running at once.
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The default maximum number of finished jobs kept for their results.
+     */
+    public static final int DEFAULT_RETAINED = 1024;
+
+    /**
+     * The default number of turns after which a game is abandoned without a winner.
+     */
+    public static final int DEFAULT_MAX_TURNS = 100_000;
+
+    /**
+     * The largest turn limit a client may ask for, bounding the time a single game or batch game can take.
+     */
+    public static final int MAX_TURN_LIMIT = 10_000_000;
+
+    /**
+     * The maximum number of threads handling requests on JDKs without virtual threads.
+     */
+    public static final int HANDLER_THREADS = 64;
+
+    /**
+     * The maximum number of connections waiting for a handler thread on JDKs without virtual threads.
+     */
+    public static final int HANDLER_QUEUE = 256;
+
+    /**
+     * The seconds an idle handler thread is kept on JDKs without virtual threads.
+     */
+    private static final long HANDLER_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * The maximum size of a submitted scenario in bytes.
+     */
+    private static final int MAX_BODY_BYTES = 16 << 20;
+
+    /**
+     * The seconds a rejected client is asked to wait before submitting again.
+     */
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * The parameters accepted when submitting a game.
+     */
+    private static final Set<String> GAME_PARAMETERS = Set.of("seed", "maxTurns");
+
+    /**
+     * The parameters accepted when submitting a batch.
+     */
+    private static final Set<String> BATCH_PARAMETERS = Set.of("games", "seed", "maxTurns", "parallelism", "rotateSeats");
+
+    /**
+     * The HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * The executor handling the requests.
+     */
+    private final ExecutorService handlers;
+
+    /**
+     * The scheduler running the jobs.
+     */
+    private final JobScheduler scheduler;
+
+    /**
+     * Constructs a new SimulationServer bound to the given address. The server does not accept requests until started.
+     *
+     * @param address   The address to listen on.
+     * @param scheduler The scheduler running the jobs, closed with the server.
+     * @throws IOException If the address cannot be bound.
+     */
+    public SimulationServer(InetSocketAddress address, JobScheduler scheduler) throws IOException {
+        this.scheduler = scheduler;
+        this.handlers = newHandlerExecutor();
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(handlers);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * The entry point of the service.
+     * Listens on the port given as the first argument, or {@link #DEFAULT_PORT}, with a worker per processor.
+     *
+     * @param args The arguments of the program (the port, optional).
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        JobScheduler scheduler = new JobScheduler(Runtime.getRuntime().availableProcessors(), DEFAULT_CAPACITY, DEFAULT_RETAINED);
+        SimulationServer server = new SimulationServer(new InetSocketAddress(port), scheduler);
+        server.start();
+        System.out.println("Simulation service listening on port " + server.getPort());
+    }
+
+    /**
+     * Creates the executor handling the requests: a virtual thread per request on JDKs that have them, a bounded pool
+     * of daemon threads otherwise, whose rejections make the server close the connection.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService newHandlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(HANDLER_THREADS, HANDLER_THREADS,
+                HANDLER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<>(HANDLER_QUEUE), task -> {
+                    Thread thread = new Thread(task, "capitaly-http");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        }
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, cancels the unfinished jobs and stops the workers.
+     */
+    public void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+        scheduler.close();
+    }
+
+    /**
+     * Routes a request to its endpoint and reports errors to the client.
+     *
+     * @param exchange The exchange of the request.
+     */
+    private void handle(HttpExchange exchange) {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            if (path.length == 2 && path[1].equals("games")) {
+                if (!method.equals("POST")) this.reject(exchange, 405, "Expected POST.");
+                else this.submitGame(exchange);
+            } else if (path.length == 2 && path[1].equals("batches")) {
+                if (!method.equals("POST")) this.reject(exchange, 405, "Expected POST.");
+                else this.submitBatch(exchange);
+            } else if (path.length == 3 && path[1].equals("jobs")) {
+                SimulationJob job = this.job(path[2]);
+                if (job == null) this.reject(exchange, 404, "No job " + path[2] + '.');
+                else if (method.equals("GET")) this.send(exchange, 200, status(job));
+                else if (method.equals("DELETE")) this.send(exchange, job.cancel() ? 200 : 409, status(job));
+                else this.reject(exchange, 405, "Expected GET or DELETE.");
+            } else if (path.length == 2 && path[1].equals("metrics")) {
+                if (!method.equals("GET")) this.reject(exchange, 405, "Expected GET.");
+                else this.send(exchange, 200, metrics(GameMetrics.snapshot()));
+            } else if (path.length == 4 && path[1].equals("jobs") && path[3].equals("results")) {
+                SimulationJob job = this.job(path[2]);
+                if (job == null) this.reject(exchange, 404, "No job " + path[2] + '.');
+                else if (!method.equals("GET")) this.reject(exchange, 405, "Expected GET.");
+                else this.stream(exchange, job);
+            } else {
+                this.reject(exchange, 404, "No endpoint " + exchange.getRequestURI().getPath() + '.');
+            }
+        } catch (InvalidInputException | IllegalArgumentException exception) {
+            this.tryReject(exchange, 400, exception.getMessage());
+        } catch (RejectedExecutionException exception) {
+            exchange.getResponseHeaders().set("Retry-After", RETRY_AFTER_SECONDS);
+            this.tryReject(exchange, 503, exception.getMessage());
+        } catch (IOException exception) {
+            // The client went away, there is no one to report to.
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException exception) {
+            this.tryReject(exchange, 500, exception.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Submits a game of the scenario in the body of the request.
+     *
+     * @param exchange The exchange of the request.
+     * @throws IOException If the request cannot be read or the response cannot be sent.
+     */
+    private void submitGame(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange, GAME_PARAMETERS);
+        long seed = parseLong(query, "seed", 0);
+        int maxTurns = maxTurns(query);
+        InputDataParser scenario = scenario(exchange);
+        this.accept(exchange, new GameJob(scenario, seed, maxTurns));
+    }
+
+    /**
+     * Submits a batch of games of the scenario in the body of the request.
+     *
+     * @param exchange The exchange of the request.
+     * @throws IOException If the request cannot be read or the response cannot be sent.
+     */
+    private void submitBatch(HttpExchange exchange) throws IOException {
+        Map<String, String> query = query(exchange, BATCH_PARAMETERS);
+        if (!query.containsKey("games")) throw new InvalidInputException("Missing the games parameter.");
+        long games = parseLong(query, "games", 0);
+        long seed = parseLong(query, "seed", 0);
+        int maxTurns = maxTurns(query);
+        int parallelism = Math.min(parseInt(query, "parallelism", scheduler.getWorkers()), scheduler.getWorkers());
+        boolean rotateSeats = Boolean.parseBoolean(query.getOrDefault("rotateSeats", "false"));
+        InputDataParser scenario = scenario(exchange);
+        this.accept(exchange, new BatchJob(TrackSpec.of(scenario.getTrack()), PlayerSpec.of(scenario.getPlayers()),
+            games, seed, maxTurns, rotateSeats, parallelism));
+    }
+
+    /**
+     * Submits a job to the scheduler and responds with its status.
+     *
+     * @param exchange The exchange of the request.
+     * @param job      The job.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void accept(HttpExchange exchange, SimulationJob job) throws IOException {
+        long id = scheduler.submit(job);
+        exchange.getResponseHeaders().set("Location", "/jobs/" + id);
+        this.send(exchange, 202, status(job));
+    }
+
+    /**
+     * Streams the results of the chunks of a job as JSON lines, in chunk order, until the job finishes.
+     * The last line is the final status of the job.
+     *
+     * @param exchange The exchange of the request.
+     * @param job      The job.
+     * @throws IOException          If the client went away.
+     * @throws InterruptedException If the handler is interrupted while waiting.
+     */
+    private void stream(HttpExchange exchange, SimulationJob job) throws IOException, InterruptedException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream body = exchange.getResponseBody();
+        for (int chunk = 0; chunk < job.getChunks(); chunk++) {
+            String result;
+            do result = job.awaitResult(chunk, 1, TimeUnit.MINUTES);
+            while (result == null && !job.getState().isFinished());
+            if (result == null) break;
+            body.write((result + '\n').getBytes(StandardCharsets.UTF_8));
+            body.flush();
+        }
+        job.awaitFinish(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        body.write((status(job) + '\n').getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Looks up the job with the given ID.
+     *
+     * @param id The ID, as given in the path.
+     * @return The job, or null if there is no such job.
+     */
+    private SimulationJob job(String id) {
+        try {
+            return scheduler.get(Long.parseLong(id));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Describes the status of a job.
+     *
+     * @param job The job.
+     * @return The status, as a JSON object.
+     */
+    private static String status(SimulationJob job) {
+        StringBuilder json = new StringBuilder("{\"id\":").append(job.getId()).append(",\"kind\":");
+        Json.string(json, job.getKind()).append(",\"state\":");
+        Json.string(json, job.getState().name()).append(",\"chunks\":").append(job.getChunks())
+            .append(",\"completed\":").append(job.getCompletedChunks())
+            .append(",\"parallelism\":").append(job.getParallelism()).append(",\"error\":");
+        Json.string(json, job.getError());
+        String summary = job.getSummary();
+        return json.append(",\"summary\":").append(summary != null ? summary : "null").append('}').toString();
+    }
+
+    /**
+     * Parses the scenario in the body of the request.
+     *
+     * @param exchange The exchange of the request.
+     * @return The parsed scenario.
+     * @throws IOException           If the body cannot be read.
+     * @throws InvalidInputException If the scenario is too large or invalid.
+     */
+    private static InputDataParser scenario(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                if (bytes.size() + read > MAX_BODY_BYTES)
+                    throw new InvalidInputException("The scenario is larger than " + MAX_BODY_BYTES + " bytes.");
+                bytes.write(buffer, 0, read);
+            }
+        }
+        return new InputDataParser(new StringReader(bytes.toString(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Parses the query parameters of the request.
+     *
+     * @param exchange The exchange of the request.
+     * @param accepted The names of the accepted parameters.
+     * @return The values of the parameters by name.
+     * @throws InvalidInputException If a parameter is not accepted.
+     */
+    private static Map<String, String> query(HttpExchange exchange, Set<String> accepted) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isEmpty()) return parameters;
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals < 0 ? pair : pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = equals < 0 ? "" : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            if (!accepted.contains(name)) throw new InvalidInputException("Unknown parameter " + name + ", expected one of " + accepted + '.');
+            parameters.put(name, value);
+        }
+        return parameters;
+    }
+
+    /**
+     * Parses an integer query parameter.
+     *
+     * @param query    The query parameters.
+     * @param name     The name of the parameter.
+     * @param fallback The value if the parameter is missing.
+     * @return The value of the parameter.
+     * @throws InvalidInputException If the value is not an integer.
+     */
+    private static long parseLong(Map<String, String> query, String name, long fallback) {
+        String value = query.get(name);
+        if (value == null) return fallback;
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException exception) {
+            throw new InvalidInputException("Expected an integer value for " + name + ", found \"" + value + "\".");
+        }
+    }
+
+    /**
+     * Parses an int query parameter.
+     *
+     * @param query    The query parameters.
+     * @param name     The name of the parameter.
+     * @param fallback The value if the parameter is missing.
+     * @return The value of the parameter.
+     * @throws InvalidInputException If the value is not an int.
+     */
+    private static int parseInt(Map<String, String> query, String name, int fallback) {
+        long value = parseLong(query, name, fallback);
+        if (value != (int) value) throw new InvalidInputException("Expected an int value for " + name + ", found " + value + '.');
+        return (int) value;
+    }
+
+    /**
+     * Parses the turn limit of a submission.
+     *
+     * @param query The query parameters.
+     * @return The turn limit, {@link #DEFAULT_MAX_TURNS} if the parameter is missing.
+     * @throws InvalidInputException If the value is not an int or is not between 1 and {@link #MAX_TURN_LIMIT}.
+     */
+    private static int maxTurns(Map<String, String> query) {
+        int maxTurns = parseInt(query, "maxTurns", DEFAULT_MAX_TURNS);
+        if (maxTurns < 1 || maxTurns > MAX_TURN_LIMIT)
+            throw new InvalidInputException("Expected maxTurns between 1 and " + MAX_TURN_LIMIT + ", found " + maxTurns + '.');
+        return maxTurns;
+    }
+
+    /**
+     * Describes the metrics of the games as JSON, latencies being in nanoseconds.
+     *
+     * @param snapshot The snapshot of the metrics.
+     * @return The JSON document.
+     */
+    private static String metrics(MetricsSnapshot snapshot) {
+        StringBuilder json = new StringBuilder("{\"enabled\":").append(GameMetrics.ENABLED)
+            .append(",\"games\":").append(snapshot.games())
+            .append(",\"moves\":").append(snapshot.moves())
+            .append(",\"bankruptcies\":").append(snapshot.bankruptcies())
+            .append(",\"eliminations\":").append(snapshot.eliminations())
+            .append(",\"progress\":");
+        latency(json, snapshot.progress()).append(",\"tiles\":{");
+        for (TileKind kind : TileKind.values()) {
+            if (kind.ordinal() > 0) json.append(',');
+            Json.string(json, kind.getKeyword()).append(":{\"enters\":").append(snapshot.enters().get(kind))
+                .append(",\"enter\":");
+            latency(json, snapshot.enterLatencies().get(kind)).append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Appends the summary of a latency histogram as a JSON object.
+     *
+     * @param json     The document to append to.
+     * @param snapshot The snapshot of the histogram.
+     * @return The document.
+     */
+    private static StringBuilder latency(StringBuilder json, LatencySnapshot snapshot) {
+        return json.append("{\"samples\":").append(snapshot.getCount())
+            .append(",\"p50\":").append(snapshot.getPercentile(0.5))
+            .append(",\"p99\":").append(snapshot.getPercentile(0.99))
+            .append(",\"p999\":").append(snapshot.getPercentile(0.999))
+            .append(",\"max\":").append(snapshot.getMax()).append('}');
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param exchange The exchange of the request.
+     * @param code     The status code.
+     * @param json     The body of the response.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void send(HttpExchange exchange, int code, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param exchange The exchange of the request.
+     * @param code     The status code.
+     * @param message  The description of the error.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void reject(HttpExchange exchange, int code, String message) throws IOException {
+        this.send(exchange, code, Json.string(new StringBuilder("{\"error\":"), message).append('}').toString());
+    }
+
+    /**
+     * Sends an error response, unless the client went away or a response has already been started.
+     *
+     * @param exchange The exchange of the request.
+     * @param code     The status code.
+     * @param message  The description of the error.
+     */
+    private void tryReject(HttpExchange exchange, int code, String message) {
+        if (exchange.getResponseCode() != -1) return;
+        try {
+            this.reject(exchange, code, message);
+        } catch (IOException exception) {
+            // The client went away, there is no one to report to.
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package capitaly.simulation;
+
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.kernel.GameKernel;
+import capitaly.sketch.DistinctCounter;
+import capitaly.sketch.FrequencySketch;
+import capitaly.sketch.QuantileSketch;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distributions of the games of a batch, by player, kept in mergeable sketches of bounded size instead of a record per
+ * game, so that they cost the same memory for a thousand or a hundred million games.
+ * <p>
+ * For every player, the profile summarizes their capital, properties and houses at the end of the game and the turns
+ * of the game they survived, a bankrupt player keeping the properties and houses they had when they went bankrupt.
+ * It also estimates the number of distinct end states (the winner, the length of the game and the capital and position
+ * of every player) and how often every tile was landed on, to find the hot tiles of long tracks.
+ * <p>
+ * The quantiles are estimates within about 2% in rank, and may differ slightly between runs splitting the batch
+ * differently; the other summaries do not depend on the split. Partial profiles are combined with
+ * {@link #merge(BatchProfile)}.
+ */
+public final class BatchProfile {
+
+    /**
+     * The players at the table, in seating order.
+     */
+    private final List<PlayerSpec> players;
+
+    /**
+     * The length of the track.
+     */
+    private final int length;
+
+    /**
+     * The capital of every player at the end of their games.
+     */
+    private final QuantileSketch[] capital;
+
+    /**
+     * The number of turns of their games every player survived.
+     */
+    private final QuantileSketch[] turns;
+
+    /**
+     * The number of properties every player owned at the end of their games.
+     */
+    private final QuantileSketch[] properties;
+
+    /**
+     * The number of houses every player had at the end of their games.
+     */
+    private final QuantileSketch[] houses;
+
+    /**
+     * The distinct end states of the games.
+     */
+    private final DistinctCounter endStates;
+
+    /**
+     * The number of times every tile was landed on.
+     */
+    private final FrequencySketch landings;
+
+    /**
+     * The number of games profiled.
+     */
+    private long games;
+
+    /**
+     * Constructs a new, empty BatchProfile for the given track and players.
+     *
+     * @param length  The length of the track.
+     * @param players The players at the table, in seating order.
+     */
+    BatchProfile(int length, List<PlayerSpec> players) {
+        this.players = List.copyOf(players);
+        this.length = length;
+        this.capital = sketches(players.size());
+        this.turns = sketches(players.size());
+        this.properties = sketches(players.size());
+        this.houses = sketches(players.size());
+        this.endStates = new DistinctCounter();
+        this.landings = new FrequencySketch();
+    }
+
+    /**
+     * Creates empty quantile sketches.
+     *
+     * @param count The number of sketches.
+     * @return The sketches.
+     */
+    private static QuantileSketch[] sketches(int count) {
+        QuantileSketch[] sketches = new QuantileSketch[count];
+        for (int i = 0; i < count; i++) sketches[i] = new QuantileSketch();
+        return sketches;
+    }
+
+    /**
+     * Creates a recorder of the games of a single thread into this profile.
+     *
+     * @return The recorder.
+     */
+    Recorder recorder() {
+        return new Recorder();
+    }
+
+    /**
+     * Adds the games of another profile to this one.
+     *
+     * @param other The profile to merge into this one.
+     * @return This profile.
+     * @throws IllegalArgumentException If the profiles belong to different tracks or players.
+     */
+    public BatchProfile merge(BatchProfile other) {
+        if (this.length != other.length || !this.players.equals(other.players))
+            throw new IllegalArgumentException("Cannot merge profiles of different scenarios: " + this.players + " and " + other.players + '.');
+
+        for (int seat = 0; seat < players.size(); seat++) {
+            this.capital[seat].merge(other.capital[seat]);
+            this.turns[seat].merge(other.turns[seat]);
+            this.properties[seat].merge(other.properties[seat]);
+            this.houses[seat].merge(other.houses[seat]);
+        }
+        this.endStates.merge(other.endStates);
+        this.landings.merge(other.landings);
+        this.games += other.games;
+        return this;
+    }
+
+    /**
+     * Returns the players at the table.
+     *
+     * @return The players, in seating order.
+     */
+    public List<PlayerSpec> getPlayers() {
+        return players;
+    }
+
+    /**
+     * Returns the number of games profiled.
+     *
+     * @return The number of games.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the distribution of the capital of a player at the end of their games, 0 for the games they lost.
+     * The sketch is the one of the profile and is not to be modified.
+     *
+     * @param seat The seat of the player.
+     * @return The sketch of the final capital.
+     */
+    public QuantileSketch getCapital(int seat) {
+        return capital[seat];
+    }
+
+    /**
+     * Returns the distribution of the number of turns of their games a player survived, the length of the game for the
+     * games they did not lose. The sketch is the one of the profile and is not to be modified.
+     *
+     * @param seat The seat of the player.
+     * @return The sketch of the turns survived.
+     */
+    public QuantileSketch getTurnsSurvived(int seat) {
+        return turns[seat];
+    }
+
+    /**
+     * Returns the distribution of the number of properties a player owned at the end of their games, or when they
+     * went bankrupt. The sketch is the one of the profile and is not to be modified.
+     *
+     * @param seat The seat of the player.
+     * @return The sketch of the properties owned.
+     */
+    public QuantileSketch getProperties(int seat) {
+        return properties[seat];
+    }
+
+    /**
+     * Returns the distribution of the number of houses a player had at the end of their games, or when they went
+     * bankrupt. The sketch is the one of the profile and is not to be modified.
+     *
+     * @param seat The seat of the player.
+     * @return The sketch of the houses.
+     */
+    public QuantileSketch getHouses(int seat) {
+        return houses[seat];
+    }
+
+    /**
+     * Returns the estimated number of distinct end states of the games.
+     *
+     * @return The estimate.
+     */
+    public long getDistinctEndStates() {
+        return endStates.getEstimate();
+    }
+
+    /**
+     * Returns the estimated number of times a tile was landed on, never less than the true number.
+     *
+     * @param tile The index of the tile.
+     * @return The estimate.
+     */
+    public long getLandings(int tile) {
+        return landings.getEstimate(tile);
+    }
+
+    /**
+     * Returns the tiles landed on most often, by their estimated landings.
+     *
+     * @param count The maximum number of tiles.
+     * @return The indices of the tiles, the most landed on first.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public int[] getHotTiles(int count) {
+        if (count < 0) throw new IllegalArgumentException("Expected a non-negative count, got " + count + '.');
+        int size = 0;
+        int[] tiles = new int[Math.min(count, length)];
+        long[] estimates = new long[tiles.length];
+        for (int tile = 0; tile < length && tiles.length > 0; tile++) {
+            long estimate = landings.getEstimate(tile);
+            if (size == tiles.length && estimate <= estimates[size - 1]) continue;
+
+            int i = size == tiles.length ? size - 1 : size++;
+            for (; i > 0 && estimates[i - 1] < estimate; i--) {
+                tiles[i] = tiles[i - 1];
+                estimates[i] = estimates[i - 1];
+            }
+            tiles[i] = tile;
+            estimates[i] = estimate;
+        }
+        return Arrays.copyOf(tiles, size);
+    }
+
+    /**
+     * Returns the string representation of the BatchProfile.
+     *
+     * @return The string describing the profile.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("BatchProfile {")
+            .append("\n\tgames: ").append(games)
+            .append("\n\tdistinct end states: ~").append(this.getDistinctEndStates())
+            .append("\n\thot tiles: ");
+        for (int tile : this.getHotTiles(5)) builder.append(tile).append(" (~").append(landings.getEstimate(tile)).append(") ");
+        for (int seat = 0; seat < players.size(); seat++) {
+            builder.append("\n\t").append(players.get(seat).name()).append(" (").append(players.get(seat).strategy().getKeyword()).append("):");
+            if (games == 0) continue;
+            builder.append("\n\t\tcapital: ").append(summary(capital[seat]))
+                .append("\n\t\tturns survived: ").append(summary(turns[seat]))
+                .append("\n\t\tproperties: ").append(summary(properties[seat]))
+                .append("\n\t\thouses: ").append(summary(houses[seat]));
+        }
+        return builder.append("\n}").toString();
+    }
+
+    /**
+     * Describes a distribution by its extremes and quartiles.
+     *
+     * @param sketch The sketch of the distribution.
+     * @return The description.
+     */
+    private static String summary(QuantileSketch sketch) {
+        long[] values = sketch.getQuantiles(0, 0.25, 0.5, 0.75, 1);
+        return values[0] + " / " + values[1] + " / " + values[2] + " / " + values[3] + " / " + values[4];
+    }
+
+    /**
+     * Records the games of a single thread into the profile: listens to the events of a game, then records its end.
+     */
+    final class Recorder implements GameEventListener {
+
+        /**
+         * The game being recorded.
+         */
+        private GameKernel game;
+
+        /**
+         * The number of turns of the current game every player survived, -1 while they are in the game.
+         */
+        private final int[] survived;
+
+        /**
+         * The number of properties every eliminated player owned when they went bankrupt.
+         */
+        private final int[] owned;
+
+        /**
+         * The number of houses every eliminated player had when they went bankrupt.
+         */
+        private final int[] built;
+
+        /**
+         * Constructs a new Recorder.
+         */
+        private Recorder() {
+            this.survived = new int[players.size()];
+            this.owned = new int[players.size()];
+            this.built = new int[players.size()];
+        }
+
+        /**
+         * Prepares the recording of a new game.
+         *
+         * @param game The game, reset.
+         */
+        void start(GameKernel game) {
+            this.game = game;
+            Arrays.fill(survived, -1);
+        }
+
+        /**
+         * Counts the landings and records what the eliminated players had, before their tiles are released.
+         *
+         * @param type   The type of the event.
+         * @param seat   The seat of the player.
+         * @param tile   The index of the tile.
+         * @param amount The amount of money, or the roll of a move.
+         */
+        @Override
+        public void onEvent(EventType type, int seat, int tile, int amount) {
+            if (type == EventType.MOVE) landings.add(tile);
+            else if (type == EventType.ELIMINATION) {
+                survived[seat] = game.getTurns();
+                owned[seat] = game.getProperties(seat);
+                built[seat] = game.getHouses(seat);
+            }
+        }
+
+        /**
+         * Records the end of the game.
+         */
+        void finish() {
+            long state = game.getWinner() * 0x9E3779B97F4A7C15L + game.getTurns();
+            for (int seat = 0; seat < survived.length; seat++) {
+                capital[seat].add(game.getCapital(seat));
+                boolean eliminated = survived[seat] >= 0;
+                turns[seat].add(eliminated ? survived[seat] : game.getTurns());
+                properties[seat].add(eliminated ? owned[seat] : game.getProperties(seat));
+                houses[seat].add(eliminated ? built[seat] : game.getHouses(seat));
+                state = (state * 0x9E3779B97F4A7C15L + game.getCapital(seat)) * 0x9E3779B97F4A7C15L + game.getPosition(seat);
+            }
+            endStates.add(state);
+            games++;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package capitaly.simulation;
+
+import capitaly.player.Strategy;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregated results of a batch of games played with the same track and players.
+ * Partial results of parallel workers are combined with {@link #merge(BatchResult)}.
+ */
+public final class BatchResult {
+
+    /**
+     * The number of game length buckets, one for each power of two of an int.
+     */
+    private static final int LENGTH_BUCKETS = Integer.SIZE;
+
+    /**
+     * The strategies of the seats, in seating order.
+     */
+    private final List<Strategy> seats;
+
+    /**
+     * The number of games won by each seat.
+     */
+    private final long[] winsBySeat;
+
+    /**
+     * The number of finished games by length, bucket i holding the lengths in [2^(i-1), 2^i).
+     */
+    private final long[] lengthHistogram;
+
+    /**
+     * The number of games played.
+     */
+    private long games;
+
+    /**
+     * The number of games that reached the turn limit without a winner.
+     */
+    private long unfinished;
+
+    /**
+     * The sum of the lengths of the finished games.
+     */
+    private long totalTurns;
+
+    /**
+     * The length of the shortest finished game.
+     */
+    private int minTurns;
+
+    /**
+     * The length of the longest finished game.
+     */
+    private int maxTurns;
+
+    /**
+     * Constructs a new, empty BatchResult for the given seats.
+     *
+     * @param seats The strategies of the seats, in seating order.
+     */
+    BatchResult(List<Strategy> seats) {
+        this.seats = List.copyOf(seats);
+        this.winsBySeat = new long[seats.size()];
+        this.lengthHistogram = new long[LENGTH_BUCKETS];
+        this.minTurns = Integer.MAX_VALUE;
+        this.maxTurns = 0;
+    }
+
+    /**
+     * Records the outcome of a single game.
+     *
+     * @param winner The seat of the winner, or -1 if the game did not finish.
+     * @param turns  The number of turns played.
+     */
+    void record(int winner, int turns) {
+        this.games++;
+        if (winner < 0) {
+            this.unfinished++;
+            return;
+        }
+
+        this.winsBySeat[winner]++;
+        this.lengthHistogram[Integer.SIZE - Integer.numberOfLeadingZeros(turns)]++;
+        this.totalTurns += turns;
+        this.minTurns = Math.min(this.minTurns, turns);
+        this.maxTurns = Math.max(this.maxTurns, turns);
+    }
+
+    /**
+     * Adds the games of another result to this one.
+     *
+     * @param other The result to merge into this one.
+     * @return This result.
+     * @throws IllegalArgumentException If the results belong to different seatings.
+     */
+    public BatchResult merge(BatchResult other) {
+        if (!this.seats.equals(other.seats))
+            throw new IllegalArgumentException("Cannot merge results of different seatings: " + this.seats + " and " + other.seats + '.');
+
+        for (int i = 0; i < winsBySeat.length; i++) this.winsBySeat[i] += other.winsBySeat[i];
+        for (int i = 0; i < LENGTH_BUCKETS; i++) this.lengthHistogram[i] += other.lengthHistogram[i];
+        this.games += other.games;
+        this.unfinished += other.unfinished;
+        this.totalTurns += other.totalTurns;
+        this.minTurns = Math.min(this.minTurns, other.minTurns);
+        this.maxTurns = Math.max(this.maxTurns, other.maxTurns);
+        return this;
+    }
+
+    /**
+     * Writes the result, without its seats, for {@link #read(DataInput, List)} to read it back, in a checkpoint or on
+     * another machine.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeLong(games);
+        out.writeLong(unfinished);
+        out.writeLong(totalTurns);
+        out.writeInt(minTurns);
+        out.writeInt(maxTurns);
+        for (long wins : winsBySeat) out.writeLong(wins);
+        for (long count : lengthHistogram) out.writeLong(count);
+    }
+
+    /**
+     * Reads a result written by {@link #write(DataOutput)}.
+     *
+     * @param in    The input to read from.
+     * @param seats The strategies of the seats, in seating order.
+     * @return The result.
+     * @throws IOException If the input cannot be read or ends before the result.
+     */
+    public static BatchResult read(DataInput in, List<Strategy> seats) throws IOException {
+        BatchResult result = new BatchResult(seats);
+        result.games = in.readLong();
+        result.unfinished = in.readLong();
+        result.totalTurns = in.readLong();
+        result.minTurns = in.readInt();
+        result.maxTurns = in.readInt();
+        for (int i = 0; i < result.winsBySeat.length; i++) result.winsBySeat[i] = in.readLong();
+        for (int i = 0; i < LENGTH_BUCKETS; i++) result.lengthHistogram[i] = in.readLong();
+        return result;
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return The number of games played.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games that reached the turn limit without a winner.
+     *
+     * @return The number of unfinished games.
+     */
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * Returns the number of games won by each seat.
+     *
+     * @return The wins of the seats, in seating order.
+     */
+    public long[] getWinsBySeat() {
+        return winsBySeat.clone();
+    }
+
+    /**
+     * Returns the number of games won by each strategy.
+     *
+     * @return The wins of the strategies present at the table.
+     */
+    public Map<Strategy, Long> getWinsByStrategy() {
+        Map<Strategy, Long> result = new EnumMap<>(Strategy.class);
+        for (int i = 0; i < winsBySeat.length; i++) result.merge(seats.get(i), winsBySeat[i], Long::sum);
+        return result;
+    }
+
+    /**
+     * Returns the distribution of the lengths of the finished games.
+     * Bucket 0 counts the games over before the first turn, bucket i (i > 0) the lengths in [2^(i-1), 2^i).
+     *
+     * @return The game length histogram.
+     */
+    public long[] getLengthHistogram() {
+        return lengthHistogram.clone();
+    }
+
+    /**
+     * Returns the average length of the finished games.
+     *
+     * @return The mean number of turns, or NaN if no game finished.
+     */
+    public double getMeanTurns() {
+        long finished = games - unfinished;
+        return finished == 0 ? Double.NaN : (double) totalTurns / finished;
+    }
+
+    /**
+     * Returns the length of the shortest finished game.
+     *
+     * @return The minimum number of turns, or 0 if no game finished.
+     */
+    public int getMinTurns() {
+        return games == unfinished ? 0 : minTurns;
+    }
+
+    /**
+     * Returns the length of the longest finished game.
+     *
+     * @return The maximum number of turns.
+     */
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+
+    /**
+     * Returns the string representation of the BatchResult.
+     *
+     * @return The string describing the result.
+     */
+    @Override
+    public String toString() {
+        return "BatchResult {" +
+            "\n\tgames: " + games +
+            "\n\tunfinished: " + unfinished +
+            "\n\twins: " + getWinsByStrategy() +
+            "\n\tturns: " + getMinTurns() + " .. " + maxTurns + " (mean " + getMeanTurns() + ')' +
+            "\n}";
+    }
+}
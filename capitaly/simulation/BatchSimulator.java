@@ -0,0 +1,467 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.dice.RandomRollSource;
+import capitaly.event.GameEventListener;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.LockstepKernel;
+import capitaly.kernel.OutcomeCache;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many headless games of the same track, players and rules in parallel.
+ * Every game rolls its die from its own seed, so a batch is reproducible regardless of how it is split between threads.
+ * The games are played on a {@link GameKernel} per worker thread, reset between games, or, on tracks without real
+ * estate, settled from the rolls by an {@link OutcomeAnalyzer} per worker thread. With more than one lane, the games
+ * of a worker thread are played several at once on a {@link LockstepKernel}, unless their players cannot be.
+ */
+public final class BatchSimulator {
+
+    /**
+     * The number of games below which a batch is played on a single thread instead of being split further.
+     */
+    private static final long GAMES_PER_TASK = 256;
+
+    /**
+     * The layout of the track.
+     */
+    private final TrackSpec track;
+
+    /**
+     * The players at the table, in seating order.
+     */
+    private final List<PlayerSpec> players;
+
+    /**
+     * The rules of the games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The number of turns after which a game is abandoned without a winner.
+     */
+    private final int maxTurns;
+
+    /**
+     * Whether the first turn rotates around the table from game to game.
+     */
+    private final boolean rotateSeats;
+
+    /**
+     * The pool the games are played on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The game state of each worker thread, reused between games.
+     */
+    private final ThreadLocal<GameKernel> kernels;
+
+    /**
+     * The analyzer of each worker thread, null unless the track has no real estate.
+     */
+    private final ThreadLocal<OutcomeAnalyzer> analyzers;
+
+    /**
+     * The lockstep game state of each worker thread, null unless the games are played in lockstep.
+     */
+    private final ThreadLocal<LockstepKernel> lockstep;
+
+    /**
+     * The cache of the continuations shared by the games, null to play every game in full.
+     */
+    private final OutcomeCache cache;
+
+    /**
+     * Constructs a new BatchSimulator playing on the common fork-join pool.
+     *
+     * @param track    The layout of the track.
+     * @param players  The players at the table, in seating order.
+     * @param maxTurns The number of turns after which a game is abandoned without a winner.
+     */
+    public BatchSimulator(TrackSpec track, List<PlayerSpec> players, int maxTurns) {
+        this(track, players, maxTurns, false, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new BatchSimulator playing on the given pool.
+     * With rotating seats, the game rolling from seed s is started by the seat s modulo the number of players, so
+     * every seat moves first equally often and the results do not favour the first seat.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param pool        The pool the games are played on.
+     * @throws IllegalArgumentException If there are no players or the turn limit is not positive.
+     */
+    public BatchSimulator(TrackSpec track, List<PlayerSpec> players, int maxTurns, boolean rotateSeats, ForkJoinPool pool) {
+        this(track, players, maxTurns, rotateSeats, pool, 1);
+    }
+
+    /**
+     * Constructs a new BatchSimulator playing on the given pool, every worker thread playing the given number of games
+     * at once in lockstep. The results are the same whatever the number of lanes.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param pool        The pool the games are played on.
+     * @param lanes       The number of games played at once by a worker thread, from 1 to
+     *                    {@value LockstepKernel#MAX_LANES}, 1 to play them one by one.
+     * @throws IllegalArgumentException If there are no players, the turn limit is not positive or the number of lanes
+     *                                  is out of range.
+     */
+    public BatchSimulator(TrackSpec track, List<PlayerSpec> players, int maxTurns, boolean rotateSeats, ForkJoinPool pool, int lanes) {
+        this(track, players, RuleSet.STANDARD, maxTurns, rotateSeats, pool, lanes);
+    }
+
+    /**
+     * Constructs a new BatchSimulator playing under the given rules on the given pool, every worker thread playing the
+     * given number of games at once in lockstep.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param rules       The rules of the games.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param pool        The pool the games are played on.
+     * @param lanes       The number of games played at once by a worker thread, from 1 to
+     *                    {@value LockstepKernel#MAX_LANES}, 1 to play them one by one.
+     * @throws IllegalArgumentException If there are no players, the turn limit is not positive or the number of lanes
+     *                                  is out of range.
+     */
+    public BatchSimulator(TrackSpec track, List<PlayerSpec> players, RuleSet rules, int maxTurns, boolean rotateSeats, ForkJoinPool pool, int lanes) {
+        this(track, players, rules, maxTurns, rotateSeats, pool, lanes, null);
+    }
+
+    /**
+     * Constructs a new BatchSimulator playing under the given rules on the given pool, the games sharing the given
+     * cache of continuations. With a cache, the games are played one by one on a {@link GameKernel} per worker thread,
+     * replaying the chunks of rolls the cache knows from their state, see
+     * {@link GameKernel#play(capitaly.dice.RollSource, int, OutcomeCache)}; the results are the same as without it.
+     * As the cache only replays the openings the games share, it pays off when the openings are a large part of the
+     * games and the decisions are expensive: games of lookahead players of a few dozen turns, as those of the
+     * {@code cachedBatch} benchmark starting with a capital of 1000, run 1.3 to 2.3 times as fast, the more so as more
+     * games share the cache. Games of hundreds of turns or more, or of players deciding at a glance, gain nothing and
+     * pay for the lookups and the stored states.
+     *
+     * @param track       The layout of the track.
+     * @param players     The players at the table, in seating order.
+     * @param rules       The rules of the games.
+     * @param maxTurns    The number of turns after which a game is abandoned without a winner.
+     * @param rotateSeats Whether the first turn rotates around the table from game to game.
+     * @param pool        The pool the games are played on.
+     * @param lanes       The number of games played at once by a worker thread without a cache, from 1 to
+     *                    {@value LockstepKernel#MAX_LANES}, 1 to play them one by one.
+     * @param cache       The cache of continuations, used by the games of this scenario only, null for none.
+     * @throws IllegalArgumentException If there are no players, the turn limit is not positive or the number of lanes
+     *                                  is out of range.
+     */
+    public BatchSimulator(TrackSpec track, List<PlayerSpec> players, RuleSet rules, int maxTurns, boolean rotateSeats, ForkJoinPool pool, int lanes, OutcomeCache cache) {
+        if (players.isEmpty()) throw new IllegalArgumentException("A game needs at least one player.");
+        if (maxTurns < 1) throw new IllegalArgumentException("Expected a positive turn limit, got " + maxTurns + '.');
+        if (lanes < 1 || lanes > LockstepKernel.MAX_LANES)
+            throw new IllegalArgumentException("Expected 1 to " + LockstepKernel.MAX_LANES + " lanes, got " + lanes + '.');
+        this.track = track;
+        this.players = List.copyOf(players);
+        this.rules = rules;
+        this.maxTurns = maxTurns;
+        this.rotateSeats = rotateSeats;
+        this.pool = pool;
+        this.cache = cache;
+        this.kernels = ThreadLocal.withInitial(() -> new GameKernel(this.track, this.players, this.rules));
+        this.analyzers = OutcomeAnalyzer.isClosedForm(track) ? ThreadLocal.withInitial(() -> new OutcomeAnalyzer(this.track, this.players, this.rules)) : null;
+        this.lockstep = lanes > 1 && analyzers == null && cache == null && LockstepKernel.supports(players)
+            ? ThreadLocal.withInitial(() -> new LockstepKernel(this.track, this.players, this.rules, lanes)) : null;
+    }
+
+    /**
+     * Plays the given number of games, the i-th game rolling from the seed {@code firstSeed + i}.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games to play.
+     * @return The aggregated results of the games.
+     */
+    public BatchResult run(long firstSeed, long games) {
+        if (games < 0) throw new IllegalArgumentException("Expected a non-negative game count, got " + games + '.');
+        return pool.invoke(new Batch(firstSeed, games));
+    }
+
+    /**
+     * Plays the given number of games on the calling thread, the i-th game rolling from the seed {@code firstSeed + i}.
+     * The results are the same as those of {@link #run}, for callers scheduling the games themselves.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games to play.
+     * @return The aggregated results of the games.
+     */
+    public BatchResult runOnCurrentThread(long firstSeed, long games) {
+        if (games < 0) throw new IllegalArgumentException("Expected a non-negative game count, got " + games + '.');
+        BatchResult result = emptyResult();
+        RandomRollSource die = new RandomRollSource(firstSeed);
+        if (analyzers != null) {
+            OutcomeAnalyzer analyzer = analyzers.get();
+            for (long i = 0; i < games; i++) settle(analyzer, die, firstSeed + i, result);
+            analyzer.flushMetrics();
+            return result;
+        }
+        if (lockstep != null) {
+            LockstepKernel game = lockstep.get();
+            playLockstep(game, firstSeed, games, result);
+            game.flushMetrics();
+            return result;
+        }
+
+        GameKernel game = kernels.get();
+        for (long i = 0; i < games; i++) play(game, die, firstSeed + i, result);
+        game.flushMetrics();
+        return result;
+    }
+
+    /**
+     * Plays the given number of games like {@link #run}, and profiles them instead of only counting their winners.
+     * Every worker thread records its games into its own {@link BatchProfile}, without locks, and the profiles are
+     * merged once every game is played. The games are always played on a {@link GameKernel}, which reports their events.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games to play.
+     * @return The merged profile of the games.
+     */
+    public BatchProfile profile(long firstSeed, long games) {
+        if (games < 0) throw new IllegalArgumentException("Expected a non-negative game count, got " + games + '.');
+        Queue<BatchProfile> profiles = new ConcurrentLinkedQueue<>();
+        ThreadLocal<BatchProfile.Recorder> recorders = ThreadLocal.withInitial(() -> {
+            BatchProfile profile = new BatchProfile(track.length(), players);
+            profiles.add(profile);
+            return profile.recorder();
+        });
+        pool.invoke(new Profile(firstSeed, games, recorders));
+
+        BatchProfile result = new BatchProfile(track.length(), players);
+        for (BatchProfile profile : profiles) result.merge(profile);
+        return result;
+    }
+
+    /**
+     * Creates an empty result for the players of this simulator.
+     *
+     * @return The empty result.
+     */
+    private BatchResult emptyResult() {
+        return new BatchResult(players.stream().map(PlayerSpec::strategy).toList());
+    }
+
+    /**
+     * Plays a single game rolling from the given seed and records its outcome.
+     *
+     * @param game   The game state to play on.
+     * @param die    The die to roll, reseeded for the game.
+     * @param seed   The seed of the die.
+     * @param result The result to record the outcome in.
+     */
+    private void play(GameKernel game, RandomRollSource die, long seed, BatchResult result) {
+        die.reseed(seed);
+        game.reset(rotateSeats ? (int) Math.floorMod(seed, (long) players.size()) : 0);
+        this.play(game, die);
+        result.record(game.getWinner(), game.getTurns());
+    }
+
+    /**
+     * Plays a reset game until it is over or reaches the turn limit, through the cache if there is one.
+     *
+     * @param game The game.
+     * @param die  The die to roll.
+     */
+    private void play(GameKernel game, RandomRollSource die) {
+        if (cache != null) game.play(die, maxTurns, cache);
+        else game.play(die, maxTurns);
+    }
+
+    /**
+     * Plays the games rolling from the given seeds in lockstep and records their outcomes. Every lane rolls its own
+     * die, and starts the next game as soon as its game ends, so the lanes stay busy until the last games.
+     *
+     * @param game      The lockstep game state to play on.
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games to play.
+     * @param result    The result to record the outcomes in.
+     */
+    private void playLockstep(LockstepKernel game, long firstSeed, long games, BatchResult result) {
+        int lanes = game.getLanes();
+        RandomRollSource[] dice = new RandomRollSource[lanes];
+        int[] rolls = new int[lanes];
+        long next = 0;
+        for (int lane = 0; lane < lanes; lane++) {
+            dice[lane] = new RandomRollSource(firstSeed);
+            next = start(game, lane, dice[lane], firstSeed, next, games, result);
+        }
+
+        for (long running = game.getRunning(); running != 0; ) {
+            for (long mask = running; mask != 0; mask &= mask - 1) {
+                int lane = Long.numberOfTrailingZeros(mask);
+                rolls[lane] = dice[lane].nextRoll();
+            }
+            long still = game.step(rolls, maxTurns);
+            for (long mask = running & ~still; mask != 0; mask &= mask - 1) {
+                int lane = Long.numberOfTrailingZeros(mask);
+                result.record(game.getWinner(lane), game.getTurns(lane));
+                next = start(game, lane, dice[lane], firstSeed, next, games, result);
+            }
+            running = game.getRunning();
+        }
+    }
+
+    /**
+     * Starts the next game that runs in a lane, recording the outcome of the games over before their first turn.
+     *
+     * @param game      The lockstep game state.
+     * @param lane      The lane to start the game in.
+     * @param die       The die of the lane, reseeded for the game.
+     * @param firstSeed The seed of the first game.
+     * @param next      The index of the next game to start.
+     * @param games     The number of games to play.
+     * @param result    The result to record the outcomes in.
+     * @return The index of the game after the started one, or the number of games if every game has been started.
+     */
+    private long start(LockstepKernel game, int lane, RandomRollSource die, long firstSeed, long next, long games, BatchResult result) {
+        for (; next < games; next++) {
+            long seed = firstSeed + next;
+            die.reseed(seed);
+            game.reset(lane, rotateSeats ? (int) Math.floorMod(seed, (long) players.size()) : 0);
+            if ((game.getRunning() & 1L << lane) != 0) return next + 1;
+            result.record(game.getWinner(lane), game.getTurns(lane));
+        }
+        return next;
+    }
+
+    /**
+     * Settles a single game rolling from the given seed from its rolls and records its outcome.
+     *
+     * @param analyzer The analyzer to settle the game with.
+     * @param die      The die to roll, reseeded for the game.
+     * @param seed     The seed of the die.
+     * @param result   The result to record the outcome in.
+     */
+    private void settle(OutcomeAnalyzer analyzer, RandomRollSource die, long seed, BatchResult result) {
+        die.reseed(seed);
+        analyzer.play(die, maxTurns, rotateSeats ? (int) Math.floorMod(seed, (long) players.size()) : 0);
+        result.record(analyzer.getWinner(), analyzer.getTurns());
+    }
+
+    /**
+     * A range of games, split in halves until it is small enough to be played on one thread.
+     */
+    @SuppressWarnings("serial")
+    private final class Batch extends RecursiveTask<BatchResult> {
+
+        /**
+         * The seed of the first game in the range.
+         */
+        private final long firstSeed;
+
+        /**
+         * The number of games in the range.
+         */
+        private final long games;
+
+        /**
+         * Constructs a new Batch of the given range.
+         *
+         * @param firstSeed The seed of the first game in the range.
+         * @param games     The number of games in the range.
+         */
+        private Batch(long firstSeed, long games) {
+            this.firstSeed = firstSeed;
+            this.games = games;
+        }
+
+        /**
+         * Plays the games of the range.
+         *
+         * @return The aggregated results of the range.
+         */
+        @Override
+        protected BatchResult compute() {
+            if (games <= GAMES_PER_TASK) return runOnCurrentThread(firstSeed, games);
+
+            long half = games / 2;
+            Batch second = new Batch(firstSeed + half, games - half);
+            second.fork();
+            BatchResult result = new Batch(firstSeed, half).compute();
+            return result.merge(second.join());
+        }
+    }
+
+    /**
+     * A range of games to profile, split in halves until it is small enough to be played on one thread.
+     */
+    @SuppressWarnings("serial")
+    private final class Profile extends RecursiveAction {
+
+        /**
+         * The seed of the first game in the range.
+         */
+        private final long firstSeed;
+
+        /**
+         * The number of games in the range.
+         */
+        private final long games;
+
+        /**
+         * The recorder of each worker thread.
+         */
+        private final ThreadLocal<BatchProfile.Recorder> recorders;
+
+        /**
+         * Constructs a new Profile of the given range.
+         *
+         * @param firstSeed The seed of the first game in the range.
+         * @param games     The number of games in the range.
+         * @param recorders The recorder of each worker thread.
+         */
+        private Profile(long firstSeed, long games, ThreadLocal<BatchProfile.Recorder> recorders) {
+            this.firstSeed = firstSeed;
+            this.games = games;
+            this.recorders = recorders;
+        }
+
+        /**
+         * Plays the games of the range, recording them with the recorder of the thread.
+         */
+        @Override
+        protected void compute() {
+            if (games > GAMES_PER_TASK) {
+                long half = games / 2;
+                invokeAll(new Profile(firstSeed, half, recorders), new Profile(firstSeed + half, games - half, recorders));
+                return;
+            }
+
+            GameKernel game = kernels.get();
+            BatchProfile.Recorder recorder = recorders.get();
+            RandomRollSource die = new RandomRollSource(firstSeed);
+            game.setListener(recorder);
+            try {
+                for (long i = 0; i < games; i++) {
+                    long seed = firstSeed + i;
+                    die.reseed(seed);
+                    game.reset(rotateSeats ? (int) Math.floorMod(seed, (long) players.size()) : 0);
+                    recorder.start(game);
+                    play(game, die);
+                    recorder.finish();
+                }
+            } finally {
+                game.setListener(GameEventListener.NONE);
+                game.flushMetrics();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package capitaly.simulation;
+
+import capitaly.io.InvalidInputException;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * An append-only file of the records of a long run, so that the run can resume after an interruption.
+ * The file starts with a header fingerprinting the run, and a run only resumes from a file with the same header. Every
+ * record is appended and flushed at once when it is done; a record cut short by an interruption is dropped when the
+ * file is opened again.
+ */
+final class Checkpoint implements Closeable {
+
+    /**
+     * The output appending the records to the file.
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Constructs a new Checkpoint appending to the given output.
+     *
+     * @param out The output appending the records to the file.
+     */
+    private Checkpoint(DataOutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Reads the records of the checkpoint at the given path and opens it for appending.
+     * A missing or empty file is started with the header.
+     *
+     * @param path   The path of the checkpoint.
+     * @param header The header of the run.
+     * @param reader The reader of the records, called for every record in the order they were appended.
+     * @return The checkpoint, appending after the last complete record.
+     * @throws IOException           If the file cannot be read or written, or the reader fails.
+     * @throws InvalidInputException If the file does not start with the header.
+     */
+    static Checkpoint open(Path path, byte[] header, Reader reader) throws IOException {
+        byte[] bytes = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        long valid = 0;
+        if (bytes.length > 0) {
+            if (bytes.length < header.length || !Arrays.equals(bytes, 0, header.length, header, 0, header.length))
+                throw new InvalidInputException("The file " + path + " is not a checkpoint of this run.");
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, header.length, bytes.length - header.length));
+            valid = header.length;
+            try {
+                while (in.available() > 0) {
+                    reader.read(in);
+                    valid = bytes.length - in.available();
+                }
+            } catch (EOFException exception) {
+                // The last record was cut short, it is done again.
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(valid);
+            if (valid == 0) channel.write(ByteBuffer.wrap(header));
+        }
+        return new Checkpoint(new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, StandardOpenOption.APPEND))));
+    }
+
+    /**
+     * Creates a header from what the writer writes.
+     *
+     * @param writer The writer of the header.
+     * @return The bytes of the header.
+     */
+    static byte[] header(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends a record to the file and flushes it, so that an interruption loses no earlier record.
+     *
+     * @param writer The writer of the record.
+     * @throws UncheckedIOException If the record cannot be written.
+     */
+    synchronized void append(Writer writer) {
+        try {
+            writer.write(out);
+            out.flush();
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Reads a record of a checkpoint.
+     */
+    @FunctionalInterface
+    interface Reader {
+
+        /**
+         * Reads a whole record before applying it, so that a record cut short is not applied.
+         *
+         * @param in The input to read from.
+         * @throws IOException If the input cannot be read or ends before the record.
+         */
+        void read(DataInput in) throws IOException;
+    }
+
+    /**
+     * Writes a record or the header of a checkpoint.
+     */
+    @FunctionalInterface
+    interface Writer {
+
+        /**
+         * Writes the record.
+         *
+         * @param out The output to write to.
+         * @throws IOException If the output cannot be written.
+         */
+        void write(DataOutput out) throws IOException;
+    }
+}
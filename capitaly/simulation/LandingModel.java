@@ -0,0 +1,322 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.tile.TileKind;
+
+import java.util.Arrays;
+
+/**
+ * The Markov chain of a single player moving around a track, as {@link capitaly.Track#progress} moves them: starting
+ * before the first tile and moving by the roll modulo the length of the track. Only the die decides where a player
+ * lands, so the chain gives the probability that a player lands on each tile without playing any game, and with it the
+ * expected rent collected by every real estate tile.
+ * <p>
+ * The transition matrix is circulant: every tile moves to the tiles up to the highest roll ahead with the same
+ * probabilities. Its columns therefore sum to one like its rows, so in the long run a player lands on every reachable
+ * tile equally often, which {@link #getLongRunFrequencies()} gives in closed form. Power iteration would only approach
+ * that fixed point, in a number of steps growing with the square of the length of the track. What depends on the
+ * layout is the early game, which {@link #getDistribution(int)} and {@link #getExpectedVisits(int)} compute exactly by
+ * propagating the distribution of the player one move at a time: it is banded, spread over at most
+ * {@code moves * (highest - lowest roll) + 1} tiles, so long tracks cost nothing until the band wraps around them.
+ * <p>
+ * A model is immutable and can be shared between threads.
+ */
+public final class LandingModel {
+
+    /**
+     * The number of faces of the die rolled by {@link capitaly.dice.RandomRollSource}.
+     */
+    public static final int DIE_FACES = 6;
+
+    /**
+     * The largest total error of the probabilities of the rolls.
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    /**
+     * The largest error of any landing probability for the distribution of a player to be considered settled.
+     */
+    private static final double SETTLED = 1e-13;
+
+    /**
+     * The number of moves between two checks whether the distribution has settled.
+     */
+    private static final int SETTLE_CHECK_INTERVAL = 16;
+
+    /**
+     * The layout of the track.
+     */
+    private final TrackSpec track;
+
+    /**
+     * The length of the track.
+     */
+    private final int length;
+
+    /**
+     * The probability of each roll, by roll.
+     */
+    private final double[] rolls;
+
+    /**
+     * The lowest roll with a positive probability.
+     */
+    private final int lowest;
+
+    /**
+     * The highest roll with a positive probability.
+     */
+    private final int highest;
+
+    /**
+     * The greatest common divisor of the length of the track and the possible rolls: in the long run, a player only
+     * lands on every tile whose index plus one is a multiple of it.
+     */
+    private final int period;
+
+    /**
+     * Constructs a new LandingModel of the given track with a fair die, as rolled by
+     * {@link capitaly.dice.RandomRollSource}.
+     *
+     * @param track The layout of the track.
+     */
+    public LandingModel(TrackSpec track) {
+        this(track, fairDie());
+    }
+
+    /**
+     * Constructs a new LandingModel of the given track with the given die.
+     *
+     * @param track The layout of the track.
+     * @param rolls The probability of each roll, by roll, e.g. {@code rolls[3]} for a three. Rolls are positive, so
+     *              {@code rolls[0]} is zero.
+     * @throws IllegalArgumentException If the probabilities are negative, do not sum up to one or give a roll of zero.
+     */
+    public LandingModel(TrackSpec track, double[] rolls) {
+        if (rolls.length < 2) throw new IllegalArgumentException("Expected the probabilities of the rolls from 1, got " + rolls.length + " values.");
+        if (rolls[0] != 0) throw new IllegalArgumentException("Expected no probability for a roll of 0, got " + rolls[0] + '.');
+
+        int lowest = 0, highest = 0, divisor = track.length();
+        double sum = 0;
+        for (int roll = 1; roll < rolls.length; roll++) {
+            double probability = rolls[roll];
+            if (!(probability >= 0)) throw new IllegalArgumentException("Expected a non-negative probability for a roll of " + roll + ", got " + probability + '.');
+            if (probability == 0) continue;
+            if (lowest == 0) lowest = roll;
+            highest = roll;
+            divisor = gcd(divisor, roll);
+            sum += probability;
+        }
+        if (Math.abs(sum - 1) > TOLERANCE) throw new IllegalArgumentException("Expected the probabilities of the rolls to sum up to 1, got " + sum + '.');
+
+        this.track = track;
+        this.length = track.length();
+        this.rolls = Arrays.copyOf(rolls, highest + 1);
+        this.lowest = lowest;
+        this.highest = highest;
+        this.period = divisor;
+    }
+
+    /**
+     * Returns the probabilities of the rolls of a fair die.
+     *
+     * @return The probability of each roll, by roll.
+     */
+    private static double[] fairDie() {
+        double[] rolls = new double[DIE_FACES + 1];
+        Arrays.fill(rolls, 1, rolls.length, 1.0 / DIE_FACES);
+        return rolls;
+    }
+
+    /**
+     * Returns the greatest common divisor of two positive integers.
+     *
+     * @param a The first integer.
+     * @param b The second integer.
+     * @return The greatest common divisor.
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * Returns the share of the moves of a player that end on each tile, in the long run.
+     * The tiles a player can reach are all landed on equally often; if the length of the track and every possible roll
+     * share a divisor, only every such tile is reachable.
+     *
+     * @return The frequency of each tile, by index, summing up to one.
+     */
+    public double[] getLongRunFrequencies() {
+        double[] frequencies = new double[length];
+        double frequency = (double) period / length;
+        for (int tile = period - 1; tile < length; tile += period) frequencies[tile] = frequency;
+        return frequencies;
+    }
+
+    /**
+     * Returns the probability of a player standing on each tile after the given number of moves from the start.
+     *
+     * @param moves The number of moves, non-negative.
+     * @return The probability of each tile, by index, all zero before the first move.
+     * @throws IllegalArgumentException If the number of moves is negative.
+     */
+    public double[] getDistribution(int moves) {
+        return this.propagate(moves, null);
+    }
+
+    /**
+     * Returns the expected number of times a player lands on each tile during their first moves.
+     * Divided by the number of moves, it is the probability of landing on each tile in a game that short.
+     *
+     * @param moves The number of moves, non-negative.
+     * @return The expected number of landings on each tile, by index, summing up to the number of moves.
+     * @throws IllegalArgumentException If the number of moves is negative.
+     */
+    public double[] getExpectedVisits(int moves) {
+        double[] visits = new double[length];
+        this.propagate(moves, visits);
+        return visits;
+    }
+
+    /**
+     * Returns the expected rent collected by each real estate tile for the given landings, under the standard rules.
+     * With {@link #getLongRunFrequencies()}, it is the rent a tile collects per move of an opponent; with
+     * {@link #getExpectedVisits(int)}, the rent it collects from an opponent during that many moves.
+     *
+     * @param landings The landings on each tile, by index.
+     * @param houses   Whether the tiles have a house.
+     * @return The expected rent of each tile, by index, zero for the tiles that are not real estate.
+     * @throws IllegalArgumentException If there are not as many landings as tiles.
+     */
+    public double[] getRentFlow(double[] landings, boolean houses) {
+        return this.getRentFlow(landings, houses, RuleSet.STANDARD);
+    }
+
+    /**
+     * Returns the expected rent collected by each real estate tile for the given landings, under the given rules.
+     *
+     * @param landings The landings on each tile, by index.
+     * @param houses   Whether the tiles have a house.
+     * @param rules    The rules setting the landing fees.
+     * @return The expected rent of each tile, by index, zero for the tiles that are not real estate.
+     * @throws IllegalArgumentException If there are not as many landings as tiles.
+     * @see #getRentFlow(double[], boolean)
+     */
+    public double[] getRentFlow(double[] landings, boolean houses, RuleSet rules) {
+        if (landings.length != length) throw new IllegalArgumentException("Expected " + length + " landings, got " + landings.length + '.');
+
+        int fee = rules.landingFee(houses);
+        double[] rents = new double[length];
+        for (int tile = 0; tile < length; tile++)
+            if (track.kind(tile) == TileKind.REAL_ESTATE) rents[tile] = landings[tile] * fee;
+        return rents;
+    }
+
+    /**
+     * Moves the distribution of a player from the start the given number of times.
+     * While the distribution is narrower than the track, it is kept as a band over the sums of the rolls, which does
+     * not depend on the length of the track. Once it is wider, it is folded onto the track and kept per tile, until it
+     * is indistinguishable from the long run frequencies, which then stay the same for every further move.
+     *
+     * @param moves  The number of moves, non-negative.
+     * @param visits The array adding up the distribution after every move, null if not needed.
+     * @return The distribution after the last move.
+     * @throws IllegalArgumentException If the number of moves is negative.
+     */
+    private double[] propagate(int moves, double[] visits) {
+        if (moves < 0) throw new IllegalArgumentException("Expected a non-negative number of moves, got " + moves + '.');
+
+        double[] distribution = new double[length];
+        if (moves == 0) return distribution;
+
+        // The probability of every sum of the rolls from low, starting with a sum of 0 before the first move.
+        int spread = highest - lowest;
+        int capacity = (int) Math.min((long) moves * spread + 1, length + spread);
+        double[] band = new double[capacity], following = new double[capacity];
+        band[0] = 1;
+        int width = 1;
+        long low = 0;
+        int move = 0;
+        while (move < moves) {
+            int grown = width + spread;
+            if (move > 0 && grown > length) break;
+
+            Arrays.fill(following, 0, grown, 0);
+            for (int roll = lowest; roll <= highest; roll++) {
+                double probability = rolls[roll];
+                if (probability == 0) continue;
+                int offset = roll - lowest;
+                for (int i = 0; i < width; i++) following[i + offset] += probability * band[i];
+            }
+            double[] swap = band;
+            band = following;
+            following = swap;
+            width = grown;
+            low += lowest;
+            move++;
+            if (visits != null) fold(band, width, low, visits);
+        }
+
+        fold(band, width, low, distribution);
+        if (move == moves) return distribution;
+
+        double[] next = new double[length];
+        double[] frequencies = this.getLongRunFrequencies();
+        while (move < moves) {
+            Arrays.fill(next, 0);
+            for (int roll = lowest; roll <= highest; roll++) {
+                double probability = rolls[roll];
+                if (probability == 0) continue;
+                int shift = roll % length;
+                for (int tile = shift; tile < length; tile++) next[tile] += probability * distribution[tile - shift];
+                for (int tile = 0; tile < shift; tile++) next[tile] += probability * distribution[length - shift + tile];
+            }
+            double[] swap = distribution;
+            distribution = next;
+            next = swap;
+            move++;
+            if (visits != null) for (int tile = 0; tile < length; tile++) visits[tile] += distribution[tile];
+
+            if (move % SETTLE_CHECK_INTERVAL == 0 && settled(distribution, frequencies)) {
+                if (visits != null) for (int tile = 0; tile < length; tile++) visits[tile] += (moves - move) * frequencies[tile];
+                return frequencies;
+            }
+        }
+        return distribution;
+    }
+
+    /**
+     * Adds a band of probabilities over the sums of the rolls to the tiles they end on.
+     * A player who rolled a sum of {@code s} since the start stands on the tile {@code (s - 1) % length}.
+     *
+     * @param band   The probability of every sum of the rolls from low.
+     * @param width  The number of sums in the band.
+     * @param low    The lowest sum of the band, positive.
+     * @param target The probability of each tile to add to.
+     */
+    private void fold(double[] band, int width, long low, double[] target) {
+        int tile = (int) ((low - 1) % length);
+        for (int i = 0; i < width; i++) {
+            target[tile] += band[i];
+            if (++tile == length) tile = 0;
+        }
+    }
+
+    /**
+     * Returns whether a distribution is as good as the long run frequencies.
+     *
+     * @param distribution The distribution of a player.
+     * @param frequencies  The long run frequencies.
+     * @return Whether no probability differs from its frequency by more than {@link #SETTLED}.
+     */
+    private static boolean settled(double[] distribution, double[] frequencies) {
+        for (int tile = 0; tile < distribution.length; tile++)
+            if (Math.abs(distribution[tile] - frequencies[tile]) > SETTLED) return false;
+        return true;
+    }
+}
@@ -0,0 +1,692 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.dice.RollSource;
+import capitaly.event.EventType;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.GameSnapshot;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsRecorder;
+import capitaly.tile.TileKind;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plays games whose outcome the rolls alone decide, without simulating them turn by turn.
+ * <p>
+ * On a track without real estate, nobody ever decides anything: every move pays a service fee or collects a reward,
+ * and the strategies of the players do not matter. Between two eliminations the turn order does not change either, so
+ * the rolls are dealt to the players round-robin, and every player's capital is a running sum over their share of the
+ * rolls. The analyzer plays such a stretch of the game, an epoch, player by player: it finds the first move of any
+ * player that cannot be paid for, then settles every player up to that move at once, and starts the next epoch with
+ * the turn order after the elimination, including the quirk of {@link capitaly.Capitaly} skipping the player after the
+ * eliminated one.
+ * <p>
+ * Real estate does not prevent the shortcut as long as the rolls cannot reach it: a player only ever stands on tiles
+ * whose index plus one is a multiple of the greatest common divisor of the length of the track and every roll so far.
+ * As soon as a roll makes real estate reachable, the game is handed over, in its current state, to a
+ * {@link GameKernel} that plays the rest of it tile by tile. The outcome is the same as the kernel's in every case.
+ * <p>
+ * The turns and eliminations of a game count into the {@link GameMetrics} as those of the kernel do, but the settled
+ * turns enter no tile one by one and count towards the moves only, not towards the tiles entered by kind.
+ * <p>
+ * An analyzer is reused from game to game and, like the kernel, is not thread-safe.
+ */
+public final class OutcomeAnalyzer {
+
+    /**
+     * The number of rolls read from the roll source at once, the longest epoch settled in one go.
+     */
+    private static final int BLOCK = 4096;
+
+    /**
+     * The number of rolls read at the start of a game, doubled with every block up to {@link #BLOCK}, so that short
+     * games do not read many rolls they never play.
+     */
+    private static final int FIRST_BLOCK = 64;
+
+    /**
+     * The number of turns per player between two eliminations below which the game is played turn by turn rather than
+     * player by player, every player costing a walk whether they move much or not.
+     */
+    private static final int CROWDED = 4;
+
+    /**
+     * The layout of the track.
+     */
+    private final TrackSpec track;
+
+    /**
+     * The players at the table, in seating order.
+     */
+    private final List<PlayerSpec> players;
+
+    /**
+     * The rules of the games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The length of the track.
+     */
+    private final int length;
+
+    /**
+     * The change of capital of a player entering each tile, by index: the reward of a luck tile, or the negated fee of
+     * a service tile. A single array, so that a move reads a single cache line of the track.
+     */
+    private final int[] change;
+
+    /**
+     * Whether the tiles are luck tiles with a negative reward, which takes money without bankrupting anybody, by index.
+     * Only read when a player seems unable to pay.
+     */
+    private final boolean[] penalty;
+
+    /**
+     * The most money a single move can take from a player.
+     */
+    private final int maxDebit;
+
+    /**
+     * The distinct greatest common divisors of the length of the track and the index plus one of every real estate
+     * tile: a real estate tile is reachable once the divisor of the rolls divides its value.
+     */
+    private final int[] realEstate;
+
+    /**
+     * The positions of the players, by seat, -1 before their first move.
+     */
+    private final int[] position;
+
+    /**
+     * The capitals of the players, by seat.
+     */
+    private final int[] capital;
+
+    /**
+     * Whether the players are bankrupt, by seat.
+     */
+    private final boolean[] bankrupt;
+
+    /**
+     * The seats of the players still in the game, in turn order. Only the first {@link #alive} entries are valid.
+     */
+    private final int[] order;
+
+    /**
+     * The seats of the eliminated players, in the order they were eliminated. Only the first {@link #eliminations}
+     * entries are valid.
+     */
+    private final int[] eliminated;
+
+    /**
+     * The rolls of the current block.
+     */
+    private final int[] rolls;
+
+    /**
+     * The offset in the epoch at which the walk of each player ended, by the offset of their first roll.
+     */
+    private final int[] walked;
+
+    /**
+     * The position of each player at the end of their walk, by the offset of their first roll.
+     */
+    private final int[] endTile;
+
+    /**
+     * The capital of each player at the end of their walk, by the offset of their first roll.
+     */
+    private final int[] endMoney;
+
+    /**
+     * The number of players still in the game.
+     */
+    private int alive;
+
+    /**
+     * The index in {@link #order} of the player taking the next turn.
+     */
+    private int current;
+
+    /**
+     * The number of turns played.
+     */
+    private int turns;
+
+    /**
+     * The number of players eliminated.
+     */
+    private int eliminations;
+
+    /**
+     * The number of turns between the last two eliminations, or since the start of the game for the first one.
+     */
+    private int gap;
+
+    /**
+     * The turn after which the last player was eliminated.
+     */
+    private int lastElimination;
+
+    /**
+     * Whether the last game was settled without handing it over to the kernel.
+     */
+    private boolean closedForm;
+
+    /**
+     * The recorder of the metrics of the settled turns, null if the metrics are off. The turns played by the kernel
+     * are counted by the kernel.
+     */
+    private final MetricsRecorder metrics;
+
+    /**
+     * The kernel playing the games in which real estate became reachable, created when first needed.
+     */
+    private GameKernel kernel;
+
+    /**
+     * Constructs a new OutcomeAnalyzer for the given track and players under the standard rules.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at the table, in seating order.
+     * @throws IllegalArgumentException If there are no players.
+     */
+    public OutcomeAnalyzer(TrackSpec track, List<PlayerSpec> players) {
+        this(track, players, RuleSet.STANDARD);
+    }
+
+    /**
+     * Constructs a new OutcomeAnalyzer for the given track and players under the given rules.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at the table, in seating order.
+     * @param rules   The rules of the games.
+     * @throws IllegalArgumentException If there are no players.
+     */
+    public OutcomeAnalyzer(TrackSpec track, List<PlayerSpec> players, RuleSet rules) {
+        if (players.isEmpty()) throw new IllegalArgumentException("A game needs at least one player.");
+        this.track = track;
+        this.players = List.copyOf(players);
+        this.rules = rules;
+        this.length = track.length();
+        this.change = new int[length];
+        this.penalty = new boolean[length];
+        int maxDebit = 0;
+
+        int[] divisors = new int[length];
+        int distinct = 0;
+        for (int tile = 0; tile < length; tile++) {
+            TileKind kind = track.kind(tile);
+            if (kind == TileKind.SERVICE) this.change[tile] = -track.amount(tile);
+            else if (kind == TileKind.LUCK) this.change[tile] = track.amount(tile);
+            this.penalty[tile] = kind == TileKind.LUCK && this.change[tile] < 0;
+            maxDebit = Math.max(maxDebit, -this.change[tile]);
+            if (kind == TileKind.REAL_ESTATE) divisors[distinct++] = gcd(tile + 1, length);
+        }
+        this.realEstate = Arrays.stream(divisors, 0, distinct).distinct().toArray();
+        this.maxDebit = maxDebit;
+
+        int count = players.size();
+        this.position = new int[count];
+        this.capital = new int[count];
+        this.bankrupt = new boolean[count];
+        this.order = new int[count];
+        this.eliminated = new int[count];
+        this.rolls = new int[BLOCK];
+        this.walked = new int[count];
+        this.endTile = new int[count];
+        this.endMoney = new int[count];
+        this.metrics = GameMetrics.ENABLED ? new MetricsRecorder() : null;
+    }
+
+    /**
+     * Returns whether no game on the given track is ever handed over to the kernel, i.e. it has no real estate.
+     *
+     * @param track The layout of the track.
+     * @return Whether every game on the track is settled from the rolls alone.
+     */
+    public static boolean isClosedForm(TrackSpec track) {
+        for (int tile = 0; tile < track.length(); tile++) if (track.kind(tile) == TileKind.REAL_ESTATE) return false;
+        return true;
+    }
+
+    /**
+     * Returns whether the given rolls can never bring a player onto real estate, whoever rolls them, so that a game
+     * rolling them is settled from the rolls alone.
+     *
+     * @param rolls The rolls of the die.
+     * @return Whether a game with the rolls is settled without the kernel.
+     */
+    public boolean appliesTo(int[] rolls) {
+        int divisor = 0;
+        for (int roll : rolls) divisor = gcd(divisor, roll);
+        return divisor == 0 || !this.reaches(gcd(length, divisor));
+    }
+
+    /**
+     * Returns the greatest common divisor of two non-negative integers.
+     *
+     * @param a The first integer.
+     * @param b The second integer.
+     * @return The greatest common divisor.
+     */
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int rest = a % b;
+            a = b;
+            b = rest;
+        }
+        return a;
+    }
+
+    /**
+     * Returns whether a player can stand on real estate when every roll so far is a multiple of the given divisor.
+     *
+     * @param divisor The greatest common divisor of the length of the track and the rolls.
+     * @return Whether some real estate tile is reachable.
+     */
+    private boolean reaches(int divisor) {
+        for (int value : realEstate) if (value % divisor == 0) return true;
+        return false;
+    }
+
+    /**
+     * Plays a game from the start with the given rolls until it is over, the source is exhausted or the turn limit is
+     * reached, the first seat taking the first turn.
+     *
+     * @param rolls    The rolls of the die.
+     * @param maxTurns The number of turns after which the game is abandoned.
+     * @return Whether the game is over.
+     */
+    public boolean play(RollSource rolls, int maxTurns) {
+        return this.play(rolls, maxTurns, 0);
+    }
+
+    /**
+     * Plays a game from the start with the given rolls until it is over, the source is exhausted or the turn limit is
+     * reached, with the turn order rotated to start at the given seat as {@link GameKernel#reset(int)} does.
+     * The rolls are read in blocks, so up to a block of rolls after the end of the game may be read and left unused.
+     *
+     * @param rolls     The rolls of the die.
+     * @param maxTurns  The number of turns after which the game is abandoned.
+     * @param firstSeat The seat of the player taking the first turn.
+     * @return Whether the game is over.
+     */
+    public boolean play(RollSource rolls, int maxTurns, int firstSeat) {
+        this.reset(firstSeat);
+        // Without real estate no roll needs to be looked at, as if every tile were reachable from the start.
+        int divisor = realEstate.length == 0 ? 1 : 0;
+        int chunk = FIRST_BLOCK;
+        while (alive > 1 && turns < maxTurns) {
+            int wanted = Math.min(chunk, maxTurns - turns);
+            chunk = Math.min(chunk * 2, BLOCK);
+            int read = rolls.fill(this.rolls, 0, wanted);
+            if (read == 0) break;
+
+            int end = divisor == 1 ? read : 0;
+            for (; end < read; end++) {
+                int next = gcd(divisor == 0 ? length : divisor, this.rolls[end]);
+                if (next != divisor && this.reaches(next)) break;
+                divisor = next;
+            }
+            for (int from = 0; from < end && alive > 1; ) from += this.settle(from, end);
+            if (end < read && alive > 1) {
+                if (GameMetrics.ENABLED) metrics.settled(turns, eliminations, false);
+                return this.handOver(new Resumed(this.rolls, end, read, rolls), maxTurns);
+            }
+            if (read < wanted) break;
+        }
+        if (GameMetrics.ENABLED) metrics.settled(turns, eliminations, alive <= 1 && eliminations > 0);
+        return alive <= 1;
+    }
+
+    /**
+     * Adds the metrics counted by the analyzer and its kernel so far to the {@link GameMetrics process-wide metrics},
+     * which otherwise happens every few thousand moves. Does nothing if the metrics are off.
+     */
+    public void flushMetrics() {
+        if (!GameMetrics.ENABLED) return;
+        metrics.flush();
+        if (kernel != null) kernel.flushMetrics();
+    }
+
+    /**
+     * Resets the game to its initial state, with the turn order rotated to start at the given seat.
+     *
+     * @param firstSeat The seat of the player taking the first turn.
+     */
+    private void reset(int firstSeat) {
+        for (int seat = 0; seat < order.length; seat++) {
+            position[seat] = -1;
+            capital[seat] = rules.startingCapital();
+            bankrupt[seat] = false;
+            order[seat] = (firstSeat + seat) % order.length;
+        }
+        alive = order.length;
+        current = 0;
+        turns = 0;
+        eliminations = 0;
+        gap = Integer.MAX_VALUE;
+        lastElimination = 0;
+        closedForm = true;
+    }
+
+    /**
+     * Plays an epoch: the rolls of the block from the given index dealt round-robin to the players, until the first
+     * player who cannot pay a fee is eliminated or the rolls run out.
+     * <p>
+     * Every player is walked once, each stopping at the earliest bankruptcy found so far, and their state at the end
+     * of the walk is kept. Only the players who walked past a bankruptcy found after them are walked again, up to it.
+     * The players who do not move before the end of the epoch are not looked at, so the short epochs at the end of a
+     * game, when players go bankrupt one after another, cost as much as the rolls they play.
+     *
+     * @param from The index of the first roll of the epoch in the block.
+     * @param to   The index after the last roll that may be played.
+     * @return The number of rolls played.
+     */
+    private int settle(int from, int to) {
+        if (gap < (long) alive * CROWDED) return this.step(from, to);
+        if (current >= alive) current = 0;
+
+        // The poorest player is walked first, being the likeliest to go bankrupt before anybody else. The players too
+        // rich to go bankrupt before the end are walked only once the end is known.
+        int limit = to - from;
+        int movers = Math.min(alive, limit);
+        int poorest = 0;
+        for (int first = 1; first < movers; first++) if (capital[this.seatAt(first)] < capital[this.seatAt(poorest)]) poorest = first;
+        int loser = -1;
+        for (int i = 0; i < movers; i++) {
+            int first = i == 0 ? poorest : i == poorest ? 0 : i;
+            walked[first] = -1;
+            if (first >= limit) continue;
+            int seat = this.seatAt(first);
+            if (capital[seat] >= (long) this.moves(first, limit) * maxDebit) continue;
+            int move = this.walk(seat, from, first, limit);
+            if (move < limit) {
+                limit = move;
+                loser = first;
+            }
+        }
+        int played = loser < 0 ? limit : limit + 1;
+
+        for (int first = 0; first < alive && first < played; first++) {
+            int seat = this.seatAt(first);
+            if (walked[first] != played && this.moves(first, walked[first]) != this.moves(first, played)) this.walk(seat, from, first, played);
+            position[seat] = endTile[first];
+            capital[seat] = endMoney[first];
+        }
+        turns += played;
+        if (loser < 0) {
+            current = (current + played) % alive;
+            return played;
+        }
+        this.eliminate((current + loser) % alive);
+        return played;
+    }
+
+    /**
+     * Plays the rolls of the block from the given index turn by turn, until a player is eliminated or the rolls run
+     * out. Cheaper than an epoch when the players go bankrupt within a few turns of each other.
+     *
+     * @param from The index of the first roll to play in the block.
+     * @param to   The index after the last roll that may be played.
+     * @return The number of rolls played.
+     */
+    private int step(int from, int to) {
+        for (int roll = from; roll < to; ) {
+            if (current >= alive) current = 0;
+            int seat = order[current++];
+            int tile = (position[seat] + rolls[roll++]) % length;
+            position[seat] = tile;
+            int value = change[tile];
+            if (value < 0 && -value > capital[seat] && !penalty[tile]) {
+                capital[seat] = 0;
+                turns += roll - from;
+                this.eliminate(current - 1);
+                return roll - from;
+            }
+            capital[seat] += value;
+        }
+        turns += to - from;
+        return to - from;
+    }
+
+    /**
+     * Eliminates a bankrupt player after their turn, the next turn going to the player after the next one.
+     *
+     * @param index The index in {@link #order} of the player.
+     */
+    private void eliminate(int index) {
+        int seat = order[index];
+        bankrupt[seat] = true;
+        eliminated[eliminations++] = seat;
+        System.arraycopy(order, index + 1, order, index, alive - index - 1);
+        alive--;
+        current = index + 1;
+        gap = turns - lastElimination;
+        lastElimination = turns;
+    }
+
+    /**
+     * Returns the seat of the player taking the given turn of the epoch.
+     *
+     * @param first The offset in the epoch of the turn, less than the number of players still in the game.
+     * @return The seat of the player.
+     */
+    private int seatAt(int first) {
+        int index = current + first;
+        return order[index < alive ? index : index - alive];
+    }
+
+    /**
+     * Returns the number of moves a player makes in the first rolls of an epoch.
+     *
+     * @param first The offset in the epoch of the first roll of the player.
+     * @param bound The number of rolls of the epoch.
+     * @return The number of moves.
+     */
+    private int moves(int first, int bound) {
+        return bound > first ? (bound - first + alive - 1) / alive : 0;
+    }
+
+    /**
+     * Walks the given player through their moves of an epoch, stopping at the first fee they cannot pay, and keeps
+     * their state at the end of the walk, without changing the game.
+     * A fee that cannot be paid is paid with all the money the player has, and ends the walk.
+     *
+     * @param seat  The seat of the player.
+     * @param from  The index of the first roll of the epoch in the block.
+     * @param first The offset in the epoch of the first roll of the player.
+     * @param limit The offset in the epoch at which to stop.
+     * @return The offset of the move at which the player cannot pay, or the limit if there is none before it.
+     */
+    private int walk(int seat, int from, int first, int limit) {
+        int tile = position[seat];
+        int money = capital[seat];
+        int move = first;
+        for (; move < limit; move += alive) {
+            tile = (tile + rolls[from + move]) % length;
+            int value = change[tile];
+            if (value < 0 && -value > money && !penalty[tile]) break;
+            money += value;
+        }
+        endTile[first] = tile;
+        if (move < limit) {
+            endMoney[first] = 0;
+            walked[first] = move + 1;
+            return move;
+        }
+        endMoney[first] = money;
+        walked[first] = limit;
+        return limit;
+    }
+
+    /**
+     * Hands the game over to the kernel in its current state and lets it play the rest.
+     *
+     * @param rolls    The remaining rolls of the die.
+     * @param maxTurns The number of turns after which the game is abandoned.
+     * @return Whether the game is over.
+     */
+    private boolean handOver(RollSource rolls, int maxTurns) {
+        if (kernel == null) {
+            kernel = new GameKernel(track, players, rules);
+            kernel.setListener(this::onKernelEvent);
+        }
+        int[] none = new int[length];
+        Arrays.fill(none, GameKernel.NONE);
+        int[] ownedHead = new int[order.length];
+        Arrays.fill(ownedHead, GameKernel.NONE);
+        kernel.restore(new GameSnapshot(
+            none, new boolean[length], none,
+            position, capital, bankrupt, new boolean[order.length], ownedHead,
+            Arrays.copyOf(order, alive), current, turns
+        ));
+
+        closedForm = false;
+        boolean over = kernel.play(rolls, maxTurns);
+        GameSnapshot end = kernel.snapshot();
+        for (int seat = 0; seat < order.length; seat++) {
+            position[seat] = end.getPosition(seat);
+            capital[seat] = end.getCapital(seat);
+            bankrupt[seat] = end.isBankrupt(seat);
+        }
+        alive = end.getAlive();
+        for (int index = 0; index < alive; index++) order[index] = end.getSeatInOrder(index);
+        current = end.getCurrent();
+        turns = end.getTurns();
+        return over;
+    }
+
+    /**
+     * Records the eliminations of the game played by the kernel.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money.
+     */
+    private void onKernelEvent(EventType type, int seat, int tile, int amount) {
+        if (type == EventType.ELIMINATION) eliminated[eliminations++] = seat;
+    }
+
+    /**
+     * Returns whether the last game was settled from the rolls alone, without handing it over to the kernel.
+     *
+     * @return Whether the last game was played in closed form.
+     */
+    public boolean isClosedForm() {
+        return closedForm;
+    }
+
+    /**
+     * Returns the winner of the last game.
+     *
+     * @return The seat of the last player standing, or {@link GameKernel#NONE} if the game is not over.
+     */
+    public int getWinner() {
+        return alive == 1 ? order[0] : GameKernel.NONE;
+    }
+
+    /**
+     * Returns the number of turns played in the last game.
+     *
+     * @return The number of turns.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Returns the capital of a player at the end of the last game.
+     *
+     * @param seat The seat of the player.
+     * @return The capital of the player.
+     */
+    public int getCapital(int seat) {
+        return capital[seat];
+    }
+
+    /**
+     * Returns the position of a player at the end of the last game.
+     *
+     * @param seat The seat of the player.
+     * @return The index of the tile the player stands on, -1 if they have not moved.
+     */
+    public int getPosition(int seat) {
+        return position[seat];
+    }
+
+    /**
+     * Returns whether a player went bankrupt in the last game.
+     *
+     * @param seat The seat of the player.
+     * @return Whether the player is bankrupt.
+     */
+    public boolean isBankrupt(int seat) {
+        return bankrupt[seat];
+    }
+
+    /**
+     * Returns the players eliminated in the last game.
+     *
+     * @return The seats of the players, in the order they were eliminated.
+     */
+    public int[] getEliminationOrder() {
+        return Arrays.copyOf(eliminated, eliminations);
+    }
+
+    /**
+     * The rolls left of a block, followed by the rest of the roll source.
+     */
+    private static final class Resumed implements RollSource {
+
+        /**
+         * The block of rolls.
+         */
+        private final int[] block;
+
+        /**
+         * The index after the last roll of the block.
+         */
+        private final int end;
+
+        /**
+         * The source of the rolls after the block.
+         */
+        private final RollSource rest;
+
+        /**
+         * The index of the next roll of the block.
+         */
+        private int next;
+
+        /**
+         * Constructs a new Resumed source.
+         *
+         * @param block The block of rolls.
+         * @param next  The index of the next roll of the block.
+         * @param end   The index after the last roll of the block.
+         * @param rest  The source of the rolls after the block.
+         */
+        private Resumed(int[] block, int next, int end, RollSource rest) {
+            this.block = block;
+            this.next = next;
+            this.end = end;
+            this.rest = rest;
+        }
+
+        /**
+         * Returns the next roll of the block, then of the rest of the source.
+         *
+         * @return The next roll, or {@link #END} if there are no more rolls.
+         */
+        @Override
+        public int nextRoll() {
+            return next < end ? block[next++] : rest.nextRoll();
+        }
+    }
+}
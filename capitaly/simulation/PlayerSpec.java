@@ -0,0 +1,46 @@
+package capitaly.simulation;
+
+import capitaly.GameContext;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+
+import java.util.List;
+
+/**
+ * Describes a seat at the table: the name of the player and the strategy they follow.
+ *
+ * @param name     The name of the player.
+ * @param strategy The strategy the player follows.
+ */
+public record PlayerSpec(String name, Strategy strategy) {
+
+    /**
+     * Describes the given player.
+     *
+     * @param player The player to describe.
+     * @return The spec of the player.
+     */
+    public static PlayerSpec of(Player player) {
+        return new PlayerSpec(player.getName(), player.getStrategy());
+    }
+
+    /**
+     * Describes the given players, keeping their order.
+     *
+     * @param players The players to describe.
+     * @return The specs of the players.
+     */
+    public static List<PlayerSpec> of(List<Player> players) {
+        return players.stream().map(PlayerSpec::of).toList();
+    }
+
+    /**
+     * Creates a new player following the spec.
+     *
+     * @param context The context of the game the player takes part in.
+     * @return The new player.
+     */
+    public Player create(GameContext context) {
+        return strategy.create(name, context);
+    }
+}
@@ -0,0 +1,134 @@
+package capitaly.simulation;
+
+import capitaly.player.Strategy;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Estimates how often each strategy wins on a track, playing randomized games in parallel batches until the
+ * confidence intervals of the win rates are narrow enough.
+ * <p>
+ * The batches are played by a {@link BatchSimulator}, so the game state of every worker thread is reused between
+ * trials, and the first turn rotates around the table so no strategy profits from its seat.
+ */
+public final class StrategyEvaluator {
+
+    /**
+     * The standard normal quantile of a 95% confidence level.
+     */
+    public static final double Z_95 = 1.959964;
+
+    /**
+     * The simulator playing the batches.
+     */
+    private final BatchSimulator simulator;
+
+    /**
+     * The strategies present at the table.
+     */
+    private final List<Strategy> strategies;
+
+    /**
+     * The number of games played between two estimates.
+     */
+    private final int batchSize;
+
+    /**
+     * The standard normal quantile of the confidence level.
+     */
+    private final double z;
+
+    /**
+     * Constructs a new StrategyEvaluator with 95% confidence intervals, playing on the common fork-join pool.
+     *
+     * @param track     The layout of the track.
+     * @param players   The players at the table, in seating order.
+     * @param maxTurns  The number of turns after which a game is abandoned without a winner.
+     * @param batchSize The number of games played between two estimates.
+     */
+    public StrategyEvaluator(TrackSpec track, List<PlayerSpec> players, int maxTurns, int batchSize) {
+        this(track, players, maxTurns, batchSize, Z_95, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new StrategyEvaluator.
+     *
+     * @param track     The layout of the track.
+     * @param players   The players at the table, in seating order.
+     * @param maxTurns  The number of turns after which a game is abandoned without a winner.
+     * @param batchSize The number of games played between two estimates.
+     * @param z         The standard normal quantile of the confidence level, e.g. {@link #Z_95}.
+     * @param pool      The pool the games are played on.
+     * @throws IllegalArgumentException If the batch size or the quantile is not positive.
+     */
+    public StrategyEvaluator(TrackSpec track, List<PlayerSpec> players, int maxTurns, int batchSize, double z, ForkJoinPool pool) {
+        if (batchSize < 1) throw new IllegalArgumentException("Expected a positive batch size, got " + batchSize + '.');
+        if (!(z > 0)) throw new IllegalArgumentException("Expected a positive quantile, got " + z + '.');
+        this.simulator = new BatchSimulator(track, players, maxTurns, true, pool);
+        this.strategies = players.stream().map(PlayerSpec::strategy).distinct().toList();
+        this.batchSize = batchSize;
+        this.z = z;
+    }
+
+    /**
+     * The state of an evaluation after a batch.
+     *
+     * @param games     The number of games played so far.
+     * @param converged Whether every confidence interval is narrower than the requested width.
+     * @param estimates The win rate estimates of the strategies present at the table.
+     * @param result    The aggregated results of the games played so far.
+     */
+    public record Evaluation(long games, boolean converged, Map<Strategy, WinRateEstimate> estimates, BatchResult result) {
+    }
+
+    /**
+     * Plays batches of games until every confidence interval is narrower than the given width,
+     * or the game limit is reached. The games of the evaluation roll from consecutive seeds.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param maxWidth  The width below which a confidence interval is narrow enough.
+     * @param maxGames  The number of games after which the evaluation stops anyway, the last batch being cut short to
+     *                  it, so that a limit below the batch size plays a single smaller batch.
+     * @param progress  Receives the estimates after every batch.
+     * @return The final estimates.
+     * @throws IllegalArgumentException If the width or the game limit is not positive.
+     */
+    public Evaluation evaluate(long firstSeed, double maxWidth, long maxGames, Consumer<Evaluation> progress) {
+        if (!(maxWidth > 0)) throw new IllegalArgumentException("Expected a positive interval width, got " + maxWidth + '.');
+        if (maxGames < 1) throw new IllegalArgumentException("Expected a positive game limit, got " + maxGames + '.');
+
+        BatchResult total = null;
+        Evaluation evaluation;
+        do {
+            long played = total == null ? 0 : total.getGames();
+            BatchResult batch = simulator.run(firstSeed + played, Math.min(batchSize, maxGames - played));
+            total = total == null ? batch : total.merge(batch);
+            evaluation = estimate(total, maxWidth);
+            progress.accept(evaluation);
+        } while (!evaluation.converged() && total.getGames() < maxGames);
+        return evaluation;
+    }
+
+    /**
+     * Estimates the win rates of the strategies from the results so far.
+     *
+     * @param result   The aggregated results of the games played so far.
+     * @param maxWidth The width below which a confidence interval is narrow enough.
+     * @return The state of the evaluation.
+     */
+    private Evaluation estimate(BatchResult result, double maxWidth) {
+        Map<Strategy, Long> wins = result.getWinsByStrategy();
+        Map<Strategy, WinRateEstimate> estimates = new EnumMap<>(Strategy.class);
+        boolean converged = result.getGames() > 0;
+        for (Strategy strategy : strategies) {
+            WinRateEstimate estimate = WinRateEstimate.of(strategy, wins.getOrDefault(strategy, 0L), result.getGames(), z);
+            estimates.put(strategy, estimate);
+            converged &= estimate.width() < maxWidth;
+        }
+        return new Evaluation(result.getGames(), converged, estimates, result);
+    }
+}
@@ -0,0 +1,501 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.RuleSet.Rule;
+import capitaly.io.MappedInputParser;
+import capitaly.io.InvalidInputException;
+import capitaly.player.Strategy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Explores variants of the rules on the same track and players: every point of a sweep, a {@link RuleSet}, is evaluated
+ * by a batch of games on a {@link BatchSimulator}, the points in parallel on a fork-join pool.
+ * <p>
+ * A sweep is the grid of every combination of some values of the rules, see {@link #grid}, or a random sample of
+ * ranges of the rules, see {@link #sample}. Every point plays the same seeds, so the points differ by their rules alone.
+ * The runner remembers the points it has evaluated, so a point repeated within a sweep or across sweeps is played once.
+ * <p>
+ * With a checkpoint, see {@link #resume(Path)}, every point is appended to a file as soon as it is evaluated, and the
+ * points of the file are remembered when the runner resumes from it: a sweep interrupted and run again only plays the
+ * points that are missing, with the same results as if it had not been interrupted. All numbers of the file are
+ * big-endian. It consists of:
+ * <ul>
+ *     <li>the header: the magic bytes {@code "CPSW"}, the version (u16), the length (i32) and
+ *     {@link TrackSpec#fingerprint() fingerprint} (i32) of the track, the seat count (i32), the strategy of every seat
+ *     (the ordinal of {@link Strategy}, u8), the turn limit (i32), the game count (i64) and the first seed (i64), a
+ *     runner only resuming from the checkpoint of the same scenario and batches;</li>
+ *     <li>the points, in the order they were evaluated: the values of the rules (i32 each, in the order of
+ *     {@link Rule}) and the result of the batch.</li>
+ * </ul>
+ * A point cut short by an interruption is dropped when resuming.
+ */
+public final class SweepRunner implements Closeable {
+
+    /**
+     * The magic bytes at the start of every checkpoint.
+     */
+    private static final int MAGIC = 0x43505357;
+
+    /**
+     * The version of the checkpoint format written by this code.
+     */
+    private static final short VERSION = 2;
+
+    /**
+     * The default number of games played for every point.
+     */
+    public static final long DEFAULT_GAMES = 10_000;
+
+    /**
+     * The default number of turns after which a game is abandoned without a winner.
+     */
+    public static final int DEFAULT_MAX_TURNS = 100_000;
+
+    /**
+     * The usage of the command line.
+     */
+    private static final String USAGE = """
+        Usage: java capitaly.simulation.SweepRunner <scenario> [options] <rule>=<values>...
+          <rule>             starting-capital, purchase-cost, upgrade-cost, fee-no-house or fee-with-house; the other
+                             rules keep their standard values
+          <values>           the values of a grid, e.g. 500,1000,2000, or with --sample a range, e.g. 500-2000
+          --sample <count>   evaluate a random sample of the ranges instead of a grid
+          --games <count>    the games played for every point (default 10000)
+          --turns <count>    the turn limit of a game (default 100000)
+          --seed <seed>      the seed of the first game, and of the sample (default 0)
+          --checkpoint <f>   resume from and append every evaluated point to the file""";
+
+    /**
+     * The layout of the track.
+     */
+    private final TrackSpec track;
+
+    /**
+     * The players at the table, in seating order.
+     */
+    private final List<PlayerSpec> players;
+
+    /**
+     * The strategies of the seats, in seating order.
+     */
+    private final List<Strategy> seats;
+
+    /**
+     * The number of turns after which a game is abandoned without a winner.
+     */
+    private final int maxTurns;
+
+    /**
+     * The number of games played for every point.
+     */
+    private final long games;
+
+    /**
+     * The seed of the first game of every point.
+     */
+    private final long firstSeed;
+
+    /**
+     * The pool the points are evaluated on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The points evaluated or being evaluated, by their rules.
+     */
+    private final Map<RuleSet, Point> points;
+
+    /**
+     * The checkpoint the evaluated points are appended to, null without a checkpoint.
+     */
+    private Checkpoint checkpoint;
+
+    /**
+     * Constructs a new SweepRunner playing on the common fork-join pool.
+     *
+     * @param track     The layout of the track.
+     * @param players   The players at the table, in seating order.
+     * @param maxTurns  The number of turns after which a game is abandoned without a winner.
+     * @param games     The number of games played for every point.
+     * @param firstSeed The seed of the first game of every point.
+     * @throws IllegalArgumentException If there are no players, or the turn limit or the number of games is not
+     *                                  positive.
+     */
+    public SweepRunner(TrackSpec track, List<PlayerSpec> players, int maxTurns, long games, long firstSeed) {
+        this(track, players, maxTurns, games, firstSeed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new SweepRunner playing on the given pool.
+     *
+     * @param track     The layout of the track.
+     * @param players   The players at the table, in seating order.
+     * @param maxTurns  The number of turns after which a game is abandoned without a winner.
+     * @param games     The number of games played for every point.
+     * @param firstSeed The seed of the first game of every point.
+     * @param pool      The pool the points are evaluated on.
+     * @throws IllegalArgumentException If there are no players, or the turn limit or the number of games is not
+     *                                  positive.
+     */
+    public SweepRunner(TrackSpec track, List<PlayerSpec> players, int maxTurns, long games, long firstSeed, ForkJoinPool pool) {
+        if (players.isEmpty()) throw new IllegalArgumentException("A game needs at least one player.");
+        if (maxTurns < 1) throw new IllegalArgumentException("Expected a positive turn limit, got " + maxTurns + '.');
+        if (games < 1) throw new IllegalArgumentException("Expected a positive game count, got " + games + '.');
+        this.track = track;
+        this.players = List.copyOf(players);
+        this.seats = players.stream().map(PlayerSpec::strategy).toList();
+        this.maxTurns = maxTurns;
+        this.games = games;
+        this.firstSeed = firstSeed;
+        this.pool = pool;
+        this.points = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Runs a sweep of the rules of the scenario given as the first argument, printing a line per point.
+     * Usage: {@code java capitaly.simulation.SweepRunner <scenario> [options] <rule>=<values>...}, see {@link #USAGE}.
+     *
+     * @param args The arguments of the program.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        long games = DEFAULT_GAMES, seed = 0;
+        int maxTurns = DEFAULT_MAX_TURNS, sample = 0;
+        Path path = null;
+        Map<Rule, int[]> values = new EnumMap<>(Rule.class);
+        try {
+            for (int i = 1; i < args.length; i++) {
+                String arg = args[i];
+                if (arg.startsWith("--")) {
+                    if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + arg + '.');
+                    String value = args[++i];
+                    switch (arg) {
+                        case "--sample" -> sample = Integer.parseInt(value);
+                        case "--games" -> games = Long.parseLong(value);
+                        case "--turns" -> maxTurns = Integer.parseInt(value);
+                        case "--seed" -> seed = Long.parseLong(value);
+                        case "--checkpoint" -> path = Path.of(value);
+                        default -> throw new IllegalArgumentException("Unknown option " + arg + '.');
+                    }
+                } else {
+                    int equals = arg.indexOf('=');
+                    if (equals < 0) throw new IllegalArgumentException("Expected <rule>=<values>, got \"" + arg + "\".");
+                    values.put(Rule.of(arg.substring(0, equals)), parseValues(arg.substring(equals + 1)));
+                }
+            }
+            if (values.isEmpty()) throw new IllegalArgumentException("Expected at least one rule to sweep.");
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+
+        List<RuleSet> sweep;
+        try {
+            sweep = sample > 0 ? sample(RuleSet.STANDARD, values, sample, seed) : grid(RuleSet.STANDARD, values);
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+
+        TrackSpec track;
+        List<PlayerSpec> players;
+        try (MappedInputParser scenario = new MappedInputParser(args[0])) {
+            track = TrackSpec.of(scenario.getTrack());
+            players = PlayerSpec.of(scenario.getPlayers());
+        }
+        try (SweepRunner runner = new SweepRunner(track, players, maxTurns, games, seed)) {
+            if (path != null) System.out.println("Resumed " + runner.resume(path) + " points from " + path + '.');
+            for (Map.Entry<RuleSet, BatchResult> entry : runner.run(sweep).entrySet()) {
+                BatchResult result = entry.getValue();
+                StringBuilder line = new StringBuilder();
+                for (Rule rule : Rule.values()) line.append(rule.getKeyword()).append('=').append(entry.getKey().get(rule)).append(' ');
+                line.append("wins=").append(result.getWinsByStrategy())
+                    .append(" unfinished=").append(result.getUnfinished())
+                    .append(" meanTurns=").append(result.getMeanTurns());
+                System.out.println(line);
+            }
+        }
+    }
+
+    /**
+     * Parses the values of a rule given on the command line: values separated by commas, or a range {@code min-max}.
+     * A range is given to {@link #sample} as is, and to {@link #grid} as both of its ends.
+     *
+     * @param value The values.
+     * @return The values, or the ends of the range.
+     * @throws IllegalArgumentException If the values are not integers.
+     */
+    private static int[] parseValues(String value) {
+        String[] tokens = value.split(value.contains(",") ? "," : "-");
+        int[] values = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) values[i] = Integer.parseInt(tokens[i].trim());
+        return values;
+    }
+
+    /**
+     * Returns the grid of every combination of the given values of some rules, the other rules keeping their base
+     * values. The first rule, in the order of {@link Rule}, varies slowest.
+     *
+     * @param base   The rules the points differ from.
+     * @param values The values of each swept rule.
+     * @return The points of the grid.
+     * @throws IllegalArgumentException If a rule has no values or a value is negative.
+     */
+    public static List<RuleSet> grid(RuleSet base, Map<Rule, int[]> values) {
+        List<RuleSet> grid = List.of(base);
+        for (Map.Entry<Rule, int[]> entry : new EnumMap<>(values).entrySet()) {
+            if (entry.getValue().length == 0) throw new IllegalArgumentException("Expected values of " + entry.getKey().getKeyword() + '.');
+            List<RuleSet> next = new ArrayList<>(grid.size() * entry.getValue().length);
+            for (RuleSet point : grid)
+                for (int value : entry.getValue()) next.add(point.with(entry.getKey(), value));
+            grid = next;
+        }
+        return grid;
+    }
+
+    /**
+     * Returns points drawn uniformly from the given ranges of some rules, the other rules keeping their base values.
+     * The same seed draws the same points.
+     *
+     * @param base   The rules the points differ from.
+     * @param ranges The lowest and highest value of each swept rule, both included.
+     * @param count  The number of points.
+     * @param seed   The seed of the draws.
+     * @return The points of the sample.
+     * @throws IllegalArgumentException If the count is negative, a range is not two values from low to high or a value
+     *                                  is negative.
+     */
+    public static List<RuleSet> sample(RuleSet base, Map<Rule, int[]> ranges, int count, long seed) {
+        if (count < 0) throw new IllegalArgumentException("Expected a non-negative number of points, got " + count + '.');
+        Map<Rule, int[]> sorted = new EnumMap<>(ranges);
+        for (Map.Entry<Rule, int[]> entry : sorted.entrySet()) {
+            int[] range = entry.getValue();
+            if (range.length != 2 || range[0] > range[1])
+                throw new IllegalArgumentException("Expected a range from low to high of " + entry.getKey().getKeyword() + ", got " + range.length + " values.");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        List<RuleSet> sample = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RuleSet point = base;
+            for (Map.Entry<Rule, int[]> entry : sorted.entrySet()) {
+                int[] range = entry.getValue();
+                point = point.with(entry.getKey(), (int) random.nextLong(range[0], range[1] + 1L));
+            }
+            sample.add(point);
+        }
+        return sample;
+    }
+
+    /**
+     * Remembers the points of the given checkpoint and appends every point evaluated from now on to it.
+     * A missing or empty file is started with the header of this runner; a point cut short at the end of the file is
+     * dropped from it.
+     *
+     * @param path The path of the checkpoint.
+     * @return The number of points read from the checkpoint.
+     * @throws IOException           If the checkpoint cannot be read or written.
+     * @throws InvalidInputException If the file is not a checkpoint of the scenario and batches of this runner.
+     * @throws IllegalStateException If the runner already has a checkpoint.
+     */
+    public synchronized int resume(Path path) throws IOException {
+        if (checkpoint != null) throw new IllegalStateException("The runner already has a checkpoint.");
+
+        int[] loaded = {0};
+        checkpoint = Checkpoint.open(path, this.header(), in -> {
+            int[] values = new int[Rule.values().length];
+            for (int i = 0; i < values.length; i++) values[i] = in.readInt();
+            BatchResult result = BatchResult.read(in, seats);
+            RuleSet rules = new RuleSet(values[0], values[1], values[2], values[3], values[4]);
+            Point point = new Point(rules);
+            point.claimed.set(true);
+            point.complete(result);
+            if (points.putIfAbsent(rules, point) == null) loaded[0]++;
+        });
+        return loaded[0];
+    }
+
+    /**
+     * Creates the header of the checkpoints of this runner.
+     *
+     * @return The bytes of the header.
+     */
+    private byte[] header() {
+        return Checkpoint.header(out -> {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(track.length());
+            out.writeInt(track.fingerprint());
+            out.writeInt(seats.size());
+            for (Strategy strategy : seats) out.writeByte(strategy.ordinal());
+            out.writeInt(maxTurns);
+            out.writeLong(games);
+            out.writeLong(firstSeed);
+        });
+    }
+
+    /**
+     * Evaluates every point of a sweep, playing only the points not evaluated before.
+     * The results are those remembered by the runner and are not to be modified.
+     *
+     * @param sweep The points to evaluate.
+     * @return The result of every point, in the order of the sweep.
+     * @throws UncheckedIOException If an evaluated point cannot be appended to the checkpoint.
+     */
+    public Map<RuleSet, BatchResult> run(List<RuleSet> sweep) {
+        return pool.invoke(new Sweep(sweep));
+    }
+
+    /**
+     * Returns the result of a point evaluated before.
+     *
+     * @param rules The rules of the point.
+     * @return The result, or null if the point has not been evaluated.
+     */
+    public BatchResult get(RuleSet rules) {
+        Point point = points.get(rules);
+        return point != null && point.isCompletedNormally() ? point.getRawResult() : null;
+    }
+
+    /**
+     * Returns the number of points evaluated so far, including those read from the checkpoint.
+     *
+     * @return The number of evaluated points.
+     */
+    public int getEvaluated() {
+        int evaluated = 0;
+        for (Point point : points.values()) if (point.isCompletedNormally()) evaluated++;
+        return evaluated;
+    }
+
+    /**
+     * Appends an evaluated point to the checkpoint, if any, at once so that an interruption loses no other point.
+     *
+     * @param rules  The rules of the point.
+     * @param result The result of the point.
+     * @throws UncheckedIOException If the point cannot be written.
+     */
+    private synchronized void save(RuleSet rules, BatchResult result) {
+        if (checkpoint == null) return;
+        checkpoint.append(out -> {
+            for (Rule rule : Rule.values()) out.writeInt(rules.get(rule));
+            result.write(out);
+        });
+    }
+
+    /**
+     * Closes the checkpoint, if any. The points evaluated so far stay remembered.
+     *
+     * @throws IOException If the checkpoint cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (checkpoint == null) return;
+        checkpoint.close();
+        checkpoint = null;
+    }
+
+    /**
+     * The evaluation of the points of a sweep, each point being forked by the first sweep needing it.
+     */
+    @SuppressWarnings("serial")
+    private final class Sweep extends RecursiveTask<Map<RuleSet, BatchResult>> {
+
+        /**
+         * The points to evaluate.
+         */
+        private final List<RuleSet> sweep;
+
+        /**
+         * Constructs a new Sweep of the given points.
+         *
+         * @param sweep The points to evaluate.
+         */
+        private Sweep(List<RuleSet> sweep) {
+            this.sweep = sweep;
+        }
+
+        /**
+         * Evaluates the points, or waits for the points already being evaluated.
+         *
+         * @return The result of every point, in the order of the sweep.
+         */
+        @Override
+        protected Map<RuleSet, BatchResult> compute() {
+            List<Point> pending = new ArrayList<>(sweep.size());
+            for (RuleSet rules : sweep) {
+                Point point = points.computeIfAbsent(rules, Point::new);
+                if (point.claimed.compareAndSet(false, true)) point.fork();
+                pending.add(point);
+            }
+
+            Map<RuleSet, BatchResult> results = new LinkedHashMap<>();
+            for (Point point : pending) results.put(point.rules, point.join());
+            return results;
+        }
+    }
+
+    /**
+     * The evaluation of a single point, forked at most once and remembered with its result.
+     */
+    @SuppressWarnings("serial")
+    private final class Point extends RecursiveTask<BatchResult> {
+
+        /**
+         * The rules of the point.
+         */
+        private final RuleSet rules;
+
+        /**
+         * Whether a sweep has started the evaluation.
+         */
+        private final AtomicBoolean claimed;
+
+        /**
+         * Constructs a new Point of the given rules, not started yet.
+         *
+         * @param rules The rules of the point.
+         */
+        private Point(RuleSet rules) {
+            this.rules = rules;
+            this.claimed = new AtomicBoolean();
+        }
+
+        /**
+         * Plays the games of the point and appends its result to the checkpoint.
+         * A point that fails is forgotten, so that a later sweep evaluates it again.
+         *
+         * @return The result of the games.
+         */
+        @Override
+        protected BatchResult compute() {
+            try {
+                BatchResult result = new BatchSimulator(track, players, rules, maxTurns, true, pool, 1).run(firstSeed, games);
+                save(rules, result);
+                return result;
+            } catch (RuntimeException exception) {
+                points.remove(rules, this);
+                throw exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,586 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.dice.RandomRollSource;
+import capitaly.io.MappedInputParser;
+import capitaly.io.InvalidInputException;
+import capitaly.kernel.GameKernel;
+import capitaly.player.Strategy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A round-robin tournament: every subset of the entrants, from the smallest to the largest table, plays in every
+ * seating order on every track, a matchup, a number of games each.
+ * <p>
+ * The matchups are never listed: matchup i is decoded from its index, the track varying slowest and the seating order
+ * fastest, so a tournament of many entrants and tracks takes no memory for its schedule. The matchups are played in
+ * chunks of {@value #CHUNK} on a fork-join pool, whose idle workers steal halves of the pending ranges from the busy
+ * ones. Every worker thread keeps a {@link GameKernel} per table size for the track it plays, reseated from matchup to
+ * matchup, and the results of the chunks are merged pairwise up the fork-join tree, so no two workers write to the
+ * same result.
+ * <p>
+ * Game g of every matchup on a track rolls its die from the same seed, so every seating order of a subset meets the
+ * same rolls and the seats, not the dice, make the difference between them. The tournament is reproducible regardless
+ * of how it is split between threads.
+ * <p>
+ * With a checkpoint, every chunk is appended to a file as soon as it is played, and a tournament run again with the
+ * same checkpoint, e.g. after a crash, only plays the missing chunks. All numbers of the file are big-endian. It
+ * consists of:
+ * <ul>
+ *     <li>the header: the magic bytes {@code "CPTN"}, the version (u16), the entrant count (i32), every entrant as
+ *     their strategy (the ordinal of {@link Strategy}, u8) and name (as written by
+ *     {@link java.io.DataOutput#writeUTF(String)}), the track count (i32), the length (i32) and
+ *     {@link TrackSpec#fingerprint() fingerprint} (i32) of every track, the values of the rules (i32 each, in the
+ *     order of {@link RuleSet.Rule}), the smallest and largest table (i32 each), the games per matchup (i32), the turn
+ *     limit (i32), the seed (i64) and the chunk size (i32);</li>
+ *     <li>the chunks, in the order they were played: the index of the chunk (i64) and its result.</li>
+ * </ul>
+ */
+public final class Tournament {
+
+    /**
+     * The number of matchups played by a task, and recorded by a checkpoint at once.
+     */
+    public static final int CHUNK = 16;
+
+    /**
+     * The default number of games of every matchup.
+     */
+    public static final int DEFAULT_GAMES = 100;
+
+    /**
+     * The default number of turns after which a game is abandoned without a winner.
+     */
+    public static final int DEFAULT_MAX_TURNS = 100_000;
+
+    /**
+     * The magic bytes at the start of every checkpoint.
+     */
+    private static final int MAGIC = 0x4350544E;
+
+    /**
+     * The version of the checkpoint format written by this code.
+     */
+    private static final short VERSION = 2;
+
+    /**
+     * The usage of the command line.
+     */
+    private static final String USAGE = """
+        Usage: java capitaly.simulation.Tournament [options] <scenario>...
+          <scenario>              the tracks are those of the scenarios, their players are ignored
+          --entrants <list>       the strategies of the entrants, e.g. greedy,careful,strategic (the default)
+          --tables <min-max>      the sizes of the tables (default 2 to the number of entrants)
+          --games <count>         the games of every matchup (default 100)
+          --turns <count>         the turn limit of a game (default 100000)
+          --seed <seed>           the seed of the dice (default 0)
+          --checkpoint <file>     resume from and append every played chunk to the file""";
+
+    /**
+     * The tracks of the tournament.
+     */
+    private final List<TrackSpec> tracks;
+
+    /**
+     * The entrants of the tournament.
+     */
+    private final List<PlayerSpec> entrants;
+
+    /**
+     * The rules of the games.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The smallest number of entrants at a table.
+     */
+    private final int minTable;
+
+    /**
+     * The largest number of entrants at a table.
+     */
+    private final int maxTable;
+
+    /**
+     * The number of games of every matchup.
+     */
+    private final int gamesPerMatchup;
+
+    /**
+     * The number of turns after which a game is abandoned without a winner.
+     */
+    private final int maxTurns;
+
+    /**
+     * The seed of the dice.
+     */
+    private final long seed;
+
+    /**
+     * The pool the games are played on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of seating orders of each table size, by size.
+     */
+    private final long[] orders;
+
+    /**
+     * The number of matchups on every track.
+     */
+    private final long matchupsPerTrack;
+
+    /**
+     * The game state of each worker thread, reused between matchups.
+     */
+    private final ThreadLocal<Worker> workers;
+
+    /**
+     * Constructs a new Tournament under the standard rules with tables of two to all entrants, playing on the common
+     * fork-join pool.
+     *
+     * @param tracks          The tracks of the tournament.
+     * @param entrants        The entrants of the tournament, with distinct names.
+     * @param gamesPerMatchup The number of games of every matchup.
+     * @param maxTurns        The number of turns after which a game is abandoned without a winner.
+     * @param seed            The seed of the dice.
+     * @throws IllegalArgumentException If there are no tracks, fewer than two entrants, entrants with the same name,
+     *                                  or the number of games or the turn limit is not positive.
+     */
+    public Tournament(List<TrackSpec> tracks, List<PlayerSpec> entrants, int gamesPerMatchup, int maxTurns, long seed) {
+        this(tracks, entrants, RuleSet.STANDARD, 2, entrants.size(), gamesPerMatchup, maxTurns, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new Tournament.
+     *
+     * @param tracks          The tracks of the tournament.
+     * @param entrants        The entrants of the tournament, with distinct names.
+     * @param rules           The rules of the games.
+     * @param minTable        The smallest number of entrants at a table, at least 1.
+     * @param maxTable        The largest number of entrants at a table, at most the number of entrants.
+     * @param gamesPerMatchup The number of games of every matchup.
+     * @param maxTurns        The number of turns after which a game is abandoned without a winner.
+     * @param seed            The seed of the dice.
+     * @param pool            The pool the games are played on.
+     * @throws IllegalArgumentException If there are no tracks, fewer than two entrants, entrants with the same name,
+     *                                  the table sizes are out of range, the number of games or the turn limit is not positive, or the
+     *                                  matchups are too many to count.
+     */
+    public Tournament(List<TrackSpec> tracks, List<PlayerSpec> entrants, RuleSet rules, int minTable, int maxTable,
+                      int gamesPerMatchup, int maxTurns, long seed, ForkJoinPool pool) {
+        if (tracks.isEmpty()) throw new IllegalArgumentException("A tournament needs at least one track.");
+        if (entrants.size() < 2) throw new IllegalArgumentException("A tournament needs at least two entrants, got " + entrants.size() + '.');
+        if (entrants.stream().map(PlayerSpec::name).distinct().count() != entrants.size())
+            throw new IllegalArgumentException("Expected entrants with distinct names, got " + entrants + '.');
+        if (minTable < 1 || minTable > maxTable || maxTable > entrants.size())
+            throw new IllegalArgumentException("Expected tables of 1 to " + entrants.size() + " entrants, got " + minTable + " to " + maxTable + '.');
+        if (gamesPerMatchup < 1) throw new IllegalArgumentException("Expected a positive game count, got " + gamesPerMatchup + '.');
+        if (maxTurns < 1) throw new IllegalArgumentException("Expected a positive turn limit, got " + maxTurns + '.');
+
+        this.tracks = List.copyOf(tracks);
+        this.entrants = List.copyOf(entrants);
+        this.rules = rules;
+        this.minTable = minTable;
+        this.maxTable = maxTable;
+        this.gamesPerMatchup = gamesPerMatchup;
+        this.maxTurns = maxTurns;
+        this.seed = seed;
+        this.pool = pool;
+
+        this.orders = new long[maxTable + 1];
+        long perTrack = 0;
+        try {
+            for (int size = 0; size <= maxTable; size++) orders[size] = arrangements(entrants.size(), size);
+            for (int size = minTable; size <= maxTable; size++) perTrack = Math.addExact(perTrack, orders[size]);
+            Math.multiplyExact(perTrack, tracks.size());
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException("Too many matchups for " + entrants.size() + " entrants and " + tracks.size() + " tracks.");
+        }
+        this.matchupsPerTrack = perTrack;
+        this.workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /**
+     * Plays a tournament on the tracks of the scenarios given as arguments and prints its standings.
+     * Usage: {@code java capitaly.simulation.Tournament [options] <scenario>...}, see {@link #USAGE}.
+     *
+     * @param args The arguments of the program.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    public static void main(String[] args) throws IOException {
+        List<Strategy> strategies = List.of(Strategy.GREEDY, Strategy.CAREFUL, Strategy.STRATEGIC);
+        int games = DEFAULT_GAMES, maxTurns = DEFAULT_MAX_TURNS, minTable = 2, maxTable = 0;
+        long seed = 0;
+        Path checkpoint = null;
+        List<String> scenarios = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    scenarios.add(arg);
+                    continue;
+                }
+                if (i + 1 == args.length) throw new IllegalArgumentException("Missing value of " + arg + '.');
+                String value = args[++i];
+                switch (arg) {
+                    case "--entrants" -> strategies = Arrays.stream(value.split(",")).map(Tournament::strategy).toList();
+                    case "--tables" -> {
+                        int dash = value.indexOf('-');
+                        if (dash < 0) throw new IllegalArgumentException("Expected tables as <min-max>, got \"" + value + "\".");
+                        minTable = Integer.parseInt(value.substring(0, dash));
+                        maxTable = Integer.parseInt(value.substring(dash + 1));
+                    }
+                    case "--games" -> games = Integer.parseInt(value);
+                    case "--turns" -> maxTurns = Integer.parseInt(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--checkpoint" -> checkpoint = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + arg + '.');
+                }
+            }
+            if (scenarios.isEmpty()) throw new IllegalArgumentException("Expected at least one scenario.");
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+
+        List<TrackSpec> tracks = new ArrayList<>();
+        for (String scenario : scenarios) {
+            try (MappedInputParser parser = new MappedInputParser(scenario)) {
+                tracks.add(TrackSpec.of(parser.getTrack()));
+            }
+        }
+        List<PlayerSpec> entrants = new ArrayList<>();
+        for (int i = 0; i < strategies.size(); i++) entrants.add(new PlayerSpec(strategies.get(i).getKeyword() + (i + 1), strategies.get(i)));
+
+        Tournament tournament;
+        try {
+            tournament = new Tournament(tracks, entrants, RuleSet.STANDARD, minTable, maxTable == 0 ? entrants.size() : maxTable,
+                games, maxTurns, seed, ForkJoinPool.commonPool());
+        } catch (IllegalArgumentException exception) {
+            System.out.println(exception.getMessage() + '\n' + USAGE);
+            return;
+        }
+        System.out.println(checkpoint == null ? tournament.run() : tournament.run(checkpoint));
+    }
+
+    /**
+     * Returns the strategy with the given keyword.
+     *
+     * @param keyword The keyword of the strategy.
+     * @return The strategy.
+     * @throws IllegalArgumentException If no strategy has the keyword.
+     */
+    private static Strategy strategy(String keyword) {
+        for (Strategy strategy : Strategy.values()) if (strategy.getKeyword().equals(keyword)) return strategy;
+        throw new IllegalArgumentException("Unknown strategy \"" + keyword + "\".");
+    }
+
+    /**
+     * Returns the number of ordered arrangements of some of the given items.
+     *
+     * @param items The number of items.
+     * @param size  The number of items arranged.
+     * @return The number of arrangements.
+     * @throws ArithmeticException If the number overflows a long.
+     */
+    private static long arrangements(int items, int size) {
+        long count = 1;
+        for (int i = 0; i < size; i++) count = Math.multiplyExact(count, items - i);
+        return count;
+    }
+
+    /**
+     * Returns the number of matchups of the tournament.
+     *
+     * @return The number of matchups.
+     */
+    public long getMatchups() {
+        return matchupsPerTrack * tracks.size();
+    }
+
+    /**
+     * Returns the matchup with the given index.
+     *
+     * @param index The index of the matchup, from 0 to {@link #getMatchups()}.
+     * @return The matchup.
+     * @throws IndexOutOfBoundsException If the index is out of range.
+     */
+    public Matchup getMatchup(long index) {
+        if (index < 0 || index >= this.getMatchups()) throw new IndexOutOfBoundsException("No matchup " + index + '.');
+        int[] seating = new int[maxTable];
+        int seats = this.decode(index % matchupsPerTrack, seating, new boolean[entrants.size()]);
+        List<PlayerSpec> players = new ArrayList<>(seats);
+        for (int seat = 0; seat < seats; seat++) players.add(entrants.get(seating[seat]));
+        return new Matchup((int) (index / matchupsPerTrack), players);
+    }
+
+    /**
+     * Decodes the seating order of a matchup from its index on its track: the smaller tables come first, and the
+     * seating orders of a table size are in lexicographic order of the indices of the entrants.
+     *
+     * @param rank    The index of the matchup on its track.
+     * @param seating The array receiving the index of the entrant of every seat.
+     * @param taken   The scratch array marking the entrants seated so far, of one entry per entrant.
+     * @return The number of seats.
+     */
+    private int decode(long rank, int[] seating, boolean[] taken) {
+        int size = minTable;
+        while (rank >= orders[size]) rank -= orders[size++];
+
+        Arrays.fill(taken, false);
+        int entrantCount = entrants.size();
+        for (int seat = 0; seat < size; seat++) {
+            long block = arrangements(entrantCount - seat - 1, size - seat - 1);
+            int digit = (int) (rank / block);
+            rank %= block;
+            int entrant = -1;
+            while (digit >= 0) if (!taken[++entrant]) digit--;
+            taken[entrant] = true;
+            seating[seat] = entrant;
+        }
+        return size;
+    }
+
+    /**
+     * Plays the tournament.
+     *
+     * @return The aggregated results of every game.
+     */
+    public TournamentResult run() {
+        return pool.invoke(new Chunks(0, this.chunkCount(), new BitSet(), null));
+    }
+
+    /**
+     * Plays the tournament, resuming from the given checkpoint and appending every chunk played to it.
+     * A missing or empty file is started with the header of this tournament; a chunk cut short at the end of the file
+     * is played again.
+     *
+     * @param path The path of the checkpoint.
+     * @return The aggregated results of every game, including those read from the checkpoint.
+     * @throws IOException           If the checkpoint cannot be read or created.
+     * @throws UncheckedIOException  If a played chunk cannot be appended to the checkpoint.
+     * @throws InvalidInputException If the file is not a checkpoint of this tournament.
+     */
+    public TournamentResult run(Path path) throws IOException {
+        BitSet done = new BitSet();
+        TournamentResult resumed = new TournamentResult(entrants);
+        try (Checkpoint checkpoint = Checkpoint.open(path, this.header(), in -> {
+            long chunk = in.readLong();
+            TournamentResult result = TournamentResult.read(in, entrants);
+            if (chunk < 0 || chunk >= this.chunkCount()) throw new InvalidInputException("No chunk " + chunk + " in the tournament.");
+            if (done.get((int) chunk)) return;
+            done.set((int) chunk);
+            resumed.merge(result);
+        })) {
+            return pool.invoke(new Chunks(0, this.chunkCount(), done, checkpoint)).merge(resumed);
+        }
+    }
+
+    /**
+     * Returns the number of chunks of the tournament.
+     *
+     * @return The number of chunks.
+     * @throws IllegalStateException If the chunks are too many to be tracked.
+     */
+    private int chunkCount() {
+        long chunks = (this.getMatchups() + CHUNK - 1) / CHUNK;
+        if (chunks > Integer.MAX_VALUE) throw new IllegalStateException("Too many chunks: " + chunks + '.');
+        return (int) chunks;
+    }
+
+    /**
+     * Creates the header of the checkpoints of this tournament.
+     *
+     * @return The bytes of the header.
+     */
+    private byte[] header() {
+        return Checkpoint.header(out -> {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entrants.size());
+            for (PlayerSpec entrant : entrants) {
+                out.writeByte(entrant.strategy().ordinal());
+                out.writeUTF(entrant.name());
+            }
+            out.writeInt(tracks.size());
+            for (TrackSpec track : tracks) {
+                out.writeInt(track.length());
+                out.writeInt(track.fingerprint());
+            }
+            for (RuleSet.Rule rule : RuleSet.Rule.values()) out.writeInt(rules.get(rule));
+            out.writeInt(minTable);
+            out.writeInt(maxTable);
+            out.writeInt(gamesPerMatchup);
+            out.writeInt(maxTurns);
+            out.writeLong(seed);
+            out.writeInt(CHUNK);
+        });
+    }
+
+    /**
+     * Plays the matchups of a chunk on the calling thread.
+     *
+     * @param chunk The index of the chunk.
+     * @return The results of the games of the chunk.
+     */
+    private TournamentResult play(int chunk) {
+        Worker worker = workers.get();
+        TournamentResult result = new TournamentResult(entrants);
+        long end = Math.min((long) (chunk + 1) * CHUNK, this.getMatchups());
+        for (long matchup = (long) chunk * CHUNK; matchup < end; matchup++) {
+            int track = (int) (matchup / matchupsPerTrack);
+            int seats = this.decode(matchup % matchupsPerTrack, worker.seating, worker.taken);
+            GameKernel game = worker.seat(track, seats);
+            for (int g = 0; g < gamesPerMatchup; g++) {
+                worker.die.reseed(seed + (long) track * gamesPerMatchup + g);
+                game.reset();
+                game.play(worker.die, maxTurns);
+                result.record(worker.seating, seats, game.getWinner());
+            }
+            game.flushMetrics();
+        }
+        return result;
+    }
+
+    /**
+     * A matchup of the tournament: a track and the entrants at the table.
+     *
+     * @param track   The index of the track.
+     * @param seating The entrants at the table, in seating order.
+     */
+    public record Matchup(int track, List<PlayerSpec> seating) {
+    }
+
+    /**
+     * The game state of a worker thread: a game of the track it plays for every table size, and scratch arrays.
+     */
+    private final class Worker {
+
+        /**
+         * The die of the games, reseeded for every game.
+         */
+        private final RandomRollSource die = new RandomRollSource(0);
+
+        /**
+         * The index of the entrant of every seat of the current matchup.
+         */
+        private final int[] seating = new int[maxTable];
+
+        /**
+         * The entrants seated while decoding a matchup.
+         */
+        private final boolean[] taken = new boolean[entrants.size()];
+
+        /**
+         * The players of the current matchup, the first seats being valid.
+         */
+        private final PlayerSpec[] players = new PlayerSpec[maxTable];
+
+        /**
+         * The games of the current track, by table size, null until first needed.
+         */
+        private final GameKernel[] games = new GameKernel[maxTable + 1];
+
+        /**
+         * The index of the track of the games, -1 before the first matchup.
+         */
+        private int track = -1;
+
+        /**
+         * Returns a game of the given track with the entrants of {@link #seating} at the table, reusing the game of
+         * the same track and table size if there is one.
+         *
+         * @param track The index of the track.
+         * @param seats The number of seats.
+         * @return The game, reset.
+         */
+        private GameKernel seat(int track, int seats) {
+            if (track != this.track) {
+                Arrays.fill(games, null);
+                this.track = track;
+            }
+            for (int seat = 0; seat < seats; seat++) players[seat] = entrants.get(seating[seat]);
+            List<PlayerSpec> table = Arrays.asList(players).subList(0, seats);
+            if (games[seats] == null) games[seats] = new GameKernel(tracks.get(track), table, rules);
+            else games[seats].reseat(table);
+            return games[seats];
+        }
+    }
+
+    /**
+     * A range of chunks, split in halves until a single chunk is left.
+     */
+    @SuppressWarnings("serial")
+    private final class Chunks extends RecursiveTask<TournamentResult> {
+
+        /**
+         * The index of the first chunk of the range.
+         */
+        private final int from;
+
+        /**
+         * The index after the last chunk of the range.
+         */
+        private final int to;
+
+        /**
+         * The chunks already played, read from the checkpoint.
+         */
+        private final BitSet done;
+
+        /**
+         * The checkpoint the played chunks are appended to, null without a checkpoint.
+         */
+        private final Checkpoint checkpoint;
+
+        /**
+         * Constructs a new Chunks of the given range.
+         *
+         * @param from       The index of the first chunk of the range.
+         * @param to         The index after the last chunk of the range.
+         * @param done       The chunks already played, not to be played again.
+         * @param checkpoint The checkpoint the played chunks are appended to, null without a checkpoint.
+         */
+        private Chunks(int from, int to, BitSet done, Checkpoint checkpoint) {
+            this.from = from;
+            this.to = to;
+            this.done = done;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * Plays the chunks of the range that are not done.
+         *
+         * @return The aggregated results of the chunks played.
+         */
+        @Override
+        protected TournamentResult compute() {
+            if (to - from > 1) {
+                int half = (from + to) >>> 1;
+                Chunks second = new Chunks(half, to, done, checkpoint);
+                second.fork();
+                TournamentResult result = new Chunks(from, half, done, checkpoint).compute();
+                return result.merge(second.join());
+            }
+            if (from == to || done.get(from)) return new TournamentResult(entrants);
+
+            TournamentResult result = play(from);
+            if (checkpoint != null) checkpoint.append(out -> {
+                out.writeLong(from);
+                result.write(out);
+            });
+            return result;
+        }
+    }
+}
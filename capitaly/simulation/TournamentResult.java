@@ -0,0 +1,289 @@
+package capitaly.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Aggregated results of the games of a {@link Tournament}, by entrant.
+ * Every finished game counts as a win of its winner over every other entrant at the table, and the ratings of the
+ * entrants are fitted to these pairwise outcomes. Partial results of parallel workers are combined with
+ * {@link #merge(TournamentResult)}.
+ */
+public final class TournamentResult {
+
+    /**
+     * The rating of an average entrant.
+     */
+    public static final double MEAN_RATING = 1500;
+
+    /**
+     * The rating difference at which the higher rated entrant is expected to win ten times as often, as in Elo.
+     */
+    private static final double RATING_SCALE = 400;
+
+    /**
+     * The virtual wins of every entrant over every other, so that the ratings stay finite for entrants that never or
+     * always win.
+     */
+    private static final double PRIOR_WINS = 0.5;
+
+    /**
+     * The largest relative change of a strength for the ratings to be considered converged.
+     */
+    private static final double CONVERGED = 1e-10;
+
+    /**
+     * The largest number of iterations fitting the ratings.
+     */
+    private static final int MAX_ITERATIONS = 10_000;
+
+    /**
+     * The entrants of the tournament.
+     */
+    private final List<PlayerSpec> entrants;
+
+    /**
+     * The number of games won by each entrant against each other, entrant i over entrant j at {@code i * n + j}.
+     */
+    private final long[] defeats;
+
+    /**
+     * The number of games played by each entrant.
+     */
+    private final long[] played;
+
+    /**
+     * The number of games won by each entrant.
+     */
+    private final long[] won;
+
+    /**
+     * The number of games played.
+     */
+    private long games;
+
+    /**
+     * The number of games that reached the turn limit without a winner.
+     */
+    private long unfinished;
+
+    /**
+     * Constructs a new, empty TournamentResult for the given entrants.
+     *
+     * @param entrants The entrants of the tournament, at least two for their ratings to be defined.
+     * @throws IllegalArgumentException If there are fewer than two entrants.
+     */
+    TournamentResult(List<PlayerSpec> entrants) {
+        int count = entrants.size();
+        if (count < 2) throw new IllegalArgumentException("Expected at least two entrants to rate, got " + count + '.');
+        this.entrants = List.copyOf(entrants);
+        this.defeats = new long[count * count];
+        this.played = new long[count];
+        this.won = new long[count];
+    }
+
+    /**
+     * Records the outcome of a single game.
+     *
+     * @param seating The entrants at the table, by seat.
+     * @param seats   The number of seats at the table.
+     * @param winner  The seat of the winner, or -1 if the game did not finish.
+     */
+    void record(int[] seating, int seats, int winner) {
+        this.games++;
+        for (int seat = 0; seat < seats; seat++) this.played[seating[seat]]++;
+        if (winner < 0) {
+            this.unfinished++;
+            return;
+        }
+
+        int first = seating[winner], row = first * won.length;
+        this.won[first]++;
+        for (int seat = 0; seat < seats; seat++) if (seat != winner) this.defeats[row + seating[seat]]++;
+    }
+
+    /**
+     * Adds the games of another result to this one.
+     *
+     * @param other The result to merge into this one.
+     * @return This result.
+     * @throws IllegalArgumentException If the results belong to different entrants.
+     */
+    public TournamentResult merge(TournamentResult other) {
+        if (!this.entrants.equals(other.entrants))
+            throw new IllegalArgumentException("Cannot merge results of different entrants: " + this.entrants + " and " + other.entrants + '.');
+
+        for (int i = 0; i < defeats.length; i++) this.defeats[i] += other.defeats[i];
+        for (int i = 0; i < won.length; i++) {
+            this.played[i] += other.played[i];
+            this.won[i] += other.won[i];
+        }
+        this.games += other.games;
+        this.unfinished += other.unfinished;
+        return this;
+    }
+
+    /**
+     * Writes the result, without its entrants, for {@link #read(DataInput, List)} to read it back.
+     *
+     * @param out The output to write to.
+     * @throws IOException If the output cannot be written.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeLong(games);
+        out.writeLong(unfinished);
+        for (int i = 0; i < won.length; i++) {
+            out.writeLong(played[i]);
+            out.writeLong(won[i]);
+        }
+        for (long count : defeats) out.writeLong(count);
+    }
+
+    /**
+     * Reads a result written by {@link #write(DataOutput)}.
+     *
+     * @param in       The input to read from.
+     * @param entrants The entrants of the tournament.
+     * @return The result.
+     * @throws IOException If the input cannot be read or ends before the result.
+     */
+    static TournamentResult read(DataInput in, List<PlayerSpec> entrants) throws IOException {
+        TournamentResult result = new TournamentResult(entrants);
+        result.games = in.readLong();
+        result.unfinished = in.readLong();
+        for (int i = 0; i < result.won.length; i++) {
+            result.played[i] = in.readLong();
+            result.won[i] = in.readLong();
+        }
+        for (int i = 0; i < result.defeats.length; i++) result.defeats[i] = in.readLong();
+        return result;
+    }
+
+    /**
+     * Returns the entrants of the tournament.
+     *
+     * @return The entrants, in the order of the other arrays of the result.
+     */
+    public List<PlayerSpec> getEntrants() {
+        return entrants;
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return The number of games played.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Returns the number of games that reached the turn limit without a winner.
+     *
+     * @return The number of unfinished games.
+     */
+    public long getUnfinished() {
+        return unfinished;
+    }
+
+    /**
+     * Returns the number of games played by each entrant.
+     *
+     * @return The games of the entrants.
+     */
+    public long[] getPlayed() {
+        return played.clone();
+    }
+
+    /**
+     * Returns the number of games won by each entrant.
+     *
+     * @return The wins of the entrants.
+     */
+    public long[] getWins() {
+        return won.clone();
+    }
+
+    /**
+     * Returns the number of games an entrant won with another one at the table.
+     *
+     * @param winner The index of the winning entrant.
+     * @param loser  The index of the losing entrant.
+     * @return The number of games.
+     */
+    public long getDefeats(int winner, int loser) {
+        return defeats[winner * won.length + loser];
+    }
+
+    /**
+     * Returns the ratings of the entrants on the Elo scale: an entrant rated {@value #RATING_SCALE} points above
+     * another is expected to beat them ten times as often, and the ratings average {@value #MEAN_RATING}.
+     * <p>
+     * Unlike Elo updated game after game, the ratings do not depend on the order of the games, which parallel workers
+     * do not keep: they are the maximum likelihood Bradley-Terry strengths of the pairwise outcomes, fitted by
+     * minorization-maximization, with {@value #PRIOR_WINS} virtual wins of every entrant over every other.
+     *
+     * @return The rating of each entrant.
+     */
+    public double[] getRatings() {
+        int count = won.length;
+        double[] wins = new double[count];
+        for (int i = 0; i < count; i++) {
+            wins[i] = PRIOR_WINS * (count - 1);
+            for (int j = 0; j < count; j++) wins[i] += defeats[i * count + j];
+        }
+
+        double[] strength = new double[count], next = new double[count];
+        Arrays.fill(strength, 1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double change = 0, logSum = 0;
+            for (int i = 0; i < count; i++) {
+                double sum = 0;
+                for (int j = 0; j < count; j++) {
+                    if (j == i) continue;
+                    double meetings = defeats[i * count + j] + defeats[j * count + i] + 2 * PRIOR_WINS;
+                    sum += meetings / (strength[i] + strength[j]);
+                }
+                next[i] = wins[i] / sum;
+                logSum += Math.log(next[i]);
+            }
+            double norm = Math.exp(logSum / count);
+            for (int i = 0; i < count; i++) {
+                next[i] /= norm;
+                change = Math.max(change, Math.abs(next[i] - strength[i]) / strength[i]);
+            }
+            double[] swap = strength;
+            strength = next;
+            next = swap;
+            if (change < CONVERGED) break;
+        }
+
+        double[] ratings = new double[count];
+        for (int i = 0; i < count; i++) ratings[i] = MEAN_RATING + RATING_SCALE * Math.log10(strength[i]);
+        return ratings;
+    }
+
+    /**
+     * Returns the string representation of the TournamentResult.
+     *
+     * @return The string describing the result.
+     */
+    @Override
+    public String toString() {
+        double[] ratings = this.getRatings();
+        return "TournamentResult {" +
+            "\n\tgames: " + games +
+            "\n\tunfinished: " + unfinished +
+            "\n\tstandings: " +
+            IntStream.range(0, won.length).boxed()
+                .sorted((a, b) -> Double.compare(ratings[b], ratings[a]))
+                .map(i -> String.format("\n\t\t%s (%s): rating %.1f, won %d of %d", entrants.get(i).name(), entrants.get(i).strategy().getKeyword(), ratings[i], won[i], played[i]))
+                .collect(Collectors.joining()) +
+            "\n}";
+    }
+}
@@ -0,0 +1,165 @@
+package capitaly.simulation;
+
+import capitaly.GameContext;
+import capitaly.Track;
+import capitaly.tile.Tile;
+import capitaly.tile.TileKind;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Describes the layout of a {@link Track} without any game state.
+ * Unlike a track, a spec can be shared between games and threads, and builds a fresh track for every game.
+ */
+public final class TrackSpec {
+
+    /**
+     * The kinds of the tiles, in track order.
+     */
+    private final TileKind[] kinds;
+
+    /**
+     * The fees or rewards of the tiles, in track order.
+     */
+    private final int[] amounts;
+
+    /**
+     * Constructs a new TrackSpec with the given tile kinds and amounts.
+     *
+     * @param kinds   The kinds of the tiles, in track order.
+     * @param amounts The fees or rewards of the tiles, in track order.
+     * @throws IllegalArgumentException If the arrays are empty or differ in length.
+     */
+    public TrackSpec(TileKind[] kinds, int[] amounts) {
+        if (kinds.length == 0) throw new IllegalArgumentException("A track needs at least one tile.");
+        if (kinds.length != amounts.length)
+            throw new IllegalArgumentException("Expected as many amounts as tiles, got " + amounts.length + " for " + kinds.length + " tiles.");
+        this.kinds = kinds.clone();
+        this.amounts = amounts.clone();
+    }
+
+    /**
+     * Describes the layout of the given track.
+     *
+     * @param track The track to describe.
+     * @return The spec of the track.
+     */
+    public static TrackSpec of(Track track) {
+        List<Tile> tiles = track.getTiles();
+        TileKind[] kinds = new TileKind[tiles.size()];
+        int[] amounts = new int[tiles.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = tiles.get(i).getKind();
+            amounts[i] = tiles.get(i).getAmount();
+        }
+        return new TrackSpec(kinds, amounts);
+    }
+
+    /**
+     * Builds a new track with fresh tiles following the spec.
+     *
+     * @param context The context of the game the track is built for.
+     * @return The new track.
+     */
+    public Track build(GameContext context) {
+        return this.build(context, false);
+    }
+
+    /**
+     * Builds a new track with fresh tiles following the spec, compiled or not, see {@link Track#Track(List, boolean)}.
+     *
+     * @param context  The context of the game the track is built for.
+     * @param compiled Whether the track enters its tiles with a switch on their kind.
+     * @return The new track.
+     */
+    public Track build(GameContext context, boolean compiled) {
+        List<Tile> tiles = new ArrayList<>(kinds.length);
+        for (int i = 0; i < kinds.length; i++) tiles.add(kinds[i].create(amounts[i], context));
+        return new Track(tiles, compiled);
+    }
+
+    /**
+     * Returns the length of the track (the number of tiles).
+     *
+     * @return The length of the track.
+     */
+    public int length() {
+        return kinds.length;
+    }
+
+    /**
+     * Returns the kind of the tile at the given index.
+     *
+     * @param index The index of the tile.
+     * @return The kind of the tile.
+     */
+    public TileKind kind(int index) {
+        return kinds[index];
+    }
+
+    /**
+     * Returns the fee or reward of the tile at the given index.
+     *
+     * @param index The index of the tile.
+     * @return The amount of the tile.
+     */
+    public int amount(int index) {
+        return amounts[index];
+    }
+
+    /**
+     * Returns a fingerprint of the layout: the CRC-32 of the kind (the ordinal of {@link TileKind}, u8) and amount
+     * (i32, big-endian) of every tile, in track order. Unlike {@link #hashCode()}, which hashes the kinds by identity,
+     * the fingerprint is the same in every JVM, so it can be written to files and read back by another run.
+     *
+     * @return The fingerprint of the layout.
+     */
+    public int fingerprint() {
+        CRC32 crc = new CRC32();
+        ByteBuffer tile = ByteBuffer.allocate(Byte.BYTES + Integer.BYTES);
+        for (int i = 0; i < kinds.length; i++) {
+            tile.clear();
+            tile.put((byte) kinds[i].ordinal()).putInt(amounts[i]).flip();
+            crc.update(tile);
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Compares the TrackSpec to another object.
+     *
+     * @param o The object to compare to.
+     * @return True if both describe the same layout, false otherwise.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TrackSpec that)) return false;
+
+        return Arrays.equals(kinds, that.kinds) && Arrays.equals(amounts, that.amounts);
+    }
+
+    /**
+     * Returns the hash code of the TrackSpec.
+     *
+     * @return The hash code of the TrackSpec.
+     */
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(kinds) + Arrays.hashCode(amounts);
+    }
+
+    /**
+     * Returns the string representation of the TrackSpec.
+     *
+     * @return The string describing the spec.
+     */
+    @Override
+    public String toString() {
+        return "TrackSpec { length: " + kinds.length + " }";
+    }
+}
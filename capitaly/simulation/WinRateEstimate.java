@@ -0,0 +1,52 @@
+package capitaly.simulation;
+
+import capitaly.player.Strategy;
+
+/**
+ * The estimated share of games won by a strategy, with a Wilson score confidence interval.
+ *
+ * @param strategy The strategy.
+ * @param wins     The number of games won by the players following the strategy.
+ * @param games    The number of games played.
+ * @param rate     The observed share of games won.
+ * @param lower    The lower bound of the confidence interval.
+ * @param upper    The upper bound of the confidence interval.
+ */
+public record WinRateEstimate(Strategy strategy, long wins, long games, double rate, double lower, double upper) {
+
+    /**
+     * Estimates the win rate of a strategy.
+     *
+     * @param strategy The strategy.
+     * @param wins     The number of games won by the players following the strategy.
+     * @param games    The number of games played, positive.
+     * @param z        The standard normal quantile of the confidence level, e.g. 1.96 for 95%.
+     * @return The estimate.
+     */
+    static WinRateEstimate of(Strategy strategy, long wins, long games, double z) {
+        double rate = (double) wins / games;
+        double z2 = z * z / games;
+        double center = (rate + z2 / 2) / (1 + z2);
+        double half = z * Math.sqrt(rate * (1 - rate) / games + z2 / (4 * games)) / (1 + z2);
+        return new WinRateEstimate(strategy, wins, games, rate, Math.max(0, center - half), Math.min(1, center + half));
+    }
+
+    /**
+     * Returns the width of the confidence interval.
+     *
+     * @return The distance between the bounds.
+     */
+    public double width() {
+        return upper - lower;
+    }
+
+    /**
+     * Returns the string representation of the estimate.
+     *
+     * @return The string describing the estimate.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s: %.4f [%.4f, %.4f] (%d / %d)", strategy, rate, lower, upper, wins, games);
+    }
+}
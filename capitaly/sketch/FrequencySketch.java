@@ -0,0 +1,147 @@
+package capitaly.sketch;
+
+/**
+ * A count-min sketch of the frequencies of the values of a stream, in a fixed depth x width table of counters.
+ * Every row hashes a value to one of its counters; the estimate of a value is the least of its counters, which never
+ * undercounts and overcounts by at most e/width of the total with probability 1 - e^-depth, whatever the number of
+ * distinct values. It finds the hot values of a domain too large to count exactly, e.g. the tiles of a long track.
+ * <p>
+ * Sketches of the same dimensions are merged with {@link #merge(FrequencySketch)}, exactly: the merged sketch is the
+ * sketch of the union of the streams, whatever their order. A sketch is not thread-safe.
+ */
+public final class FrequencySketch {
+
+    /**
+     * The default number of rows.
+     */
+    public static final int DEFAULT_DEPTH = 4;
+
+    /**
+     * The default number of counters of a row.
+     */
+    public static final int DEFAULT_WIDTH = 1 << 14;
+
+    /**
+     * The number of rows.
+     */
+    private final int depth;
+
+    /**
+     * The number of bits of the index of a counter in its row.
+     */
+    private final int widthBits;
+
+    /**
+     * The counters, row after row.
+     */
+    private final long[] counters;
+
+    /**
+     * The sum of the counts added.
+     */
+    private long total;
+
+    /**
+     * Constructs a new, empty FrequencySketch with the default dimensions.
+     */
+    public FrequencySketch() {
+        this(DEFAULT_DEPTH, DEFAULT_WIDTH);
+    }
+
+    /**
+     * Constructs a new, empty FrequencySketch with the given dimensions.
+     *
+     * @param depth The number of rows, at least 1.
+     * @param width The number of counters of a row, a power of two.
+     * @throws IllegalArgumentException If a dimension is out of range.
+     */
+    public FrequencySketch(int depth, int width) {
+        if (depth < 1) throw new IllegalArgumentException("Expected a positive depth, got " + depth + '.');
+        if (width < 1 || Integer.bitCount(width) != 1) throw new IllegalArgumentException("Expected a power of two width, got " + width + '.');
+        if ((long) depth * width > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many counters: " + depth + " x " + width + '.');
+        this.depth = depth;
+        this.widthBits = Integer.numberOfTrailingZeros(width);
+        this.counters = new long[depth * width];
+    }
+
+    /**
+     * Returns the index of the counter of a value in a row.
+     *
+     * @param row   The row.
+     * @param value The value.
+     * @return The index of the counter in {@link #counters}.
+     */
+    private int index(int row, long value) {
+        long hash = Hashing.mix(value + row * 0x9E3779B97F4A7C15L);
+        return (row << widthBits) + (int) (hash >>> (Long.SIZE - widthBits) & ((1L << widthBits) - 1));
+    }
+
+    /**
+     * Counts a value once.
+     *
+     * @param value The value.
+     */
+    public void add(long value) {
+        this.add(value, 1);
+    }
+
+    /**
+     * Counts a value the given number of times.
+     *
+     * @param value The value.
+     * @param count The number of times, non-negative.
+     * @throws IllegalArgumentException If the count is negative.
+     */
+    public void add(long value, long count) {
+        if (count < 0) throw new IllegalArgumentException("Expected a non-negative count, got " + count + '.');
+        for (int row = 0; row < depth; row++) counters[this.index(row, value)] += count;
+        total += count;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one. The other sketch is not modified.
+     *
+     * @param other The sketch to merge into this one.
+     * @return This sketch.
+     * @throws IllegalArgumentException If the sketches have different dimensions.
+     */
+    public FrequencySketch merge(FrequencySketch other) {
+        if (other.depth != this.depth || other.widthBits != this.widthBits)
+            throw new IllegalArgumentException("Cannot merge sketches of " + this.depth + " x " + (1 << this.widthBits)
+                + " and " + other.depth + " x " + (1 << other.widthBits) + " counters.");
+        for (int i = 0; i < counters.length; i++) counters[i] += other.counters[i];
+        total += other.total;
+        return this;
+    }
+
+    /**
+     * Returns the estimated number of times a value was counted, never less than the true number.
+     *
+     * @param value The value.
+     * @return The estimate.
+     */
+    public long getEstimate(long value) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) estimate = Math.min(estimate, counters[this.index(row, value)]);
+        return estimate;
+    }
+
+    /**
+     * Returns the sum of the counts added.
+     *
+     * @return The total count.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the string representation of the FrequencySketch.
+     *
+     * @return The dimensions and the total count.
+     */
+    @Override
+    public String toString() {
+        return "FrequencySketch {" + depth + " x " + (1 << widthBits) + ", total: " + total + '}';
+    }
+}
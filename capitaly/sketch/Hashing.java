@@ -0,0 +1,28 @@
+package capitaly.sketch;
+
+/**
+ * The hash function shared by the sketches, spreading the values they count over 64 bits.
+ */
+final class Hashing {
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private Hashing() {
+    }
+
+    /**
+     * Mixes the bits of a value, every bit of the input flipping every bit of the output with probability one half.
+     * This is the finalizer of MurmurHash3, a bijection, so distinct values never collide.
+     *
+     * @param value The value to hash.
+     * @return The hash of the value.
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        return value ^ value >>> 33;
+    }
+}
@@ -0,0 +1,308 @@
+package capitaly.sketch;
+
+import java.util.Arrays;
+
+/**
+ * A streaming summary of a distribution of integers answering quantile queries, in the style of the KLL sketch of
+ * Karnin, Lang and Liberty: the values are kept in levels, a value at level h standing for 2^h values. A full level
+ * is sorted and compacted, every other value moving up a level, starting with the first or the second at random, so
+ * the sketch keeps O(k) values however many it is given while the rank of any value stays unbiased.
+ * <p>
+ * With the default k, a rank is known to within about 1.5% of the count. Sketches with the same k are merged with
+ * {@link #merge(QuantileSketch)}, whatever the values they were given, so every thread can fill its own sketch and the
+ * sketches be merged at the end. A sketch is not thread-safe.
+ */
+public final class QuantileSketch {
+
+    /**
+     * The default capacity of the top level.
+     */
+    public static final int DEFAULT_K = 200;
+
+    /**
+     * The smallest capacity of a level.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * The ratio of the capacity of a level to the capacity of the level above it.
+     */
+    private static final double DECAY = 2.0 / 3;
+
+    /**
+     * The capacity of the top level, setting the accuracy of the sketch.
+     */
+    private final int k;
+
+    /**
+     * The values of every level, the first {@code sizes[h]} of {@code levels[h]} being used.
+     */
+    private long[][] levels;
+
+    /**
+     * The number of values of every level.
+     */
+    private int[] sizes;
+
+    /**
+     * The number of values given to the sketch.
+     */
+    private long count;
+
+    /**
+     * The smallest value given to the sketch.
+     */
+    private long min;
+
+    /**
+     * The largest value given to the sketch.
+     */
+    private long max;
+
+    /**
+     * The state of the generator picking which values of a compacted level move up.
+     */
+    private long random;
+
+    /**
+     * Constructs a new, empty QuantileSketch with the default accuracy.
+     */
+    public QuantileSketch() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Constructs a new, empty QuantileSketch with the given accuracy.
+     *
+     * @param k The capacity of the top level; the rank error falls as 1/k.
+     * @throws IllegalArgumentException If k is less than {@value #MIN_CAPACITY}.
+     */
+    public QuantileSketch(int k) {
+        if (k < MIN_CAPACITY) throw new IllegalArgumentException("Expected k of at least " + MIN_CAPACITY + ", got " + k + '.');
+        this.k = k;
+        this.levels = new long[][]{new long[k]};
+        this.sizes = new int[1];
+        this.min = Long.MAX_VALUE;
+        this.max = Long.MIN_VALUE;
+        this.random = 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Adds a value to the summary.
+     *
+     * @param value The value.
+     */
+    public void add(long value) {
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        this.append(0, value);
+        if (sizes[0] >= this.capacity(0)) this.compress();
+    }
+
+    /**
+     * Adds the values summarized by another sketch to this one. The other sketch is not modified.
+     *
+     * @param other The sketch to merge into this one.
+     * @return This sketch.
+     * @throws IllegalArgumentException If the sketches have different accuracies.
+     */
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.k != this.k) throw new IllegalArgumentException("Cannot merge sketches with k " + this.k + " and " + other.k + '.');
+        if (other.count == 0) return this;
+
+        while (levels.length < other.levels.length) this.grow();
+        for (int h = 0; h < other.levels.length; h++)
+            for (int i = 0; i < other.sizes[h]; i++) this.append(h, other.levels[h][i]);
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        this.compress();
+        return this;
+    }
+
+    /**
+     * Returns the capacity of a level, the lower levels holding fewer values.
+     *
+     * @param level The level.
+     * @return The number of values at which the level is compacted.
+     */
+    private int capacity(int level) {
+        int depth = levels.length - 1 - level;
+        return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(DECAY, depth)));
+    }
+
+    /**
+     * Appends a value to a level, growing its array if needed.
+     *
+     * @param level The level.
+     * @param value The value.
+     */
+    private void append(int level, long value) {
+        if (sizes[level] == levels[level].length) levels[level] = Arrays.copyOf(levels[level], 2 * levels[level].length);
+        levels[level][sizes[level]++] = value;
+    }
+
+    /**
+     * Adds an empty level on top of the others.
+     */
+    private void grow() {
+        levels = Arrays.copyOf(levels, levels.length + 1);
+        levels[levels.length - 1] = new long[MIN_CAPACITY];
+        sizes = Arrays.copyOf(sizes, sizes.length + 1);
+    }
+
+    /**
+     * Compacts every level over its capacity, from the bottom up.
+     * Compacting a level moves every other of its sorted values up a level, doubling their weight, and keeps the last
+     * value if there is an odd number of them, so the total weight is kept.
+     */
+    private void compress() {
+        for (int h = 0; h < levels.length; h++) {
+            if (sizes[h] < this.capacity(h)) continue;
+            if (h + 1 == levels.length) this.grow();
+
+            long[] values = levels[h];
+            int size = sizes[h], pairs = size / 2, offset = this.nextBit();
+            Arrays.sort(values, 0, size);
+            for (int i = 0; i < pairs; i++) this.append(h + 1, values[2 * i + offset]);
+            if ((size & 1) != 0) values[0] = values[size - 1];
+            sizes[h] = size & 1;
+        }
+    }
+
+    /**
+     * Draws a random bit, from a xorshift generator private to the sketch.
+     *
+     * @return 0 or 1.
+     */
+    private int nextBit() {
+        random ^= random << 13;
+        random ^= random >>> 7;
+        random ^= random << 17;
+        return (int) (random >>> 63);
+    }
+
+    /**
+     * Returns the number of values given to the sketch.
+     *
+     * @return The count of values.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value given to the sketch.
+     *
+     * @return The minimum.
+     * @throws IllegalStateException If the sketch is empty.
+     */
+    public long getMin() {
+        if (count == 0) throw new IllegalStateException("The sketch is empty.");
+        return min;
+    }
+
+    /**
+     * Returns the largest value given to the sketch.
+     *
+     * @return The maximum.
+     * @throws IllegalStateException If the sketch is empty.
+     */
+    public long getMax() {
+        if (count == 0) throw new IllegalStateException("The sketch is empty.");
+        return max;
+    }
+
+    /**
+     * Returns an estimate of the value at the given quantile: the smallest value such that the given fraction of the
+     * values are less than or equal to it. Quantiles 0 and 1 are the exact minimum and maximum.
+     *
+     * @param quantile The quantile, from 0 to 1.
+     * @return The estimated value.
+     * @throws IllegalArgumentException If the quantile is out of range.
+     * @throws IllegalStateException    If the sketch is empty.
+     */
+    public long getQuantile(double quantile) {
+        return this.getQuantiles(quantile)[0];
+    }
+
+    /**
+     * Returns estimates of the values at the given quantiles, see {@link #getQuantile(double)}, sorting the levels
+     * once.
+     *
+     * @param quantiles The quantiles, from 0 to 1.
+     * @return The estimated value at each quantile.
+     * @throws IllegalArgumentException If a quantile is out of range.
+     * @throws IllegalStateException    If the sketch is empty.
+     */
+    public long[] getQuantiles(double... quantiles) {
+        if (count == 0) throw new IllegalStateException("The sketch is empty.");
+        for (double quantile : quantiles)
+            if (!(quantile >= 0 && quantile <= 1)) throw new IllegalArgumentException("Expected a quantile from 0 to 1, got " + quantile + '.');
+
+        long[][] sorted = new long[levels.length][];
+        for (int h = 0; h < levels.length; h++) {
+            sorted[h] = Arrays.copyOf(levels[h], sizes[h]);
+            Arrays.sort(sorted[h]);
+        }
+
+        long[] result = new long[quantiles.length];
+        for (int q = 0; q < quantiles.length; q++) {
+            if (quantiles[q] == 0) result[q] = min;
+            else if (quantiles[q] == 1) result[q] = max;
+            else result[q] = this.valueAtRank(sorted, quantiles[q] * count);
+        }
+        return result;
+    }
+
+    /**
+     * Walks the retained values in increasing order, merging the sorted levels, until their weights reach a rank.
+     *
+     * @param sorted The values of every level, sorted.
+     * @param rank   The rank to reach.
+     * @return The first value at which the cumulative weight reaches the rank, or the maximum if none does.
+     */
+    private long valueAtRank(long[][] sorted, double rank) {
+        int[] next = new int[sorted.length];
+        long cumulative = 0;
+        while (true) {
+            int lowest = -1;
+            for (int h = 0; h < sorted.length; h++)
+                if (next[h] < sorted[h].length && (lowest < 0 || sorted[h][next[h]] < sorted[lowest][next[lowest]])) lowest = h;
+            if (lowest < 0) return max;
+
+            cumulative += 1L << lowest;
+            if (cumulative >= rank) return sorted[lowest][next[lowest]];
+            next[lowest]++;
+        }
+    }
+
+    /**
+     * Returns an estimate of the fraction of the values less than or equal to the given value.
+     *
+     * @param value The value.
+     * @return The estimated normalized rank, from 0 to 1.
+     * @throws IllegalStateException If the sketch is empty.
+     */
+    public double getRank(long value) {
+        if (count == 0) throw new IllegalStateException("The sketch is empty.");
+        long below = 0;
+        for (int h = 0; h < levels.length; h++)
+            for (int i = 0; i < sizes[h]; i++) if (levels[h][i] <= value) below += 1L << h;
+        return (double) below / count;
+    }
+
+    /**
+     * Returns the string representation of the QuantileSketch.
+     *
+     * @return The count and the quartiles of the values.
+     */
+    @Override
+    public String toString() {
+        if (count == 0) return "QuantileSketch {count: 0}";
+        long[] quartiles = this.getQuantiles(0, 0.25, 0.5, 0.75, 1);
+        return "QuantileSketch {count: " + count + ", min: " + quartiles[0] + ", p25: " + quartiles[1] + ", median: "
+            + quartiles[2] + ", p75: " + quartiles[3] + ", max: " + quartiles[4] + '}';
+    }
+}
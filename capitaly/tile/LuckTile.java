@@ -1,5 +1,8 @@
 package capitaly.tile;
 
+import capitaly.GameContext;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
 import capitaly.player.Player;
 
 /**
@@ -14,19 +17,46 @@ public final class LuckTile extends Tile {
     /**
      * Constructs a new LuckTile with the given reward.
      *
-     * @param reward The reward the player receives when they enter the tile.
+     * @param reward  The reward the player receives when they enter the tile.
+     * @param context The context of the game the tile belongs to.
      */
-    public LuckTile(int reward) {
+    public LuckTile(int reward, GameContext context) {
+        super(context);
         this.reward = reward;
     }
 
     /**
      * Gives the reward to the player.
-     * @param player The player that enters the tile.
+     *
+     * @param player   The player that enters the tile.
+     * @param seat     The seat of the player, reported with the events.
+     * @param index    The index of the tile on the track, reported with the events.
+     * @param listener The listener receiving the events.
      */
     @Override
-    public void enter(Player player) {
+    public void enter(Player player, int seat, int index, GameEventListener listener) {
         player.receive(this.reward);
+        listener.onEvent(EventType.LUCK_REWARD, seat, index, this.reward);
+    }
+
+    /**
+     * Returns the kind of the tile.
+     *
+     * @return {@link TileKind#LUCK}
+     */
+    @Override
+    public TileKind getKind() {
+        return TileKind.LUCK;
+    }
+
+    /**
+     * Returns the reward of the tile.
+     *
+     * @return The reward of the tile.
+     */
+    @Override
+    public int getAmount() {
+        return this.reward;
     }
 
     /**
@@ -0,0 +1,268 @@
+package capitaly.tile;
+
+import capitaly.RuleSet;
+import capitaly.kernel.Zobrist;
+import capitaly.player.Player;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Indexes the real estate of a game by owner, kept up to date by {@link RealEstateTile} whenever a tile is bought,
+ * upgraded or reset, so that the holdings of a player can be queried without scanning the track.
+ * Players and tiles are identified by the IDs issued by the context of the game, which are small and dense.
+ * <p>
+ * The index also keeps the {@link Zobrist} hash of the owners and houses of the owned tiles, by those IDs, for
+ * {@link capitaly.Capitaly#getStateHash()}.
+ * <p>
+ * The index belongs to a single game and, like the game, is not thread-safe.
+ */
+public final class PropertyIndex {
+
+    /**
+     * The number of players the per-player arrays are first sized for.
+     */
+    private static final int INITIAL_PLAYERS = 8;
+
+    /**
+     * The rules of the game, pricing the tiles and houses.
+     */
+    private final RuleSet rules;
+
+    /**
+     * The tiles owned by each player, by tile ID, null for players who never owned a tile.
+     */
+    private BitSet[] owned;
+
+    /**
+     * The tiles with a house owned by each player, by tile ID, null for players who never built a house.
+     */
+    private BitSet[] housed;
+
+    /**
+     * The number of tiles owned by each player.
+     */
+    private int[] ownedCount;
+
+    /**
+     * The number of houses owned by each player.
+     */
+    private int[] houseCount;
+
+    /**
+     * The price paid by each player for the tiles and houses they still own.
+     */
+    private int[] propertyValue;
+
+    /**
+     * The number of real estate tiles of the game.
+     */
+    private int tiles;
+
+    /**
+     * The number of real estate tiles with an owner.
+     */
+    private int ownedTotal;
+
+    /**
+     * The number of houses built.
+     */
+    private int houseTotal;
+
+    /**
+     * The Zobrist hash of the owners and houses of the owned tiles, updated whenever one of them changes.
+     */
+    private long tileHash;
+
+    /**
+     * Constructs a new PropertyIndex with no tiles.
+     *
+     * @param rules The rules of the game, pricing the tiles and houses.
+     */
+    public PropertyIndex(RuleSet rules) {
+        this.rules = rules;
+        this.owned = new BitSet[INITIAL_PLAYERS];
+        this.housed = new BitSet[INITIAL_PLAYERS];
+        this.ownedCount = new int[INITIAL_PLAYERS];
+        this.houseCount = new int[INITIAL_PLAYERS];
+        this.propertyValue = new int[INITIAL_PLAYERS];
+    }
+
+    /**
+     * Counts a new real estate tile, unowned.
+     */
+    void addTile() {
+        tiles++;
+    }
+
+    /**
+     * Records that a tile without an owner has been bought.
+     *
+     * @param tile  The tile.
+     * @param owner The new owner of the tile.
+     */
+    void assign(RealEstateTile tile, Player owner) {
+        int player = this.slot(owner);
+        if (owned[player] == null) owned[player] = new BitSet();
+        owned[player].set(tile.UID);
+        ownedCount[player]++;
+        propertyValue[player] += rules.purchaseCost();
+        ownedTotal++;
+        tileHash ^= Zobrist.tile(tile.UID, player, false);
+    }
+
+    /**
+     * Records that a house has been built on an owned tile.
+     *
+     * @param tile  The tile.
+     * @param owner The owner of the tile.
+     */
+    void upgrade(RealEstateTile tile, Player owner) {
+        int player = this.slot(owner);
+        if (housed[player] == null) housed[player] = new BitSet();
+        housed[player].set(tile.UID);
+        houseCount[player]++;
+        propertyValue[player] += rules.upgradeCost();
+        houseTotal++;
+        tileHash ^= Zobrist.tile(tile.UID, player, false) ^ Zobrist.tile(tile.UID, player, true);
+    }
+
+    /**
+     * Records that an owned tile has lost its owner and its house.
+     *
+     * @param tile  The tile.
+     * @param owner The previous owner of the tile.
+     * @param house Whether the tile had a house.
+     */
+    void release(RealEstateTile tile, Player owner, boolean house) {
+        int player = owner.UID;
+        owned[player].clear(tile.UID);
+        ownedCount[player]--;
+        propertyValue[player] -= rules.purchaseCost();
+        ownedTotal--;
+        tileHash ^= Zobrist.tile(tile.UID, player, house);
+        if (house) {
+            housed[player].clear(tile.UID);
+            houseCount[player]--;
+            propertyValue[player] -= rules.upgradeCost();
+            houseTotal--;
+        }
+    }
+
+    /**
+     * Returns the slot of the given player in the per-player arrays, growing them if needed.
+     *
+     * @param player The player.
+     * @return The slot of the player.
+     */
+    private int slot(Player player) {
+        int id = player.UID;
+        if (id >= ownedCount.length) {
+            int length = Math.max(id + 1, ownedCount.length * 2);
+            owned = Arrays.copyOf(owned, length);
+            housed = Arrays.copyOf(housed, length);
+            ownedCount = Arrays.copyOf(ownedCount, length);
+            houseCount = Arrays.copyOf(houseCount, length);
+            propertyValue = Arrays.copyOf(propertyValue, length);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the number of tiles owned by the given player.
+     *
+     * @param player The player.
+     * @return The number of tiles.
+     */
+    public int countOwned(Player player) {
+        return player.UID < ownedCount.length ? ownedCount[player.UID] : 0;
+    }
+
+    /**
+     * Returns the number of houses owned by the given player.
+     *
+     * @param player The player.
+     * @return The number of houses.
+     */
+    public int countHouses(Player player) {
+        return player.UID < houseCount.length ? houseCount[player.UID] : 0;
+    }
+
+    /**
+     * Returns the price paid by the given player for the tiles and houses they still own.
+     *
+     * @param player The player.
+     * @return The value of the properties of the player.
+     */
+    public int getPropertyValue(Player player) {
+        return player.UID < propertyValue.length ? propertyValue[player.UID] : 0;
+    }
+
+    /**
+     * Returns the net worth of the given player: their capital and the value of their properties.
+     *
+     * @param player The player.
+     * @return The net worth of the player.
+     */
+    public int getNetWorth(Player player) {
+        return player.getCapital() + this.getPropertyValue(player);
+    }
+
+    /**
+     * Returns the tiles owned by the given player.
+     *
+     * @param player The player.
+     * @return A copy of the set of the IDs of the tiles.
+     */
+    public BitSet getOwnedTiles(Player player) {
+        BitSet tiles = player.UID < owned.length ? owned[player.UID] : null;
+        return tiles != null ? (BitSet) tiles.clone() : new BitSet();
+    }
+
+    /**
+     * Returns the tiles with a house owned by the given player.
+     *
+     * @param player The player.
+     * @return A copy of the set of the IDs of the tiles.
+     */
+    public BitSet getHousedTiles(Player player) {
+        BitSet tiles = player.UID < housed.length ? housed[player.UID] : null;
+        return tiles != null ? (BitSet) tiles.clone() : new BitSet();
+    }
+
+    /**
+     * Returns the number of real estate tiles of the game.
+     *
+     * @return The number of real estate tiles.
+     */
+    public int countTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the number of real estate tiles without an owner.
+     *
+     * @return The number of unowned tiles.
+     */
+    public int countUnowned() {
+        return tiles - ownedTotal;
+    }
+
+    /**
+     * Returns the number of houses built in the game.
+     *
+     * @return The number of houses.
+     */
+    public int countHouses() {
+        return houseTotal;
+    }
+
+    /**
+     * Returns the Zobrist hash of the owners and houses of the owned tiles, by their IDs.
+     *
+     * @return The hash of the owned tiles, 0 if no tile has an owner.
+     */
+    public long getTileHash() {
+        return tileHash;
+    }
+}
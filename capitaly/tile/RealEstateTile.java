@@ -1,5 +1,9 @@
 package capitaly.tile;
 
+import capitaly.GameContext;
+import capitaly.RuleSet;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
 import capitaly.player.Player;
 
 /**
@@ -8,39 +12,43 @@ import capitaly.player.Player;
 public final class RealEstateTile extends Tile {
 
     /**
-     * The original assign price for owning a {@link RealEstateTile}.
+     * The original assign price for owning a {@link RealEstateTile} under the standard rules, see
+     * {@link capitaly.RuleSet#purchaseCost()}.
      * This is the cost incurred when a player lands on an unowned {@link RealEstateTile} and decides to buy it.
      *
      * @see #HOUSE_UPGRADE_COST
      */
-    private static final int INITIAL_PURCHASE_COST = 1000;
+    public static final int INITIAL_PURCHASE_COST = 1000;
 
     /**
-     * The cost of adding a house to a {@link RealEstateTile}.
+     * The cost of adding a house to a {@link RealEstateTile} under the standard rules, see
+     * {@link capitaly.RuleSet#upgradeCost()}.
      * This price is applicable when a player chooses to upgrade an owned {@link RealEstateTile} by adding a house.
      *
      * @see #INITIAL_PURCHASE_COST
      */
-    private static final int HOUSE_UPGRADE_COST = 4000;
+    public static final int HOUSE_UPGRADE_COST = 4000;
 
     /**
-     * The fee another player has to pay when landing on a {@link RealEstateTile} owned by someone else without a house.
+     * The fee another player has to pay when landing on a {@link RealEstateTile} owned by someone else without a house,
+     * under the standard rules, see {@link capitaly.RuleSet#feeNoHouse()}.
      * This fee is incurred when a player lands on an owned {@link RealEstateTile} without a house upgrade.
      *
      * @see #INITIAL_PURCHASE_COST
      * @see #HOUSE_UPGRADE_COST
      */
-    private static final int LANDING_FEE_NO_HOUSE = 500;
+    public static final int LANDING_FEE_NO_HOUSE = 500;
 
     /**
-     * The fee another player has to pay when landing on a {@link RealEstateTile} owned by someone else with a house.
+     * The fee another player has to pay when landing on a {@link RealEstateTile} owned by someone else with a house,
+     * under the standard rules, see {@link capitaly.RuleSet#feeWithHouse()}.
      * This fee is incurred when a player lands on an owned {@link RealEstateTile} that has a house upgrade.
      *
      * @see #INITIAL_PURCHASE_COST
      * @see #HOUSE_UPGRADE_COST
      * @see #LANDING_FEE_NO_HOUSE
      */
-    private static final int LANDING_FEE_WITH_HOUSE = 2000;
+    public static final int LANDING_FEE_WITH_HOUSE = 2000;
 
     /**
      * The owner of the tile.
@@ -54,44 +62,66 @@ public final class RealEstateTile extends Tile {
 
     /**
      * Constructs a new RealEstateTile with no owner and no house.
+     *
+     * @param context The context of the game the tile belongs to.
      */
-    public RealEstateTile() {
+    public RealEstateTile(GameContext context) {
+        super(context);
         this.owner = null;
         this.house = false;
+        context.getPropertyIndex().addTile();
     }
 
     /**
      * Handles the logic when a player enters this tile.
      *
-     * @param player The player who enters the tile.
+     * @param player   The player who enters the tile.
+     * @param seat     The seat of the player, reported with the events.
+     * @param index    The index of the tile on the track, reported with the events.
+     * @param listener The listener receiving the events.
      */
     @Override
-    public void enter(Player player) {
+    public void enter(Player player, int seat, int index, GameEventListener listener) {
         int price = getPriceFor(player);
 
         if (player == this.owner && player.wantsToBuy(this)) {
             player.pay(price);
             this.upgrade();
+            listener.onEvent(EventType.UPGRADE, seat, index, price);
         } else if (null == this.owner && player.wantsToBuy(this)) {
             player.pay(price);
             player.assign(this);
             this.assign(player);
-        } else if (player != this.owner && null != this.owner) this.owner.receive(player.pay(price));
+            listener.onEvent(EventType.PURCHASE, seat, index, price);
+        } else if (player != this.owner && null != this.owner) {
+            this.owner.receive(player.pay(price));
+            listener.onEvent(EventType.RENT, seat, index, price);
+        } else listener.onEvent(EventType.DECLINE, seat, index, price);
     }
 
     /**
      * Assigns the tile to a player.
      *
      * @param player The new owner of the tile.
+     * @throws IllegalArgumentException If the player belongs to another game.
      */
     public void assign(Player player) {
+        if (player != null && player.getContext() != this.getContext())
+            throw new IllegalArgumentException("Cannot assign " + this + " to " + player.getName() + " of another game.");
+
+        PropertyIndex index = this.getContext().getPropertyIndex();
+        if (this.owner != null) index.release(this, this.owner, this.house);
         this.owner = player;
+        if (player == null) return;
+        index.assign(this, player);
+        if (this.house) index.upgrade(this, player);
     }
 
     /**
      * Upgrades the tile by adding a house.
      */
     public void upgrade() {
+        if (!this.house && this.owner != null) this.getContext().getPropertyIndex().upgrade(this, this.owner);
         this.house = true;
     }
 
@@ -99,27 +129,67 @@ public final class RealEstateTile extends Tile {
      * Resets the tile to its initial state.
      */
     public void reset() {
+        if (this.owner != null) this.getContext().getPropertyIndex().release(this, this.owner, this.house);
         this.owner = null;
         this.house = false;
     }
 
     /**
-     * Calculates the price for the given player to interact with this tile.
+     * Returns the owner of the tile.
+     *
+     * @return The owner of the tile, or null if it has no owner.
+     */
+    public Player getOwner() {
+        return owner;
+    }
+
+    /**
+     * Returns whether the tile has a house.
+     *
+     * @return Whether the tile has a house.
+     */
+    public boolean hasHouse() {
+        return house;
+    }
+
+    /**
+     * Calculates the price for the given player to interact with this tile, by the rules of its game.
      *
      * @param player The player to calculate the price for.
      * @return The price the player has to pay.
      */
     public int getPriceFor(Player player) {
-        if (this.owner == null) return INITIAL_PURCHASE_COST;
+        RuleSet rules = this.getContext().getRules();
+        if (this.owner == null) return rules.purchaseCost();
         if (this.owner == player) {
             if (this.house) return 0;
-            else return HOUSE_UPGRADE_COST;
+            else return rules.upgradeCost();
         } else {
-            if (this.house) return LANDING_FEE_WITH_HOUSE;
-            else return LANDING_FEE_NO_HOUSE;
+            return rules.landingFee(this.house);
         }
     }
 
+    /**
+     * Returns the kind of the tile.
+     *
+     * @return {@link TileKind#REAL_ESTATE}
+     */
+    @Override
+    public TileKind getKind() {
+        return TileKind.REAL_ESTATE;
+    }
+
+    /**
+     * Returns the amount of the tile.
+     * Real estate prices depend on the state of the tile, see {@link #getPriceFor(Player)}.
+     *
+     * @return Always 0.
+     */
+    @Override
+    public int getAmount() {
+        return 0;
+    }
+
     /**
      * Returns the string representation of the tile.
      *
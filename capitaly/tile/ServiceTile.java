@@ -1,5 +1,8 @@
 package capitaly.tile;
 
+import capitaly.GameContext;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
 import capitaly.player.Player;
 
 /**
@@ -14,19 +17,46 @@ public final class ServiceTile extends Tile {
     /**
      * Constructs a new ServiceTile with the given fee.
      *
-     * @param fee The fee the player pays when they enter the tile.
+     * @param fee     The fee the player pays when they enter the tile.
+     * @param context The context of the game the tile belongs to.
      */
-    public ServiceTile(int fee) {
+    public ServiceTile(int fee, GameContext context) {
+        super(context);
         this.fee = fee;
     }
 
     /**
      * Takes the fee from the player.
-     * @param player The player that enters the tile.
+     *
+     * @param player   The player that enters the tile.
+     * @param seat     The seat of the player, reported with the events.
+     * @param index    The index of the tile on the track, reported with the events.
+     * @param listener The listener receiving the events.
      */
     @Override
-    public void enter(Player player) {
+    public void enter(Player player, int seat, int index, GameEventListener listener) {
         player.pay(this.fee);
+        listener.onEvent(EventType.SERVICE_FEE, seat, index, this.fee);
+    }
+
+    /**
+     * Returns the kind of the tile.
+     *
+     * @return {@link TileKind#SERVICE}
+     */
+    @Override
+    public TileKind getKind() {
+        return TileKind.SERVICE;
+    }
+
+    /**
+     * Returns the fee of the tile.
+     *
+     * @return The fee of the tile.
+     */
+    @Override
+    public int getAmount() {
+        return this.fee;
     }
 
     /**
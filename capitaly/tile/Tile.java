@@ -1,41 +1,80 @@
 package capitaly.tile;
 
+import capitaly.GameContext;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
 import capitaly.player.Player;
 
-import java.util.Objects;
-
 /**
  * Represents a tile on the track.
  * The base class for all tiles.
  */
 public abstract class Tile {
     /**
-     * The number of tiles created.
+     * The context of the game the tile belongs to.
      */
-    private static int count;
+    private final GameContext context;
     /**
-     * The unique ID of the tile.
+     * The ID of the tile, unique within its context.
      */
-    public final Integer UID;
+    public final int UID;
 
     /**
-     * Constructs a new Tile with a unique ID.
+     * Constructs a new Tile with an ID issued by the given context.
+     *
+     * @param context The context of the game the tile belongs to.
      */
-    protected Tile(){
-        this.UID = count++;
+    protected Tile(GameContext context) {
+        this.context = context;
+        this.UID = context.nextTileId();
     }
 
     /**
-     * Handles when a player enters the tile.
-     * Behaviour implemented in subclasses.
+     * Handles when a player enters the tile, without reporting what happens.
      *
      * @param player The player that enters the tile.
      */
-    public abstract void enter(Player player);
+    public final void enter(Player player) {
+        this.enter(player, -1, -1, GameEventListener.NONE);
+    }
+
+    /**
+     * Handles when a player enters the tile and reports what happens as {@link EventType events}.
+     * Behaviour implemented in subclasses.
+     *
+     * @param player   The player that enters the tile.
+     * @param seat     The seat of the player, reported with the events.
+     * @param index    The index of the tile on the track, reported with the events.
+     * @param listener The listener receiving the events.
+     */
+    public abstract void enter(Player player, int seat, int index, GameEventListener listener);
+
+    /**
+     * Returns the kind of the tile.
+     *
+     * @return The kind of the tile.
+     */
+    public abstract TileKind getKind();
+
+    /**
+     * Returns the fee or reward of the tile.
+     *
+     * @return The amount of money the tile moves, 0 if it is not fixed.
+     */
+    public abstract int getAmount();
+
+    /**
+     * Returns the context of the game the tile belongs to.
+     *
+     * @return The context of the tile.
+     */
+    public GameContext getContext() {
+        return context;
+    }
 
     /**
      * Compares the tile to another object.
-     * Two tiles are equal if they have the same UID.
+     * Two tiles are equal if they got the same ID from the same context.
      *
      * @param o The object to compare to.
      * @return Whether the tile is equal to the object.
@@ -45,17 +84,18 @@ public abstract class Tile {
         if (this == o) return true;
         if (!(o instanceof Tile tile)) return false;
 
-        return UID.equals(tile.UID);
+        return this.context == tile.context && this.UID == tile.UID;
     }
 
     /**
      * Returns the hash code of the tile.
+     * The hash code is the ID of the tile.
      *
      * @return The hash code of the tile.
      */
     @Override
     public int hashCode() {
-        return Objects.hash(this.UID);
+        return this.UID;
     }
 
     /**
@@ -65,6 +105,6 @@ public abstract class Tile {
      */
     @Override
     public String toString() {
-        return '[' + this.UID.toString() + ']';
+        return "[" + this.UID + ']';
     }
 }
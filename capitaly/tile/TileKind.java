@@ -0,0 +1,61 @@
+package capitaly.tile;
+
+import capitaly.GameContext;
+
+/**
+ * Enumerates the kinds of tiles that can appear on a {@link capitaly.Track}.
+ */
+public enum TileKind {
+    /**
+     * A tile that can be bought and upgraded, see {@link RealEstateTile}.
+     */
+    REAL_ESTATE("realestate"),
+
+    /**
+     * A tile that takes a fee, see {@link ServiceTile}.
+     */
+    SERVICE("service"),
+
+    /**
+     * A tile that gives a reward, see {@link LuckTile}.
+     */
+    LUCK("luck");
+
+    /**
+     * The keyword of the tile kind in the input file.
+     */
+    private final String keyword;
+
+    /**
+     * Constructs a new TileKind with the given keyword.
+     *
+     * @param keyword The keyword of the tile kind in the input file.
+     */
+    TileKind(String keyword) {
+        this.keyword = keyword;
+    }
+
+    /**
+     * Creates a new tile of this kind.
+     *
+     * @param amount  The fee or reward of the tile, ignored for real estate.
+     * @param context The context of the game the tile belongs to.
+     * @return The new tile.
+     */
+    public Tile create(int amount, GameContext context) {
+        return switch (this) {
+            case REAL_ESTATE -> new RealEstateTile(context);
+            case SERVICE -> new ServiceTile(amount, context);
+            case LUCK -> new LuckTile(amount, context);
+        };
+    }
+
+    /**
+     * Returns the keyword of the tile kind in the input file.
+     *
+     * @return The keyword of the tile kind.
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+}
@@ -0,0 +1,130 @@
+package capitaly.bench;
+
+import capitaly.GameContext;
+import capitaly.dice.RandomRollSource;
+import capitaly.io.ScenarioGenerator;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The scenarios the benchmarks are set up with: generated tracks, seated players, seeded rolls and input files.
+ */
+final class Fixtures {
+
+    /**
+     * The number of operations in a single invocation of the fine-grained benchmarks.
+     */
+    static final int BATCH = 1024;
+
+    /**
+     * The number of turns after which a generated game is abandoned.
+     */
+    static final int MAX_TURNS = 100_000;
+
+    /**
+     * The seed of the generated tracks and rolls.
+     */
+    static final long SEED = 42;
+
+    /**
+     * The directory of the input files, relative to the root of the project the benchmarks are run from.
+     */
+    static final Path INPUTS = Path.of("test");
+
+    /**
+     * Utility class, not meant to be instantiated.
+     */
+    private Fixtures() {
+    }
+
+    /**
+     * Generates a track of the given length: half real estate, a quarter service and a quarter luck tiles, with
+     * amounts from 1 to 1000.
+     *
+     * @param length The length of the track.
+     * @return The layout of the track.
+     */
+    static TrackSpec generate(int length) {
+        return new ScenarioGenerator(SEED).setTiles(length, 2, 1, 1).getTrack();
+    }
+
+    /**
+     * Generates a track of the given length without real estate: three fifths service and two fifths luck tiles, so
+     * that the players slowly lose money.
+     *
+     * @param length The length of the track.
+     * @return The layout of the track.
+     */
+    static TrackSpec generateFees(int length) {
+        return new ScenarioGenerator(SEED).setTiles(length, 0, 3, 2).getTrack();
+    }
+
+    /**
+     * Seats the given number of players, cycling through the heuristic strategies.
+     *
+     * @param count The number of players.
+     * @return The players at the table.
+     */
+    static List<PlayerSpec> seat(int count) {
+        Strategy[] strategies = {Strategy.GREEDY, Strategy.CAREFUL, Strategy.STRATEGIC};
+        List<PlayerSpec> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) players.add(new PlayerSpec("P" + i, strategies[i % strategies.length]));
+        return players;
+    }
+
+    /**
+     * Creates the object model players of the given seats.
+     *
+     * @param players The players at the table.
+     * @param context The context of the game.
+     * @return The players, in seating order.
+     */
+    static List<Player> create(List<PlayerSpec> players, GameContext context) {
+        List<Player> seating = new ArrayList<>(players.size());
+        for (PlayerSpec player : players) seating.add(player.create(context));
+        return seating;
+    }
+
+    /**
+     * Rolls the die the given number of times.
+     *
+     * @param count The number of rolls.
+     * @return The rolls.
+     */
+    static int[] rolls(int count) {
+        int[] rolls = new int[count];
+        new RandomRollSource(SEED).fill(rolls, 0, count);
+        return rolls;
+    }
+
+    /**
+     * Writes a temporary input file with the test tiles and players and the given number of seeded rolls.
+     *
+     * @param count The number of rolls.
+     * @return The path to the input file, deleted on exit.
+     * @throws IOException If the file cannot be written.
+     */
+    static Path inputFile(int count) throws IOException {
+        Path path = Files.createTempFile("capitaly-bench", ".txt");
+        path.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("3\nrealestate\nservice 500\nluck 500\n3\nAiden careful\nBella strategic\nColin greedy\n");
+            writer.write(count + "\n");
+            RandomRollSource die = new RandomRollSource(SEED);
+            for (int i = 0; i < count; i++) {
+                writer.write('0' + die.nextRoll());
+                writer.write('\n');
+            }
+        }
+        return path;
+    }
+}
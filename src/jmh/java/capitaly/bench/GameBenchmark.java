@@ -0,0 +1,437 @@
+package capitaly.bench;
+
+import capitaly.Capitaly;
+import capitaly.GameContext;
+import capitaly.RuleSet;
+import capitaly.dice.ArrayRollSource;
+import capitaly.io.InputDataParser;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.OutcomeCache;
+import capitaly.player.Strategy;
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+import capitaly.simulation.OutcomeAnalyzer;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole games, on the object model and on the {@link GameKernel}, for the scenarios in the {@code test} directory and
+ * for generated tracks, and batches of games, with and without an outcome cache. Every operation is a game; the sample
+ * time mode reports the percentiles of the latency of a game, p99 included.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /**
+     * The length of the generated track of the lookahead games.
+     */
+    private static final int LOOKAHEAD_TRACK_LENGTH = 40;
+
+    /**
+     * The number of games played by an operation of the batch benchmark.
+     */
+    private static final int BATCH_GAMES = 256;
+
+    /**
+     * The starting capital of the games of the cache benchmark, low enough for games of a few dozen turns.
+     */
+    private static final int SHORT_GAME_CAPITAL = 1000;
+
+    /**
+     * A scenario of the {@code test} directory.
+     */
+    @State(Scope.Thread)
+    public static class InputState {
+
+        /**
+         * The name of the input file.
+         */
+        @Param({"test_01.txt", "test_02.txt", "test_03.txt"})
+        public String input;
+
+        /**
+         * The layout of the track.
+         */
+        TrackSpec track;
+
+        /**
+         * The players at the table.
+         */
+        List<PlayerSpec> players;
+
+        /**
+         * The rolls of the die.
+         */
+        int[] rolls;
+
+        /**
+         * The kernel replaying the game.
+         */
+        GameKernel kernel;
+
+        /**
+         * Parses the input file.
+         */
+        @Setup
+        public void setUp() {
+            InputDataParser parser = new InputDataParser(Fixtures.INPUTS.resolve(input).toString());
+            track = TrackSpec.of(parser.getTrack());
+            players = PlayerSpec.of(parser.getPlayers());
+            rolls = parser.getDiceRolls();
+            kernel = new GameKernel(track, players);
+        }
+    }
+
+    /**
+     * A generated track with heuristic players.
+     */
+    @State(Scope.Thread)
+    public static class GeneratedState {
+
+        /**
+         * The length of the track.
+         */
+        @Param({"10000", "100000", "1000000"})
+        public int length;
+
+        /**
+         * The number of players.
+         */
+        @Param({"2", "10", "100", "1000"})
+        public int count;
+
+        /**
+         * The layout of the track.
+         */
+        TrackSpec track;
+
+        /**
+         * The players at the table.
+         */
+        List<PlayerSpec> players;
+
+        /**
+         * The rolls of the die.
+         */
+        int[] rolls;
+
+        /**
+         * The kernel replaying the game.
+         */
+        GameKernel kernel;
+
+        /**
+         * Generates the track.
+         */
+        @Setup
+        public void setUp() {
+            track = Fixtures.generate(length);
+            players = Fixtures.seat(count);
+            rolls = Fixtures.rolls(Fixtures.MAX_TURNS);
+            kernel = new GameKernel(track, players);
+        }
+    }
+
+    /**
+     * A generated track without real estate, whose games the outcome analyzer settles in closed form.
+     */
+    @State(Scope.Thread)
+    public static class FeesState {
+
+        /**
+         * The length of the track.
+         */
+        @Param({"10000", "100000", "1000000"})
+        public int length;
+
+        /**
+         * The number of players.
+         */
+        @Param({"2", "10", "100"})
+        public int count;
+
+        /**
+         * The rolls of the die.
+         */
+        int[] rolls;
+
+        /**
+         * The kernel replaying the game.
+         */
+        GameKernel kernel;
+
+        /**
+         * The outcome analyzer settling the game.
+         */
+        OutcomeAnalyzer analyzer;
+
+        /**
+         * Generates the track.
+         */
+        @Setup
+        public void setUp() {
+            TrackSpec track = Fixtures.generateFees(length);
+            List<PlayerSpec> players = Fixtures.seat(count);
+            rolls = Fixtures.rolls(Fixtures.MAX_TURNS);
+            kernel = new GameKernel(track, players);
+            analyzer = new OutcomeAnalyzer(track, players);
+        }
+    }
+
+    /**
+     * A short generated track with a lookahead player.
+     */
+    @State(Scope.Thread)
+    public static class LookaheadState {
+
+        /**
+         * The rolls of the die.
+         */
+        int[] rolls;
+
+        /**
+         * The kernel replaying the game.
+         */
+        GameKernel kernel;
+
+        /**
+         * Generates the track.
+         */
+        @Setup
+        public void setUp() {
+            rolls = Fixtures.rolls(Fixtures.MAX_TURNS);
+            kernel = new GameKernel(Fixtures.generate(LOOKAHEAD_TRACK_LENGTH), List.of(
+                new PlayerSpec("L", Strategy.LOOKAHEAD), new PlayerSpec("C", Strategy.CAREFUL), new PlayerSpec("S", Strategy.STRATEGIC)
+            ));
+        }
+    }
+
+    /**
+     * A batch simulator playing the games of consecutive seeds on the calling thread.
+     */
+    @State(Scope.Thread)
+    public static class BatchState {
+
+        /**
+         * The length of the track, short enough for the tiles of every lane.
+         */
+        @Param({"1000", "100000"})
+        public int length;
+
+        /**
+         * The number of players.
+         */
+        @Param({"2", "10"})
+        public int count;
+
+        /**
+         * The number of games played at once, 1 to play them one by one.
+         */
+        @Param({"1", "8", "64"})
+        public int lanes;
+
+        /**
+         * The simulator.
+         */
+        BatchSimulator simulator;
+
+        /**
+         * Creates the simulator.
+         */
+        @Setup
+        public void setUp() {
+            simulator = new BatchSimulator(Fixtures.generate(length), Fixtures.seat(count), Fixtures.MAX_TURNS, true, ForkJoinPool.commonPool(), lanes);
+        }
+    }
+
+    /**
+     * A batch simulator playing short games of lookahead players, with or without an outcome cache.
+     */
+    @State(Scope.Thread)
+    public static class CachedBatchState {
+
+        /**
+         * Whether the games share an outcome cache.
+         */
+        @Param({"false", "true"})
+        public boolean cached;
+
+        /**
+         * The simulator.
+         */
+        BatchSimulator simulator;
+
+        /**
+         * The seed of the next game, so that every game is new to the cache.
+         */
+        long seed;
+
+        /**
+         * Creates the simulator and its empty cache.
+         */
+        @Setup(Level.Iteration)
+        public void setUp() {
+            RuleSet rules = RuleSet.STANDARD.with(RuleSet.Rule.STARTING_CAPITAL, SHORT_GAME_CAPITAL);
+            List<PlayerSpec> players = List.of(
+                new PlayerSpec("L1", Strategy.LOOKAHEAD), new PlayerSpec("L2", Strategy.LOOKAHEAD), new PlayerSpec("C", Strategy.CAREFUL)
+            );
+            simulator = new BatchSimulator(
+                Fixtures.generate(LOOKAHEAD_TRACK_LENGTH), players, rules, Fixtures.MAX_TURNS, true, ForkJoinPool.commonPool(), 1,
+                cached ? new OutcomeCache() : null
+            );
+            seed = Fixtures.SEED;
+        }
+    }
+
+    /**
+     * Plays a scenario of the {@code test} directory on a freshly built object model track and players.
+     *
+     * @param state The scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public Capitaly inputObject(InputState state) {
+        return objectGame(state.track, state.players, state.rolls);
+    }
+
+    /**
+     * Plays a scenario of the {@code test} directory on a reused game kernel.
+     *
+     * @param state The scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public GameKernel inputKernel(InputState state) {
+        return kernelGame(state.kernel, state.rolls);
+    }
+
+    /**
+     * Plays a game on a freshly built generated object model track and players.
+     *
+     * @param state The generated scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public Capitaly generatedObject(GeneratedState state) {
+        return objectGame(state.track, state.players, state.rolls);
+    }
+
+    /**
+     * Plays a game on a generated track on a reused game kernel.
+     *
+     * @param state The generated scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public GameKernel generatedKernel(GeneratedState state) {
+        return kernelGame(state.kernel, state.rolls);
+    }
+
+    /**
+     * Plays a game on a generated track without real estate on a reused game kernel.
+     *
+     * @param state The generated scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public GameKernel feesKernel(FeesState state) {
+        return kernelGame(state.kernel, state.rolls);
+    }
+
+    /**
+     * Settles a game on a generated track without real estate from its rolls on a reused outcome analyzer.
+     *
+     * @param state The generated scenario.
+     * @return Whether the game is over.
+     */
+    @Benchmark
+    public boolean feesClosedForm(FeesState state) {
+        return state.analyzer.play(new ArrayRollSource(state.rolls), state.rolls.length);
+    }
+
+    /**
+     * Plays a game with a lookahead player on a reused game kernel.
+     *
+     * @param state The scenario.
+     * @return The game.
+     */
+    @Benchmark
+    public GameKernel lookaheadKernel(LookaheadState state) {
+        return kernelGame(state.kernel, state.rolls);
+    }
+
+    /**
+     * Plays a batch of games from consecutive seeds, one operation per game.
+     *
+     * @param state The simulator.
+     * @return The outcomes of the games.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_GAMES)
+    public BatchResult batch(BatchState state) {
+        return state.simulator.runOnCurrentThread(Fixtures.SEED, BATCH_GAMES);
+    }
+
+    /**
+     * Plays a batch of short games of lookahead players from new seeds, one operation per game.
+     *
+     * @param state The simulator.
+     * @return The outcomes of the games.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_GAMES)
+    public BatchResult cachedBatch(CachedBatchState state) {
+        BatchResult result = state.simulator.runOnCurrentThread(state.seed, BATCH_GAMES);
+        state.seed += BATCH_GAMES;
+        return result;
+    }
+
+    /**
+     * Plays a game on a freshly built object model track and players.
+     *
+     * @param track   The layout of the track.
+     * @param players The players at the table.
+     * @param rolls   The rolls of the die.
+     * @return The game.
+     */
+    private static Capitaly objectGame(TrackSpec track, List<PlayerSpec> players, int[] rolls) {
+        GameContext context = new GameContext();
+        Capitaly game = new Capitaly(track.build(context), Fixtures.create(players, context));
+        for (int roll : rolls) if (game.step(roll)) break;
+        return game;
+    }
+
+    /**
+     * Plays a game on a reused game kernel.
+     *
+     * @param game  The kernel.
+     * @param rolls The rolls of the die.
+     * @return The kernel.
+     */
+    private static GameKernel kernelGame(GameKernel game, int[] rolls) {
+        game.reset();
+        for (int roll : rolls) if (game.step(roll)) break;
+        return game;
+    }
+}
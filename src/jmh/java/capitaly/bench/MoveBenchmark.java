@@ -0,0 +1,245 @@
+package capitaly.bench;
+
+import capitaly.GameContext;
+import capitaly.Track;
+import capitaly.event.AsyncTextSink;
+import capitaly.event.CountingSink;
+import capitaly.event.GameSink;
+import capitaly.event.RecordSink;
+import capitaly.io.EventJournalWriter;
+import capitaly.kernel.GameKernel;
+import capitaly.player.Player;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single moves, on the {@link Track} object model, tile by tile or compiled, and on the {@link GameKernel}, bare or
+ * reporting their events to a journal or a sink. Every operation is a move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    /**
+     * The number of players moving.
+     */
+    private static final int PLAYERS = 8;
+
+    /**
+     * The length of the generated track of the kernel moves.
+     */
+    private static final int TRACK_LENGTH = 10_000;
+
+    /**
+     * The number of moves recorded in a single journal.
+     */
+    private static final int JOURNALED_MOVES = 64 * Fixtures.BATCH;
+
+    /**
+     * Players on an object model track.
+     */
+    @State(Scope.Thread)
+    public static class TrackState {
+
+        /**
+         * The length of the track.
+         */
+        @Param({"1000", "10000", "100000", "1000000", "10000000"})
+        public int length;
+
+        /**
+         * Whether the track enters its tiles with a switch on their kind rather than through the tiles.
+         */
+        @Param({"false", "true"})
+        public boolean compiled;
+
+        /**
+         * The track.
+         */
+        Track track;
+
+        /**
+         * The players moving on the track.
+         */
+        List<Player> players;
+
+        /**
+         * The rolls of the moves.
+         */
+        int[] rolls;
+
+        /**
+         * Builds the track and the players.
+         */
+        @Setup
+        public void setUp() {
+            GameContext context = new GameContext();
+            track = Fixtures.generate(length).build(context, compiled);
+            players = Fixtures.create(Fixtures.seat(PLAYERS), context);
+            rolls = Fixtures.rolls(Fixtures.BATCH);
+        }
+    }
+
+    /**
+     * A game kernel, its events reported to nobody.
+     */
+    @State(Scope.Thread)
+    public static class KernelState {
+
+        /**
+         * The layout of the track.
+         */
+        TrackSpec track;
+
+        /**
+         * The game.
+         */
+        GameKernel game;
+
+        /**
+         * The rolls of the moves.
+         */
+        int[] rolls;
+
+        /**
+         * Creates the game.
+         */
+        @Setup
+        public void setUp() {
+            track = Fixtures.generate(TRACK_LENGTH);
+            game = new GameKernel(track, Fixtures.seat(PLAYERS));
+            rolls = Fixtures.rolls(Fixtures.BATCH);
+        }
+    }
+
+    /**
+     * A game kernel recording its events to a temporary journal, rewritten by every invocation.
+     */
+    @State(Scope.Thread)
+    public static class JournalState extends KernelState {
+
+        /**
+         * The path to the journal.
+         */
+        Path path;
+
+        /**
+         * Creates the journal file.
+         *
+         * @throws IOException If the journal file cannot be created.
+         */
+        @Setup
+        public void createJournal() throws IOException {
+            path = Files.createTempFile("capitaly-bench", ".journal");
+        }
+
+        /**
+         * Deletes the journal file.
+         *
+         * @throws IOException If the journal file cannot be deleted.
+         */
+        @TearDown
+        public void deleteJournal() throws IOException {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    /**
+     * A game kernel reporting its events to a sink writing to nowhere.
+     */
+    @State(Scope.Thread)
+    public static class SinkState extends KernelState {
+
+        /**
+         * The kind of sink.
+         */
+        @Param({"counting", "csv", "async-text"})
+        public String sink;
+
+        /**
+         * Creates the sink of the game.
+         */
+        @Setup
+        public void createSink() {
+            List<PlayerSpec> seats = Fixtures.seat(PLAYERS);
+            List<Player> players = Fixtures.create(seats, new GameContext());
+            GameSink listener = switch (sink) {
+                case "counting" -> new CountingSink();
+                case "csv" -> new RecordSink(Writer.nullWriter(), RecordSink.Format.CSV);
+                case "async-text" -> new AsyncTextSink(Writer.nullWriter(), players);
+                default -> throw new IllegalArgumentException("Unknown sink: " + sink + '.');
+            };
+            game.setListener(listener);
+        }
+    }
+
+    /**
+     * Moves players on an object model track.
+     *
+     * @param state The track and players.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void track(TrackState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) state.track.progress(state.players.get(i % PLAYERS), state.rolls[i]);
+    }
+
+    /**
+     * Steps a game kernel, restarting the game whenever it ends.
+     *
+     * @param state The game.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void kernel(KernelState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) if (state.game.step(state.rolls[i])) state.game.reset();
+    }
+
+    /**
+     * Steps a game kernel recording its events to a journal.
+     *
+     * @param state The game and the journal file.
+     */
+    @Benchmark
+    @OperationsPerInvocation(JOURNALED_MOVES)
+    public void journal(JournalState state) {
+        try (EventJournalWriter journal = new EventJournalWriter(state.path, state.track.length(), PLAYERS)) {
+            state.game.setListener(journal);
+            for (int i = 0; i < JOURNALED_MOVES; i++) if (state.game.step(state.rolls[i % Fixtures.BATCH])) state.game.reset();
+        }
+    }
+
+    /**
+     * Steps a game kernel reporting its events to a sink.
+     *
+     * @param state The game and its sink.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void sink(SinkState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) if (state.game.step(state.rolls[i])) state.game.reset();
+    }
+}
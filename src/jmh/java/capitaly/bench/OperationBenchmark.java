@@ -0,0 +1,427 @@
+package capitaly.bench;
+
+import capitaly.Capitaly;
+import capitaly.GameContext;
+import capitaly.Track;
+import capitaly.dice.RandomRollSource;
+import capitaly.dice.RollSource;
+import capitaly.io.InputDataParser;
+import capitaly.io.MappedInputParser;
+import capitaly.kernel.GameKernel;
+import capitaly.kernel.GameSnapshot;
+import capitaly.player.GreedyPlayer;
+import capitaly.player.Player;
+import capitaly.simulation.LandingModel;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.RealEstateTile;
+import capitaly.tile.ServiceTile;
+import capitaly.tile.Tile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations a move is made of, purchases, payments and eliminations, and the operations the simulations build
+ * on: branching from snapshots, net worths, landing models, dice and input parsing. The unit of every benchmark is
+ * documented on it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperationBenchmark {
+
+    /**
+     * The number of players of the games branched from and valued.
+     */
+    private static final int PLAYERS = 8;
+
+    /**
+     * The number of players bankrupted by the elimination benchmark.
+     */
+    private static final int ELIMINATED_PLAYERS = 64;
+
+    /**
+     * The length of the generated track of the games branched from and valued.
+     */
+    private static final int TRACK_LENGTH = 10_000;
+
+    /**
+     * The number of turns played from a snapshot in the branching benchmarks.
+     */
+    private static final int BRANCH_TURNS = 8;
+
+    /**
+     * The number of moves of a player whose landings are computed by the landing benchmark.
+     */
+    private static final int LANDING_MOVES = 1000;
+
+    /**
+     * The number of rolls in the generated input file of the parser benchmarks.
+     */
+    private static final int PARSED_ROLLS = 1_000_000;
+
+    /**
+     * A real estate tile to buy.
+     */
+    @State(Scope.Thread)
+    public static class PurchaseState {
+
+        /**
+         * The context of the game.
+         */
+        GameContext context;
+
+        /**
+         * The tile bought.
+         */
+        RealEstateTile tile;
+
+        /**
+         * Creates the tile.
+         */
+        @Setup
+        public void setUp() {
+            context = new GameContext();
+            tile = new RealEstateTile(context);
+        }
+    }
+
+    /**
+     * A player paying and getting paid.
+     */
+    @State(Scope.Thread)
+    public static class PaymentState {
+
+        /**
+         * The player.
+         */
+        Player player;
+
+        /**
+         * Creates the player.
+         */
+        @Setup
+        public void setUp() {
+            player = new GreedyPlayer("payer", new GameContext());
+        }
+    }
+
+    /**
+     * Games of the object model and the kernel in the middle of their play, with their snapshots.
+     */
+    @State(Scope.Thread)
+    public static class MidGameState {
+
+        /**
+         * The object model game.
+         */
+        Capitaly capitaly;
+
+        /**
+         * The kernel game.
+         */
+        GameKernel kernel;
+
+        /**
+         * The snapshot of the object model game.
+         */
+        GameSnapshot capitalySnapshot;
+
+        /**
+         * The snapshot of the kernel game.
+         */
+        GameSnapshot kernelSnapshot;
+
+        /**
+         * The rolls of the games and the branches.
+         */
+        int[] rolls;
+
+        /**
+         * Plays both games to the middle and snapshots them.
+         */
+        @Setup
+        public void setUp() {
+            TrackSpec track = Fixtures.generate(TRACK_LENGTH);
+            List<PlayerSpec> players = Fixtures.seat(PLAYERS);
+            GameContext context = new GameContext();
+            capitaly = new Capitaly(track.build(context), Fixtures.create(players, context));
+            kernel = new GameKernel(track, players);
+            rolls = Fixtures.rolls(Fixtures.BATCH + BRANCH_TURNS);
+            for (int i = 0; i < Fixtures.BATCH; i++) if (capitaly.step(rolls[i])) break;
+            for (int i = 0; i < Fixtures.BATCH; i++) if (kernel.step(rolls[i])) break;
+            capitalySnapshot = capitaly.snapshot();
+            kernelSnapshot = kernel.snapshot();
+        }
+    }
+
+    /**
+     * The landing model of a generated track.
+     */
+    @State(Scope.Thread)
+    public static class LandingState {
+
+        /**
+         * The length of the track.
+         */
+        @Param({"10000", "100000", "1000000"})
+        public int length;
+
+        /**
+         * The landing model.
+         */
+        LandingModel model;
+
+        /**
+         * Creates the landing model.
+         */
+        @Setup
+        public void setUp() {
+            model = new LandingModel(Fixtures.generate(length));
+        }
+    }
+
+    /**
+     * A seeded die and a buffer to roll it into.
+     */
+    @State(Scope.Thread)
+    public static class DieState {
+
+        /**
+         * The die.
+         */
+        RandomRollSource die;
+
+        /**
+         * The buffer of the rolls.
+         */
+        int[] buffer;
+
+        /**
+         * Creates the die.
+         */
+        @Setup
+        public void setUp() {
+            die = new RandomRollSource(Fixtures.SEED);
+            buffer = new int[Fixtures.BATCH];
+        }
+    }
+
+    /**
+     * A generated input file.
+     */
+    @State(Scope.Thread)
+    public static class InputState {
+
+        /**
+         * The path to the input file.
+         */
+        Path path;
+
+        /**
+         * The buffer of the rolls streamed.
+         */
+        int[] buffer;
+
+        /**
+         * Writes the input file.
+         *
+         * @throws IOException If the file cannot be written.
+         */
+        @Setup
+        public void setUp() throws IOException {
+            path = Fixtures.inputFile(PARSED_ROLLS);
+            buffer = new int[Fixtures.BATCH];
+        }
+    }
+
+    /**
+     * Buys an unowned real estate tile and gives it back, one operation per purchase.
+     *
+     * @param state The tile.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void purchase(PurchaseState state) {
+        Player player = new GreedyPlayer("buyer", state.context);
+        for (int i = 0; i < Fixtures.BATCH; i++) {
+            state.tile.enter(player);
+            state.tile.reset();
+            player.receive(RealEstateTile.INITIAL_PURCHASE_COST);
+        }
+    }
+
+    /**
+     * Makes a player pay and get back an amount of money, one operation per payment.
+     *
+     * @param state The player.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void pay(PaymentState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) state.player.receive(state.player.pay(i));
+    }
+
+    /**
+     * Plays a game of {@value #ELIMINATED_PLAYERS} players where every move bankrupts the player, one operation per
+     * elimination.
+     *
+     * @param blackhole Consumes the number of eliminations.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ELIMINATED_PLAYERS - 1)
+    public void eliminate(Blackhole blackhole) {
+        GameContext context = new GameContext();
+        List<Tile> tiles = List.of(new ServiceTile(Player.STARTING_CAPITAL + 1, context));
+        Capitaly game = new Capitaly(new Track(tiles), Fixtures.create(Fixtures.seat(ELIMINATED_PLAYERS), context));
+        int eliminations = 0;
+        while (!game.step(1)) eliminations++;
+        blackhole.consume(eliminations);
+    }
+
+    /**
+     * Restores a game of the object model to a mid-game snapshot and plays a few turns from it, one operation per
+     * branch.
+     *
+     * @param state The game and its snapshot.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void branchCapitaly(MidGameState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) {
+            state.capitaly.restore(state.capitalySnapshot);
+            for (int turn = 0; turn < BRANCH_TURNS; turn++) if (state.capitaly.step(state.rolls[i + turn])) break;
+        }
+    }
+
+    /**
+     * Restores a game kernel to a mid-game snapshot and plays a few turns from it, one operation per branch.
+     *
+     * @param state The game and its snapshot.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void branchKernel(MidGameState state) {
+        for (int i = 0; i < Fixtures.BATCH; i++) {
+            state.kernel.restore(state.kernelSnapshot);
+            for (int turn = 0; turn < BRANCH_TURNS; turn++) if (state.kernel.step(state.rolls[i + turn])) break;
+        }
+    }
+
+    /**
+     * Computes the net worth of every player of a mid-game object model game by scanning the track for their
+     * properties, one operation per player.
+     *
+     * @param state     The game.
+     * @param blackhole Consumes the net worths.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS)
+    public void netWorthScan(MidGameState state, Blackhole blackhole) {
+        List<Tile> tiles = state.capitaly.getTrack().getTiles();
+        for (Player player : state.capitaly.getPlayers()) {
+            long total = player.getCapital();
+            for (Tile tile : tiles) {
+                if (tile instanceof RealEstateTile property && property.getOwner() == player)
+                    total += RealEstateTile.INITIAL_PURCHASE_COST + (property.hasHouse() ? RealEstateTile.HOUSE_UPGRADE_COST : 0);
+            }
+            blackhole.consume(total);
+        }
+    }
+
+    /**
+     * Computes the net worth of every player of a mid-game object model game from the property index of the game, one
+     * operation per player.
+     *
+     * @param state     The game.
+     * @param blackhole Consumes the net worths.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PLAYERS)
+    public void netWorthIndex(MidGameState state, Blackhole blackhole) {
+        for (Player player : state.capitaly.getPlayers()) blackhole.consume(player.getNetWorth());
+    }
+
+    /**
+     * Computes the expected landings of a player on every tile of a track during their first moves, one operation per
+     * computation.
+     *
+     * @param state The landing model.
+     * @return The expected landings.
+     */
+    @Benchmark
+    public double[] landingVisits(LandingState state) {
+        return state.model.getExpectedVisits(LANDING_MOVES);
+    }
+
+    /**
+     * Rolls a seeded die one roll at a time, one operation per roll.
+     *
+     * @param state     The die.
+     * @param blackhole Consumes the rolls.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public void rollNext(DieState state, Blackhole blackhole) {
+        for (int i = 0; i < Fixtures.BATCH; i++) blackhole.consume(state.die.nextRoll());
+    }
+
+    /**
+     * Rolls a seeded die into a buffer, one operation per roll.
+     *
+     * @param state The die and the buffer.
+     * @return The buffer.
+     */
+    @Benchmark
+    @OperationsPerInvocation(Fixtures.BATCH)
+    public int[] rollFill(DieState state) {
+        state.die.fill(state.buffer, 0, Fixtures.BATCH);
+        return state.buffer;
+    }
+
+    /**
+     * Parses a whole input file with {@link InputDataParser}, one operation per file of {@value #PARSED_ROLLS} rolls.
+     *
+     * @param state The input file.
+     * @return The rolls.
+     */
+    @Benchmark
+    public int[] parseScanner(InputState state) {
+        return new InputDataParser(state.path.toString()).getDiceRolls();
+    }
+
+    /**
+     * Parses a whole input file with {@link MappedInputParser}, streaming the rolls, one operation per file of
+     * {@value #PARSED_ROLLS} rolls.
+     *
+     * @param state The input file and the buffer of the rolls.
+     * @return The number of rolls read.
+     */
+    @Benchmark
+    public long parseMapped(InputState state) {
+        try (MappedInputParser parser = new MappedInputParser(state.path.toString())) {
+            RollSource rolls = parser.getRollSource();
+            long count = 0;
+            for (int read; (read = rolls.fill(state.buffer, 0, Fixtures.BATCH)) > 0; ) count += read;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package capitaly;
+
+import capitaly.dice.LimitedRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.event.EventType;
+import capitaly.event.GameEventListener;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.Tile;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays the same games on compiled and virtual tracks and checks that the compiled dispatch changes neither their
+ * events nor their outcomes, including for the tiles it leaves to their own classes.
+ */
+class TrackTest {
+
+    /**
+     * The number of scenarios played by the equivalence test.
+     */
+    private static final int SCENARIOS = 60;
+
+    /**
+     * The number of rolls after which a game is abandoned.
+     */
+    private static final int MAX_ROLLS = 3000;
+
+    /**
+     * Checks that random games, with amounts too large for the table among them, report the same events and end the
+     * same on both tracks.
+     */
+    @Test
+    void compiledTrackMatchesVirtualTrack() {
+        Random random = new Random(21);
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            int length = 1 + random.nextInt(30);
+            TileKind[] kinds = new TileKind[length];
+            int[] amounts = new int[length];
+            for (int tile = 0; tile < length; tile++) {
+                kinds[tile] = TileKind.values()[random.nextInt(TileKind.values().length)];
+                if (kinds[tile] != TileKind.REAL_ESTATE)
+                    amounts[tile] = random.nextInt(20) == 0 ? (1 << 30) + random.nextInt(1000) : random.nextInt(3000);
+            }
+            TrackSpec track = new TrackSpec(kinds, amounts);
+            List<PlayerSpec> seats = new ArrayList<>();
+            int count = 2 + random.nextInt(3);
+            for (int seat = 0; seat < count; seat++) seats.add(new PlayerSpec("P" + seat, Strategy.values()[random.nextInt(3)]));
+
+            String where = "scenario " + scenario + ": ";
+            GameContext virtualContext = new GameContext();
+            GameContext compiledContext = new GameContext();
+            Track virtual = track.build(virtualContext, false);
+            Track compiled = track.build(compiledContext, true);
+            assertFalse(virtual.isCompiled(), where + "virtual");
+            assertTrue(compiled.isCompiled(), where + "compiled");
+            this.assertSameGames(where, virtual, this.create(seats, virtualContext), compiled, this.create(seats, compiledContext), scenario);
+        }
+    }
+
+    /**
+     * Checks that a tile of a class the compiled track does not know is entered through its own class.
+     */
+    @Test
+    void unknownTilesFallBack() {
+        List<PlayerSpec> seats = List.of(new PlayerSpec("A", Strategy.GREEDY), new PlayerSpec("B", Strategy.CAREFUL));
+        GameContext virtualContext = new GameContext();
+        GameContext compiledContext = new GameContext();
+        Track virtual = new Track(this.tiles(virtualContext), false);
+        Track compiled = new Track(this.tiles(compiledContext), true);
+        this.assertSameGames("", virtual, this.create(seats, virtualContext), compiled, this.create(seats, compiledContext), 8);
+    }
+
+    /**
+     * Plays a game on each track and checks that they report the same events and end the same.
+     *
+     * @param where           The prefix of the failure messages.
+     * @param virtual         The virtual track.
+     * @param virtualPlayers  The players of the virtual track.
+     * @param compiled        The compiled track.
+     * @param compiledPlayers The players of the compiled track.
+     * @param seed            The seed of the die.
+     */
+    private void assertSameGames(String where, Track virtual, List<Player> virtualPlayers, Track compiled, List<Player> compiledPlayers, long seed) {
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        Capitaly expectedGame = new Capitaly(virtual, virtualPlayers);
+        Capitaly actualGame = new Capitaly(compiled, compiledPlayers);
+        expectedGame.setListener(this.recorder(expected));
+        actualGame.setListener(this.recorder(actual));
+        expectedGame.play(new LimitedRollSource(new RandomRollSource(seed), MAX_ROLLS));
+        actualGame.play(new LimitedRollSource(new RandomRollSource(seed), MAX_ROLLS));
+
+        assertEquals(expected, actual, where + "events");
+        assertEquals(expectedGame.getTurns(), actualGame.getTurns(), where + "turns");
+        assertEquals(expectedGame.isOver(), actualGame.isOver(), where + "over");
+        for (int seat = 0; seat < virtualPlayers.size(); seat++) {
+            assertEquals(virtualPlayers.get(seat).getCapital(), compiledPlayers.get(seat).getCapital(), where + "capital of seat " + seat);
+            assertEquals(virtualPlayers.get(seat).isBankrupt(), compiledPlayers.get(seat).isBankrupt(), where + "bankruptcy of seat " + seat);
+            assertEquals(virtual.getPosition(virtualPlayers.get(seat)), compiled.getPosition(compiledPlayers.get(seat)), where + "position of seat " + seat);
+        }
+    }
+
+    /**
+     * Creates the players of a game.
+     *
+     * @param seats   The players at the table.
+     * @param context The context of the game.
+     * @return The players, in seating order.
+     */
+    private List<Player> create(List<PlayerSpec> seats, GameContext context) {
+        List<Player> players = new ArrayList<>();
+        for (PlayerSpec seat : seats) players.add(seat.create(context));
+        return players;
+    }
+
+    /**
+     * Creates tiles of every kind, with a tile of an unknown class taking a fee that doubles at every visit.
+     *
+     * @param context The context of the game.
+     * @return The tiles.
+     */
+    private List<Tile> tiles(GameContext context) {
+        List<Tile> tiles = new ArrayList<>();
+        tiles.add(TileKind.REAL_ESTATE.create(0, context));
+        tiles.add(new Tile(context) {
+            /**
+             * The fee taken at the next visit.
+             */
+            private int fee = 50;
+
+            @Override
+            public void enter(Player player, int seat, int index, GameEventListener listener) {
+                player.pay(fee);
+                listener.onEvent(EventType.SERVICE_FEE, seat, index, fee);
+                fee *= 2;
+            }
+
+            @Override
+            public TileKind getKind() {
+                return TileKind.SERVICE;
+            }
+
+            @Override
+            public int getAmount() {
+                return 50;
+            }
+        });
+        tiles.add(TileKind.LUCK.create(200, context));
+        tiles.add(TileKind.REAL_ESTATE.create(0, context));
+        tiles.add(TileKind.SERVICE.create(300, context));
+        return tiles;
+    }
+
+    /**
+     * Creates a listener recording the events it receives.
+     *
+     * @param events The list to record the events in.
+     * @return The listener.
+     */
+    private GameEventListener recorder(List<String> events) {
+        return (type, seat, tile, amount) -> events.add(type + " " + seat + " " + tile + " " + amount);
+    }
+}
@@ -0,0 +1,175 @@
+package capitaly.cluster;
+
+import capitaly.RuleSet;
+import capitaly.player.Strategy;
+import capitaly.simulation.BatchResult;
+import capitaly.simulation.BatchSimulator;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs batches on a {@link Coordinator} and in-process {@link Worker}s over the loopback interface, and checks that
+ * they end as the same batch played locally, even when a worker is lost in the middle of a shard.
+ */
+class ClusterTest {
+
+    /**
+     * The track of the batches.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.REAL_ESTATE, TileKind.LUCK, TileKind.REAL_ESTATE},
+        new int[]{0, 600, 0, 300, 0}
+    );
+
+    /**
+     * The players of the batches.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(
+        new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL), new PlayerSpec("S", Strategy.STRATEGIC)
+    );
+
+    /**
+     * The number of turns after which a game is abandoned.
+     */
+    private static final int MAX_TURNS = 1000;
+
+    /**
+     * The number of games of a shard.
+     */
+    private static final long SHARD_GAMES = 97;
+
+    /**
+     * The number of games of the batches, which do not fill the last shard.
+     */
+    private static final long GAMES = 10 * SHARD_GAMES + 13;
+
+    /**
+     * The seed of the first game of the batches.
+     */
+    private static final long FIRST_SEED = 1234;
+
+    /**
+     * Checks that a batch shared out among several workers ends as the same batch played locally, and that a second
+     * batch runs on the same workers.
+     *
+     * @throws Exception If the workers or the batch fail.
+     */
+    @Test
+    void distributedBatchMatchesLocalBatch() throws Exception {
+        ExecutorService workers = Executors.newCachedThreadPool();
+        try (Coordinator coordinator = this.coordinator()) {
+            List<Future<Long>> served = new ArrayList<>();
+            for (int i = 0; i < 3; i++) served.add(workers.submit(() -> this.serve(coordinator)));
+
+            assertEquals(this.local(FIRST_SEED, GAMES).toString(), coordinator.run(FIRST_SEED, GAMES).toString());
+            assertEquals(this.local(7, SHARD_GAMES).toString(), coordinator.run(7, SHARD_GAMES).toString());
+        } finally {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks that the shard of a worker dropping its connection before answering is played by another worker, and that
+     * the batch still ends as the same batch played locally.
+     *
+     * @throws Exception If the workers or the batch fail.
+     */
+    @Test
+    void lostWorkerShardIsReplayed() throws Exception {
+        ExecutorService threads = Executors.newCachedThreadPool();
+        try (Coordinator coordinator = this.coordinator()) {
+            Future<BatchResult> batch = threads.submit(() -> coordinator.run(FIRST_SEED, GAMES));
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                Protocol.writeGreeting(out);
+                out.flush();
+                Protocol.Scenario scenario = Protocol.Scenario.read(in);
+                assertEquals(TRACK, scenario.track());
+                assertEquals(PLAYERS, scenario.players());
+                in.readInt();
+                in.readLong();
+                assertEquals(SHARD_GAMES, in.readLong());
+            }
+
+            threads.submit(() -> this.serve(coordinator));
+            assertEquals(this.local(FIRST_SEED, GAMES).toString(), batch.get(30, TimeUnit.SECONDS).toString());
+        } finally {
+            threads.shutdown();
+            threads.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks that a batch with no worker to play it fails once the lease runs out instead of waiting forever.
+     *
+     * @throws IOException If the coordinator cannot listen.
+     */
+    @Test
+    void batchWithoutWorkersFails() throws IOException {
+        try (Coordinator coordinator = new Coordinator(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), TRACK, PLAYERS,
+            RuleSet.STANDARD, MAX_TURNS, true, SHARD_GAMES, Duration.ofMillis(300))) {
+            assertThrows(IllegalStateException.class, () -> coordinator.run(FIRST_SEED, GAMES));
+        }
+    }
+
+    /**
+     * Creates a coordinator of the batches, listening on a free port of the loopback interface.
+     *
+     * @return The coordinator.
+     * @throws IOException If the coordinator cannot listen.
+     */
+    private Coordinator coordinator() throws IOException {
+        return new Coordinator(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), TRACK, PLAYERS, RuleSet.STANDARD,
+            MAX_TURNS, true, SHARD_GAMES, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Serves a coordinator as a worker until it closes the connection.
+     *
+     * @param coordinator The coordinator.
+     * @return The number of shards played.
+     */
+    private long serve(Coordinator coordinator) {
+        try {
+            return Worker.serve(InetAddress.getLoopbackAddress().getHostAddress(), coordinator.getPort(), ForkJoinPool.commonPool());
+        } catch (IOException exception) {
+            // The coordinator closed the connection in the middle of a shard.
+            return -1;
+        }
+    }
+
+    /**
+     * Plays a batch locally, as the workers play their shards.
+     *
+     * @param firstSeed The seed of the first game.
+     * @param games     The number of games.
+     * @return The result of the batch.
+     */
+    private BatchResult local(long firstSeed, long games) {
+        return new BatchSimulator(TRACK, PLAYERS, RuleSet.STANDARD, MAX_TURNS, true, ForkJoinPool.commonPool(), 1).run(firstSeed, games);
+    }
+}
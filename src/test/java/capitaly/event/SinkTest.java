@@ -0,0 +1,205 @@
+package capitaly.event;
+
+import capitaly.Capitaly;
+import capitaly.GameContext;
+import capitaly.dice.LimitedRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the output of the sinks for known events, and that the counting sink agrees with the events of a game.
+ */
+class SinkTest {
+
+    /**
+     * The line separator of the text sinks.
+     */
+    private static final String EOL = System.lineSeparator();
+
+    /**
+     * Checks that the console sink reports eliminations, the winner and the standings, and nothing else.
+     */
+    @Test
+    void consoleSinkReportsEliminationsAndWinner() {
+        List<Player> seats = this.seats();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ConsoleSink sink = new ConsoleSink(new PrintStream(bytes, false, StandardCharsets.UTF_8), seats)) {
+            sink.onEvent(EventType.MOVE, 0, 2, 3);
+            sink.onEvent(EventType.PURCHASE, 0, 2, 1000);
+            sink.onEvent(EventType.ELIMINATION, 1, 1, 0);
+            sink.onGameOver(0);
+            sink.onStandings(seats.subList(0, 1));
+        }
+        assertEquals("B got eliminated." + EOL + "A won the game!" + EOL + seats.get(0) + EOL, bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Checks that the record sink writes one CSV row or JSON object per event, numbering the turns by the moves.
+     */
+    @Test
+    void recordSinkWritesEveryEvent() {
+        StringWriter csv = new StringWriter();
+        try (RecordSink sink = new RecordSink(csv, RecordSink.Format.CSV)) {
+            this.report(sink);
+        }
+        assertEquals("""
+            turn,type,seat,tile,amount
+            1,MOVE,0,2,3
+            1,PURCHASE,0,2,1000
+            2,MOVE,1,1,1
+            2,SERVICE_FEE,1,1,-500
+            2,ELIMINATION,1,1,0
+            2,GAME_OVER,0,-1,0
+            """, csv.toString());
+
+        StringWriter json = new StringWriter();
+        try (RecordSink sink = new RecordSink(json, RecordSink.Format.JSON_LINES)) {
+            this.report(sink);
+        }
+        String[] lines = json.toString().split("\n");
+        assertEquals(6, lines.length);
+        assertEquals("{\"turn\":1,\"type\":\"MOVE\",\"seat\":0,\"tile\":2,\"amount\":3}", lines[0]);
+        assertEquals("{\"turn\":2,\"type\":\"SERVICE_FEE\",\"seat\":1,\"tile\":1,\"amount\":-500}", lines[3]);
+        assertEquals("{\"turn\":2,\"type\":\"GAME_OVER\",\"seat\":0,\"tile\":-1,\"amount\":0}", lines[5]);
+    }
+
+    /**
+     * Checks that the asynchronous text sink writes every event in order across many batches, and the standings after
+     * them.
+     */
+    @Test
+    void asyncTextSinkWritesEveryBatchInOrder() {
+        List<Player> seats = this.seats();
+        StringWriter out = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        AsyncTextSink sink = new AsyncTextSink(out, seats, 2);
+        for (int turn = 0; turn < 100; turn++) {
+            int seat = turn % 2;
+            sink.onEvent(EventType.MOVE, seat, turn % 5, 1 + turn % 6);
+            expected.append(seats.get(seat).getName()).append(" rolled ").append(1 + turn % 6).append(" and moved to tile ").append(turn % 5).append(EOL);
+            sink.onEvent(EventType.LUCK_REWARD, seat, turn % 5, turn);
+            expected.append(seats.get(seat).getName()).append(" received ").append(turn).append(" on tile ").append(turn % 5).append(EOL);
+        }
+        sink.onEvent(EventType.ELIMINATION, 1, 0, 0);
+        sink.onGameOver(0);
+        sink.onStandings(seats.subList(0, 1));
+        sink.close();
+        sink.close();
+
+        Player winner = seats.get(0);
+        expected.append("B got eliminated.").append(EOL).append("A won the game!").append(EOL)
+            .append("A:\tcapital: ").append(winner.getCapital()).append("\tproperties: ").append(winner.getProperties().size()).append(EOL);
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    /**
+     * Checks that the asynchronous text sink reports a failure of its writer when it is closed.
+     */
+    @Test
+    void asyncTextSinkReportsWriteFailures() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncTextSink sink = new AsyncTextSink(failing, this.seats(), 1);
+        sink.onEvent(EventType.MOVE, 0, 1, 1);
+        UncheckedIOException exception = assertThrows(UncheckedIOException.class, sink::close);
+        assertEquals("disk full", exception.getCause().getMessage());
+    }
+
+    /**
+     * Checks that the counting sink counts and sums the events of a game as they are reported.
+     */
+    @Test
+    void countingSinkMatchesReportedEvents() {
+        TrackSpec track = new TrackSpec(
+            new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.REAL_ESTATE, TileKind.LUCK, TileKind.REAL_ESTATE},
+            new int[]{0, 600, 0, 300, 0}
+        );
+        GameContext context = new GameContext();
+        List<Player> players = new ArrayList<>();
+        for (Strategy strategy : new Strategy[]{Strategy.GREEDY, Strategy.CAREFUL, Strategy.STRATEGIC})
+            players.add(new PlayerSpec(strategy.name(), strategy).create(context));
+        Capitaly game = new Capitaly(track.build(context), players);
+
+        CountingSink counting = new CountingSink();
+        long[] counts = new long[EventType.values().length];
+        long[] totals = new long[EventType.values().length];
+        game.setSink(new GameSink() {
+            @Override
+            public void onEvent(EventType type, int seat, int tile, int amount) {
+                counts[type.getCode()]++;
+                totals[type.getCode()] += amount;
+                counting.onEvent(type, seat, tile, amount);
+            }
+
+            @Override
+            public void onGameOver(int winner) {
+                counting.onGameOver(winner);
+            }
+        });
+        game.play(new LimitedRollSource(new RandomRollSource(4), 5000));
+
+        assertTrue(game.isOver(), "game over");
+        assertEquals(1, counting.getGames());
+        assertEquals(game.getTurns(), counting.getCount(EventType.MOVE));
+        assertEquals(players.size() - 1, counting.getCount(EventType.ELIMINATION));
+        for (EventType type : EventType.values()) {
+            assertEquals(counts[type.getCode()], counting.getCount(type), type.name());
+            assertEquals(totals[type.getCode()], counting.getTotal(type), type.name());
+        }
+    }
+
+    /**
+     * Reports two turns ending the game to a sink.
+     *
+     * @param sink The sink.
+     */
+    private void report(GameSink sink) {
+        sink.onEvent(EventType.MOVE, 0, 2, 3);
+        sink.onEvent(EventType.PURCHASE, 0, 2, 1000);
+        sink.onEvent(EventType.MOVE, 1, 1, 1);
+        sink.onEvent(EventType.SERVICE_FEE, 1, 1, -500);
+        sink.onEvent(EventType.ELIMINATION, 1, 1, 0);
+        sink.onGameOver(0);
+    }
+
+    /**
+     * Creates the players A and B.
+     *
+     * @return The players, in seating order.
+     */
+    private List<Player> seats() {
+        GameContext context = new GameContext();
+        return List.of(new PlayerSpec("A", Strategy.GREEDY).create(context), new PlayerSpec("B", Strategy.CAREFUL).create(context));
+    }
+}
@@ -0,0 +1,183 @@
+package capitaly.io;
+
+import capitaly.dice.ArrayRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.dice.RollSource;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a binary scenario reads back the track, players and rolls it was written with, from any offset, and that
+ * files of another format or version are rejected.
+ */
+class BinaryScenarioTest {
+
+    /**
+     * The track of the scenarios.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 300, 0}
+    );
+
+    /**
+     * The players of the scenarios, one of them with a name outside ASCII.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(
+        new PlayerSpec("Géza", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL), new PlayerSpec("S", Strategy.STRATEGIC)
+    );
+
+    /**
+     * The number of rolls of the scenarios, which does not fill the last packed word.
+     */
+    private static final int ROLLS = 10 * BinaryScenarioFormat.ROLLS_PER_WORD + 5;
+
+    /**
+     * Checks that the track, the players and the rolls of a written scenario read back the same, streamed from the
+     * start or from offsets inside and at the edges of the packed words.
+     *
+     * @param directory The directory of the scenario.
+     */
+    @Test
+    void roundTrip(@TempDir Path directory) {
+        Path path = directory.resolve("scenario.bin");
+        int[] rolls = new int[ROLLS];
+        new RandomRollSource(6).fill(rolls, 0, rolls.length);
+        BinaryScenarioWriter.write(path, TRACK, PLAYERS, new ArrayRollSource(rolls), rolls.length);
+
+        try (BinaryScenarioReader reader = new BinaryScenarioReader(path.toString())) {
+            assertEquals(TRACK, reader.getTrackSpec());
+            assertEquals(PLAYERS, reader.getPlayerSpecs());
+            assertEquals(ROLLS, reader.getRollCount());
+            assertArrayEquals(rolls, this.drain(reader.getRollSource()));
+
+            int per = BinaryScenarioFormat.ROLLS_PER_WORD;
+            for (int offset : new int[]{0, 1, per - 1, per, per + 1, 3 * per + 7, ROLLS - 1}) {
+                RollSource source = reader.getRollSource(offset);
+                assertEquals(rolls[offset], source.nextRoll(), "offset " + offset);
+                assertArrayEquals(Arrays.copyOfRange(rolls, offset + 1, ROLLS), this.drain(source), "offset " + offset);
+            }
+            assertEquals(RollSource.END, reader.getRollSource(ROLLS).nextRoll());
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getRollSource(ROLLS + 1));
+            assertThrows(IndexOutOfBoundsException.class, () -> reader.getRollSource(-1));
+        }
+    }
+
+    /**
+     * Checks that a converted text input reads back as the text parser reads it.
+     *
+     * @param directory The directory of the scenario.
+     */
+    @Test
+    void convertMatchesTextInput(@TempDir Path directory) {
+        for (String input : new String[]{"test/test_01.txt", "test/test_02.txt", "test/test_03.txt"}) {
+            Path path = directory.resolve("scenario.bin");
+            BinaryScenarioWriter.convert(input, path.toString());
+            InputDataParser expected = new InputDataParser(input);
+            int[] rolls = expected.getDiceRolls() == null ? new int[0] : expected.getDiceRolls();
+
+            try (BinaryScenarioReader reader = new BinaryScenarioReader(path.toString())) {
+                assertEquals(TrackSpec.of(expected.getTrack()), reader.getTrackSpec(), input);
+                assertEquals(PlayerSpec.of(expected.getPlayers()), reader.getPlayerSpecs(), input);
+                assertArrayEquals(rolls, this.drain(reader.getRollSource()), input);
+            }
+        }
+    }
+
+    /**
+     * Checks that a scenario of another version, a file without the magic bytes, a truncated file and a missing file
+     * are rejected.
+     *
+     * @param directory The directory of the scenarios.
+     * @throws IOException If a scenario cannot be patched.
+     */
+    @Test
+    void invalidFilesAreRejected(@TempDir Path directory) throws IOException {
+        Path version = this.write(directory.resolve("version.bin"));
+        this.patch(version, Integer.BYTES, ByteBuffer.allocate(Short.BYTES).putShort(0, (short) (BinaryScenarioFormat.VERSION + 1)));
+        InvalidInputException exception = assertThrows(InvalidInputException.class, () -> new BinaryScenarioReader(version.toString()));
+        assertTrue(exception.getMessage().contains("version"), exception.getMessage());
+
+        Path magic = this.write(directory.resolve("magic.bin"));
+        this.patch(magic, 0, ByteBuffer.allocate(Integer.BYTES).putInt(0, 0x12345678));
+        assertThrows(InvalidInputException.class, () -> new BinaryScenarioReader(magic.toString()));
+
+        Path truncated = this.write(directory.resolve("truncated.bin"));
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - Long.BYTES);
+        }
+        assertThrows(InvalidInputException.class, () -> new BinaryScenarioReader(truncated.toString()));
+
+        assertThrows(InvalidInputException.class, () -> new BinaryScenarioReader(directory.resolve("missing.bin").toString()));
+    }
+
+    /**
+     * Checks that the writer refuses a source running out early and rolls a die cannot show.
+     *
+     * @param directory The directory of the scenarios.
+     */
+    @Test
+    void invalidRollsAreRefused(@TempDir Path directory) {
+        Path path = directory.resolve("scenario.bin");
+        assertThrows(IllegalArgumentException.class, () -> BinaryScenarioWriter.write(path, TRACK, PLAYERS, new ArrayRollSource(new int[]{1, 2}), 3));
+        assertThrows(IllegalArgumentException.class, () -> BinaryScenarioWriter.write(path, TRACK, PLAYERS, new ArrayRollSource(new int[]{1, 7}), 2));
+        assertThrows(IllegalArgumentException.class, () -> BinaryScenarioWriter.write(path, TRACK, PLAYERS, new ArrayRollSource(new int[]{0}), 1));
+    }
+
+    /**
+     * Writes a small scenario.
+     *
+     * @param path The path of the scenario.
+     * @return The path of the scenario.
+     */
+    private Path write(Path path) {
+        BinaryScenarioWriter.write(path, TRACK, PLAYERS, new RandomRollSource(1), ROLLS);
+        return path;
+    }
+
+    /**
+     * Overwrites bytes of a file.
+     *
+     * @param path     The path of the file.
+     * @param position The offset of the first byte to overwrite.
+     * @param bytes    The bytes to write.
+     * @throws IOException If the file cannot be written.
+     */
+    private void patch(Path path, long position, ByteBuffer bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(bytes, position);
+        }
+    }
+
+    /**
+     * Reads every roll of a source.
+     *
+     * @param source The source of the rolls.
+     * @return The rolls.
+     */
+    private int[] drain(RollSource source) {
+        int[] rolls = new int[0];
+        int count = 0;
+        for (int roll = source.nextRoll(); roll != RollSource.END; roll = source.nextRoll()) {
+            if (count == rolls.length) rolls = Arrays.copyOf(rolls, Math.max(16, 2 * count));
+            rolls[count++] = roll;
+        }
+        return Arrays.copyOf(rolls, count);
+    }
+}
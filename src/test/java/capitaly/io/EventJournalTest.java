@@ -0,0 +1,170 @@
+package capitaly.io;
+
+import capitaly.dice.RandomRollSource;
+import capitaly.event.EventType;
+import capitaly.kernel.GameKernel;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that an event journal reads back the events it was written with, through its mapped windows, and that
+ * replaying a prefix of it rebuilds the game as it stood after that prefix.
+ */
+class EventJournalTest {
+
+    /**
+     * The track of the games.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.REAL_ESTATE, TileKind.LUCK, TileKind.REAL_ESTATE, TileKind.SERVICE},
+        new int[]{0, 700, 0, 400, 0, 300}
+    );
+
+    /**
+     * The players of the games.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(
+        new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL), new PlayerSpec("S", Strategy.STRATEGIC)
+    );
+
+    /**
+     * The number of turns after which a game is abandoned.
+     */
+    private static final int MAX_TURNS = 2000;
+
+    /**
+     * Checks that the journal of a game, written through a buffer smaller than the game, replays the same events in
+     * full and from any position.
+     *
+     * @param directory The directory of the journal.
+     */
+    @Test
+    void replayMatchesWrittenEvents(@TempDir Path directory) {
+        Path path = directory.resolve("game.journal");
+        List<String> written = new ArrayList<>();
+        GameKernel game = new GameKernel(TRACK, PLAYERS);
+        try (EventJournalWriter writer = new EventJournalWriter(path, TRACK.length(), PLAYERS.size(), 3)) {
+            game.setListener((type, seat, tile, amount) -> {
+                written.add(this.describe(type, seat, tile, amount));
+                writer.onEvent(type, seat, tile, amount);
+            });
+            game.reset(1);
+            game.play(new RandomRollSource(10), MAX_TURNS);
+            assertEquals(written.size(), writer.getEventCount());
+        }
+        assertTrue(written.size() > 10, "events written");
+
+        try (EventJournalReader reader = new EventJournalReader(path.toString())) {
+            assertEquals(TRACK.length(), reader.getLength());
+            assertEquals(PLAYERS.size(), reader.getSeats());
+            assertEquals(written.size(), reader.getEventCount());
+
+            List<String> replayed = new ArrayList<>();
+            assertEquals(written.size(), reader.replay((type, seat, tile, amount) -> replayed.add(this.describe(type, seat, tile, amount))));
+            assertEquals(written, replayed);
+            assertEquals(written.size(), reader.getPosition());
+
+            int from = written.size() / 2;
+            reader.seek(from);
+            replayed.clear();
+            assertEquals(5, reader.replay((type, seat, tile, amount) -> replayed.add(this.describe(type, seat, tile, amount)), 5));
+            assertEquals(written.subList(from, from + 5), replayed);
+            assertThrows(IllegalArgumentException.class, () -> reader.seek(written.size() + 1));
+        }
+    }
+
+    /**
+     * Checks that rebuilding a game from every prefix of its journal that ends with a turn gives the state the game had
+     * after that turn.
+     *
+     * @param directory The directory of the journal.
+     */
+    @Test
+    void rebuildRestoresEveryTurn(@TempDir Path directory) {
+        Path path = directory.resolve("game.journal");
+        GameKernel game = new GameKernel(TRACK, PLAYERS);
+        List<Long> events = new ArrayList<>();
+        List<Long> hashes = new ArrayList<>();
+        try (EventJournalWriter writer = new EventJournalWriter(path, TRACK.length(), PLAYERS.size())) {
+            game.setListener(writer);
+            game.reset(2);
+            RandomRollSource die = new RandomRollSource(3);
+            for (int turn = 0; turn < MAX_TURNS && !game.isOver(); turn++) {
+                game.step(die.nextRoll());
+                events.add(writer.getEventCount());
+                hashes.add(game.getStateHash());
+            }
+        }
+        assertTrue(game.isOver(), "game over");
+
+        GameKernel rebuilt = new GameKernel(TRACK, PLAYERS);
+        try (EventJournalReader reader = new EventJournalReader(path.toString())) {
+            for (int turn = 0; turn < events.size(); turn++) {
+                assertEquals(events.get(turn), reader.rebuild(rebuilt, events.get(turn)), "turn " + turn);
+                assertEquals(hashes.get(turn), rebuilt.getStateHash(), "turn " + turn);
+            }
+            assertTrue(rebuilt.isOver(), "rebuilt game over");
+            assertEquals(game.getWinner(), rebuilt.getWinner());
+            assertEquals(game.getTurns(), rebuilt.getTurns());
+            for (int seat = 0; seat < PLAYERS.size(); seat++) assertEquals(game.getCapital(seat), rebuilt.getCapital(seat), "seat " + seat);
+
+            GameKernel other = new GameKernel(new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE}, new int[]{0}), PLAYERS);
+            assertThrows(IllegalArgumentException.class, () -> reader.rebuild(other, 1));
+        }
+    }
+
+    /**
+     * Checks that a journal of another version, a file without the magic bytes and a missing file are rejected.
+     *
+     * @param directory The directory of the journals.
+     * @throws IOException If a journal cannot be patched.
+     */
+    @Test
+    void invalidJournalsAreRejected(@TempDir Path directory) throws IOException {
+        Path version = directory.resolve("version.journal");
+        new EventJournalWriter(version, TRACK.length(), PLAYERS.size()).close();
+        try (FileChannel channel = FileChannel.open(version, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Short.BYTES).putShort(0, (short) (EventJournalFormat.VERSION + 1)), Integer.BYTES);
+        }
+        InvalidInputException exception = assertThrows(InvalidInputException.class, () -> new EventJournalReader(version.toString()));
+        assertTrue(exception.getMessage().contains("version"), exception.getMessage());
+
+        Path magic = directory.resolve("magic.journal");
+        new EventJournalWriter(magic, TRACK.length(), PLAYERS.size()).close();
+        try (FileChannel channel = FileChannel.open(magic, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0x12345678), 0);
+        }
+        assertThrows(InvalidInputException.class, () -> new EventJournalReader(magic.toString()));
+
+        assertThrows(InvalidInputException.class, () -> new EventJournalReader(directory.resolve("missing.journal").toString()));
+    }
+
+    /**
+     * Describes an event, for comparisons and failure messages.
+     *
+     * @param type   The type of the event.
+     * @param seat   The seat of the player.
+     * @param tile   The index of the tile.
+     * @param amount The amount of money, or the roll of a move.
+     * @return The description.
+     */
+    private String describe(EventType type, int seat, int tile, int amount) {
+        return type + " " + seat + " " + tile + " " + amount;
+    }
+}
@@ -0,0 +1,119 @@
+package capitaly.io;
+
+import capitaly.dice.RollSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a {@link FileRollSource} streams the rolls {@link InputDataParser} reads, ends after the listed rolls and
+ * reports malformed rolls with the messages of the parser, once they are reached.
+ */
+class FileRollSourceTest {
+
+    /**
+     * The tiles and players of the input files written by the tests.
+     */
+    private static final String HEADER = "2\nrealestate\nservice 500\n2\nAiden careful\nBella greedy\n";
+
+    /**
+     * Checks that the rolls of the sample inputs are streamed as the parser reads them, and that the source keeps
+     * returning {@link RollSource#END} once exhausted.
+     */
+    @Test
+    void streamsTheRollsOfTheSampleInputs() {
+        for (String input : new String[]{"test/test_01.txt", "test/test_02.txt", "test/test_03.txt", "test/test_04.txt"}) {
+            int[] expected = new InputDataParser(input).getDiceRolls();
+            try (FileRollSource rolls = new FileRollSource(input)) {
+                assertEquals(expected != null, rolls.hasRolls(), input);
+                int[] streamed = new int[expected == null ? 0 : expected.length];
+                assertEquals(streamed.length, rolls.fill(streamed, 0, streamed.length), input);
+                if (expected != null) assertArrayEquals(expected, streamed, input);
+                assertEquals(RollSource.END, rolls.nextRoll(), input);
+                assertEquals(RollSource.END, rolls.nextRoll(), input);
+            }
+        }
+    }
+
+    /**
+     * Checks that an input without rolls, meant for a manual game, has no rolls to stream.
+     *
+     * @param directory The directory of the input file.
+     * @throws IOException If the input file cannot be written.
+     */
+    @Test
+    void inputWithoutRollsIsManual(@TempDir Path directory) throws IOException {
+        try (FileRollSource rolls = new FileRollSource(this.write(directory, HEADER))) {
+            assertFalse(rolls.hasRolls());
+            assertEquals(RollSource.END, rolls.nextRoll());
+        }
+    }
+
+    /**
+     * Checks that an input listing fewer rolls than it announces fails once the last roll has been read.
+     *
+     * @param directory The directory of the input file.
+     * @throws IOException If the input file cannot be written.
+     */
+    @Test
+    void truncatedRollsFailWhenReached(@TempDir Path directory) throws IOException {
+        try (FileRollSource rolls = new FileRollSource(this.write(directory, HEADER + "3\n4\n2\n"))) {
+            assertTrue(rolls.hasRolls());
+            assertEquals(4, rolls.nextRoll());
+            assertEquals(2, rolls.nextRoll());
+            InvalidInputException exception = assertThrows(InvalidInputException.class, rolls::nextRoll);
+            assertEquals(InputDataParser.missingLines(3, 3).getMessage(), exception.getMessage());
+        }
+    }
+
+    /**
+     * Checks that a malformed roll fails with the message of the parser once it is reached, not before.
+     *
+     * @param directory The directory of the input file.
+     * @throws IOException If the input file cannot be written.
+     */
+    @Test
+    void malformedRollsFailWhenReached(@TempDir Path directory) throws IOException {
+        try (FileRollSource rolls = new FileRollSource(this.write(directory, HEADER + "3\n5\n7\nsix\n"))) {
+            assertEquals(5, rolls.nextRoll());
+            InvalidInputException exception = assertThrows(InvalidInputException.class, rolls::nextRoll);
+            assertEquals(assertThrows(InvalidInputException.class, () -> InputDataParser.parseDiceRoll("7")).getMessage(), exception.getMessage());
+            assertThrows(InvalidInputException.class, rolls::nextRoll);
+        }
+    }
+
+    /**
+     * Checks that malformed lists before the rolls and missing files fail when the source is opened.
+     *
+     * @param directory The directory of the input files.
+     * @throws IOException If an input file cannot be written.
+     */
+    @Test
+    void malformedListsFailWhenOpened(@TempDir Path directory) throws IOException {
+        assertThrows(InvalidInputException.class, () -> new FileRollSource(this.write(directory, "2\nrealestate\n")));
+        assertThrows(InvalidInputException.class, () -> new FileRollSource(this.write(directory, HEADER + "none\n")));
+        assertThrows(InvalidInputException.class, () -> new FileRollSource(this.write(directory, HEADER + "0\n")));
+        assertThrows(InvalidInputException.class, () -> new FileRollSource(directory.resolve("missing.txt").toString()));
+    }
+
+    /**
+     * Writes an input file.
+     *
+     * @param directory The directory of the file.
+     * @param content   The content of the file.
+     * @return The path of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    private String write(Path directory, String content) throws IOException {
+        return Files.writeString(directory.resolve("input.txt"), content).toString();
+    }
+}
@@ -0,0 +1,91 @@
+package capitaly.io;
+
+import capitaly.dice.RollSource;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a {@link MappedInputParser} reads the same track, players and rolls as {@link InputDataParser}, and
+ * rejects invalid inputs with the same messages.
+ */
+class MappedInputParserTest {
+
+    /**
+     * The sample inputs, valid and invalid.
+     */
+    private static final String[] INPUTS = {
+        "test/test_01.txt", "test/test_02.txt", "test/test_03.txt", "test/test_04.txt", "test/test_05.txt", "test/test_06.txt"
+    };
+
+    /**
+     * Checks that both parsers read the sample inputs alike, or reject them with the same message.
+     */
+    @Test
+    void matchesInputDataParser() {
+        for (String input : INPUTS) {
+            InputDataParser expected;
+            try {
+                expected = new InputDataParser(input);
+            } catch (InvalidInputException exception) {
+                InvalidInputException mapped = assertThrows(InvalidInputException.class, () -> new MappedInputParser(input).close(), input);
+                assertEquals(exception.getMessage(), mapped.getMessage(), input);
+                continue;
+            }
+
+            try (MappedInputParser parser = new MappedInputParser(input)) {
+                assertEquals(TrackSpec.of(expected.getTrack()), TrackSpec.of(parser.getTrack()), input);
+                assertEquals(PlayerSpec.of(expected.getPlayers()), PlayerSpec.of(parser.getPlayers()), input);
+                assertEquals(expected.getDiceRolls() != null, parser.hasRolls(), input);
+                int[] rolls = expected.getDiceRolls() == null ? new int[0] : expected.getDiceRolls();
+                assertEquals(rolls.length, parser.getRollCount(), input);
+                assertArrayEquals(rolls, this.drain(parser.getRollSource()), input);
+                assertArrayEquals(rolls, this.drain(parser.getRollSource()), input + ", streamed again");
+            }
+        }
+    }
+
+    /**
+     * Checks that a malformed roll, which the mapped parser only reads once it is streamed, fails with the message of
+     * the Scanner path.
+     *
+     * @param directory The directory of the input file.
+     * @throws IOException If the input file cannot be written.
+     */
+    @Test
+    void malformedRollsFailAlike(@TempDir Path directory) throws IOException {
+        String input = Files.writeString(directory.resolve("input.txt"), "1\nrealestate\n2\nA greedy\nB careful\n2\n3\n9\n").toString();
+        InvalidInputException expected = assertThrows(InvalidInputException.class, () -> new InputDataParser(input));
+        try (MappedInputParser parser = new MappedInputParser(input)) {
+            RollSource rolls = parser.getRollSource();
+            assertEquals(3, rolls.nextRoll());
+            assertEquals(expected.getMessage(), assertThrows(InvalidInputException.class, rolls::nextRoll).getMessage());
+        }
+    }
+
+    /**
+     * Reads every roll of a source.
+     *
+     * @param source The source of the rolls.
+     * @return The rolls.
+     */
+    private int[] drain(RollSource source) {
+        int[] rolls = new int[16];
+        int count = 0;
+        for (int roll = source.nextRoll(); roll != RollSource.END; roll = source.nextRoll()) {
+            if (count == rolls.length) rolls = Arrays.copyOf(rolls, count * 2);
+            rolls[count++] = roll;
+        }
+        return Arrays.copyOf(rolls, count);
+    }
+}
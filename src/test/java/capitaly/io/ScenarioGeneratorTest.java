@@ -0,0 +1,211 @@
+package capitaly.io;
+
+import capitaly.dice.RollSource;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a {@link ScenarioGenerator} is a function of its seed and settings, follows the chosen mixes and
+ * distributions, writes files its parsers read back the same, and rejects invalid settings and arguments.
+ */
+class ScenarioGeneratorTest {
+
+    /**
+     * Checks that generators of the same seed generate the same scenario, and generators of another seed another one.
+     */
+    @Test
+    void sameSeedSameScenario() {
+        ScenarioGenerator first = new ScenarioGenerator(42).setRolls(500);
+        ScenarioGenerator second = new ScenarioGenerator(42).setRolls(500);
+        assertEquals(first.getTrack(), second.getTrack());
+        assertEquals(first.getPlayers(), second.getPlayers());
+        assertArrayEquals(this.drain(first.getRollSource()), this.drain(second.getRollSource()));
+        assertArrayEquals(this.drain(first.getRollSource()), this.drain(first.getRollSource()), "rolls streamed again");
+
+        ScenarioGenerator other = new ScenarioGenerator(43).setRolls(500);
+        assertNotEquals(first.getTrack(), other.getTrack());
+        assertFalse(Arrays.equals(this.drain(first.getRollSource()), this.drain(other.getRollSource())));
+    }
+
+    /**
+     * Checks that a tile does not depend on the length of the track, and that the kinds follow their weights.
+     */
+    @Test
+    void tilesFollowTheMix() {
+        ScenarioGenerator generator = new ScenarioGenerator(7).setTiles(20_000, 2, 1, 1);
+        TrackSpec track = generator.getTrack();
+        TrackSpec prefix = new ScenarioGenerator(7).setTiles(100, 2, 1, 1).getTrack();
+        Map<TileKind, Integer> counts = new EnumMap<>(TileKind.class);
+        for (int i = 0; i < track.length(); i++) {
+            if (i < prefix.length()) {
+                assertEquals(prefix.kind(i), track.kind(i), "tile " + i);
+                assertEquals(prefix.amount(i), track.amount(i), "tile " + i);
+            }
+            counts.merge(track.kind(i), 1, Integer::sum);
+        }
+        assertEquals(0.5, counts.get(TileKind.REAL_ESTATE) / 20_000.0, 0.02);
+        assertEquals(0.25, counts.get(TileKind.SERVICE) / 20_000.0, 0.02);
+        assertEquals(0.25, counts.get(TileKind.LUCK) / 20_000.0, 0.02);
+
+        TrackSpec services = new ScenarioGenerator(7).setTiles(1000, 0, 1, 0).getTrack();
+        for (int i = 0; i < services.length(); i++) assertEquals(TileKind.SERVICE, services.kind(i), "tile " + i);
+    }
+
+    /**
+     * Checks that the amounts stay within their range, spread over it when uniform, and are mostly small when
+     * log-uniform.
+     */
+    @Test
+    void amountsFollowTheirDistribution() {
+        ScenarioGenerator generator = new ScenarioGenerator(3).setTiles(20_000, 0, 1, 1)
+            .setAmounts(TileKind.SERVICE, 100, 200, ScenarioGenerator.Distribution.UNIFORM)
+            .setAmounts(TileKind.LUCK, 1, 1_000_000, ScenarioGenerator.Distribution.LOG_UNIFORM);
+        int services = 0;
+        int lucks = 0;
+        long serviceSum = 0;
+        int smallRewards = 0;
+        boolean[] seen = new boolean[101];
+        for (int i = 0; i < generator.getTileCount(); i++) {
+            int amount = generator.amount(i);
+            if (generator.kind(i) == TileKind.SERVICE) {
+                assertTrue(amount >= 100 && amount <= 200, "fee " + amount);
+                seen[amount - 100] = true;
+                serviceSum += amount;
+                services++;
+            } else {
+                assertTrue(amount >= 1 && amount <= 1_000_000, "reward " + amount);
+                if (amount <= 1000) smallRewards++;
+                lucks++;
+            }
+        }
+        for (int i = 0; i < seen.length; i++) assertTrue(seen[i], "fee " + (100 + i));
+        assertEquals(150, (double) serviceSum / services, 2);
+        assertEquals(0.5, (double) smallRewards / lucks, 0.03);
+    }
+
+    /**
+     * Checks that the strategies are shared out in proportion to their weights, exactly up to rounding.
+     */
+    @Test
+    void playersFollowTheWeights() {
+        List<PlayerSpec> players = new ScenarioGenerator(5).setPlayers(10, 3, 1, 1, 0).getPlayers();
+        Map<Strategy, Integer> counts = new EnumMap<>(Strategy.class);
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals("Player" + (i + 1), players.get(i).name());
+            counts.merge(players.get(i).strategy(), 1, Integer::sum);
+        }
+        assertEquals(6, counts.get(Strategy.GREEDY));
+        assertEquals(2, counts.get(Strategy.CAREFUL));
+        assertEquals(2, counts.get(Strategy.STRATEGIC));
+        assertFalse(counts.containsKey(Strategy.LOOKAHEAD));
+
+        assertEquals(1, new ScenarioGenerator(5).setPlayers(1, 1, 1, 1, 1).getPlayers().size());
+    }
+
+    /**
+     * Checks that the text and binary files of a scenario read back as the scenario itself.
+     *
+     * @param directory The directory of the files.
+     */
+    @Test
+    void writtenFilesReadBack(@TempDir Path directory) {
+        ScenarioGenerator generator = new ScenarioGenerator(11).setTiles(30, 1, 1, 1).setPlayers(5, 1, 1, 1, 0).setRolls(300);
+        int[] rolls = this.drain(generator.getRollSource());
+        assertEquals(300, rolls.length);
+
+        Path text = directory.resolve("scenario.txt");
+        generator.writeText(text);
+        InputDataParser parser = new InputDataParser(text.toString());
+        assertEquals(generator.getTrack(), TrackSpec.of(parser.getTrack()));
+        assertEquals(generator.getPlayers(), PlayerSpec.of(parser.getPlayers()));
+        assertArrayEquals(rolls, parser.getDiceRolls());
+
+        Path binary = directory.resolve("scenario.bin");
+        generator.writeBinary(binary);
+        try (BinaryScenarioReader reader = new BinaryScenarioReader(binary.toString())) {
+            assertEquals(generator.getTrack(), reader.getTrackSpec());
+            assertEquals(generator.getPlayers(), reader.getPlayerSpecs());
+            assertArrayEquals(rolls, this.drain(reader.getRollSource()));
+        }
+
+        Path manual = directory.resolve("manual.txt");
+        generator.setRolls(0).writeText(manual);
+        assertEquals(null, new InputDataParser(manual.toString()).getDiceRolls());
+    }
+
+    /**
+     * Checks that the setters reject invalid settings.
+     */
+    @Test
+    void invalidSettingsAreRejected() {
+        ScenarioGenerator generator = new ScenarioGenerator(0);
+        assertThrows(IllegalArgumentException.class, () -> generator.setTiles(0, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setTiles(10, 0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> generator.setTiles(10, -1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setTiles(10, Double.NaN, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setAmounts(TileKind.REAL_ESTATE, 0, 1, ScenarioGenerator.Distribution.UNIFORM));
+        assertThrows(IllegalArgumentException.class, () -> generator.setAmounts(TileKind.LUCK, 2, 1, ScenarioGenerator.Distribution.UNIFORM));
+        assertThrows(IllegalArgumentException.class, () -> generator.setPlayers(0, 1, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setPlayers(2, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> generator.setRolls(-1));
+    }
+
+    /**
+     * Checks that the program fails with the usage error on missing, unknown or malformed arguments, without writing
+     * the scenario, and succeeds otherwise.
+     *
+     * @param directory The directory of the files.
+     */
+    @Test
+    void invalidArgumentsFail(@TempDir Path directory) {
+        String output = directory.resolve("scenario.txt").toString();
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run());
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--color", "red"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--tiles"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--tiles", "many"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--mix", "1:1"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--service", "500"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--rolls", "-5"));
+        assertEquals(ScenarioGenerator.USAGE_ERROR, ScenarioGenerator.run(output, "--rolls", "3000000000"));
+        assertFalse(Files.exists(Path.of(output)));
+
+        assertEquals(0, ScenarioGenerator.run(output, "--seed", "9", "--tiles", "12", "--players", "3", "--rolls", "50"));
+        InputDataParser parser = new InputDataParser(output);
+        assertEquals(new ScenarioGenerator(9).setTiles(12, 2, 1, 1).getTrack(), TrackSpec.of(parser.getTrack()));
+        assertEquals(50, parser.getDiceRolls().length);
+    }
+
+    /**
+     * Reads every roll of a source.
+     *
+     * @param source The source of the rolls.
+     * @return The rolls.
+     */
+    private int[] drain(RollSource source) {
+        int[] rolls = new int[0];
+        int count = 0;
+        for (int roll = source.nextRoll(); roll != RollSource.END; roll = source.nextRoll()) {
+            if (count == rolls.length) rolls = Arrays.copyOf(rolls, Math.max(16, 2 * count));
+            rolls[count++] = roll;
+        }
+        return Arrays.copyOf(rolls, count);
+    }
+}
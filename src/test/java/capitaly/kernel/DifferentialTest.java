@@ -0,0 +1,117 @@
+package capitaly.kernel;
+
+import capitaly.Capitaly;
+import capitaly.GameContext;
+import capitaly.RuleSet;
+import capitaly.Track;
+import capitaly.player.Player;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.RealEstateTile;
+import capitaly.tile.Tile;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Plays the same random games on the object model and on the {@link GameKernel}, roll by roll, and checks that the
+ * two engines agree on the whole state of the game, and on its hash, after every roll.
+ */
+class DifferentialTest {
+
+    /**
+     * The number of games played by every test.
+     */
+    private static final int GAMES = 400;
+
+    /**
+     * The number of rolls after which a game is abandoned.
+     */
+    private static final int MAX_ROLLS = 200;
+
+    /**
+     * Checks that the engines agree under random rules, every game seating a lookahead player, whose searches must
+     * play by the rules of their game.
+     */
+    @Test
+    void enginesAgreeUnderRandomRules() {
+        Random random = new Random(20);
+        for (int game = 0; game < GAMES; game++) {
+            RuleSet rules = new RuleSet(
+                500 + random.nextInt(10_000), random.nextInt(3000), random.nextInt(8000), random.nextInt(3000), random.nextInt(8000)
+            );
+            this.play(game, random, rules, true);
+        }
+    }
+
+    /**
+     * Checks that the engines agree under the standard rules, with any players.
+     */
+    @Test
+    void enginesAgreeUnderStandardRules() {
+        Random random = new Random(1);
+        for (int game = 0; game < GAMES; game++) this.play(game, random, RuleSet.STANDARD, false);
+    }
+
+    /**
+     * Plays a random game on both engines and compares them after every roll.
+     *
+     * @param game      The number of the game, to tell the failures apart.
+     * @param random    The source of the track, the players and the rolls.
+     * @param rules     The rules of the game.
+     * @param lookahead Whether the first seat is a lookahead player.
+     */
+    private void play(int game, Random random, RuleSet rules, boolean lookahead) {
+        int length = 1 + random.nextInt(12);
+        TileKind[] kinds = new TileKind[length];
+        int[] amounts = new int[length];
+        for (int tile = 0; tile < length; tile++) {
+            kinds[tile] = TileKind.values()[random.nextInt(TileKind.values().length)];
+            amounts[tile] = kinds[tile] == TileKind.REAL_ESTATE ? 0 : random.nextInt(5000);
+        }
+        TrackSpec spec = new TrackSpec(kinds, amounts);
+
+        List<PlayerSpec> seats = new ArrayList<>();
+        int count = 1 + random.nextInt(4);
+        for (int seat = 0; seat < count; seat++) {
+            Strategy strategy = lookahead && seat == 0 ? Strategy.LOOKAHEAD : Strategy.values()[random.nextInt(Strategy.values().length)];
+            seats.add(new PlayerSpec("P" + seat, strategy));
+        }
+
+        GameContext context = new GameContext(rules);
+        List<Player> players = new ArrayList<>();
+        for (PlayerSpec seat : seats) players.add(seat.create(context));
+        Track track = spec.build(context);
+        Capitaly capitaly = new Capitaly(track, players);
+        GameKernel kernel = new GameKernel(spec, seats, rules);
+        List<Tile> tiles = track.getTiles();
+
+        for (int roll = 0; roll < MAX_ROLLS && !capitaly.isOver(); roll++) {
+            int steps = 1 + random.nextInt(6);
+            String where = "game " + game + ", roll " + roll + ", " + rules + ", " + seats + ": ";
+            assertEquals(capitaly.step(steps), kernel.step(steps), where + "game over");
+
+            for (int seat = 0; seat < count; seat++) {
+                assertEquals(players.get(seat).getCapital(), kernel.getCapital(seat), where + "capital of seat " + seat);
+                assertEquals(players.get(seat).isBankrupt(), kernel.isBankrupt(seat), where + "bankruptcy of seat " + seat);
+            }
+            for (int tile = 0; tile < length; tile++) {
+                if (!(tiles.get(tile) instanceof RealEstateTile property)) continue;
+                assertEquals(players.indexOf(property.getOwner()), kernel.getOwner(tile), where + "owner of tile " + tile);
+                assertEquals(property.hasHouse(), kernel.hasHouse(tile), where + "house on tile " + tile);
+            }
+            List<Player> alive = capitaly.getPlayers();
+            assertEquals(alive.size(), kernel.getAlive(), where + "players alive");
+            for (int index = 0; index < alive.size(); index++)
+                assertEquals(players.indexOf(alive.get(index)), kernel.getSeatInOrder(index), where + "turn order");
+            assertEquals(capitaly.getStateHash(), kernel.getStateHash(), where + "state hash");
+        }
+        if (capitaly.isOver()) assertEquals(players.indexOf(capitaly.getWinner()), kernel.getWinner(), "game " + game + ": winner");
+    }
+}
@@ -0,0 +1,94 @@
+package capitaly.kernel;
+
+import capitaly.dice.RandomRollSource;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that a {@link GameSnapshot} keeps the state it was taken with, whatever happens to the arrays it was built
+ * from or to the game it was taken of.
+ */
+class GameSnapshotTest {
+
+    /**
+     * Checks that changing the arrays given to the constructor does not change the snapshot.
+     */
+    @Test
+    void constructorCopiesArrays() {
+        int[] tileOwner = {GameKernel.NONE, 1};
+        boolean[] tileHouse = {false, true};
+        int[] nextOwned = {GameKernel.NONE, GameKernel.NONE};
+        int[] position = {0, 1};
+        int[] capital = {500, 700};
+        boolean[] bankrupt = {false, false};
+        boolean[] skip = {false, false};
+        int[] ownedHead = {GameKernel.NONE, 1};
+        int[] order = {0, 1};
+        GameSnapshot snapshot = new GameSnapshot(tileOwner, tileHouse, nextOwned, position, capital, bankrupt, skip, ownedHead, order, 1, 3);
+
+        Arrays.fill(tileOwner, 0);
+        Arrays.fill(tileHouse, false);
+        Arrays.fill(nextOwned, 0);
+        Arrays.fill(position, 2);
+        Arrays.fill(capital, -1);
+        Arrays.fill(bankrupt, true);
+        Arrays.fill(skip, true);
+        Arrays.fill(ownedHead, 0);
+        Arrays.fill(order, 1);
+
+        assertEquals(1, snapshot.getOwner(1));
+        assertEquals(GameKernel.NONE, snapshot.getOwner(0));
+        assertTrue(snapshot.hasHouse(1));
+        assertEquals(GameKernel.NONE, snapshot.getNextOwned(1));
+        assertEquals(1, snapshot.getPosition(1));
+        assertEquals(700, snapshot.getCapital(1));
+        assertFalse(snapshot.isBankrupt(0));
+        assertFalse(snapshot.isSkipping(0));
+        assertEquals(1, snapshot.getOwnedHead(1));
+        assertEquals(0, snapshot.getSeatInOrder(0));
+    }
+
+    /**
+     * Checks that a snapshot of a kernel is not changed by the turns played after it, and restores the game as it was.
+     */
+    @Test
+    void kernelSnapshotOutlivesTheGame() {
+        TrackSpec track = new TrackSpec(
+            new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.REAL_ESTATE, TileKind.LUCK}, new int[]{0, 400, 0, 300}
+        );
+        GameKernel game = new GameKernel(track, List.of(new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("S", Strategy.STRATEGIC)));
+        game.reset(0);
+        RandomRollSource die = new RandomRollSource(2);
+        for (int turn = 0; turn < 6; turn++) game.step(die.nextRoll());
+        long hash = game.getStateHash();
+        GameSnapshot snapshot = game.snapshot();
+        int capital = snapshot.getCapital(0);
+
+        game.play(die, 1000);
+        assertEquals(capital, snapshot.getCapital(0));
+        game.restore(snapshot);
+        assertEquals(hash, game.getStateHash());
+    }
+
+    /**
+     * Checks that arrays of mismatched lengths are rejected.
+     */
+    @Test
+    void mismatchedArraysAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new GameSnapshot(new int[2], new boolean[1], new int[2],
+            new int[2], new int[2], new boolean[2], new boolean[2], new int[2], new int[2], 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new GameSnapshot(new int[2], new boolean[2], new int[2],
+            new int[2], new int[1], new boolean[2], new boolean[2], new int[2], new int[2], 0, 0));
+    }
+}
@@ -0,0 +1,100 @@
+package capitaly.kernel;
+
+import capitaly.RuleSet;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Plays the same random games in the lanes of a {@link LockstepKernel} and one by one on {@link GameKernel}s, roll by
+ * roll, and checks that every lane agrees with its game after every step.
+ */
+class LockstepKernelTest {
+
+    /**
+     * The number of scenarios played by the test.
+     */
+    private static final int SCENARIOS = 200;
+
+    /**
+     * The number of turns after which a game is stopped.
+     */
+    private static final int MAX_TURNS = 300;
+
+    /**
+     * Checks that lanes with their own rolls and first seats, stopping at different turns, play as the game kernel.
+     */
+    @Test
+    void lanesMatchGameKernel() {
+        Random random = new Random(18);
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            int length = 1 + random.nextInt(12);
+            TileKind[] kinds = new TileKind[length];
+            int[] amounts = new int[length];
+            for (int tile = 0; tile < length; tile++) {
+                kinds[tile] = TileKind.values()[random.nextInt(TileKind.values().length)];
+                amounts[tile] = kinds[tile] == TileKind.REAL_ESTATE ? 0 : random.nextInt(5000);
+            }
+            TrackSpec track = new TrackSpec(kinds, amounts);
+            List<PlayerSpec> seats = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int seat = 0; seat < count; seat++)
+                seats.add(new PlayerSpec("P" + seat, Strategy.values()[random.nextInt(Strategy.LOOKAHEAD.ordinal())]));
+            RuleSet rules = new RuleSet(
+                500 + random.nextInt(10_000), random.nextInt(3000), random.nextInt(8000), random.nextInt(3000), random.nextInt(8000)
+            );
+
+            int lanes = 1 + random.nextInt(LockstepKernel.MAX_LANES);
+            LockstepKernel lockstep = new LockstepKernel(track, seats, rules, lanes);
+            GameKernel[] games = new GameKernel[lanes];
+            for (int lane = 0; lane < lanes; lane++) {
+                int firstSeat = random.nextInt(count);
+                games[lane] = new GameKernel(track, seats, rules);
+                games[lane].reset(firstSeat);
+                lockstep.reset(lane, firstSeat);
+            }
+
+            int[] rolls = new int[lanes];
+            for (int step = 0; lockstep.getRunning() != 0; step++) {
+                long running = lockstep.getRunning();
+                for (int lane = 0; lane < lanes; lane++) rolls[lane] = 1 + random.nextInt(6);
+                lockstep.step(rolls, MAX_TURNS);
+                for (int lane = 0; lane < lanes; lane++) {
+                    if ((running & 1L << lane) == 0) continue;
+                    String where = "scenario " + scenario + ", step " + step + ", lane " + lane + ": ";
+                    boolean over = games[lane].step(rolls[lane]);
+                    assertEquals(over || games[lane].getTurns() >= MAX_TURNS, (lockstep.getRunning() & 1L << lane) == 0, where + "stopped");
+                    this.compare(where, games[lane], lockstep, lane, count);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that a lane is in the same state as a game.
+     *
+     * @param where    The description of the step, to tell the failures apart.
+     * @param game     The game.
+     * @param lockstep The lockstep kernel.
+     * @param lane     The lane.
+     * @param count    The number of players.
+     */
+    private void compare(String where, GameKernel game, LockstepKernel lockstep, int lane, int count) {
+        for (int seat = 0; seat < count; seat++) {
+            assertEquals(game.getPosition(seat), lockstep.getPosition(lane, seat), where + "position of seat " + seat);
+            assertEquals(game.getCapital(seat), lockstep.getCapital(lane, seat), where + "capital of seat " + seat);
+            assertEquals(game.isBankrupt(seat), lockstep.isBankrupt(lane, seat), where + "bankruptcy of seat " + seat);
+        }
+        assertEquals(game.getTurns(), lockstep.getTurns(lane), where + "turns");
+        assertEquals(game.isOver(), lockstep.isOver(lane), where + "game over");
+        assertEquals(game.getWinner(), lockstep.getWinner(lane), where + "winner");
+    }
+}
@@ -0,0 +1,181 @@
+package capitaly.kernel;
+
+import capitaly.RuleSet;
+import capitaly.dice.ArrayRollSource;
+import capitaly.dice.RandomRollSource;
+import capitaly.event.EventType;
+import capitaly.player.Strategy;
+import capitaly.simulation.PlayerSpec;
+import capitaly.simulation.TrackSpec;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Plays the same games with and without an {@link OutcomeCache} and checks that the cache changes neither their events
+ * nor their outcomes, whatever the chunks and whoever takes the first turn.
+ */
+class OutcomeCacheTest {
+
+    /**
+     * The number of scenarios played by the equivalence test.
+     */
+    private static final int SCENARIOS = 40;
+
+    /**
+     * The number of games played by every scenario.
+     */
+    private static final int GAMES = 150;
+
+    /**
+     * The number of turns after which a game is abandoned.
+     */
+    private static final int MAX_TURNS = 300;
+
+    /**
+     * Checks that games sharing a small cache across the rotations of the seats, with chunks of one to four rolls,
+     * report the same events and end the same as games played without it.
+     */
+    @Test
+    void cachedGamesMatchPlayedGames() {
+        Random random = new Random(25);
+        for (int scenario = 0; scenario < SCENARIOS; scenario++) {
+            int length = 2 + random.nextInt(10);
+            TileKind[] kinds = new TileKind[length];
+            int[] amounts = new int[length];
+            for (int tile = 0; tile < length; tile++) {
+                kinds[tile] = TileKind.values()[random.nextInt(TileKind.values().length)];
+                amounts[tile] = kinds[tile] == TileKind.REAL_ESTATE ? 0 : random.nextInt(3000);
+            }
+            List<PlayerSpec> seats = new ArrayList<>();
+            int count = 2 + random.nextInt(3);
+            for (int seat = 0; seat < count; seat++)
+                seats.add(new PlayerSpec("P" + seat, Strategy.values()[random.nextInt(Strategy.values().length)]));
+            RuleSet rules = RuleSet.STANDARD.with(RuleSet.Rule.STARTING_CAPITAL, 1000 + random.nextInt(5000));
+
+            GameKernel played = new GameKernel(new TrackSpec(kinds, amounts), seats, rules);
+            GameKernel cached = new GameKernel(new TrackSpec(kinds, amounts), seats, rules);
+            OutcomeCache cache = new OutcomeCache(64, 1 + scenario % 4);
+            for (int game = 0; game < GAMES; game++) {
+                String where = "scenario " + scenario + ", game " + game + ", " + cache + ": ";
+                long expected = this.play(played, game, count, null);
+                assertEquals(expected, this.play(cached, game, count, cache), where + "events");
+                assertEquals(played.getWinner(), cached.getWinner(), where + "winner");
+                assertEquals(played.getTurns(), cached.getTurns(), where + "turns");
+            }
+        }
+    }
+
+    /**
+     * Checks that an entry stored under the hash of a state is not found from another state of the same hash.
+     */
+    @Test
+    void collidingStatesMiss() {
+        GameKernel game = new GameKernel(
+            new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE}, new int[]{0, 100}),
+            List.of(new PlayerSpec("A", Strategy.GREEDY), new PlayerSpec("B", Strategy.CAREFUL))
+        );
+        game.reset(1);
+        int[] other = game.encodeState();
+        game.reset(0);
+        int[] events = {EventType.MOVE.getCode(), 0, 0, 1};
+
+        OutcomeCache cache = new OutcomeCache();
+        cache.put(game.getStateHash(), 1, other, events);
+        assertNull(cache.get(game.getStateHash(), 1, game));
+        cache.put(game.getStateHash(), 1, game.encodeState(), events);
+        assertArrayEquals(events, cache.get(game.getStateHash(), 1, game));
+    }
+
+    /**
+     * Checks that two games with the same positions, capitals and next player hash apart when their turn orders are
+     * rotations of each other, which decide who is skipped after an elimination.
+     */
+    @Test
+    void rotatedOrdersHashApart() {
+        TrackSpec track = new TrackSpec(new TileKind[]{TileKind.SERVICE, TileKind.SERVICE, TileKind.SERVICE}, new int[]{0, 0, 0});
+        List<PlayerSpec> seats = List.of(new PlayerSpec("A", Strategy.GREEDY), new PlayerSpec("B", Strategy.GREEDY), new PlayerSpec("C", Strategy.GREEDY));
+        GameKernel first = new GameKernel(track, seats);
+        GameKernel second = new GameKernel(track, seats);
+        first.reset(0);
+        for (int roll : new int[]{1, 2, 3, 1}) first.step(roll);
+        second.reset(1);
+        for (int roll : new int[]{2, 3, 2}) second.step(roll);
+
+        for (int seat = 0; seat < seats.size(); seat++) assertEquals(first.getPosition(seat), second.getPosition(seat));
+        assertEquals(1, first.getSeatInOrder(first.current));
+        assertEquals(1, second.getSeatInOrder(second.current % second.getAlive()));
+        assertNotEquals(first.getStateHash(), second.getStateHash());
+        assertFalse(second.hasState(first.encodeState()));
+    }
+
+    /**
+     * Checks that a chunk with a roll the keys cannot hold is played, not mistaken for the chunk whose packed rolls it
+     * overlaps.
+     */
+    @Test
+    void largeRollsBypassTheCache() {
+        TileKind[] kinds = new TileKind[12];
+        Arrays.fill(kinds, TileKind.SERVICE);
+        TrackSpec track = new TrackSpec(kinds, new int[kinds.length]);
+        List<PlayerSpec> seats = List.of(new PlayerSpec("a", Strategy.GREEDY), new PlayerSpec("b", Strategy.GREEDY));
+        GameKernel played = new GameKernel(track, seats);
+        GameKernel cached = new GameKernel(track, seats);
+        OutcomeCache cache = new OutcomeCache(64, 2);
+
+        cached.reset(0);
+        cached.play(new ArrayRollSource(new int[]{1, 1}), MAX_TURNS, cache);
+        cached.reset(0);
+        cached.play(new ArrayRollSource(new int[]{1, 9}), MAX_TURNS, cache);
+        played.reset(0);
+        played.play(new ArrayRollSource(new int[]{1, 9}), MAX_TURNS);
+
+        assertEquals(played.getPosition(1), cached.getPosition(1));
+        assertEquals(played.getTurns(), cached.getTurns());
+        assertEquals(0, cache.getHits());
+    }
+
+    /**
+     * Checks that a game whose lookahead search stops at a time budget does not use the cache, its decisions depending
+     * on the clock.
+     */
+    @Test
+    void timedLookaheadBypassesTheCache() {
+        TrackSpec track = new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.REAL_ESTATE}, new int[]{0, 200, 0});
+        GameKernel game = new GameKernel(track, List.of(new PlayerSpec("L", Strategy.LOOKAHEAD), new PlayerSpec("G", Strategy.GREEDY)));
+        game.setLookahead(new LookaheadSearch(LookaheadSearch.DEFAULT_ROUNDS, LookaheadSearch.DEFAULT_NODE_BUDGET, 1_000_000, LookaheadSearch.DEFAULT_TABLE_BITS));
+        OutcomeCache cache = new OutcomeCache();
+        game.reset(0);
+        game.play(new RandomRollSource(1), MAX_TURNS, cache);
+        assertEquals(0, cache.getHits() + cache.getMisses());
+    }
+
+    /**
+     * Plays a game from the given seed, the first turn rotating with it, and returns a checksum of its events.
+     *
+     * @param game  The kernel to play on.
+     * @param seed  The seed of the die.
+     * @param count The number of players.
+     * @param cache The cache, null to play the game in full.
+     * @return The checksum of the events.
+     */
+    private long play(GameKernel game, int seed, int count, OutcomeCache cache) {
+        long[] checksum = {0};
+        game.setListener((type, seat, tile, amount) -> checksum[0] = 31 * (31 * (31 * (31 * checksum[0] + type.getCode()) + seat) + tile) + amount);
+        game.reset(seed % count);
+        RandomRollSource die = new RandomRollSource(seed);
+        if (cache != null) game.play(die, MAX_TURNS, cache);
+        else game.play(die, MAX_TURNS);
+        return checksum[0];
+    }
+}
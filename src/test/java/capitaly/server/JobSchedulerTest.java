@@ -0,0 +1,144 @@
+package capitaly.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that cancelling a job stops its running chunks, and that the job keeps its place among the admitted jobs until
+ * they have returned.
+ */
+class JobSchedulerTest {
+
+    /**
+     * The seconds a test waits for a chunk before giving up.
+     */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * Checks that a running chunk returns once its job is cancelled, without a result, and frees its worker for the
+     * next job.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting.
+     */
+    @Test
+    void cancelStopsRunningChunk() throws InterruptedException {
+        try (JobScheduler scheduler = new JobScheduler(1, 2, 4)) {
+            BlockingJob blocking = new BlockingJob(false);
+            scheduler.submit(blocking);
+            assertTrue(blocking.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+            BlockingJob next = new BlockingJob(true);
+            next.release.countDown();
+            scheduler.submit(next);
+            assertTrue(blocking.cancel());
+            assertEquals(JobState.SUCCEEDED, next.awaitFinish(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(JobState.CANCELLED, blocking.getState());
+            assertEquals(0, blocking.getCompletedChunks());
+            assertNull(blocking.awaitResult(0, 0, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Checks that a cancelled job whose chunk keeps running still counts against the capacity, and stops counting once
+     * the chunk has returned.
+     *
+     * @throws InterruptedException If the test is interrupted while waiting.
+     */
+    @Test
+    void cancelledJobHoldsCapacityUntilChunkReturns() throws InterruptedException {
+        try (JobScheduler scheduler = new JobScheduler(2, 1, 4)) {
+            BlockingJob blocking = new BlockingJob(true);
+            scheduler.submit(blocking);
+            assertTrue(blocking.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(blocking.cancel());
+            assertThrows(RejectedExecutionException.class, () -> scheduler.submit(new BlockingJob(false)));
+
+            blocking.release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+            while (blocking.isActive() && System.nanoTime() < deadline) Thread.sleep(1);
+            BlockingJob next = new BlockingJob(true);
+            next.release.countDown();
+            scheduler.submit(next);
+            assertEquals(JobState.SUCCEEDED, next.awaitFinish(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * A job of a single chunk, which runs until it is released or, unless it ignores it, until the job is stopped.
+     */
+    private static final class BlockingJob extends SimulationJob {
+
+        /**
+         * Counted down once the chunk has started.
+         */
+        private final CountDownLatch started;
+
+        /**
+         * Counted down to let the chunk complete.
+         */
+        private final CountDownLatch release;
+
+        /**
+         * Whether the chunk ignores the job being stopped, as a chunk between two checks does.
+         */
+        private final boolean stubborn;
+
+        /**
+         * Constructs a new BlockingJob.
+         *
+         * @param stubborn Whether the chunk ignores the job being stopped.
+         */
+        private BlockingJob(boolean stubborn) {
+            super(1, 1);
+            this.started = new CountDownLatch(1);
+            this.release = new CountDownLatch(1);
+            this.stubborn = stubborn;
+        }
+
+        /**
+         * Returns the kind of the job.
+         *
+         * @return {@code "blocking"}.
+         */
+        @Override
+        public String getKind() {
+            return "blocking";
+        }
+
+        /**
+         * Waits until the job is released or stopped.
+         *
+         * @param chunk The index of the chunk, always 0.
+         * @return An empty object, or null if the job stopped first.
+         */
+        @Override
+        protected String run(int chunk) {
+            started.countDown();
+            try {
+                while (!release.await(1, TimeUnit.MILLISECONDS)) if (!stubborn && this.isStopped()) return null;
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return "{}";
+        }
+
+        /**
+         * Summarizes the job.
+         *
+         * @return An empty object.
+         */
+        @Override
+        protected String summarize() {
+            return "{}";
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package capitaly.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the simulation service over HTTP: its routes and status codes, cancellation and admission.
+ */
+class SimulationServerTest {
+
+    /**
+     * The seconds a test waits for a job before giving up.
+     */
+    private static final long TIMEOUT_SECONDS = 10;
+
+    /**
+     * The scenario submitted by the tests, three players on a small track with a few rolls.
+     */
+    private static final Path SCENARIO = Path.of("test", "test_01.txt");
+
+    /**
+     * The scheduler of the server, a single worker admitting a single job.
+     */
+    private JobScheduler scheduler;
+
+    /**
+     * The server under test.
+     */
+    private SimulationServer server;
+
+    /**
+     * The client of the tests.
+     */
+    private HttpClient client;
+
+    /**
+     * Starts a server on a free port of the loopback address.
+     *
+     * @throws IOException If the server cannot be bound.
+     */
+    @BeforeEach
+    void start() throws IOException {
+        scheduler = new JobScheduler(1, 1, 16);
+        server = new SimulationServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), scheduler);
+        server.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    /**
+     * Stops the server and its scheduler.
+     */
+    @AfterEach
+    void stop() {
+        server.stop();
+    }
+
+    /**
+     * Checks that a submitted game is accepted, runs to completion and streams its result, and that the metrics
+     * endpoint answers.
+     *
+     * @throws Exception If a request fails.
+     */
+    @Test
+    void gameRunsToCompletion() throws Exception {
+        HttpResponse<String> submitted = this.send("POST", "/games?seed=3", Files.readString(SCENARIO));
+        assertEquals(202, submitted.statusCode());
+        String location = submitted.headers().firstValue("Location").orElseThrow();
+        SimulationJob job = scheduler.get(Long.parseLong(location.substring("/jobs/".length())));
+        assertEquals(JobState.SUCCEEDED, job.awaitFinish(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        HttpResponse<String> status = this.send("GET", location, null);
+        assertEquals(200, status.statusCode());
+        assertTrue(status.body().contains("\"state\":\"SUCCEEDED\""), status.body());
+        assertTrue(status.body().contains("\"winner\":"), status.body());
+
+        String[] lines = this.send("GET", location + "/results", null).body().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"chunk\":0,"), lines[0]);
+        assertEquals(status.body(), lines[1]);
+
+        assertEquals(200, this.send("GET", "/metrics", null).statusCode());
+    }
+
+    /**
+     * Checks the status codes of unknown routes and jobs, wrong methods and invalid parameters.
+     *
+     * @throws Exception If a request fails.
+     */
+    @Test
+    void invalidRequestsAreRejected() throws Exception {
+        String scenario = Files.readString(SCENARIO);
+        assertEquals(404, this.send("GET", "/nowhere", null).statusCode());
+        assertEquals(404, this.send("GET", "/jobs/42", null).statusCode());
+        assertEquals(404, this.send("GET", "/jobs/abc/results", null).statusCode());
+        assertEquals(405, this.send("GET", "/games", null).statusCode());
+        assertEquals(405, this.send("POST", "/metrics", "").statusCode());
+        assertEquals(400, this.send("POST", "/games?colour=red", scenario).statusCode());
+        assertEquals(400, this.send("POST", "/games?seed=x", scenario).statusCode());
+        assertEquals(400, this.send("POST", "/games?maxTurns=" + (SimulationServer.MAX_TURN_LIMIT + 1), scenario).statusCode());
+        assertEquals(400, this.send("POST", "/games?maxTurns=0", scenario).statusCode());
+        assertEquals(400, this.send("POST", "/batches?seed=1", scenario).statusCode());
+        assertEquals(400, this.send("POST", "/games", "not a scenario").statusCode());
+    }
+
+    /**
+     * Checks that a full scheduler rejects submissions with a hint to retry, that a running batch is cancelled once,
+     * and that its place is given back once its running chunk has returned.
+     *
+     * @throws Exception If a request fails.
+     */
+    @Test
+    void cancelFreesAdmission() throws Exception {
+        String scenario = Files.readString(SCENARIO);
+        HttpResponse<String> batch = this.send("POST", "/batches?games=100000000", scenario);
+        assertEquals(202, batch.statusCode());
+        String location = batch.headers().firstValue("Location").orElseThrow();
+
+        HttpResponse<String> rejected = this.send("POST", "/games", scenario);
+        assertEquals(503, rejected.statusCode());
+        assertTrue(rejected.headers().firstValue("Retry-After").isPresent());
+
+        HttpResponse<String> cancelled = this.send("DELETE", location, null);
+        assertEquals(200, cancelled.statusCode());
+        assertTrue(cancelled.body().contains("\"state\":\"CANCELLED\""), cancelled.body());
+        assertEquals(409, this.send("DELETE", location, null).statusCode());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        int code;
+        do code = this.send("POST", "/games", scenario).statusCode();
+        while (code == 503 && System.nanoTime() < deadline);
+        assertEquals(202, code);
+    }
+
+    /**
+     * Sends a request to the server.
+     *
+     * @param method The method of the request.
+     * @param path   The path and query of the request.
+     * @param body   The body of the request, null for none.
+     * @return The response.
+     * @throws IOException          If the request fails.
+     * @throws InterruptedException If the test is interrupted while waiting.
+     */
+    private HttpResponse<String> send(String method, String path, String body) throws IOException, InterruptedException {
+        HttpRequest.BodyPublisher publisher = body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body);
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+            .method(method, publisher).timeout(Duration.ofSeconds(TIMEOUT_SECONDS)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
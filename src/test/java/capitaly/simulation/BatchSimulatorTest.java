@@ -0,0 +1,108 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.kernel.OutcomeCache;
+import capitaly.metrics.GameMetrics;
+import capitaly.metrics.MetricsSnapshot;
+import capitaly.player.Strategy;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the games of a batch count into the {@link GameMetrics} on every path of the simulator: one by one on
+ * the game kernel, through an outcome cache, in lockstep and settled by the outcome analyzer. The tests run with the
+ * metrics on, as set up by the build.
+ */
+class BatchSimulatorTest {
+
+    /**
+     * The number of games of every batch.
+     */
+    private static final int GAMES = 2000;
+
+    /**
+     * The number of turns after which a game is abandoned, more than any game of the tests lasts.
+     */
+    private static final int MAX_TURNS = 1_000_000;
+
+    /**
+     * A track with real estate, played by the kernels.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE, TileKind.SERVICE},
+        new int[]{0, 900, 200, 0, 1500}
+    );
+
+    /**
+     * A track without real estate, settled by the analyzer.
+     */
+    private static final TrackSpec CLOSED_FORM = new TrackSpec(
+        new TileKind[]{TileKind.SERVICE, TileKind.LUCK, TileKind.SERVICE}, new int[]{700, 200, 400}
+    );
+
+    /**
+     * The players of the batches, two of them so that every finished game has a single elimination.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL));
+
+    /**
+     * Checks that games played one by one on the game kernel are counted.
+     */
+    @Test
+    void kernelGamesAreCounted() {
+        this.check(new BatchSimulator(TRACK, PLAYERS, RuleSet.STANDARD, MAX_TURNS, true, ForkJoinPool.commonPool(), 1), false);
+    }
+
+    /**
+     * Checks that the moves and eliminations replayed from an outcome cache are counted as if they had been played.
+     */
+    @Test
+    void cachedGamesAreCounted() {
+        OutcomeCache cache = new OutcomeCache(1 << 10, 2);
+        this.check(new BatchSimulator(TRACK, PLAYERS, RuleSet.STANDARD, MAX_TURNS, true, ForkJoinPool.commonPool(), 1, cache), false);
+        assertTrue(cache.getHits() > 0, cache.toString());
+    }
+
+    /**
+     * Checks that games played in lockstep are counted.
+     */
+    @Test
+    void lockstepGamesAreCounted() {
+        this.check(new BatchSimulator(TRACK, PLAYERS, RuleSet.STANDARD, MAX_TURNS, true, ForkJoinPool.commonPool(), 8), false);
+    }
+
+    /**
+     * Checks that games settled by the outcome analyzer are counted, their moves entering no tile by kind.
+     */
+    @Test
+    void settledGamesAreCounted() {
+        this.check(new BatchSimulator(CLOSED_FORM, PLAYERS, RuleSet.STANDARD, MAX_TURNS, true, ForkJoinPool.commonPool(), 1), true);
+    }
+
+    /**
+     * Plays a batch on the current thread and checks that the metrics count its games, moves and eliminations.
+     *
+     * @param simulator The simulator of the batch.
+     * @param settled   Whether the moves are settled without counting the tiles entered.
+     */
+    private void check(BatchSimulator simulator, boolean settled) {
+        assertTrue(GameMetrics.ENABLED, "The tests expect -D" + GameMetrics.PROPERTY + "=true.");
+        GameMetrics.reset();
+        BatchResult result = simulator.runOnCurrentThread(7, GAMES);
+        MetricsSnapshot metrics = GameMetrics.snapshot();
+
+        assertEquals(0, result.getUnfinished());
+        assertEquals(GAMES, metrics.games());
+        assertEquals(GAMES, metrics.eliminations());
+        assertEquals(GAMES, metrics.bankruptcies());
+        assertEquals(Math.round(result.getMeanTurns() * GAMES), metrics.moves());
+        long enters = metrics.enters().values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(settled ? 0 : metrics.moves(), enters);
+    }
+}
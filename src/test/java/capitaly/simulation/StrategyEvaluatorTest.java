@@ -0,0 +1,58 @@
+package capitaly.simulation;
+
+import capitaly.player.Strategy;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that an evaluation stops at its game limit, even one below the batch size.
+ */
+class StrategyEvaluatorTest {
+
+    /**
+     * The track of the evaluations.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 300, 0}
+    );
+
+    /**
+     * The players of the evaluations.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL));
+
+    /**
+     * Checks that a game limit below the batch size plays a single batch cut short to the limit, and that a limit
+     * which is not a multiple of the batch size cuts the last batch short.
+     */
+    @Test
+    void lastBatchIsCutShortToTheLimit() {
+        StrategyEvaluator evaluator = new StrategyEvaluator(TRACK, PLAYERS, 1000, 100);
+        List<Long> progress = new ArrayList<>();
+        StrategyEvaluator.Evaluation evaluation = evaluator.evaluate(1, 1e-9, 30, step -> progress.add(step.games()));
+        assertEquals(List.of(30L), progress);
+        assertEquals(30, evaluation.games());
+        assertFalse(evaluation.converged());
+
+        progress.clear();
+        assertEquals(250, evaluator.evaluate(1, 1e-9, 250, step -> progress.add(step.games())).games());
+        assertEquals(List.of(100L, 200L, 250L), progress);
+    }
+
+    /**
+     * Checks that a game limit or a width that is not positive is rejected.
+     */
+    @Test
+    void invalidLimitsAreRejected() {
+        StrategyEvaluator evaluator = new StrategyEvaluator(TRACK, PLAYERS, 1000, 100);
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(1, 0.1, 0, step -> { }));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate(1, 0, 100, step -> { }));
+    }
+}
@@ -0,0 +1,107 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.RuleSet.Rule;
+import capitaly.io.InvalidInputException;
+import capitaly.player.Strategy;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a sweep resumes from its checkpoint with the same results, and only from the checkpoint of the same
+ * scenario, whose track is recognized by a fingerprint that is the same in every JVM.
+ */
+class SweepRunnerTest {
+
+    /**
+     * The fingerprint of {@link #TRACK}, the CRC-32 of its kinds and amounts, whatever the JVM.
+     */
+    private static final int TRACK_FINGERPRINT = -964884960;
+
+    /**
+     * The track of the sweeps.
+     */
+    private static final TrackSpec TRACK = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 300, 0}
+    );
+
+    /**
+     * The players of the sweeps.
+     */
+    private static final List<PlayerSpec> PLAYERS = List.of(new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL));
+
+    /**
+     * The points of the sweeps.
+     */
+    private static final List<RuleSet> SWEEP = SweepRunner.grid(RuleSet.STANDARD, Map.of(Rule.STARTING_CAPITAL, new int[]{2000, 5000, 8000}));
+
+    /**
+     * Checks that the fingerprint of a track depends on its kinds and amounts only.
+     */
+    @Test
+    void fingerprintIsStable() {
+        assertEquals(TRACK_FINGERPRINT, TRACK.fingerprint());
+        assertEquals(TRACK_FINGERPRINT, new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 300, 0}).fingerprint());
+        assertNotEquals(TRACK_FINGERPRINT, new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 301, 0}).fingerprint());
+    }
+
+    /**
+     * Checks that a runner resuming from a checkpoint plays no point again and returns the same results.
+     *
+     * @param directory The directory of the checkpoint.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    @Test
+    void resumeSkipsCheckpointedPoints(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("sweep.bin");
+        Map<RuleSet, BatchResult> expected;
+        try (SweepRunner runner = new SweepRunner(TRACK, PLAYERS, 1000, 200, 7)) {
+            assertEquals(0, runner.resume(path));
+            expected = runner.run(SWEEP);
+        }
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            in.skipNBytes(Integer.BYTES + Short.BYTES + Integer.BYTES);
+            assertEquals(TRACK_FINGERPRINT, in.readInt(), "fingerprint in the header");
+        }
+
+        try (SweepRunner runner = new SweepRunner(TRACK, PLAYERS, 1000, 200, 7)) {
+            assertEquals(SWEEP.size(), runner.resume(path));
+            assertEquals(SWEEP.size(), runner.getEvaluated());
+            Map<RuleSet, BatchResult> resumed = runner.run(SWEEP);
+            for (RuleSet rules : SWEEP) assertEquals(expected.get(rules).toString(), resumed.get(rules).toString(), rules.toString());
+        }
+    }
+
+    /**
+     * Checks that a runner does not resume from the checkpoint of another track of the same length.
+     *
+     * @param directory The directory of the checkpoint.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    @Test
+    void resumeRejectsAnotherTrack(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("sweep.bin");
+        try (SweepRunner runner = new SweepRunner(TRACK, PLAYERS, 1000, 200, 7)) {
+            runner.resume(path);
+            runner.run(SWEEP.subList(0, 1));
+        }
+
+        TrackSpec other = new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 301, 0});
+        try (SweepRunner runner = new SweepRunner(other, PLAYERS, 1000, 200, 7)) {
+            assertThrows(InvalidInputException.class, () -> runner.resume(path));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package capitaly.simulation;
+
+import capitaly.RuleSet;
+import capitaly.io.InvalidInputException;
+import capitaly.player.Strategy;
+import capitaly.tile.TileKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a tournament resumes from its checkpoint with the same results, and only from the checkpoint of the same
+ * tournament, whose tracks are recognized by fingerprints that are the same in every JVM.
+ */
+class TournamentTest {
+
+    /**
+     * The first track of the tournaments.
+     */
+    private static final TrackSpec FIRST = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 300, 0}
+    );
+
+    /**
+     * The second track of the tournaments.
+     */
+    private static final TrackSpec SECOND = new TrackSpec(
+        new TileKind[]{TileKind.REAL_ESTATE, TileKind.REAL_ESTATE, TileKind.SERVICE}, new int[]{0, 0, 800}
+    );
+
+    /**
+     * The entrants of the tournaments.
+     */
+    private static final List<PlayerSpec> ENTRANTS = List.of(
+        new PlayerSpec("G", Strategy.GREEDY), new PlayerSpec("C", Strategy.CAREFUL), new PlayerSpec("S", Strategy.STRATEGIC)
+    );
+
+    /**
+     * Checks that a tournament resumed from a complete or truncated checkpoint ends as one played at once, and that its
+     * header holds the fingerprints of the tracks.
+     *
+     * @param directory The directory of the checkpoint.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    @Test
+    void resumeMatchesUninterruptedRun(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("tournament.bin");
+        String expected = this.tournament(List.of(FIRST, SECOND)).run().toString();
+        assertEquals(expected, this.tournament(List.of(FIRST, SECOND)).run(path).toString());
+
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path))) {
+            in.skipNBytes(Integer.BYTES + Short.BYTES);
+            for (int entrant = in.readInt(); entrant > 0; entrant--) {
+                in.readByte();
+                in.readUTF();
+            }
+            assertEquals(2, in.readInt(), "track count");
+            for (TrackSpec track : List.of(FIRST, SECOND)) {
+                assertEquals(track.length(), in.readInt(), "track length");
+                assertEquals(track.fingerprint(), in.readInt(), "track fingerprint");
+            }
+        }
+
+        assertEquals(expected, this.tournament(List.of(FIRST, SECOND)).run(path).toString());
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() * 2 / 3);
+        }
+        assertEquals(expected, this.tournament(List.of(FIRST, SECOND)).run(path).toString());
+    }
+
+    /**
+     * Checks that a tournament does not resume from the checkpoint of a tournament on another track of the same length.
+     *
+     * @param directory The directory of the checkpoint.
+     * @throws IOException If the checkpoint cannot be read or written.
+     */
+    @Test
+    void resumeRejectsAnotherTrack(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("tournament.bin");
+        this.tournament(List.of(FIRST)).run(path);
+
+        TrackSpec other = new TrackSpec(new TileKind[]{TileKind.REAL_ESTATE, TileKind.SERVICE, TileKind.LUCK, TileKind.REAL_ESTATE}, new int[]{0, 500, 301, 0});
+        Tournament tournament = this.tournament(List.of(other));
+        assertThrows(InvalidInputException.class, () -> tournament.run(path));
+    }
+
+    /**
+     * Checks that a single entrant, whose rating is not defined, is rejected, and that two entrants get finite ratings
+     * averaging the mean rating even before any game.
+     */
+    @Test
+    void ratingsNeedTwoEntrants() {
+        List<PlayerSpec> alone = ENTRANTS.subList(0, 1);
+        assertThrows(IllegalArgumentException.class, () -> new TournamentResult(alone));
+        assertThrows(IllegalArgumentException.class, () -> new Tournament(List.of(FIRST), alone, RuleSet.STANDARD, 1, 1, 20, 1000, 3, ForkJoinPool.commonPool()));
+
+        double[] ratings = new TournamentResult(ENTRANTS.subList(0, 2)).getRatings();
+        assertEquals(TournamentResult.MEAN_RATING, ratings[0], 1e-9);
+        assertEquals(TournamentResult.MEAN_RATING, ratings[1], 1e-9);
+    }
+
+    /**
+     * Creates a small tournament of the entrants on the given tracks.
+     *
+     * @param tracks The tracks.
+     * @return The tournament.
+     */
+    private Tournament tournament(List<TrackSpec> tracks) {
+        return new Tournament(tracks, ENTRANTS, RuleSet.STANDARD, 2, 3, 20, 1000, 3, ForkJoinPool.commonPool());
+    }
+}
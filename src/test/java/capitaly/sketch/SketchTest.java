@@ -0,0 +1,207 @@
+package capitaly.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the sketches stay within their documented error bounds on known streams, and that merging the sketches
+ * of the parts of a stream gives the sketch of the whole stream.
+ */
+class SketchTest {
+
+    /**
+     * The number of values of the quantile streams.
+     */
+    private static final int VALUES = 1_000_000;
+
+    /**
+     * The number of parts the merged streams are split into.
+     */
+    private static final int PARTS = 8;
+
+    /**
+     * Checks that the distinct counts stay within four standard errors, whatever the duplicates, from a handful of
+     * values, counted by linear counting, to a million.
+     */
+    @Test
+    void distinctCountWithinBounds() {
+        double error = 4 * 1.04 / Math.sqrt(1 << DistinctCounter.DEFAULT_PRECISION);
+        for (int distinct : new int[]{1, 10, 100, 1_000, 10_000, 100_000, 1_000_000}) {
+            DistinctCounter counter = new DistinctCounter();
+            for (int repeat = 0; repeat < 3; repeat++) for (long value = 0; value < distinct; value++) counter.add(value * 7919);
+            double estimate = counter.getEstimate();
+            assertTrue(Math.abs(estimate - distinct) <= Math.max(1, error * distinct), distinct + " distinct values, estimated " + estimate);
+        }
+        assertEquals(0, new DistinctCounter().getEstimate());
+    }
+
+    /**
+     * Checks that merging the counters of overlapping parts of a stream, in any order, gives the counter of the whole
+     * stream, and that counters of other precisions are not merged.
+     */
+    @Test
+    void distinctCountersMergeExactly() {
+        DistinctCounter whole = new DistinctCounter();
+        DistinctCounter[] parts = new DistinctCounter[PARTS];
+        for (int part = 0; part < PARTS; part++) parts[part] = new DistinctCounter();
+        for (long value = 0; value < 200_000; value++) {
+            whole.add(value);
+            parts[(int) (value % PARTS)].add(value);
+            parts[(int) ((value + 1) % PARTS)].add(value);
+        }
+
+        DistinctCounter forward = new DistinctCounter();
+        DistinctCounter backward = new DistinctCounter();
+        for (int part = 0; part < PARTS; part++) {
+            forward.merge(parts[part]);
+            backward.merge(parts[PARTS - 1 - part]);
+        }
+        assertEquals(whole.getEstimate(), forward.getEstimate());
+        assertEquals(whole.getEstimate(), backward.getEstimate());
+        assertThrows(IllegalArgumentException.class, () -> whole.merge(new DistinctCounter(DistinctCounter.DEFAULT_PRECISION + 1)));
+        assertThrows(IllegalArgumentException.class, () -> new DistinctCounter(3));
+    }
+
+    /**
+     * Checks that the frequencies of a skewed stream are never undercounted, and overcounted by more than e/width of
+     * the total for few enough values.
+     */
+    @Test
+    void frequencyWithinBounds() {
+        FrequencySketch sketch = new FrequencySketch(FrequencySketch.DEFAULT_DEPTH, 1 << 10);
+        Map<Long, Long> counts = this.skewedCounts(new Random(24), 200_000);
+        counts.forEach(sketch::add);
+
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        assertEquals(total, sketch.getTotal());
+        double bound = Math.E / (1 << 10) * total;
+        int over = 0;
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            long estimate = sketch.getEstimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "value " + entry.getKey() + " undercounted: " + estimate + " < " + entry.getValue());
+            if (estimate - entry.getValue() > bound) over++;
+        }
+        assertTrue(over <= 0.05 * counts.size(), over + " of " + counts.size() + " values over the bound");
+        assertTrue(sketch.getEstimate(-1) <= bound, "value never added");
+    }
+
+    /**
+     * Checks that merging the sketches of the parts of a stream gives the estimates of the sketch of the whole stream,
+     * and that sketches of other dimensions or negative counts are rejected.
+     */
+    @Test
+    void frequencySketchesMergeExactly() {
+        FrequencySketch whole = new FrequencySketch();
+        FrequencySketch merged = new FrequencySketch();
+        FrequencySketch[] parts = new FrequencySketch[PARTS];
+        for (int part = 0; part < PARTS; part++) parts[part] = new FrequencySketch();
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(5_000);
+            whole.add(value);
+            parts[random.nextInt(PARTS)].add(value);
+        }
+        for (FrequencySketch part : parts) merged.merge(part);
+
+        assertEquals(whole.getTotal(), merged.getTotal());
+        for (long value = 0; value < 5_000; value++) assertEquals(whole.getEstimate(value), merged.getEstimate(value), "value " + value);
+        assertThrows(IllegalArgumentException.class, () -> whole.merge(new FrequencySketch(FrequencySketch.DEFAULT_DEPTH + 1, FrequencySketch.DEFAULT_WIDTH)));
+        assertThrows(IllegalArgumentException.class, () -> whole.add(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> new FrequencySketch(4, 1000));
+    }
+
+    /**
+     * Checks that the quantiles and ranks of a shuffled stream stay within 2% of the count, and that the extremes are
+     * exact.
+     */
+    @Test
+    void quantilesWithinBounds() {
+        QuantileSketch sketch = new QuantileSketch();
+        for (long value : this.shuffled(new Random(3))) sketch.add(value);
+        this.assertQuantiles(sketch);
+    }
+
+    /**
+     * Checks that the merged sketches of the parts of a stream answer within the bounds of a single sketch, with the
+     * exact count and extremes, and that sketches of another k or empty sketches are rejected or ignored.
+     */
+    @Test
+    void quantileSketchesMerge() {
+        QuantileSketch[] parts = new QuantileSketch[PARTS];
+        for (int part = 0; part < PARTS; part++) parts[part] = new QuantileSketch();
+        long[] values = this.shuffled(new Random(5));
+        for (int i = 0; i < values.length; i++) parts[i % PARTS].add(values[i]);
+
+        QuantileSketch merged = new QuantileSketch();
+        merged.merge(new QuantileSketch());
+        for (QuantileSketch part : parts) merged.merge(part);
+        this.assertQuantiles(merged);
+
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(new QuantileSketch(QuantileSketch.DEFAULT_K + 1)));
+        assertThrows(IllegalArgumentException.class, () -> merged.getQuantile(1.5));
+        assertThrows(IllegalStateException.class, () -> new QuantileSketch().getQuantile(0.5));
+    }
+
+    /**
+     * Checks the count, extremes, quantiles and ranks of a sketch of the values from 0 to {@link #VALUES} - 1.
+     *
+     * @param sketch The sketch.
+     */
+    private void assertQuantiles(QuantileSketch sketch) {
+        assertEquals(VALUES, sketch.getCount());
+        assertEquals(0, sketch.getMin());
+        assertEquals(VALUES - 1, sketch.getMax());
+        assertEquals(0, sketch.getQuantile(0));
+        assertEquals(VALUES - 1, sketch.getQuantile(1));
+
+        double error = 0.02 * VALUES;
+        for (int percent = 1; percent < 100; percent++) {
+            double quantile = percent / 100.0;
+            long value = sketch.getQuantile(quantile);
+            assertTrue(Math.abs(value - quantile * VALUES) <= error, "quantile " + quantile + " estimated " + value);
+            double rank = sketch.getRank((long) (quantile * VALUES));
+            assertTrue(Math.abs(rank - quantile) <= 0.02, "rank of " + (long) (quantile * VALUES) + " estimated " + rank);
+        }
+    }
+
+    /**
+     * Returns the values from 0 to {@link #VALUES} - 1, in a random order.
+     *
+     * @param random The source of the order.
+     * @return The values.
+     */
+    private long[] shuffled(Random random) {
+        long[] values = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) values[i] = i;
+        for (int i = VALUES - 1; i > 0; i--) {
+            int other = random.nextInt(i + 1);
+            long swap = values[i];
+            values[i] = values[other];
+            values[other] = swap;
+        }
+        return values;
+    }
+
+    /**
+     * Counts a stream of values where the value i is about four times as frequent as the value 2i.
+     *
+     * @param random The source of the stream.
+     * @param length The number of values of the stream.
+     * @return The count of every value of the stream.
+     */
+    private Map<Long, Long> skewedCounts(Random random, int length) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (int i = 0; i < length; i++) {
+            long value = (long) (1 / (random.nextDouble() + 1e-6));
+            counts.merge(value, 1L, Long::sum);
+        }
+        return counts;
+    }
+}